@@ -3,6 +3,7 @@ package sdg;
 import de.tum.bgu.msm.data.dwelling.Dwelling;
 import de.tum.bgu.msm.data.dwelling.DwellingDataImpl;
 import de.tum.bgu.msm.data.geo.DefaultGeoData;
+import de.tum.bgu.msm.data.geo.PointIndex;
 import de.tum.bgu.msm.io.DwellingReaderTak;
 import de.tum.bgu.msm.io.GeoDataReaderTak;
 import org.geotools.geometry.jts.JTS;
@@ -13,7 +14,6 @@ import org.locationtech.jts.geom.MultiPolygon;
 import org.locationtech.jts.geom.Point;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
-import org.matsim.core.utils.collections.QuadTree;
 import org.matsim.core.utils.geometry.CoordUtils;
 import org.matsim.core.utils.gis.ShapeFileReader;
 import org.matsim.pt.transitSchedule.TransitScheduleFactoryImpl;
@@ -72,33 +72,8 @@ public class TransitStopBufferTak {
         geoDataReaderTak.readZoneShapefile("Z:\\projects\\2018\\DAAD Japan\\Scenarios\\kgw\\aux_files\\zones_KGW.shp");
 
 
-        double minX = Double.POSITIVE_INFINITY;
-        double minY = Double.POSITIVE_INFINITY;
-        double maxX = Double.NEGATIVE_INFINITY;
-        double maxY = Double.NEGATIVE_INFINITY;
-        for (TransitStopFacility stopFacility : stops) {
-            double x = stopFacility.getCoord().getX();
-            double y = stopFacility.getCoord().getY();
-
-            if (x < minX) {
-                minX = x;
-            }
-            if (y < minY) {
-                minY = y;
-            }
-            if (x > maxX) {
-                maxX = x;
-            }
-            if (y > maxY) {
-                maxY = y;
-            }
-        }
-        QuadTree<TransitStopFacility> stopsQT = new QuadTree<>(minX, minY, maxX, maxY);
-        for (TransitStopFacility stopFacility : stops) {
-            double x = stopFacility.getCoord().getX();
-            double y = stopFacility.getCoord().getY();
-            stopsQT.put(x, y, stopFacility);
-        }
+        final PointIndex<TransitStopFacility> stopIndex
+                = new PointIndex<>(stops, stop -> CoordUtils.createGeotoolsCoordinate(stop.getCoord()));
 
 
         for(String result: scenarios) {
@@ -112,7 +87,7 @@ public class TransitStopBufferTak {
                     if(coordinate == null) {
                         coordinate = new Coordinate(((MultiPolygon)geoData.getZones().get(dwelling.getZoneId()).getZoneFeature().getDefaultGeometry()).getCentroid().getCoordinate());
                     }
-                    final double distance = coordinate.distance(CoordUtils.createGeotoolsCoordinate(stopsQT.getClosest(coordinate.x, coordinate.y).getCoord()));
+                    final double distance = coordinate.distance(CoordUtils.createGeotoolsCoordinate(stopIndex.getNearest(coordinate).getCoord()));
                     if (distance < 500) {
                         access++;
                     }
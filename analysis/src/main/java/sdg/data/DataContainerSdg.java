@@ -11,6 +11,7 @@ import de.tum.bgu.msm.data.job.JobDataManager;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.schools.SchoolData;
+import de.tum.bgu.msm.simulator.SetupGraph;
 
 /**
  * @author moeckel
@@ -57,9 +58,9 @@ public class DataContainerSdg extends DefaultDataContainer {
     }
 
     @Override
-    public void setup() {
-        super.setup();
-        schoolData.setup();
+    public void addSetupSteps(SetupGraph graph) {
+        super.addSetupSteps(graph);
+        graph.addStep("SchoolData", schoolData::setup, GEO_DATA);
     }
 
     @Override
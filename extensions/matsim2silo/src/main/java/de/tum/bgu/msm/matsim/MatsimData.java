@@ -3,6 +3,7 @@ package de.tum.bgu.msm.matsim;
 import ch.sbb.matsim.routing.pt.raptor.*;
 import com.google.common.collect.Sets;
 import de.tum.bgu.msm.container.DataContainer;
+import de.tum.bgu.msm.data.Id;
 import de.tum.bgu.msm.data.Zone;
 import de.tum.bgu.msm.properties.Properties;
 import org.matsim.api.core.v01.Scenario;
@@ -28,6 +29,7 @@ import org.matsim.pt.transitSchedule.api.TransitSchedule;
 import org.matsim.vehicles.Vehicles;
 
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 public final class MatsimData {
@@ -55,6 +57,7 @@ public final class MatsimData {
     private Population matsimPopulation;
 
     private ZoneConnectorManager zoneConnectorManager;
+    private ZoneConnectorNodes carConnectorNodes;
     private final static int NUMBER_OF_CALC_POINTS = 1;
 
     public MatsimData(Config config, Properties properties,
@@ -111,12 +114,31 @@ public final class MatsimData {
 
         this.carNetwork = carNetwork;
         this.ptNetwork = ptNetwork;
+        this.carConnectorNodes = null;
     }
 
     ZoneConnectorManager getZoneConnectorManager() {
         return zoneConnectorManager;
     }
 
+    /**
+     * Returns the nearest car network nodes of the zone connectors. The nodes are resolved once per
+     * car network and only resolved again if zones are requested that are not yet covered.
+     */
+    synchronized ZoneConnectorNodes getCarConnectorNodes(Collection<? extends Id> zones) {
+        if (carConnectorNodes == null || !carConnectorNodes.containsAll(zones)) {
+            final Set<Integer> zoneIds = new LinkedHashSet<>();
+            if (carConnectorNodes != null) {
+                zoneIds.addAll(carConnectorNodes.getZoneIds());
+            }
+            for (Id zone : zones) {
+                zoneIds.add(zone.getId());
+            }
+            carConnectorNodes = new ZoneConnectorNodes(carNetwork, zoneConnectorManager, zoneIds);
+        }
+        return carConnectorNodes;
+    }
+
     public Network getCarNetwork() {
         return carNetwork;
     }
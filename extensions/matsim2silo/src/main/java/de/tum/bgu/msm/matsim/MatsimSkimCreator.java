@@ -1,17 +1,14 @@
 package de.tum.bgu.msm.matsim;
 
 import ch.sbb.matsim.routing.pt.raptor.*;
-import com.google.common.collect.Iterables;
 import de.tum.bgu.msm.util.concurrent.ConcurrentExecutor;
 import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
-import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.PlanElement;
-import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.router.*;
 import org.matsim.core.utils.geometry.CoordUtils;
 import org.matsim.facilities.ActivityFacilitiesFactory;
@@ -21,7 +18,16 @@ import org.matsim.facilities.Facility;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
 
 import java.util.*;
-
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Calculates zone to zone skims from the MATSim network and schedule. The write methods pass each row to
+ * {@link SkimRows} as soon as it is calculated, e.g. to {@link de.tum.bgu.msm.data.MappedSkimTravelTimes.Writer},
+ * which stores the rows as floats in a skim file without holding the skim on the heap. The create methods
+ * collect the rows in an {@link IndexedDoubleMatrix2D} of doubles, because the skim travel times only take
+ * matrices of that type.
+ */
 public class MatsimSkimCreator {
 
     private final static Logger logger = Logger.getLogger(MatsimSkimCreator.class);
@@ -32,57 +38,37 @@ public class MatsimSkimCreator {
         this.matsimData = provider;
     }
 
-    public IndexedDoubleMatrix2D createCarSkim(Collection<? extends de.tum.bgu.msm.data.Id> zones, int numberOfThreads, double peakHour_s) {
-        final int partitionSize = (int) ((double) zones.size() / numberOfThreads) + 1;
-        Iterable<? extends List<? extends de.tum.bgu.msm.data.Id>> partitions = Iterables.partition(zones, partitionSize);
-
-        IndexedDoubleMatrix2D skim = new IndexedDoubleMatrix2D(zones, zones);
-        Network carNetwork = matsimData.getCarNetwork();
-        ConcurrentExecutor<Void> executor = ConcurrentExecutor.fixedPoolService(numberOfThreads);
-        for (final List<? extends de.tum.bgu.msm.data.Id> partition : partitions) {
-            executor.addTaskToQueue(() -> {
-                try {
-                    MultiNodePathCalculator calculator = matsimData.createMultiNodePathCalculator();
-                    Set<InitialNode> toNodes = new HashSet<>();
-                    for (de.tum.bgu.msm.data.Id zone : zones) {
-                        for (Coord coord : matsimData.getZoneConnectorManager().getCoordsForZone(zone.getId())) {
-                            Node originNode = NetworkUtils.getNearestNode(carNetwork, coord);
-                            toNodes.add(new InitialNode(originNode, 0., 0.));
-                        }
-                    }
-
-                    ImaginaryNode aggregatedToNodes = MultiNodeDijkstra.createImaginaryNode(toNodes);
-
-                    for (de.tum.bgu.msm.data.Id origin : partition) {
-                        Node originNode = NetworkUtils.getNearestNode(carNetwork, matsimData.getZoneConnectorManager().getCoordsForZone(origin.getId()).get(0));
-                        calculator.calcLeastCostPath(originNode, aggregatedToNodes, peakHour_s, null, null);
-                        for (de.tum.bgu.msm.data.Id destination : zones) {
-                            Node destinationNode = NetworkUtils.getNearestNode(carNetwork, matsimData.getZoneConnectorManager().getCoordsForZone(destination.getId()).get(0));
-                            double travelTime = calculator.constructPath(originNode, destinationNode, peakHour_s).travelTime;
-
-                            //convert to minutes
-                            travelTime /= 60.;
+    /**
+     * Receives the rows of a skim, the travel times in minutes from one origin to all zones in the order of
+     * the zones the skim is created for. Rows of different origins are passed by several threads at the same
+     * time, and the array of a row is reused for the next row of the same thread.
+     */
+    public interface SkimRows {
+        void setRow(de.tum.bgu.msm.data.Id origin, double[] travelTimes);
+    }
 
-                            skim.setIndexed(origin.getId(), destination.getId(), travelTime);
-                        }
-                    }
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-                return null;
-            });
-        }
-        executor.execute();
-        assignIntrazonals(5, Float.MAX_VALUE, 0.66f, skim);
+    public IndexedDoubleMatrix2D createCarSkim(Collection<? extends de.tum.bgu.msm.data.Id> zones, int numberOfThreads, double peakHour_s) {
+        final IndexedDoubleMatrix2D skim = new IndexedDoubleMatrix2D(zones, zones);
+        writeCarSkim(zones, numberOfThreads, peakHour_s, matrixRows(zones, skim));
         return skim;
     }
 
+    public void writeCarSkim(Collection<? extends de.tum.bgu.msm.data.Id> zones, int numberOfThreads, double peakHour_s,
+                             SkimRows rows) {
+        writeNetworkSkim(zones, numberOfThreads, peakHour_s, 1., matsimData::createMultiNodePathCalculator, rows);
+    }
+
     public IndexedDoubleMatrix2D createPtSkim(Collection<? extends de.tum.bgu.msm.data.Id> zones, int numberOfThreads,
                                               double peakHour_s) {
-        final int partitionSize = (int) ((double) zones.size() / numberOfThreads) + 1;
-        Iterable<? extends List<? extends de.tum.bgu.msm.data.Id>> partitions = Iterables.partition(zones, partitionSize);
+        final IndexedDoubleMatrix2D skim = new IndexedDoubleMatrix2D(zones, zones);
+        writePtSkim(zones, numberOfThreads, peakHour_s, matrixRows(zones, skim));
+        return skim;
+    }
 
-        IndexedDoubleMatrix2D skim = new IndexedDoubleMatrix2D(zones, zones);
+    public void writePtSkim(Collection<? extends de.tum.bgu.msm.data.Id> zones, int numberOfThreads,
+                            double peakHour_s, SkimRows rows) {
+        final List<? extends de.tum.bgu.msm.data.Id> zoneList = new ArrayList<>(zones);
+        final int partitionSize = (int) ((double) zones.size() / numberOfThreads) + 1;
 
         //compute closest egress stops per zone
         SwissRailRaptorData raptorData = matsimData.getRaptorData(RaptorStaticConfig.RaptorOptimization.OneToAllRouting);
@@ -102,12 +88,17 @@ public class MatsimSkimCreator {
             stopsPerZone.put(zone, stops);
         }
 
+        final AtomicInteger nonIntrazonalCounter = new AtomicInteger();
         ConcurrentExecutor<Void> executor = ConcurrentExecutor.fixedPoolService(numberOfThreads);
-        for (final List<? extends de.tum.bgu.msm.data.Id> partition : partitions) {
+        for (int partitionStart = 0; partitionStart < zoneList.size(); partitionStart += partitionSize) {
+            final int from = partitionStart;
+            final int to = Math.min(partitionStart + partitionSize, zoneList.size());
             executor.addTaskToQueue(() -> {
                 try {
                     SwissRailRaptor raptor = matsimData.createSwissRailRaptor(RaptorStaticConfig.RaptorOptimization.OneToAllRouting);
-                    for (de.tum.bgu.msm.data.Id origin : partition) {
+                    final double[] row = new double[zoneList.size()];
+                    for (int o = from; o < to; o++) {
+                        final de.tum.bgu.msm.data.Id origin = zoneList.get(o);
                         final Coord fromCoord = matsimData.getZoneConnectorManager().getCoordsForZone(origin.getId()).get(0);
                         Facility fromFacility = ((ActivityFacilitiesFactory) activityFacilitiesFactory).createActivityFacility(Id.create(1, ActivityFacility.class), fromCoord);
 
@@ -115,9 +106,11 @@ public class MatsimSkimCreator {
                         //start stops accessible from the connector
                         final Map<Id<TransitStopFacility>, SwissRailRaptorCore.TravelInfo> idTravelInfoMap
                                 = raptor.calcTree(fromFacility, peakHour_s, null, null);
-                        for (de.tum.bgu.msm.data.Id destination : zones) {
+                        for (int d = 0; d < zoneList.size(); d++) {
+                            final de.tum.bgu.msm.data.Id destination = zoneList.get(d);
                             if (origin.equals(destination)) {
                                 //Intrazonals will be assigned afterwards
+                                row[d] = 0;
                                 continue;
                             }
 
@@ -145,8 +138,10 @@ public class MatsimSkimCreator {
 
                             //convert to minutes
                             travelTime /= 60.;
-                            skim.setIndexed(origin.getId(), destination.getId(), travelTime);
+                            row[d] = travelTime;
                         }
+                        nonIntrazonalCounter.addAndGet(assignIntrazonals(5, Float.MAX_VALUE, 0.66f, o, row));
+                        rows.setRow(origin, row);
                     }
                 } catch (Exception e) {
                     throw new RuntimeException(e);
@@ -155,25 +150,34 @@ public class MatsimSkimCreator {
             });
         }
         executor.execute();
-        assignIntrazonals(5, Float.MAX_VALUE, 0.66f, skim);
-        return skim;
+        logIntrazonals(5, nonIntrazonalCounter.get());
     }
 
     public IndexedDoubleMatrix2D createTeleportedSkim(Collection<? extends de.tum.bgu.msm.data.Id> zones, String mode,
                                                       int numberOfThreads, double peakHour_s) {
+        final IndexedDoubleMatrix2D skim = new IndexedDoubleMatrix2D(zones, zones);
+        writeTeleportedSkim(zones, mode, numberOfThreads, peakHour_s, matrixRows(zones, skim));
+        return skim;
+    }
 
+    public void writeTeleportedSkim(Collection<? extends de.tum.bgu.msm.data.Id> zones, String mode,
+                                    int numberOfThreads, double peakHour_s, SkimRows rows) {
+        final List<? extends de.tum.bgu.msm.data.Id> zoneList = new ArrayList<>(zones);
         final int partitionSize = (int) ((double) zones.size() / numberOfThreads) + 1;
-        Iterable<? extends List<? extends de.tum.bgu.msm.data.Id>> partitions = Iterables.partition(zones, partitionSize);
-
-        IndexedDoubleMatrix2D skim = new IndexedDoubleMatrix2D(zones, zones);
 
+        final AtomicInteger nonIntrazonalCounter = new AtomicInteger();
         ConcurrentExecutor<Void> executor = ConcurrentExecutor.fixedPoolService(numberOfThreads);
-        for (final List<? extends de.tum.bgu.msm.data.Id> partition : partitions) {
+        for (int partitionStart = 0; partitionStart < zoneList.size(); partitionStart += partitionSize) {
+            final int from = partitionStart;
+            final int to = Math.min(partitionStart + partitionSize, zoneList.size());
             executor.addTaskToQueue(() -> {
                 try {
                     final RoutingModule teleportationRouter = matsimData.getTeleportationRouter(mode);
-                    for (de.tum.bgu.msm.data.Id origin : partition) {
-                        for (de.tum.bgu.msm.data.Id destination : zones) {
+                    final double[] row = new double[zoneList.size()];
+                    for (int o = from; o < to; o++) {
+                        final de.tum.bgu.msm.data.Id origin = zoneList.get(o);
+                        for (int d = 0; d < zoneList.size(); d++) {
+                            final de.tum.bgu.msm.data.Id destination = zoneList.get(d);
                             Coord originCoord = matsimData.getZoneConnectorManager().getCoordsForZone(origin.getId()).get(0);
                             Coord destinationCoord = matsimData.getZoneConnectorManager().getCoordsForZone(destination.getId()).get(0);
 
@@ -195,8 +199,10 @@ public class MatsimSkimCreator {
 
                             //convert to minutes
                             time /= 60.;
-                            skim.setIndexed(origin.getId(), destination.getId(), time);
+                            row[d] = time;
                         }
+                        nonIntrazonalCounter.addAndGet(assignIntrazonals(5, Float.MAX_VALUE, 0.66f, o, row));
+                        rows.setRow(origin, row);
                     }
                 } catch (Exception e) {
                     throw new RuntimeException(e);
@@ -205,38 +211,51 @@ public class MatsimSkimCreator {
             });
         }
         executor.execute();
-        assignIntrazonals(5, Float.MAX_VALUE, 0.66f, skim);
-        return skim;
+        logIntrazonals(5, nonIntrazonalCounter.get());
     }
 
     public IndexedDoubleMatrix2D createFreeSpeedFactorSkim(Collection<? extends de.tum.bgu.msm.data.Id> zones,
                                                            double factor, int numberOfThreads, double peakHour_s) {
-        final int partitionSize = (int) ((double) zones.size() / numberOfThreads) + 1;
-        Iterable<? extends List<? extends de.tum.bgu.msm.data.Id>> partitions = Iterables.partition(zones, partitionSize);
+        final IndexedDoubleMatrix2D skim = new IndexedDoubleMatrix2D(zones, zones);
+        writeFreeSpeedFactorSkim(zones, factor, numberOfThreads, peakHour_s, matrixRows(zones, skim));
+        return skim;
+    }
+
+    public void writeFreeSpeedFactorSkim(Collection<? extends de.tum.bgu.msm.data.Id> zones, double factor,
+                                         int numberOfThreads, double peakHour_s, SkimRows rows) {
+        writeNetworkSkim(zones, numberOfThreads, peakHour_s, factor, matsimData::createFreeSpeedMultiNodePathCalculator, rows);
+    }
 
-        IndexedDoubleMatrix2D skim = new IndexedDoubleMatrix2D(zones, zones);
-        Network carNetwork = matsimData.getCarNetwork();
+    /**
+     * Routes on the car network from the main node of each zone to the connector nodes of all zones.
+     * The nearest nodes of the zone connectors are taken from the shared cache in {@link MatsimData},
+     * so that no spatial lookups are done while routing. Each task passes the travel times in minutes
+     * of its origins row by row to the skim rows, the rows of the tasks are disjoint.
+     */
+    private void writeNetworkSkim(Collection<? extends de.tum.bgu.msm.data.Id> zones, int numberOfThreads,
+                                  double peakHour_s, double factor,
+                                  Supplier<MultiNodePathCalculator> calculatorSupplier, SkimRows rows) {
+        final List<? extends de.tum.bgu.msm.data.Id> zoneList = new ArrayList<>(zones);
+        final ZoneConnectorNodes connectorNodes = matsimData.getCarConnectorNodes(zoneList);
+        final Node[] mainNodes = connectorNodes.getMainNodes(zoneList);
+
+        final AtomicInteger nonIntrazonalCounter = new AtomicInteger();
+        final int partitionSize = (int) ((double) zoneList.size() / numberOfThreads) + 1;
         ConcurrentExecutor<Void> executor = ConcurrentExecutor.fixedPoolService(numberOfThreads);
-        for (final List<? extends de.tum.bgu.msm.data.Id> partition : partitions) {
+        for (int partitionStart = 0; partitionStart < zoneList.size(); partitionStart += partitionSize) {
+            final int from = partitionStart;
+            final int to = Math.min(partitionStart + partitionSize, zoneList.size());
             executor.addTaskToQueue(() -> {
                 try {
-                    MultiNodePathCalculator calculator = matsimData.createFreeSpeedMultiNodePathCalculator();
-                    Set<InitialNode> toNodes = new HashSet<>();
-                    for (de.tum.bgu.msm.data.Id zone : zones) {
-                        for (Coord coord : matsimData.getZoneConnectorManager().getCoordsForZone(zone.getId())) {
-                            Node originNode = NetworkUtils.getNearestNode(carNetwork, coord);
-                            toNodes.add(new InitialNode(originNode, 0., 0.));
-                        }
-                    }
-
-                    ImaginaryNode aggregatedToNodes = MultiNodeDijkstra.createImaginaryNode(toNodes);
+                    MultiNodePathCalculator calculator = calculatorSupplier.get();
+                    ImaginaryNode aggregatedToNodes = MultiNodeDijkstra.createImaginaryNode(connectorNodes.getAllNodes());
+                    final double[] row = new double[mainNodes.length];
 
-                    for (de.tum.bgu.msm.data.Id origin : partition) {
-                        Node originNode = NetworkUtils.getNearestNode(carNetwork, matsimData.getZoneConnectorManager().getCoordsForZone(origin.getId()).get(0));
+                    for (int origin = from; origin < to; origin++) {
+                        final Node originNode = mainNodes[origin];
                         calculator.calcLeastCostPath(originNode, aggregatedToNodes, peakHour_s, null, null);
-                        for (de.tum.bgu.msm.data.Id destination : zones) {
-                            Node destinationNode = NetworkUtils.getNearestNode(carNetwork, matsimData.getZoneConnectorManager().getCoordsForZone(destination.getId()).get(0));
-                            double travelTime = calculator.constructPath(originNode, destinationNode, peakHour_s).travelTime;
+                        for (int destination = 0; destination < mainNodes.length; destination++) {
+                            double travelTime = calculator.constructPath(originNode, mainNodes[destination], peakHour_s).travelTime;
 
                             //adjust by factor
                             travelTime *= factor;
@@ -244,8 +263,10 @@ public class MatsimSkimCreator {
                             //convert to minutes
                             travelTime /= 60.;
 
-                            skim.setIndexed(origin.getId(), destination.getId(), travelTime);
+                            row[destination] = travelTime;
                         }
+                        nonIntrazonalCounter.addAndGet(assignIntrazonals(5, Float.MAX_VALUE, 0.66f, origin, row));
+                        rows.setRow(zoneList.get(origin), row);
                     }
                 } catch (Exception e) {
                     throw new RuntimeException(e);
@@ -254,53 +275,74 @@ public class MatsimSkimCreator {
             });
         }
         executor.execute();
-        assignIntrazonals(5, Float.MAX_VALUE, 0.66f, skim);
-        return skim;
+        logIntrazonals(5, nonIntrazonalCounter.get());
+    }
+
+    /**
+     * @return skim rows that are set into the given matrix of the zones
+     */
+    public static SkimRows matrixRows(Collection<? extends de.tum.bgu.msm.data.Id> zones, IndexedDoubleMatrix2D skim) {
+        final int[] zoneIds = zones.stream().mapToInt(de.tum.bgu.msm.data.Id::getId).toArray();
+        return (origin, travelTimes) -> {
+            for (int destination = 0; destination < zoneIds.length; destination++) {
+                skim.setIndexed(origin.getId(), zoneIds[destination], travelTimes[destination]);
+            }
+        };
     }
 
     //TODO: copied from MITO car skim updater...maybe provide a utility function there
-    private void assignIntrazonals(int numberOfNeighbours, float maximumMinutes, float proportionOfTime, IndexedDoubleMatrix2D skim) {
+    /**
+     * Fills the cells of the row with a travel time of 0, the intrazonal travel time and cells without a
+     * route, with a share of the average travel time to the nearest neighbours. Like the MITO car skim updater
+     * this was copied from, the first zone is left out as origin and as destination.
+     *
+     * @return the number of cells that were filled besides the intrazonal cell
+     */
+    private static int assignIntrazonals(int numberOfNeighbours, float maximumMinutes, float proportionOfTime,
+                                         int origin, double[] row) {
+        if (origin == 0) {
+            return 0;
+        }
         int nonIntrazonalCounter = 0;
-        for (int i = 1; i < skim.columns(); i++) {
-            int i_id = skim.getIdForInternalColumnIndex(i);
-            double[] minTimeValues = new double[numberOfNeighbours];
-            for (int k = 0; k < numberOfNeighbours; k++) {
-                minTimeValues[k] = maximumMinutes;
-            }
-            //find the  n closest neighbors - the lower travel time values in the matrix column
-            for (int j = 1; j < skim.rows(); j++) {
-                int j_id = skim.getIdForInternalRowIndex(j);
-                int minimumPosition = 0;
-                while (minimumPosition < numberOfNeighbours) {
-                    if (minTimeValues[minimumPosition] > skim.getIndexed(i_id, j_id) && skim.getIndexed(i_id, j_id) != 0) {
-                        for (int k = numberOfNeighbours - 1; k > minimumPosition; k--) {
-                            minTimeValues[k] = minTimeValues[k - 1];
-                        }
-                        minTimeValues[minimumPosition] = skim.getIndexed(i_id, j_id);
-                        break;
+        double[] minTimeValues = new double[numberOfNeighbours];
+        for (int k = 0; k < numberOfNeighbours; k++) {
+            minTimeValues[k] = maximumMinutes;
+        }
+        //find the  n closest neighbors - the lower travel time values in the matrix row
+        for (int j = 1; j < row.length; j++) {
+            int minimumPosition = 0;
+            while (minimumPosition < numberOfNeighbours) {
+                if (minTimeValues[minimumPosition] > row[j] && row[j] != 0) {
+                    for (int k = numberOfNeighbours - 1; k > minimumPosition; k--) {
+                        minTimeValues[k] = minTimeValues[k - 1];
                     }
-                    minimumPosition++;
+                    minTimeValues[minimumPosition] = row[j];
+                    break;
                 }
+                minimumPosition++;
             }
-            double globalMinTime = 0;
-            for (int k = 0; k < numberOfNeighbours; k++) {
-                globalMinTime += minTimeValues[k];
-            }
-            globalMinTime = globalMinTime / numberOfNeighbours * proportionOfTime;
-
-            //fill with the calculated value the cells with zero
-            for (int j = 1; j < skim.rows(); j++) {
-                int j_id = skim.getIdForInternalColumnIndex(j);
-                if (skim.getIndexed(i_id, j_id) == 0) {
-                    skim.setIndexed(i_id, j_id, globalMinTime);
-                    if (i != j) {
-                        nonIntrazonalCounter++;
-                    }
+        }
+        double globalMinTime = 0;
+        for (int k = 0; k < numberOfNeighbours; k++) {
+            globalMinTime += minTimeValues[k];
+        }
+        globalMinTime = globalMinTime / numberOfNeighbours * proportionOfTime;
+
+        //fill with the calculated value the cells with zero
+        for (int j = 1; j < row.length; j++) {
+            if (row[j] == 0) {
+                row[j] = globalMinTime;
+                if (origin != j) {
+                    nonIntrazonalCounter++;
                 }
             }
         }
+        return nonIntrazonalCounter;
+    }
+
+    private static void logIntrazonals(int numberOfNeighbours, int nonIntrazonalCounter) {
         logger.info("Calculated intrazonal times and distances using the " + numberOfNeighbours + " nearest neighbours.");
         logger.info("The calculation of intrazonals has also assigned values for cells with travel time equal to 0, that are not intrazonal: (" +
                 nonIntrazonalCounter + " cases).");
     }
-}
\ No newline at end of file
+}
@@ -19,6 +19,8 @@
 package de.tum.bgu.msm.matsim;
 
 import de.tum.bgu.msm.container.DataContainer;
+import de.tum.bgu.msm.data.MappedSkimTravelTimes;
+import de.tum.bgu.msm.data.geo.GeoData;
 import de.tum.bgu.msm.data.household.Household;
 import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
@@ -47,7 +49,10 @@ import org.matsim.vehicles.VehicleUtils;
 import org.matsim.vehicles.Vehicles;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -129,7 +134,7 @@ public final class MatsimTransportModel implements TransportModel {
             //if using the SimpleCommuteModeChoiceScenarioAssembler, we need some initial travel times (this will use an unlodaded network)
             TravelTime myTravelTime = SiloMatsimUtils.getAnEmptyNetworkTravelTime();
             TravelDisutility myTravelDisutility = SiloMatsimUtils.getAnEmptyNetworkTravelDisutility();
-            updateTravelTimes(myTravelTime, myTravelDisutility);
+            updateTravelTimes(myTravelTime, myTravelDisutility, year);
         }
 
         for (Household household: dataContainer.getHouseholdDataManager().getHouseholds()) {
@@ -167,7 +172,7 @@ public final class MatsimTransportModel implements TransportModel {
         logger.warn("Using MATSim to compute travel times from zone to zone.");
         TravelTime travelTime = controler.getLinkTravelTimes();
         TravelDisutility travelDisutility = controler.getTravelDisutilityFactory().createTravelDisutility(travelTime);
-        updateTravelTimes(travelTime, travelDisutility);
+        updateTravelTimes(travelTime, travelDisutility, year);
     }
 
     private void finalizeConfig(Config config, int year) {
@@ -188,14 +193,19 @@ public final class MatsimTransportModel implements TransportModel {
         Scenario scenario = ScenarioUtils.loadScenario(initialMatsimConfig);
         TravelTime travelTime = TravelTimeUtils.createTravelTimesFromEvents(scenario.getNetwork(), scenario.getConfig(), eventsFile);
         TravelDisutility travelDisutility = ControlerDefaults.createDefaultTravelDisutilityFactory(scenario).createTravelDisutility(travelTime);
-        updateTravelTimes(travelTime, travelDisutility);
+        updateTravelTimes(travelTime, travelDisutility, properties.main.startYear);
     }
 
-    private void updateTravelTimes(TravelTime travelTime, TravelDisutility disutility) {
+    private void updateTravelTimes(TravelTime travelTime, TravelDisutility disutility, int year) {
         matsimData.update(disutility, travelTime);
-        internalTravelTimes.update(matsimData);
         final TravelTimes mainTravelTimes = dataContainer.getTravelTimes();
 
+        if (mainTravelTimes instanceof MappedSkimTravelTimes) {
+            internalTravelTimes.updateRouting(matsimData);
+            updateMappedSkims((MappedSkimTravelTimes) mainTravelTimes, year);
+            return;
+        }
+        internalTravelTimes.update(matsimData);
         if (mainTravelTimes != this.internalTravelTimes && mainTravelTimes instanceof SkimTravelTimes) {
             ((SkimTravelTimes) mainTravelTimes).updateSkimMatrix(internalTravelTimes.getPeakSkim(TransportMode.car), TransportMode.car);
             if ((properties.transportModel.transportModelIdentifier == TransportModelIdentifier.MATSIM)) {
@@ -203,6 +213,30 @@ public final class MatsimTransportModel implements TransportModel {
             }
             ((SkimTravelTimes) mainTravelTimes).updateRegionalTravelTimes(dataContainer.getGeoData().getRegions().values(),
                     dataContainer.getGeoData().getZones().values());
+        }
     }
+
+    /**
+     * Writes the simulated skims row by row into a skim file of the scenario output while they are calculated,
+     * so that they are not held on the heap, and maps it. Without a MATSim pt simulation, the pt skim is copied
+     * from the currently mapped skims.
+     */
+    private void updateMappedSkims(MappedSkimTravelTimes mappedTravelTimes, int year) {
+        final GeoData geoData = dataContainer.getGeoData();
+        final Path mappedSkimFile = Paths.get(properties.accessibility.simulatedMappedSkimFile(year));
+        logger.info("Writing simulated skims of " + year + " to " + mappedSkimFile);
+        try (MappedSkimTravelTimes.Writer writer = MappedSkimTravelTimes.writer(mappedSkimFile,
+                geoData.getZones().values(), geoData.getRegions().values(), Arrays.asList(TransportMode.car, TransportMode.pt))) {
+            internalTravelTimes.writeSkim(TransportMode.car,
+                    (origin, travelTimes) -> writer.writeRow(TransportMode.car, origin.getId(), travelTimes));
+            if (properties.transportModel.transportModelIdentifier == TransportModelIdentifier.MATSIM) {
+                internalTravelTimes.writeSkim(TransportMode.pt,
+                        (origin, travelTimes) -> writer.writeRow(TransportMode.pt, origin.getId(), travelTimes));
+            } else {
+                writer.copyRows(TransportMode.pt, mappedTravelTimes);
+            }
+            writer.finish(properties.main.numberOfThreads);
+        }
+        mappedTravelTimes.load(mappedSkimFile, geoData.getZones().values());
     }
 }
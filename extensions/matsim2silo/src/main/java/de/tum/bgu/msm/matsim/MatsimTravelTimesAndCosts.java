@@ -4,6 +4,7 @@ import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptorRoutingModule;
 import de.tum.bgu.msm.data.Location;
 import de.tum.bgu.msm.data.MicroLocation;
 import de.tum.bgu.msm.data.Region;
+import de.tum.bgu.msm.data.RegionalTravelTimes;
 import de.tum.bgu.msm.data.Zone;
 import de.tum.bgu.msm.data.geo.GeoData;
 import de.tum.bgu.msm.data.person.Person;
@@ -47,8 +48,7 @@ public final class MatsimTravelTimesAndCosts implements TravelTimes {
 
     private TripRouter tripRouter;
 
-    private final Map<String, IndexedDoubleMatrix2D> travelTimesFromRegion = new LinkedHashMap<>();
-    private final Map<String, IndexedDoubleMatrix2D> travelTimesToRegion = new LinkedHashMap<>();
+    private RegionalTravelTimes regionalTravelTimes;
     private Collection<Region> regions;
 
     private final Config config;
@@ -64,13 +64,20 @@ public final class MatsimTravelTimesAndCosts implements TravelTimes {
     }
 
     public void update(MatsimData matsimData) {
+        updateRouting(matsimData);
+        updateSkims();
+        updateRegionalTravelTimes();
+    }
+
+    /**
+     * Updates the routing to the given MATSim data without calculating the skims, for transport models whose
+     * skims are written by {@link #writeSkim} instead. Skims are calculated and kept if they are requested.
+     */
+    public void updateRouting(MatsimData matsimData) {
         this.matsimData = matsimData;
         this.tripRouter = matsimData.createTripRouter();
         this.skimsByMode.clear();
-        this.travelTimesFromRegion.clear();
-        this.travelTimesToRegion.clear();
-        updateSkims();
-        updateRegionalTravelTimes();
+        this.regionalTravelTimes = null;
     }
 
     private void updateSkims() {
@@ -80,48 +87,8 @@ public final class MatsimTravelTimesAndCosts implements TravelTimes {
     }
 
     private void updateRegionalTravelTimes() {
-        logger.info("Updating minimal zone to region travel times...");
-        IndexedDoubleMatrix2D travelTimesFromRegionCar = new IndexedDoubleMatrix2D(regions, zones.values());
-        IndexedDoubleMatrix2D travelTimesToRegionCar = new IndexedDoubleMatrix2D(zones.values(), regions);
-        IndexedDoubleMatrix2D travelTimesFromRegionPt = new IndexedDoubleMatrix2D(regions, zones.values());
-        IndexedDoubleMatrix2D travelTimesToRegionPt = new IndexedDoubleMatrix2D(zones.values(), regions);
-
-        regions.parallelStream().forEach( r -> {
-            for(Zone zone: zones.values()) {
-                int zoneId = zone.getZoneId();
-                double minFromCar = Double.MAX_VALUE;
-                double minToCar = Double.MAX_VALUE;
-                double minFromPt = Double.MAX_VALUE;
-                double minToPt = Double.MAX_VALUE;
-
-                for (Zone zoneInRegion : r.getZones()) {
-                    double travelTimeFromRegionCar = getPeakSkim(TransportMode.car).getIndexed(zoneInRegion.getZoneId(), zoneId);
-                    if (travelTimeFromRegionCar < minFromCar) {
-                        minFromCar = travelTimeFromRegionCar;
-                    }
-                    double travelTimeToRegionCar = getPeakSkim(TransportMode.car).getIndexed(zoneId, zoneInRegion.getZoneId());
-                    if (travelTimeToRegionCar < minToCar) {
-                        minToCar = travelTimeToRegionCar;
-                    }
-                    double travelTimeFromRegionPt = getPeakSkim(TransportMode.pt).getIndexed(zoneInRegion.getZoneId(), zoneId);
-                    if (travelTimeFromRegionPt < minFromPt) {
-                        minFromPt = travelTimeFromRegionPt;
-                    }
-                    double travelTimeToRegionPt = getPeakSkim(TransportMode.pt).getIndexed(zoneId, zoneInRegion.getZoneId());
-                    if (travelTimeToRegionPt < minToPt) {
-                        minToPt = travelTimeToRegionPt;
-                    }
-                }
-                travelTimesFromRegionCar.setIndexed(r.getId(), zoneId, minFromCar);
-                travelTimesToRegionCar.setIndexed(zoneId, r.getId(), minToCar);
-                travelTimesFromRegionPt.setIndexed(r.getId(), zoneId, minFromPt);
-                travelTimesToRegionPt.setIndexed(zoneId, r.getId(), minToPt);
-            }
-        });
-        travelTimesFromRegion.put(TransportMode.car, travelTimesFromRegionCar);
-        travelTimesFromRegion.put(TransportMode.pt, travelTimesFromRegionPt);
-        travelTimesToRegion.put(TransportMode.car, travelTimesToRegionCar);
-        travelTimesToRegion.put(TransportMode.pt, travelTimesToRegionPt);
+        regionalTravelTimes = RegionalTravelTimes.calculate(this, Arrays.asList(TransportMode.car, TransportMode.pt),
+                zones.values(), regions, Properties.get().main.numberOfThreads);
     }
 
     @Override
@@ -231,12 +198,12 @@ public final class MatsimTravelTimesAndCosts implements TravelTimes {
 
     @Override
     public double getTravelTimeFromRegion(Region origin, Zone destination, double timeOfDay_s, String mode) {
-        return travelTimesFromRegion.get(mode).getIndexed(origin.getId(), destination.getZoneId());
+        return regionalTravelTimes.getTravelTimeFromRegion(origin.getId(), destination.getZoneId(), mode);
     }
 
     @Override
     public double getTravelTimeToRegion(Zone origin, Region destination, double timeOfDay_s, String mode) {
-        return travelTimesToRegion.get(mode).getIndexed(origin.getZoneId(), destination.getId());
+        return regionalTravelTimes.getTravelTimeToRegion(origin.getZoneId(), destination.getId(), mode);
     }
 
     @Override
@@ -244,38 +211,46 @@ public final class MatsimTravelTimesAndCosts implements TravelTimes {
         if (skimsByMode.containsKey(mode)) {
             return skimsByMode.get(mode);
         } else {
-            logger.info("Calculating skim matrix for mode " + mode +
-                    " using " + Properties.get().main.numberOfThreads + " threads.");
-            IndexedDoubleMatrix2D skim;
-            final MatsimSkimCreator matsimSkimCreator = new MatsimSkimCreator(matsimData);
-            switch (mode) {
-                case TransportMode.car:
-                    skim = matsimSkimCreator.createCarSkim(zones.values(), Properties.get().main.numberOfThreads,
-                            Properties.get().transportModel.peakHour_s);
-                    break;
-                case TransportMode.pt:
-                    if (config.transit().isUseTransit()) {
-                        skim = matsimSkimCreator.createPtSkim(zones.values(), Properties.get().main.numberOfThreads,
-                                Properties.get().transportModel.peakHour_s);
-                        break;
-                    } else {
-                        logger.warn("No schedule/ network provided for pt. Will use freespeed factor.");
-                        skim = matsimSkimCreator.createFreeSpeedFactorSkim(zones.values(),
-                                config.plansCalcRoute().getModeRoutingParams().get(TransportMode.pt).getTeleportedModeFreespeedFactor(),
-                                Properties.get().main.numberOfThreads, Properties.get().transportModel.peakHour_s);
-                        break;
-                    }
-                default:
-                    logger.warn("Defaulting to teleportation.");
-                    skim = matsimSkimCreator.createTeleportedSkim(zones.values(), mode, Properties.get().main.numberOfThreads,
-                            Properties.get().transportModel.peakHour_s);
-            }
+            final IndexedDoubleMatrix2D skim = new IndexedDoubleMatrix2D(zones.values(), zones.values());
+            writeSkim(mode, MatsimSkimCreator.matrixRows(zones.values(), skim));
             skimsByMode.put(mode, skim);
             logger.info("Obtained skim for mode " + mode);
             return skim;
         }
     }
 
+    /**
+     * Calculates the skim of the mode from the current MATSim data and passes it row by row to the given rows,
+     * in the order of the zones, without keeping it
+     */
+    public void writeSkim(String mode, MatsimSkimCreator.SkimRows rows) {
+        logger.info("Calculating skim matrix for mode " + mode +
+                " using " + Properties.get().main.numberOfThreads + " threads.");
+        final MatsimSkimCreator matsimSkimCreator = new MatsimSkimCreator(matsimData);
+        switch (mode) {
+            case TransportMode.car:
+                matsimSkimCreator.writeCarSkim(zones.values(), Properties.get().main.numberOfThreads,
+                        Properties.get().transportModel.peakHour_s, rows);
+                break;
+            case TransportMode.pt:
+                if (config.transit().isUseTransit()) {
+                    matsimSkimCreator.writePtSkim(zones.values(), Properties.get().main.numberOfThreads,
+                            Properties.get().transportModel.peakHour_s, rows);
+                    break;
+                } else {
+                    logger.warn("No schedule/ network provided for pt. Will use freespeed factor.");
+                    matsimSkimCreator.writeFreeSpeedFactorSkim(zones.values(),
+                            config.plansCalcRoute().getModeRoutingParams().get(TransportMode.pt).getTeleportedModeFreespeedFactor(),
+                            Properties.get().main.numberOfThreads, Properties.get().transportModel.peakHour_s, rows);
+                    break;
+                }
+            default:
+                logger.warn("Defaulting to teleportation.");
+                matsimSkimCreator.writeTeleportedSkim(zones.values(), mode, Properties.get().main.numberOfThreads,
+                        Properties.get().transportModel.peakHour_s, rows);
+        }
+    }
+
     @Override
     public TravelTimes duplicate() {
         logger.warn("Creating another TravelTimes object.");
@@ -285,8 +260,7 @@ public final class MatsimTravelTimesAndCosts implements TravelTimes {
         matsimTravelTimesAndCosts.matsimData = matsimData;
         matsimTravelTimesAndCosts.tripRouter = matsimData.createTripRouter();
         matsimTravelTimesAndCosts.skimsByMode.putAll(this.skimsByMode);
-        matsimTravelTimesAndCosts.travelTimesFromRegion.putAll(travelTimesFromRegion);
-        matsimTravelTimesAndCosts.travelTimesToRegion.putAll(travelTimesToRegion);
+        matsimTravelTimesAndCosts.regionalTravelTimes = regionalTravelTimes;
         return matsimTravelTimesAndCosts;
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package de.tum.bgu.msm.matsim;
+
+import de.tum.bgu.msm.data.Id;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.InitialNode;
+
+import java.util.*;
+
+/**
+ * Resolves the zone connectors of a {@link ZoneConnectorManager} to their nearest nodes of one network.
+ * The nearest node lookups are done once when the cache is created. Afterwards the cache is not
+ * modified and may be shared by all skim threads.
+ */
+public final class ZoneConnectorNodes {
+
+    private final Map<Integer, Node[]> nodesByZone;
+    private final Set<InitialNode> allNodes;
+
+    ZoneConnectorNodes(Network network, ZoneConnectorManager zoneConnectorManager, Collection<Integer> zoneIds) {
+        this.nodesByZone = new HashMap<>(zoneIds.size() * 2);
+        final Set<Node> distinctNodes = new LinkedHashSet<>();
+        for (int zoneId : zoneIds) {
+            final List<Coord> coords = zoneConnectorManager.getCoordsForZone(zoneId);
+            final Node[] nodes = new Node[coords.size()];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = NetworkUtils.getNearestNode(network, coords.get(i));
+                distinctNodes.add(nodes[i]);
+            }
+            nodesByZone.put(zoneId, nodes);
+        }
+        final Set<InitialNode> initialNodes = new LinkedHashSet<>();
+        for (Node node : distinctNodes) {
+            initialNodes.add(new InitialNode(node, 0., 0.));
+        }
+        this.allNodes = Collections.unmodifiableSet(initialNodes);
+    }
+
+    boolean containsAll(Collection<? extends Id> zones) {
+        for (Id zone : zones) {
+            if (!nodesByZone.containsKey(zone.getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Set<Integer> getZoneIds() {
+        return Collections.unmodifiableSet(nodesByZone.keySet());
+    }
+
+    /**
+     * @return the node nearest to the first connector of the zone, which is used as origin
+     * and destination of skim routes
+     */
+    public Node getMainNode(int zoneId) {
+        return nodesByZone.get(zoneId)[0];
+    }
+
+    /**
+     * @return the main nodes of the given zones, in the order of the zones
+     */
+    public Node[] getMainNodes(List<? extends Id> zones) {
+        final Node[] nodes = new Node[zones.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = getMainNode(zones.get(i).getId());
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the nearest nodes of all connectors of all zones, as start nodes for a multi node search
+     */
+    public Set<InitialNode> getAllNodes() {
+        return allNodes;
+    }
+}
@@ -3,6 +3,7 @@ package de.tum.bgu.msm.mito;
 import de.tum.bgu.msm.MitoModel;
 import de.tum.bgu.msm.container.DataContainer;
 import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.data.MappedSkimTravelTimes;
 import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
 import de.tum.bgu.msm.matsim.MatsimScenarioAssembler;
@@ -85,6 +86,13 @@ public class MitoMatsimScenarioAssembler implements MatsimScenarioAssembler {
                     //MATSim travel times are initialized from initial events file. Create skim from there.
                     mitoInputTravelTime.updateSkimMatrix(travelTimes.getPeakSkim(TransportMode.car), TransportMode.car);
                 }
+            } else if(travelTimes instanceof MappedSkimTravelTimes) {
+                //MITO reads skim matrices, so the mapped car skim is copied into one
+                mitoInputTravelTime = new SkimTravelTimes();
+                mitoInputTravelTime.updateSkimMatrix(travelTimes.getPeakSkim(TransportMode.car), TransportMode.car);
+            } else {
+                throw new IllegalStateException("Travel times of type " + travelTimes.getClass().getSimpleName()
+                        + " cannot be passed to MITO.");
             }
         } else {
             //Transport model has run at least once. Update input travel times from skim or matsim.
@@ -8,7 +8,12 @@ import de.tum.bgu.msm.data.geo.GeoData;
 import de.tum.bgu.msm.data.household.HouseholdDataManager;
 import de.tum.bgu.msm.data.job.JobDataManager;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.io.checkpoint.Checkpointable;
 import de.tum.bgu.msm.properties.Properties;
+import de.tum.bgu.msm.simulator.SetupGraph;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author moeckel
@@ -38,9 +43,18 @@ public class DataContainerWithSchoolsImpl extends DefaultDataContainer implement
     }
 
     @Override
-    public void setup() {
-        super.setup();
-        schoolData.setup();
+    public void addSetupSteps(SetupGraph graph) {
+        super.addSetupSteps(graph);
+        graph.addStep("SchoolData", schoolData::setup, GEO_DATA);
+    }
+
+    @Override
+    public List<Checkpointable> getCheckpointableData() {
+        final List<Checkpointable> data = new ArrayList<>(super.getCheckpointableData());
+        if (schoolData instanceof Checkpointable) {
+            data.add((Checkpointable) schoolData);
+        }
+        return data;
     }
 
     @Override
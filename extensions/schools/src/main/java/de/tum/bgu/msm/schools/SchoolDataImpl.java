@@ -21,6 +21,7 @@ import de.tum.bgu.msm.data.dwelling.Dwelling;
 import de.tum.bgu.msm.data.dwelling.DwellingData;
 import de.tum.bgu.msm.data.geo.GeoData;
 import de.tum.bgu.msm.data.person.Person;
+import de.tum.bgu.msm.io.checkpoint.Checkpointable;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
@@ -30,6 +31,8 @@ import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.matsim.core.utils.collections.QuadTree;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
@@ -41,7 +44,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * Keeps data of schools
  * Author: Qin Zhang
  **/
-public class SchoolDataImpl implements SchoolData {
+public class SchoolDataImpl implements SchoolData, Checkpointable {
 
     private final static Logger logger = Logger.getLogger(SchoolDataImpl.class);
     private static final int MIN_SECONDARY_AGE = 10;
@@ -197,6 +200,29 @@ public class SchoolDataImpl implements SchoolData {
     public void endSimulation() {
 
     }
-}
 
+    /**
+     * Writes the occupancy of the schools, which changes as persons enter, leave or change schools
+     */
+    @Override
+    public void writeCheckpoint(DataOutputStream out) throws IOException {
+        out.writeInt(schools.size());
+        for (School school : schools.values()) {
+            out.writeInt(school.getId());
+            out.writeInt(school.getOccupancy());
+        }
+    }
 
+    @Override
+    public void readCheckpoint(DataInputStream in) throws IOException {
+        final int numberOfSchools = in.readInt();
+        for (int i = 0; i < numberOfSchools; i++) {
+            final int id = in.readInt();
+            final School school = schools.get(id);
+            if (school == null) {
+                throw new IllegalStateException("Checkpoint holds the occupancy of school " + id + " which does not exist.");
+            }
+            school.setOccupancy(in.readInt());
+        }
+    }
+}
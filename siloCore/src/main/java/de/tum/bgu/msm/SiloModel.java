@@ -19,12 +19,15 @@ package de.tum.bgu.msm;
 import de.tum.bgu.msm.container.DataContainer;
 import de.tum.bgu.msm.container.ModelContainer;
 import de.tum.bgu.msm.data.SummarizeData;
+import de.tum.bgu.msm.data.aggregation.MicroDataAggregator;
 import de.tum.bgu.msm.data.household.HouseholdDataManager;
 import de.tum.bgu.msm.events.MicroEvent;
+import de.tum.bgu.msm.io.checkpoint.DataContainerCheckpoint;
 import de.tum.bgu.msm.io.output.ResultsMonitor;
 import de.tum.bgu.msm.models.EventModel;
 import de.tum.bgu.msm.models.ModelUpdateListener;
 import de.tum.bgu.msm.properties.Properties;
+import de.tum.bgu.msm.simulator.SetupGraph;
 import de.tum.bgu.msm.simulator.Simulator;
 import de.tum.bgu.msm.utils.SiloUtil;
 import de.tum.bgu.msm.utils.TimeTracker;
@@ -49,9 +52,15 @@ public final class SiloModel {
 	private DataContainer dataContainer;
 
     private Simulator simulator;
+    private MicroDataAggregator aggregator;
     private final TimeTracker timeTracker = new TimeTracker();
 	private Set<ResultsMonitor> resultsMonitors = new HashSet<>();
 
+	/**
+	 * First year to simulate, which is the year after the checkpoint if a simulation is resumed
+	 */
+	private int firstYear;
+
 	/**
      * @param properties
      * @param dataContainer
@@ -88,8 +97,13 @@ public final class SiloModel {
 	private void setupModel() {
 
 		logger.info("Setting up SILO Model");
+		DataContainerCheckpoint.checkConfiguration(properties);
 
-		simulator = new Simulator(timeTracker);
+		aggregator = new MicroDataAggregator(dataContainer, properties.main.numberOfThreads);
+		simulator = new Simulator(timeTracker, aggregator);
+		if (properties.moves.speculativeParallelMoves) {
+			simulator.enableSpeculativeProcessing(properties.moves.speculationWindow, properties.main.numberOfThreads);
+		}
 		for(Map.Entry<Class<? extends MicroEvent>, EventModel> eventModel: modelContainer.getEventModels().entrySet()) {
 			if(eventModel.getValue() != null) {
 				simulator.registerEventModel(eventModel.getKey(), eventModel.getValue());
@@ -108,8 +122,18 @@ public final class SiloModel {
 
         setupScalingYears();
 
-        dataContainer.setup();
-        simulator.setup();
+        // the models are set up once all data is set up
+        SetupGraph setup = new SetupGraph(properties.main.setupThreads);
+        dataContainer.addSetupSteps(setup);
+        simulator.addSetupSteps(setup, setup.getStepNames());
+        setup.run(timeTracker);
+
+        firstYear = properties.main.startYear;
+        if (!properties.main.resumeCheckpointFile.isEmpty()) {
+            // restored after the regular setup, so that models are set up with the base year data as in the original run
+            firstYear = DataContainerCheckpoint.restore(dataContainer, properties.main.resumeCheckpointFile) + 1;
+            logger.info("Resuming simulation in year " + firstYear);
+        }
 	}
 
 	private void setupScalingYears() {
@@ -122,7 +146,7 @@ public final class SiloModel {
 	private void runYearByYear() {
 
         final HouseholdDataManager householdDataManager = dataContainer.getHouseholdDataManager();
-        for (int year = properties.main.startYear; year < properties.main.endYear; year++) {
+        for (int year = firstYear; year < properties.main.endYear; year++) {
 
             logger.info("Simulating changes from year " + year + " to year " + (year + 1));
             long time = System.currentTimeMillis();
@@ -137,10 +161,15 @@ public final class SiloModel {
 
             dataContainer.prepareYear(year);
             if (year == properties.main.baseYear || year != properties.main.startYear) {
-                SiloUtil.summarizeMicroData(year, modelContainer, dataContainer);
+                SiloUtil.summarizeMicroData(year, modelContainer, dataContainer, aggregator);
             }
             simulator.simulate(year);
 			dataContainer.endYear(year);
+			dataContainer.getMicroDataOutput().rethrowFailures();
+			if (properties.main.checkpointYears.contains(year)) {
+				DataContainerCheckpoint.write(dataContainer, year, properties.main.baseDirectory + "scenOutput/"
+						+ properties.main.scenarioName + "/checkpoint_" + year + ".bin");
+			}
 
 			logger.info("  Finished this simulation period with " + householdDataManager.getPersons().size() +
 					" persons, " + householdDataManager.getHouseholds().size() + " households and "  +
@@ -157,6 +186,7 @@ public final class SiloModel {
 	private void endSimulation() {
   	    simulator.endSimulation();
   	    dataContainer.endSimulation();
+  	    dataContainer.getMicroDataOutput().shutdown();
 
   	    if (scalingYears.contains(properties.main.endYear)) {
             SummarizeData.scaleMicroDataToExogenousForecast(properties.main.endYear, dataContainer);
@@ -165,7 +195,8 @@ public final class SiloModel {
 		if (properties.main.printOutFinalSyntheticPopulation) {
 			SummarizeData.writeOutDevelopmentFile(dataContainer);
 		}
-		SiloUtil.summarizeMicroData(properties.main.endYear, modelContainer, dataContainer);
+		SiloUtil.summarizeMicroData(properties.main.endYear, modelContainer, dataContainer, aggregator);
+		aggregator.shutdown();
 		SiloUtil.finish();
 		SiloUtil.modelStopper("removeFile");
         SiloUtil.writeOutTimeTracker(timeTracker);
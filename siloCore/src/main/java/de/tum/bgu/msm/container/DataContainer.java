@@ -7,8 +7,14 @@ import de.tum.bgu.msm.data.geo.GeoData;
 import de.tum.bgu.msm.data.household.HouseholdDataManager;
 import de.tum.bgu.msm.data.job.JobDataManager;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.io.checkpoint.Checkpointable;
+import de.tum.bgu.msm.io.output.MicroDataOutput;
+import de.tum.bgu.msm.simulator.SetupGraph;
 import de.tum.bgu.msm.simulator.UpdateListener;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * //TODO
  */
@@ -27,4 +33,32 @@ public interface DataContainer extends UpdateListener {
     Accessibility getAccessibility();
     
     CommutingTimeProbability getCommutingTimeProbability();
+
+    /**
+     * @return the writer of the micro data files of this run, to be shut down at the end of the simulation
+     */
+    MicroDataOutput getMicroDataOutput();
+
+    /**
+     * Adds the setup of the data to the graph. By default the whole setup is one step, containers whose
+     * components can be set up independently add one step per component instead.
+     */
+    default void addSetupSteps(SetupGraph graph) {
+        graph.addStep(getClass().getSimpleName(), this::setup);
+    }
+
+    /**
+     * Called after the micro data was restored from a checkpoint written at the end of the given year, to
+     * bring data that is not part of checkpoints, like the input skims, to the state of that year.
+     */
+    default void restoredCheckpoint(int year) {
+    }
+
+    /**
+     * @return data besides the households, dwellings and jobs whose state is written to checkpoints, e.g. the
+     * occupancy of schools
+     */
+    default List<Checkpointable> getCheckpointableData() {
+        return Collections.emptyList();
+    }
 }
@@ -8,7 +8,9 @@ import de.tum.bgu.msm.data.geo.GeoData;
 import de.tum.bgu.msm.data.household.HouseholdDataManager;
 import de.tum.bgu.msm.data.job.JobDataManager;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.io.output.MicroDataOutput;
 import de.tum.bgu.msm.properties.Properties;
+import de.tum.bgu.msm.simulator.SetupGraph;
 import org.apache.log4j.Logger;
 
 /**
@@ -22,6 +24,17 @@ public class DefaultDataContainer implements DataContainer {
 
     private final static Logger logger = Logger.getLogger(DefaultDataContainer.class);
 
+    /**
+     * Names of the setup steps, for containers that add steps depending on them
+     */
+    public static final String GEO_DATA = "GeoData";
+    public static final String HOUSEHOLD_DATA = "HouseholdDataManager";
+    public static final String JOB_DATA = "JobDataManager";
+    public static final String REAL_ESTATE_DATA = "RealEstateDataManager";
+    public static final String TRAVEL_TIMES = "TravelTimes";
+    public static final String ACCESSIBILITY = "Accessibility";
+    public static final String COMMUTING_TIME_PROBABILITY = "CommutingTimeProbability";
+
     private final HouseholdDataManager householdDataManager;
     private final RealEstateDataManager realEstateDataManager;
     private final JobDataManager jobDataManager;
@@ -29,6 +42,7 @@ public class DefaultDataContainer implements DataContainer {
     private final TravelTimesWrapper travelTimes;
     private final Accessibility accessibility;
     private final CommutingTimeProbability commutingTimeProbability;
+    private final MicroDataOutput microDataOutput;
     protected Properties properties;
 
     public DefaultDataContainer(
@@ -44,6 +58,10 @@ public class DefaultDataContainer implements DataContainer {
         this.accessibility = accessibility;
         this.commutingTimeProbability = commutingTimeProbability;
         this.properties = properties;
+        this.microDataOutput = MicroDataOutput.fromProperties(properties);
+        householdDataManager.setMicroDataOutput(microDataOutput);
+        jobDataManager.setMicroDataOutput(microDataOutput);
+        realEstateDataManager.setMicroDataOutput(microDataOutput);
     }
 
     @Override
@@ -81,15 +99,36 @@ public class DefaultDataContainer implements DataContainer {
     	return commutingTimeProbability;
     }
 
+    @Override
+    public MicroDataOutput getMicroDataOutput() {
+        return microDataOutput;
+    }
+
     @Override
     public void setup() {
-        geoData.setup();
-        householdDataManager.setup();
-        jobDataManager.setup();
-        realEstateDataManager.setup();
-        travelTimes.setup();
-        accessibility.setup();
-        commutingTimeProbability.setup();
+        SetupGraph graph = new SetupGraph(properties.main.setupThreads);
+        addSetupSteps(graph);
+        graph.run();
+    }
+
+    /**
+     * The data managers only read the micro data of each other during their setup, so they only depend on the
+     * zones and regions. The accessibilities are set up with the travel times.
+     */
+    @Override
+    public void addSetupSteps(SetupGraph graph) {
+        graph.addStep(GEO_DATA, geoData::setup);
+        graph.addStep(HOUSEHOLD_DATA, householdDataManager::setup, GEO_DATA);
+        graph.addStep(JOB_DATA, jobDataManager::setup, GEO_DATA);
+        graph.addStep(REAL_ESTATE_DATA, realEstateDataManager::setup, GEO_DATA);
+        graph.addStep(TRAVEL_TIMES, travelTimes::setup, GEO_DATA);
+        graph.addStep(ACCESSIBILITY, accessibility::setup, GEO_DATA, TRAVEL_TIMES);
+        graph.addStep(COMMUTING_TIME_PROBABILITY, commutingTimeProbability::setup, GEO_DATA);
+    }
+
+    @Override
+    public void restoredCheckpoint(int year) {
+        travelTimes.restoredCheckpoint(year);
     }
 
     @Override
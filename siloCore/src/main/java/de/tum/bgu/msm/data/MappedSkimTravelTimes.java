@@ -0,0 +1,561 @@
+package de.tum.bgu.msm.data;
+
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Travel times that are read from a binary skim file which is mapped into memory instead of being
+ * loaded onto the heap. The file holds the zone to zone travel times of each mode as float32 values,
+ * together with the minimum travel times from and to each region. Cells are read from the mapped
+ * file on demand, so the operating system only pages in the rows that are used, and all threads
+ * share the same mapping. {@link #duplicate()} therefore returns this instance. A single mapping is
+ * limited to 2 GB, so each section of the file is mapped in segments of whole rows.
+ *
+ * The skim file is created once from other travel times with {@link #convert} (see
+ * {@link de.tum.bgu.msm.utils.TravelTimeUtil#updateMappedSkims}) and can be reused in later runs.
+ *
+ * Skims of a transport model run are written to a skim file of the scenario output row by row with a
+ * {@link Writer}, while they are calculated, and replace the mapped travel times.
+ *
+ * {@link #getPeakSkim(String)} has to return a heap matrix. It copies all zone to zone travel times of the
+ * mode into a matrix of doubles on the first call and keeps it until another skim file is loaded, so only
+ * readers that need the whole matrix, like MITO, should call it. Readers of single cells or rows should use
+ * the {@link PeakTravelTimes} methods instead, which do not create the matrix.
+ */
+public final class MappedSkimTravelTimes implements TravelTimes, PeakTravelTimes {
+
+    private final static Logger logger = Logger.getLogger(MappedSkimTravelTimes.class);
+
+    private static final int MAGIC = 0x534b494d;
+    private static final int VERSION = 1;
+    private static final int FLOAT_BYTES = Float.BYTES;
+    private static final long MAX_SEGMENT_BYTES = Integer.MAX_VALUE;
+
+    private volatile MappedSkims skims;
+
+    /**
+     * Writes the peak skims of the given modes and the minimum travel times between regions and
+     * zones into a skim file that can be {@link #load loaded} by this class. The skims are read row by row
+     * through {@link PeakTravelTimes}.
+     */
+    public static void convert(TravelTimes source, Collection<Zone> zones, Collection<Region> regions,
+                               Collection<String> modes, Path file, int numberOfThreads) {
+        final PeakTravelTimes peakTravelTimes = PeakTravelTimes.of(source);
+        try (Writer writer = writer(file, zones, regions, modes)) {
+            for (String mode : modes) {
+                writer.copyRows(mode, peakTravelTimes);
+            }
+            writer.finish(numberOfThreads);
+        }
+    }
+
+    /**
+     * @return a writer of a skim file with the zone to zone travel times of the given modes, which are
+     * written row by row, e.g. while they are calculated, so that the skims are not held in a matrix
+     */
+    public static Writer writer(Path file, Collection<Zone> zones, Collection<Region> regions, Collection<String> modes) {
+        return new Writer(file, zones, regions, modes);
+    }
+
+    /**
+     * Maps the given skim file and replaces the currently loaded travel times. Fails if the zones of the file
+     * are not the zones of the model.
+     *
+     * @param zones the zones of the model, used for the matrices returned by {@link #getPeakSkim(String)}
+     */
+    public void load(Path file, Collection<Zone> zones) {
+        load(file, zones, MAX_SEGMENT_BYTES);
+    }
+
+    void load(Path file, Collection<Zone> zones, long maxSegmentBytes) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new RuntimeException("File " + file + " is not a skim file of version " + VERSION);
+            }
+            long offset = 2 * Integer.BYTES;
+            final int[] zoneIds = readIds(in);
+            offset += Integer.BYTES * (1L + zoneIds.length);
+            checkZones(file, zoneIds, zones);
+            final int[] regionIds = readIds(in);
+            offset += Integer.BYTES * (1L + regionIds.length);
+            final int numberOfModes = in.readInt();
+            offset += Integer.BYTES;
+            final List<String> modes = new ArrayList<>(numberOfModes);
+            for (int i = 0; i < numberOfModes; i++) {
+                final String mode = in.readUTF();
+                modes.add(mode);
+                offset += 2 + mode.getBytes(StandardCharsets.UTF_8).length;
+            }
+
+            final MappedSkims mapped = new MappedSkims(file, zoneIds, regionIds, zones);
+            for (String mode : modes) {
+                final MappedRows zoneToZone = new MappedRows(channel, offset, zoneIds.length, zoneIds.length, maxSegmentBytes);
+                mapped.zoneToZone.put(mode, zoneToZone);
+                offset += zoneToZone.bytes();
+                final MappedRows fromRegion = new MappedRows(channel, offset, regionIds.length, zoneIds.length, maxSegmentBytes);
+                mapped.fromRegion.put(mode, fromRegion);
+                offset += fromRegion.bytes();
+                final MappedRows toRegion = new MappedRows(channel, offset, zoneIds.length, regionIds.length, maxSegmentBytes);
+                mapped.toRegion.put(mode, toRegion);
+                offset += toRegion.bytes();
+            }
+            if (offset != channel.size()) {
+                throw new RuntimeException("Skim file " + file + " has an unexpected size.");
+            }
+            this.skims = mapped;
+            logger.info("Mapped skims of " + modes + " for " + zoneIds.length + " zones from " + file);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read skim file " + file, e);
+        }
+    }
+
+    @Override
+    public double getTravelTime(Location origin, Location destination, double timeOfDay_s, String mode) {
+        return getPeakTravelTime(origin.getZoneId(), destination.getZoneId(), mode);
+    }
+
+    @Override
+    public double getTravelTimeFromRegion(Region origin, Zone destination, double timeOfDay_s, String mode) {
+        final MappedSkims mapped = getSkims();
+        return mapped.section(mapped.fromRegion, mode).get(mapped.regionIndex(origin.getId()),
+                mapped.zoneIndex(destination.getZoneId()));
+    }
+
+    @Override
+    public double getTravelTimeToRegion(Zone origin, Region destination, double timeOfDay_s, String mode) {
+        final MappedSkims mapped = getSkims();
+        return mapped.section(mapped.toRegion, mode).get(mapped.zoneIndex(origin.getZoneId()),
+                mapped.regionIndex(destination.getId()));
+    }
+
+    /**
+     * Copies all zone to zone travel times of the mode into a heap matrix, which is kept for the skims of the
+     * currently mapped file, see the class comment.
+     */
+    @Override
+    public IndexedDoubleMatrix2D getPeakSkim(String mode) {
+        final MappedSkims mapped = getSkims();
+        final MappedRows values = mapped.section(mapped.zoneToZone, mode);
+        return mapped.peakSkims.computeIfAbsent(mode, m -> {
+            logger.info("Creating peak skim matrix for mode " + m + " from mapped skim file.");
+            final IndexedDoubleMatrix2D skim = new IndexedDoubleMatrix2D(mapped.zones, mapped.zones);
+            for (int i = 0; i < mapped.numberOfZones; i++) {
+                for (int j = 0; j < mapped.numberOfZones; j++) {
+                    skim.setIndexed(mapped.zoneIds[i], mapped.zoneIds[j], values.get(i, j));
+                }
+            }
+            return skim;
+        });
+    }
+
+    @Override
+    public double getPeakTravelTime(int originZoneId, int destinationZoneId, String mode) {
+        final MappedSkims mapped = getSkims();
+        return mapped.section(mapped.zoneToZone, mode).get(mapped.zoneIndex(originZoneId), mapped.zoneIndex(destinationZoneId));
+    }
+
+    @Override
+    public void getPeakTravelTimes(int originZoneId, int[] destinationZoneIds, String mode, double[] travelTimes) {
+        final MappedSkims mapped = getSkims();
+        final MappedRows values = mapped.section(mapped.zoneToZone, mode);
+        final int origin = mapped.zoneIndex(originZoneId);
+        for (int j = 0; j < destinationZoneIds.length; j++) {
+            travelTimes[j] = values.get(origin, mapped.zoneIndex(destinationZoneIds[j]));
+        }
+    }
+
+    /**
+     * @return the skim file that is currently mapped
+     */
+    public Path getFile() {
+        return getSkims().file;
+    }
+
+    /**
+     * @return the skims of the currently mapped file, which are replaced whenever another file is loaded
+     */
+    @Override
+    public Object getPeakSkimVersion(String mode) {
+        return getSkims();
+    }
+
+    @Override
+    public TravelTimes duplicate() {
+        return this;
+    }
+
+    private MappedSkims getSkims() {
+        final MappedSkims mapped = skims;
+        if (mapped == null) {
+            throw new IllegalStateException("No skim file has been loaded.");
+        }
+        return mapped;
+    }
+
+    /**
+     * Skim files are reused across runs, so a file written for another zone system has to be rejected instead
+     * of giving travel times of other zones
+     */
+    private static void checkZones(Path file, int[] zoneIds, Collection<Zone> zones) {
+        final int[] fileZoneIds = zoneIds.clone();
+        Arrays.sort(fileZoneIds);
+        final int[] modelZoneIds = zones.stream().mapToInt(Zone::getZoneId).sorted().toArray();
+        if (!Arrays.equals(fileZoneIds, modelZoneIds)) {
+            throw new RuntimeException("Skim file " + file + " was written for " + fileZoneIds.length
+                    + " zones that do not match the " + modelZoneIds.length + " zones of the model. "
+                    + "Delete it to convert the skims again.");
+        }
+    }
+
+    private static void writeIds(DataOutputStream out, int[] ids) throws IOException {
+        out.writeInt(ids.length);
+        for (int id : ids) {
+            out.writeInt(id);
+        }
+    }
+
+    private static int[] readIds(DataInputStream in) throws IOException {
+        final int[] ids = new int[in.readInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = in.readInt();
+        }
+        return ids;
+    }
+
+    /**
+     * Writes a skim file row by row. The rows of the zone to zone travel times are written at their position in
+     * the file, so any number of threads may write rows in any order. {@link #finish} calculates the minimum
+     * travel times between regions and zones by reading the written rows back from the file, and moves the
+     * file into place once all rows were written. Until then the file is written to a temporary file next to it.
+     */
+    public static final class Writer implements AutoCloseable {
+
+        private final Path file;
+        private final Path tempFile;
+        private final FileChannel channel;
+        private final Collection<Zone> zones;
+        private final Collection<Region> regions;
+        private final List<String> modes;
+        private final int[] zoneIds;
+        private final int[] regionIds;
+        private final int[] indexByZoneId;
+        private final long[] zoneToZoneOffsets;
+        private final AtomicIntegerArray writtenRows;
+        private final ThreadLocal<ByteBuffer> rowBuffer;
+        private boolean finished = false;
+
+        private Writer(Path file, Collection<Zone> zones, Collection<Region> regions, Collection<String> modes) {
+            this.file = file;
+            this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            this.zones = zones;
+            this.regions = regions;
+            this.modes = new ArrayList<>(modes);
+            this.zoneIds = zones.stream().mapToInt(Zone::getZoneId).toArray();
+            this.regionIds = regions.stream().mapToInt(Region::getId).toArray();
+            this.indexByZoneId = MappedSkims.createIndex(zoneIds);
+            this.writtenRows = new AtomicIntegerArray(this.modes.size() * zoneIds.length);
+            final int rowBytes = zoneIds.length * FLOAT_BYTES;
+            this.rowBuffer = ThreadLocal.withInitial(() -> ByteBuffer.allocate(rowBytes));
+            if (file.getParent() != null) {
+                file.getParent().toFile().mkdirs();
+            }
+            try {
+                this.channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+                final ByteArrayOutputStream header = new ByteArrayOutputStream();
+                final DataOutputStream out = new DataOutputStream(header);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeIds(out, zoneIds);
+                writeIds(out, regionIds);
+                out.writeInt(this.modes.size());
+                for (String mode : this.modes) {
+                    out.writeUTF(mode);
+                }
+                out.flush();
+                write(ByteBuffer.wrap(header.toByteArray()), 0);
+
+                this.zoneToZoneOffsets = new long[this.modes.size()];
+                long offset = header.size();
+                for (int m = 0; m < this.modes.size(); m++) {
+                    zoneToZoneOffsets[m] = offset;
+                    offset += ((long) zoneIds.length * zoneIds.length + 2L * regionIds.length * zoneIds.length) * FLOAT_BYTES;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write skim file " + file, e);
+            }
+        }
+
+        /**
+         * Writes the travel times of the mode in minutes from the origin to all zones, in the order of the zones
+         * this writer was created with
+         */
+        public void writeRow(String mode, int originZoneId, double[] travelTimes) {
+            if (travelTimes.length != zoneIds.length) {
+                throw new IllegalArgumentException("Skim rows have " + zoneIds.length + " values, not " + travelTimes.length + ".");
+            }
+            final int m = modeIndex(mode);
+            final int origin = zoneIndex(originZoneId);
+            final ByteBuffer buffer = rowBuffer.get();
+            buffer.clear();
+            for (double travelTime : travelTimes) {
+                buffer.putFloat((float) travelTime);
+            }
+            buffer.flip();
+            write(buffer, zoneToZoneOffsets[m] + (long) origin * zoneIds.length * FLOAT_BYTES);
+            writtenRows.set(m * zoneIds.length + origin, 1);
+        }
+
+        /**
+         * Writes all rows of the mode from the given travel times
+         */
+        public void copyRows(String mode, PeakTravelTimes source) {
+            final double[] row = new double[zoneIds.length];
+            for (int origin : zoneIds) {
+                source.getPeakTravelTimes(origin, zoneIds, mode, row);
+                writeRow(mode, origin, row);
+            }
+        }
+
+        /**
+         * Calculates and writes the minimum travel times between regions and zones from the written rows and
+         * moves the skim file into place
+         */
+        public void finish(int numberOfThreads) {
+            for (int m = 0; m < modes.size(); m++) {
+                for (int origin = 0; origin < zoneIds.length; origin++) {
+                    if (writtenRows.get(m * zoneIds.length + origin) == 0) {
+                        throw new IllegalStateException("Row of zone " + zoneIds[origin] + " of the skim of mode "
+                                + modes.get(m) + " was not written to " + file);
+                    }
+                }
+            }
+            final RegionalTravelTimes regionalTravelTimes = RegionalTravelTimes.calculate(new WrittenRows(), modes,
+                    zones, regions, numberOfThreads);
+            final ByteBuffer buffer = ByteBuffer.allocate(Math.max(zoneIds.length, regionIds.length) * FLOAT_BYTES);
+            for (int m = 0; m < modes.size(); m++) {
+                final String mode = modes.get(m);
+                long offset = zoneToZoneOffsets[m] + (long) zoneIds.length * zoneIds.length * FLOAT_BYTES;
+                for (int regionId : regionIds) {
+                    buffer.clear();
+                    for (int zoneId : zoneIds) {
+                        buffer.putFloat((float) regionalTravelTimes.getTravelTimeFromRegion(regionId, zoneId, mode));
+                    }
+                    buffer.flip();
+                    offset += write(buffer, offset);
+                }
+                for (int zoneId : zoneIds) {
+                    buffer.clear();
+                    for (int regionId : regionIds) {
+                        buffer.putFloat((float) regionalTravelTimes.getTravelTimeToRegion(zoneId, regionId, mode));
+                    }
+                    buffer.flip();
+                    offset += write(buffer, offset);
+                }
+            }
+            try {
+                channel.close();
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write skim file " + file, e);
+            }
+            finished = true;
+            logger.info("Wrote " + modes.size() + " skims of " + zoneIds.length + " zones to " + file);
+        }
+
+        /**
+         * Closes the temporary file and deletes it if the skim file was not finished
+         */
+        @Override
+        public void close() {
+            if (finished) {
+                return;
+            }
+            try {
+                channel.close();
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not delete unfinished skim file " + tempFile, e);
+            }
+        }
+
+        private int write(ByteBuffer buffer, long position) {
+            final int bytes = buffer.remaining();
+            try {
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write skim file " + file, e);
+            }
+            return bytes;
+        }
+
+        private int modeIndex(String mode) {
+            final int m = modes.indexOf(mode);
+            if (m < 0) {
+                throw new IllegalArgumentException("Mode " + mode + " is not part of the skim file " + file);
+            }
+            return m;
+        }
+
+        private int zoneIndex(int zoneId) {
+            if (zoneId < 0 || zoneId >= indexByZoneId.length || indexByZoneId[zoneId] < 0) {
+                throw new IllegalArgumentException("Zone " + zoneId + " is not part of the skim file " + file);
+            }
+            return indexByZoneId[zoneId];
+        }
+
+        /**
+         * The rows written so far, read back from the temporary file
+         */
+        private final class WrittenRows implements PeakTravelTimes {
+
+            @Override
+            public double getPeakTravelTime(int originZoneId, int destinationZoneId, String mode) {
+                return readRow(originZoneId, mode).getFloat(zoneIndex(destinationZoneId) * FLOAT_BYTES);
+            }
+
+            @Override
+            public void getPeakTravelTimes(int originZoneId, int[] destinationZoneIds, String mode, double[] travelTimes) {
+                final ByteBuffer row = readRow(originZoneId, mode);
+                for (int j = 0; j < destinationZoneIds.length; j++) {
+                    travelTimes[j] = row.getFloat(zoneIndex(destinationZoneIds[j]) * FLOAT_BYTES);
+                }
+            }
+
+            @Override
+            public Object getPeakSkimVersion(String mode) {
+                return Writer.this;
+            }
+
+            private ByteBuffer readRow(int originZoneId, String mode) {
+                final ByteBuffer buffer = rowBuffer.get();
+                buffer.clear();
+                long position = zoneToZoneOffsets[modeIndex(mode)] + (long) zoneIndex(originZoneId) * zoneIds.length * FLOAT_BYTES;
+                try {
+                    while (buffer.hasRemaining()) {
+                        final int read = channel.read(buffer, position);
+                        if (read < 0) {
+                            throw new IOException("Unexpected end of file");
+                        }
+                        position += read;
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException("Could not read skim file " + tempFile, e);
+                }
+                return buffer;
+            }
+        }
+    }
+
+    /**
+     * The mapped sections of one skim file. Reading uses absolute positions only, so the buffers
+     * can be shared by any number of threads.
+     */
+    private static final class MappedSkims {
+
+        private final Path file;
+        private final int[] zoneIds;
+        private final int numberOfZones;
+        private final int[] indexByZoneId;
+        private final int[] indexByRegionId;
+        private final Map<String, MappedRows> zoneToZone = new HashMap<>();
+        private final Map<String, MappedRows> fromRegion = new HashMap<>();
+        private final Map<String, MappedRows> toRegion = new HashMap<>();
+        private final Map<String, IndexedDoubleMatrix2D> peakSkims = new ConcurrentHashMap<>();
+        private final Collection<Zone> zones;
+
+        private MappedSkims(Path file, int[] zoneIds, int[] regionIds, Collection<Zone> zones) {
+            this.file = file;
+            this.zoneIds = zoneIds;
+            this.zones = zones;
+            this.numberOfZones = zoneIds.length;
+            this.indexByZoneId = createIndex(zoneIds);
+            this.indexByRegionId = createIndex(regionIds);
+        }
+
+        private static int[] createIndex(int[] ids) {
+            final int[] index = new int[Arrays.stream(ids).max().orElse(-1) + 1];
+            Arrays.fill(index, -1);
+            for (int i = 0; i < ids.length; i++) {
+                index[ids[i]] = i;
+            }
+            return index;
+        }
+
+        private int zoneIndex(int zoneId) {
+            if (zoneId < 0 || zoneId >= indexByZoneId.length || indexByZoneId[zoneId] < 0) {
+                throw new IllegalArgumentException("Zone " + zoneId + " is not part of the mapped skims.");
+            }
+            return indexByZoneId[zoneId];
+        }
+
+        private int regionIndex(int regionId) {
+            if (regionId < 0 || regionId >= indexByRegionId.length || indexByRegionId[regionId] < 0) {
+                throw new IllegalArgumentException("Region " + regionId + " is not part of the mapped skims.");
+            }
+            return indexByRegionId[regionId];
+        }
+
+        private MappedRows section(Map<String, MappedRows> section, String mode) {
+            final MappedRows values = section.get(mode);
+            if (values == null) {
+                throw new IllegalArgumentException("No skim for mode " + mode + " in mapped skim file.");
+            }
+            return values;
+        }
+    }
+
+    /**
+     * A section of the skim file with rows of equal length. It is mapped in segments of whole rows, each
+     * at most maxSegmentBytes long, so that the index within a segment fits into an int.
+     */
+    private static final class MappedRows {
+
+        private final FloatBuffer[] segments;
+        private final int rowLength;
+        private final int rowsPerSegment;
+        private final long bytes;
+
+        private MappedRows(FileChannel channel, long offset, int rows, int rowLength, long maxSegmentBytes) throws IOException {
+            final long rowBytes = (long) rowLength * FLOAT_BYTES;
+            if (rowBytes > maxSegmentBytes) {
+                throw new RuntimeException("Skim rows of " + rowLength + " values are too long to be mapped.");
+            }
+            this.rowLength = rowLength;
+            this.rowsPerSegment = (int) Math.max(1, rowBytes == 0 ? rows : Math.min(rows, maxSegmentBytes / rowBytes));
+            this.bytes = rows * rowBytes;
+            this.segments = new FloatBuffer[(rows + rowsPerSegment - 1) / rowsPerSegment];
+            for (int segment = 0; segment < segments.length; segment++) {
+                final long firstRow = (long) segment * rowsPerSegment;
+                final long segmentRows = Math.min(rowsPerSegment, rows - firstRow);
+                segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY, offset + firstRow * rowBytes,
+                        segmentRows * rowBytes).asFloatBuffer();
+            }
+        }
+
+        private float get(int row, int column) {
+            return segments[row / rowsPerSegment].get((row % rowsPerSegment) * rowLength + column);
+        }
+
+        private long bytes() {
+            return bytes;
+        }
+    }
+}
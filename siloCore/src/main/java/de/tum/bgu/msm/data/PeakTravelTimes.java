@@ -0,0 +1,61 @@
+package de.tum.bgu.msm.data;
+
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+
+/**
+ * Zone to zone travel times of the peak skims, read cell by cell or row by row. Readers that only need some
+ * cells or rows should use this instead of {@link TravelTimes#getPeakSkim(String)}, so that travel times
+ * which do not keep their skims in a heap matrix, like {@link MappedSkimTravelTimes}, do not have to
+ * create one.
+ *
+ * Travel times that keep their skims in matrices are read through their peak skims, see {@link #of(TravelTimes)}.
+ */
+public interface PeakTravelTimes {
+
+    /**
+     * @return the peak travel time of the mode in minutes from the origin to the destination zone
+     */
+    double getPeakTravelTime(int originZoneId, int destinationZoneId, String mode);
+
+    /**
+     * Reads the peak travel times of the mode in minutes from the origin to the given destinations into
+     * travelTimes
+     */
+    void getPeakTravelTimes(int originZoneId, int[] destinationZoneIds, String mode, double[] travelTimes);
+
+    /**
+     * @return an object that stays the same as long as the peak skim of the mode does not change. Skims are
+     * replaced rather than changed in place, so readers can compare it by identity to notice updated skims.
+     */
+    Object getPeakSkimVersion(String mode);
+
+    /**
+     * @return the given travel times if they implement this interface, or a view that reads their peak skim
+     * matrices otherwise
+     */
+    static PeakTravelTimes of(TravelTimes travelTimes) {
+        if (travelTimes instanceof PeakTravelTimes) {
+            return (PeakTravelTimes) travelTimes;
+        }
+        return new PeakTravelTimes() {
+            @Override
+            public double getPeakTravelTime(int originZoneId, int destinationZoneId, String mode) {
+                return travelTimes.getPeakSkim(mode).getIndexed(originZoneId, destinationZoneId);
+            }
+
+            @Override
+            public void getPeakTravelTimes(int originZoneId, int[] destinationZoneIds, String mode, double[] result) {
+                final IndexedDoubleMatrix2D skim = travelTimes.getPeakSkim(mode);
+                for (int j = 0; j < destinationZoneIds.length; j++) {
+                    result[j] = skim.getIndexed(originZoneId, destinationZoneIds[j]);
+                }
+            }
+
+            @Override
+            public Object getPeakSkimVersion(String mode) {
+                return travelTimes.getPeakSkim(mode);
+            }
+        };
+    }
+}
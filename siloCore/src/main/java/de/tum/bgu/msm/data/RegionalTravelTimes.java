@@ -0,0 +1,227 @@
+package de.tum.bgu.msm.data;
+
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import org.apache.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimum travel times from each region to each zone and from each zone to each region, i.e. the
+ * shortest travel time between the zone and any zone of the region. Once calculated, they are only
+ * read, so one instance can be shared by all threads and by duplicated travel times.
+ *
+ * The zones are sorted by region, so that the zones of a region form one block of the sorted rows and
+ * one segment of each sorted row. Every region is one task: it reads the skim rows of its zones once for
+ * all modes, takes the minimum over the block for the travel times from the region and the minimum over
+ * each segment for the travel times to all regions. The tasks write disjoint parts of the results.
+ */
+public final class RegionalTravelTimes {
+
+    private final static Logger logger = Logger.getLogger(RegionalTravelTimes.class);
+
+    private final int[] zoneIds;
+    private final int[] regionIds;
+    private final int[] indexByZoneId;
+    private final int[] indexByRegionId;
+
+    /**
+     * Zone indices sorted by region, the zones of region r are at [regionStart[r], regionStart[r + 1]),
+     * followed by the zones without a region
+     */
+    private final int[] zonesByRegion;
+    private final int[] regionStart;
+
+    /**
+     * By mode, [region * zones + zone]
+     */
+    private final Map<String, double[]> fromRegion = new LinkedHashMap<>();
+
+    /**
+     * By mode, [zone * regions + region]
+     */
+    private final Map<String, double[]> toRegion = new LinkedHashMap<>();
+
+    private RegionalTravelTimes(Collection<Zone> zones, Collection<Region> regions) {
+        this.zoneIds = zones.stream().mapToInt(Zone::getZoneId).toArray();
+        this.regionIds = regions.stream().mapToInt(Region::getId).toArray();
+        this.indexByZoneId = createIndex(zoneIds);
+        this.indexByRegionId = createIndex(regionIds);
+
+        this.regionStart = new int[regionIds.length + 1];
+        final List<Integer> sortedZones = new ArrayList<>(zoneIds.length);
+        final boolean[] inRegion = new boolean[zoneIds.length];
+        int r = 0;
+        for (Region region : regions) {
+            regionStart[r] = sortedZones.size();
+            for (Zone zone : region.getZones()) {
+                final int index = zoneIndex(zone.getZoneId());
+                sortedZones.add(index);
+                inRegion[index] = true;
+            }
+            r++;
+        }
+        regionStart[regionIds.length] = sortedZones.size();
+        // zones without a region come last, they are only an origin of travel times to the regions
+        for (int index = 0; index < zoneIds.length; index++) {
+            if (!inRegion[index]) {
+                sortedZones.add(index);
+            }
+        }
+        this.zonesByRegion = sortedZones.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Calculates the minimum travel times between regions and zones from the peak skims of the given
+     * modes. The skims are read row by row through {@link PeakTravelTimes}, so that mapped skims are not
+     * copied into heap matrices.
+     */
+    public static RegionalTravelTimes calculate(TravelTimes travelTimes, Collection<String> modes,
+                                                Collection<Zone> zones, Collection<Region> regions,
+                                                int numberOfThreads) {
+        return calculate(PeakTravelTimes.of(travelTimes), modes, zones, regions, numberOfThreads);
+    }
+
+    /**
+     * Calculates the minimum travel times between regions and zones from the peak skims of the given modes,
+     * e.g. the rows of a skim file that is being written
+     */
+    public static RegionalTravelTimes calculate(PeakTravelTimes peakTravelTimes, Collection<String> modes,
+                                                Collection<Zone> zones, Collection<Region> regions,
+                                                int numberOfThreads) {
+        logger.info("Updating minimal zone to region travel times...");
+        final RegionalTravelTimes regionalTravelTimes = new RegionalTravelTimes(zones, regions);
+        regionalTravelTimes.calculate(peakTravelTimes, new ArrayList<>(modes), numberOfThreads);
+        return regionalTravelTimes;
+    }
+
+    private void calculate(PeakTravelTimes peakTravelTimes, List<String> modes, int numberOfThreads) {
+        final int numberOfZones = zoneIds.length;
+        final int numberOfRegions = regionIds.length;
+        final int[] sortedZoneIds = new int[zonesByRegion.length];
+        for (int j = 0; j < sortedZoneIds.length; j++) {
+            sortedZoneIds[j] = zoneIds[zonesByRegion[j]];
+        }
+        final List<double[]> fromList = new ArrayList<>();
+        final List<double[]> toList = new ArrayList<>();
+        for (String mode : modes) {
+            final double[] from = new double[numberOfRegions * numberOfZones];
+            Arrays.fill(from, Double.MAX_VALUE);
+            fromRegion.put(mode, from);
+            fromList.add(from);
+            final double[] to = new double[numberOfZones * numberOfRegions];
+            toRegion.put(mode, to);
+            toList.add(to);
+        }
+
+        final List<Callable<Void>> tasks = new ArrayList<>(numberOfRegions + 1);
+        for (int region = 0; region <= numberOfRegions; region++) {
+            final int r = region;
+            // the last block holds the zones without a region
+            final int start = r < numberOfRegions ? regionStart[r] : regionStart[numberOfRegions];
+            final int end = r < numberOfRegions ? regionStart[r + 1] : zonesByRegion.length;
+            if (start == end) {
+                continue;
+            }
+            tasks.add(() -> {
+                final double[] row = new double[zonesByRegion.length];
+                for (int k = start; k < end; k++) {
+                    final int origin = zonesByRegion[k];
+                    final int originId = zoneIds[origin];
+                    for (int m = 0; m < modes.size(); m++) {
+                        peakTravelTimes.getPeakTravelTimes(originId, sortedZoneIds, modes.get(m), row);
+                        if (r < numberOfRegions) {
+                            final double[] from = fromList.get(m);
+                            final int fromOffset = r * numberOfZones;
+                            for (int j = 0; j < row.length; j++) {
+                                final int destination = fromOffset + zonesByRegion[j];
+                                if (row[j] < from[destination]) {
+                                    from[destination] = row[j];
+                                }
+                            }
+                        }
+                        final double[] to = toList.get(m);
+                        final int toOffset = origin * numberOfRegions;
+                        for (int s = 0; s < numberOfRegions; s++) {
+                            double min = Double.MAX_VALUE;
+                            for (int j = regionStart[s]; j < regionStart[s + 1]; j++) {
+                                if (row[j] < min) {
+                                    min = row[j];
+                                }
+                            }
+                            to[toOffset + s] = min;
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+
+        final AtomicInteger counter = new AtomicInteger();
+        final ExecutorService service = Executors.newFixedThreadPool(Math.max(1, numberOfThreads), runnable -> {
+            final Thread thread = new Thread(runnable, "regional-travel-times-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Future<Void> future : service.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    public boolean hasMode(String mode) {
+        return fromRegion.containsKey(mode);
+    }
+
+    public double getTravelTimeFromRegion(int regionId, int zoneId, String mode) {
+        return values(fromRegion, mode)[regionIndex(regionId) * zoneIds.length + zoneIndex(zoneId)];
+    }
+
+    public double getTravelTimeToRegion(int zoneId, int regionId, String mode) {
+        return values(toRegion, mode)[zoneIndex(zoneId) * regionIds.length + regionIndex(regionId)];
+    }
+
+    private static double[] values(Map<String, double[]> section, String mode) {
+        final double[] values = section.get(mode);
+        if (values == null) {
+            throw new IllegalArgumentException("No regional travel times for mode " + mode);
+        }
+        return values;
+    }
+
+    private static int[] createIndex(int[] ids) {
+        final int[] index = new int[Arrays.stream(ids).max().orElse(-1) + 1];
+        Arrays.fill(index, -1);
+        for (int i = 0; i < ids.length; i++) {
+            index[ids[i]] = i;
+        }
+        return index;
+    }
+
+    private int zoneIndex(int zoneId) {
+        if (zoneId < 0 || zoneId >= indexByZoneId.length || indexByZoneId[zoneId] < 0) {
+            throw new IllegalArgumentException("Zone " + zoneId + " is not part of the regional travel times.");
+        }
+        return indexByZoneId[zoneId];
+    }
+
+    private int regionIndex(int regionId) {
+        if (regionId < 0 || regionId >= indexByRegionId.length || indexByRegionId[regionId] < 0) {
+            throw new IllegalArgumentException("Region " + regionId + " is not part of the regional travel times.");
+        }
+        return indexByRegionId[regionId];
+    }
+}
@@ -2,6 +2,8 @@ package de.tum.bgu.msm.data;
 
 import de.tum.bgu.msm.common.datafile.TableDataSet;
 import de.tum.bgu.msm.container.DataContainer;
+import de.tum.bgu.msm.data.aggregation.Accumulator;
+import de.tum.bgu.msm.data.aggregation.MicroDataAggregator;
 import de.tum.bgu.msm.data.development.Development;
 import de.tum.bgu.msm.data.dwelling.Dwelling;
 import de.tum.bgu.msm.data.dwelling.DwellingData;
@@ -20,6 +22,7 @@ import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
 
 import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -83,7 +86,10 @@ public final class SummarizeData {
         }
     }
 
-    public static void summarizeSpatially(int year, DataContainer dataContainer) {
+    /**
+     * @param aggregator provides the threads for the aggregation of the micro data by zone
+     */
+    public static void summarizeSpatially(int year, DataContainer dataContainer, MicroDataAggregator aggregator) {
         // write out results by zone
 
         List<DwellingType> dwellingTypes = dataContainer.getRealEstateDataManager().getDwellingTypes().getTypes();
@@ -113,25 +119,20 @@ public final class SummarizeData {
 
         final int highestZonalId = dataContainer.getGeoData().getZones().keySet()
                 .stream().mapToInt(Integer::intValue).max().getAsInt();
-        int[][] dds = new int[dwellingTypes.size()][highestZonalId + 1];
-        int[] prices = new int[highestZonalId + 1];
-        int[] jobs = new int[highestZonalId + 1];
-        int[] hhs = new int[highestZonalId + 1];
-        int[][] hhInc = new int[Properties.get().main.incomeBrackets.length + 1][highestZonalId + 1];
-        IndexedDoubleMatrix1D pop = getPopulationByZone(dataContainer);
-        for (Household hh : dataContainer.getHouseholdDataManager().getHouseholds()) {
-            int zone = dataContainer.getRealEstateDataManager().getDwelling(hh.getDwellingId()).getZoneId();
-            int incGroup = hh.getHouseholdType().getIncomeCategory().ordinal();
-            hhInc[incGroup][zone]++;
-            hhs[zone]++;
-        }
-        for (Dwelling dd : dataContainer.getRealEstateDataManager().getDwellings()) {
-            dds[dwellingTypes.indexOf(dd.getType())][dd.getZoneId()]++;
-            prices[dd.getZoneId()] += dd.getPrice();
-        }
-        for (Job jj : dataContainer.getJobDataManager().getJobs()) {
-            jobs[jj.getZoneId()]++;
-        }
+        final ZonalHouseholds zonalHouseholds = new ZonalHouseholds(dataContainer.getRealEstateDataManager(), highestZonalId);
+        final ZonalDwellings zonalDwellings = new ZonalDwellings(dwellingTypes, highestZonalId);
+        final ZonalJobs zonalJobs = new ZonalJobs(highestZonalId);
+        final MicroDataAggregator zonalAggregator = aggregator.newAggregator();
+        zonalAggregator.addHouseholdAccumulator(zonalHouseholds);
+        zonalAggregator.addDwellingAccumulator(zonalDwellings);
+        zonalAggregator.addJobAccumulator(zonalJobs);
+        zonalAggregator.aggregate();
+        int[][] dds = zonalDwellings.dds;
+        int[] prices = zonalDwellings.prices;
+        int[] jobs = zonalJobs.jobs;
+        int[] hhs = zonalHouseholds.hhs;
+        int[][] hhInc = zonalHouseholds.hhInc;
+        int[] pop = zonalHouseholds.pop;
 
 
         for (Zone zone : dataContainer.getGeoData().getZones().values()) {
@@ -149,7 +150,7 @@ public final class SummarizeData {
             double availLand = dataContainer.getRealEstateDataManager().getAvailableCapacityForConstruction(taz);
 //            Formatter f = new Formatter();
 //            f.format("%d,%f,%f,%d,%d,%d,%f,%f,%d", taz, autoAcc, transitAcc, pop[taz], hhs[taz], dds[taz], availLand, avePrice, jobs[taz]);
-            String txt = taz + "," + autoAcc + "," + transitAcc + "," + pop.getIndexed(taz) + "," + hhs[taz];
+            String txt = taz + "," + autoAcc + "," + transitAcc + "," + (double) pop[taz] + "," + hhs[taz];
             for (int inc = 0; inc <= Properties.get().main.incomeBrackets.length; inc++) {
                 txt = txt.concat("," + hhInc[inc][taz]);
             }
@@ -422,10 +423,139 @@ public final class SummarizeData {
     @Deprecated
     public static IndexedDoubleMatrix1D getPopulationByZone(DataContainer dataContainer) {
         IndexedDoubleMatrix1D popByZone = new IndexedDoubleMatrix1D(dataContainer.getGeoData().getZones().values());
-        for (Household hh : dataContainer.getHouseholdDataManager().getHouseholds()) {
-            final int zone = dataContainer.getRealEstateDataManager().getDwelling(hh.getDwellingId()).getZoneId();
-            popByZone.setIndexed(zone, popByZone.getIndexed(zone) + hh.getHhSize());
+        final HouseholdDataManager householdDataManager = dataContainer.getHouseholdDataManager();
+        for (int zone : dataContainer.getGeoData().getZones().keySet()) {
+            popByZone.setIndexed(zone, householdDataManager.getNumberOfPersonsInZone(zone));
         }
         return popByZone;
     }
+
+    private static final class ZonalHouseholds implements Accumulator<Household> {
+
+        private final RealEstateDataManager realEstateDataManager;
+        private final int highestZonalId;
+        private final int[] hhs;
+        private final int[] pop;
+        private final int[][] hhInc;
+
+        private ZonalHouseholds(RealEstateDataManager realEstateDataManager, int highestZonalId) {
+            this.realEstateDataManager = realEstateDataManager;
+            this.highestZonalId = highestZonalId;
+            this.hhs = new int[highestZonalId + 1];
+            this.pop = new int[highestZonalId + 1];
+            this.hhInc = new int[Properties.get().main.incomeBrackets.length + 1][highestZonalId + 1];
+        }
+
+        @Override
+        public Accumulator<Household> newPartition() {
+            return new ZonalHouseholds(realEstateDataManager, highestZonalId);
+        }
+
+        @Override
+        public void add(Household hh) {
+            int zone = realEstateDataManager.getDwelling(hh.getDwellingId()).getZoneId();
+            int incGroup = hh.getHouseholdType().getIncomeCategory().ordinal();
+            hhInc[incGroup][zone]++;
+            hhs[zone]++;
+            pop[zone] += hh.getHhSize();
+        }
+
+        @Override
+        public void merge(Accumulator<Household> partition) {
+            final ZonalHouseholds other = (ZonalHouseholds) partition;
+            for (int zone = 0; zone <= highestZonalId; zone++) {
+                hhs[zone] += other.hhs[zone];
+                pop[zone] += other.pop[zone];
+                for (int inc = 0; inc < hhInc.length; inc++) {
+                    hhInc[inc][zone] += other.hhInc[inc][zone];
+                }
+            }
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(hhs, 0);
+            Arrays.fill(pop, 0);
+            for (int[] row : hhInc) {
+                Arrays.fill(row, 0);
+            }
+        }
+    }
+
+    private static final class ZonalDwellings implements Accumulator<Dwelling> {
+
+        private final List<DwellingType> dwellingTypes;
+        private final int highestZonalId;
+        private final int[][] dds;
+        private final int[] prices;
+
+        private ZonalDwellings(List<DwellingType> dwellingTypes, int highestZonalId) {
+            this.dwellingTypes = dwellingTypes;
+            this.highestZonalId = highestZonalId;
+            this.dds = new int[dwellingTypes.size()][highestZonalId + 1];
+            this.prices = new int[highestZonalId + 1];
+        }
+
+        @Override
+        public Accumulator<Dwelling> newPartition() {
+            return new ZonalDwellings(dwellingTypes, highestZonalId);
+        }
+
+        @Override
+        public void add(Dwelling dd) {
+            dds[dwellingTypes.indexOf(dd.getType())][dd.getZoneId()]++;
+            prices[dd.getZoneId()] += dd.getPrice();
+        }
+
+        @Override
+        public void merge(Accumulator<Dwelling> partition) {
+            final ZonalDwellings other = (ZonalDwellings) partition;
+            for (int zone = 0; zone <= highestZonalId; zone++) {
+                prices[zone] += other.prices[zone];
+                for (int type = 0; type < dds.length; type++) {
+                    dds[type][zone] += other.dds[type][zone];
+                }
+            }
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(prices, 0);
+            for (int[] row : dds) {
+                Arrays.fill(row, 0);
+            }
+        }
+    }
+
+    private static final class ZonalJobs implements Accumulator<Job> {
+
+        private final int[] jobs;
+
+        private ZonalJobs(int highestZonalId) {
+            this.jobs = new int[highestZonalId + 1];
+        }
+
+        @Override
+        public Accumulator<Job> newPartition() {
+            return new ZonalJobs(jobs.length - 1);
+        }
+
+        @Override
+        public void add(Job jj) {
+            jobs[jj.getZoneId()]++;
+        }
+
+        @Override
+        public void merge(Accumulator<Job> partition) {
+            final int[] other = ((ZonalJobs) partition).jobs;
+            for (int zone = 0; zone < jobs.length; zone++) {
+                jobs[zone] += other[zone];
+            }
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(jobs, 0);
+        }
+    }
 }
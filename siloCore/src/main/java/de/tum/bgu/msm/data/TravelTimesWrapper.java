@@ -55,9 +55,18 @@ public class TravelTimesWrapper implements TravelTimes, ModelUpdateListener {
 
     @Override
     public void setup() {
-        if (delegate instanceof SkimTravelTimes) {
-            updateSkims(properties.main.startYear);
-        }
+        updateSkims(properties.main.startYear);
+    }
+
+    /**
+     * Reads the input skims of the last skim year up to the given year, after the data was restored from a
+     * checkpoint written at the end of that year
+     */
+    public void restoredCheckpoint(int year) {
+        properties.accessibility.skimYears.stream()
+                .filter(skimYear -> skimYear > properties.main.startYear && skimYear <= year)
+                .max(Integer::compare)
+                .ifPresent(this::updateSkims);
     }
 
     @Override
@@ -77,11 +86,26 @@ public class TravelTimesWrapper implements TravelTimes, ModelUpdateListener {
 
     }
 
+    /**
+     * Reads the input skims of the given year into the travel times selected by the travel.time property.
+     * MATSim travel times are not read from skim files.
+     */
     private void updateSkims(int year) {
-        if (properties.transportModel.transportModelIdentifier != TransportModelPropertiesModule.TransportModelIdentifier.MATSIM) {
-            TravelTimeUtil.updateCarSkim((SkimTravelTimes) delegate, year, properties);
-            TravelTimeUtil.updateTransitSkim((SkimTravelTimes) delegate, year, properties);
-            ((SkimTravelTimes) delegate).updateRegionalTravelTimes(geoData.getRegions().values(), geoData.getZones().values());
+        if (properties.transportModel.transportModelIdentifier == TransportModelPropertiesModule.TransportModelIdentifier.MATSIM) {
+            // the car and transit skims are replaced by the matsim transport model
+            return;
+        }
+        switch (properties.transportModel.travelTimeImplIdentifier) {
+            case SKIM:
+                TravelTimeUtil.updateCarSkim((SkimTravelTimes) delegate, year, properties);
+                TravelTimeUtil.updateTransitSkim((SkimTravelTimes) delegate, year, properties);
+                ((SkimTravelTimes) delegate).updateRegionalTravelTimes(geoData.getRegions().values(), geoData.getZones().values());
+                break;
+            case MAPPED_SKIM:
+                TravelTimeUtil.updateMappedSkims((MappedSkimTravelTimes) delegate, year, properties, geoData);
+                break;
+            default:
+                break;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,25 +1,23 @@
 package de.tum.bgu.msm.data.accessibility;
 
 import cern.jet.math.tdouble.DoubleFunctions;
-import de.tum.bgu.msm.data.Location;
+import de.tum.bgu.msm.data.PeakTravelTimes;
 import de.tum.bgu.msm.data.Region;
 import de.tum.bgu.msm.data.Zone;
-import de.tum.bgu.msm.data.dwelling.Dwelling;
 import de.tum.bgu.msm.data.dwelling.DwellingData;
 import de.tum.bgu.msm.data.geo.GeoData;
-import de.tum.bgu.msm.data.job.Job;
 import de.tum.bgu.msm.data.job.JobData;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix1D;
-import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.TransportMode;
 
 import java.util.Collection;
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
 
 /**
  * Calculates and stores accessibilities
@@ -39,6 +37,9 @@ public class AccessibilityImpl implements Accessibility {
     private IndexedDoubleMatrix1D transitAccessibilities;
     private IndexedDoubleMatrix1D regionalAccessibilities;
 
+    private int[] zoneIds;
+    private final Map<String, ImpedanceKernel> kernelsByMode = new HashMap<>();
+
     private final float alphaAuto;
     private final float betaAuto;
     private final float alphaTransit;
@@ -82,38 +83,22 @@ public class AccessibilityImpl implements Accessibility {
     public void calculateHansenAccessibilities(int year) {
 
         logger.info("  Calculating accessibilities for " + year);
-        final Map<Integer, List<Job>> jobsByZone = jobData.getJobs().stream().collect(Collectors.groupingBy(Location::getZoneId));
-        IndexedDoubleMatrix1D employment = new IndexedDoubleMatrix1D(geoData.getZones().values());
-        for(int zoneId : geoData.getZones().keySet()){
-            if (jobsByZone.keySet().contains(zoneId)){
-                employment.setIndexed(zoneId, jobsByZone.get(zoneId).size());
-            } else {
-                employment.setIndexed(zoneId, 0.);
-            }
-
+        if (zoneIds == null) {
+            zoneIds = geoData.getZones().keySet().stream().mapToInt(Integer::intValue).toArray();
         }
-
-        final Map<Integer, List<Dwelling>> dwellingsByZone = dwellingData.getDwellings().stream().collect(Collectors.groupingBy(Location::getZoneId));
+        final double[] employment = new double[zoneIds.length];
         IndexedDoubleMatrix1D popDensity = new IndexedDoubleMatrix1D(geoData.getZones().values());
-        for(Map.Entry<Integer, List<Dwelling>> entry: dwellingsByZone.entrySet()) {
-            popDensity.setIndexed(entry.getKey(), entry.getValue().size());
+        for (int i = 0; i < zoneIds.length; i++) {
+            employment[i] = jobData.getNumberOfJobsInZone(zoneIds[i]);
+            popDensity.setIndexed(zoneIds[i], dwellingData.getNumberOfDwellingsInZone(zoneIds[i]));
         }
 
         logger.info("  Calculating zone zone accessibilities: auto");
-        final IndexedDoubleMatrix2D peakTravelTimeMatrixCar =
-                travelTimes.getPeakSkim(TransportMode.car);
-        final IndexedDoubleMatrix2D autoAccessZoneToZone =
-                calculateZoneToZoneAccessibilities(employment, peakTravelTimeMatrixCar, alphaAuto, betaAuto);
+        final ImpedanceKernel autoKernel = getImpedanceKernel(TransportMode.car, betaAuto);
+        aggregateAccessibilities(autoKernel, employment, alphaAuto, autoAccessibilities);
         logger.info("  Calculating zone zone accessibilities: transit");
-        final IndexedDoubleMatrix2D peakTravelTimeMatrixTransit =
-                travelTimes.getPeakSkim(TransportMode.pt);
-        final IndexedDoubleMatrix2D transitAccessZoneToZone =
-                calculateZoneToZoneAccessibilities(employment,
-                        peakTravelTimeMatrixTransit, alphaTransit, betaTransit);
-
-        logger.info("  Aggregating zone accessibilities");
-        aggregateAccessibilities(autoAccessZoneToZone, transitAccessZoneToZone,
-                autoAccessibilities, transitAccessibilities, geoData.getZones().keySet());
+        final ImpedanceKernel transitKernel = getImpedanceKernel(TransportMode.pt, betaTransit);
+        aggregateAccessibilities(transitKernel, employment, alphaTransit, transitAccessibilities);
 
         logger.info("  Scaling zone accessibilities");
         scaleAccessibility(autoAccessibilities);
@@ -123,6 +108,47 @@ public class AccessibilityImpl implements Accessibility {
          regionalAccessibilities.assign(calculateRegionalAccessibility(geoData.getRegions().values(), autoAccessibilities, popDensity));
     }
 
+    /**
+     * Returns the impedance kernel of the current peak skim of the given mode. The kernel is only
+     * calculated again if the version of the skim changed since the last calculation, which is the case
+     * after skims were updated. The skim is read row by row, so that travel times which do not keep their
+     * skims on the heap do not have to create a matrix.
+     */
+    private ImpedanceKernel getImpedanceKernel(String mode, double beta) {
+        ImpedanceKernel kernel = kernelsByMode.get(mode);
+        final PeakTravelTimes peakTravelTimes = PeakTravelTimes.of(travelTimes);
+        final Object version = peakTravelTimes.getPeakSkimVersion(mode);
+        if (kernel == null || kernel.version != version) {
+            logger.info("  Calculating impedance kernel for updated " + mode + " skim");
+            kernel = new ImpedanceKernel(version, zoneIds, beta,
+                    (origin, row) -> peakTravelTimes.getPeakTravelTimes(zoneIds[origin], zoneIds, mode, row));
+            kernelsByMode.put(mode, kernel);
+        }
+        return kernel;
+    }
+
+    /**
+     * Aggregates the zone to zone Hansen accessibilities into the given vector.
+     * Formula for origin i to destinations j:
+     * accessibility_i = sum_j employment_j^alpha * e^(beta * traveltime_ij)
+     *
+     * @param kernel     impedance kernel of the zone to zone travel times
+     * @param employment the employment by zone, in the order of the zones of the kernel
+     * @param alpha      alpha parameter used for the hansen calculation
+     * @param aggregated vector to which the aggregated accessibilities will be written to
+     */
+    private void aggregateAccessibilities(ImpedanceKernel kernel, double[] employment, double alpha,
+                                          IndexedDoubleMatrix1D aggregated) {
+        final double[] attraction = new double[employment.length];
+        for (int j = 0; j < employment.length; j++) {
+            attraction[j] = Math.pow(employment[j], alpha);
+        }
+        final double[] accessibilities = kernel.multiply(attraction);
+        for (int i = 0; i < zoneIds.length; i++) {
+            aggregated.setIndexed(zoneIds[i], accessibilities[i]);
+        }
+    }
+
     /**
      * Calculates regional accessibilities for the given regions and zonal accessibilities and returns them in a vector
      *
@@ -163,39 +189,6 @@ public class AccessibilityImpl implements Accessibility {
         accessibility.assign(DoubleFunctions.mult(sumScaleFactor));
     }
 
-    /**
-     * Aggregates the zone to zone accessibilities into the given vectors, only considering the given keys.
-     *
-     * @param autoAcessibilities     zone to zone accessibility matrix for auto
-     * @param transitAccessibilities zone to zone accessibility matrix for transit
-     * @param aggregatedAuto         vector to which the the aggregated auto accessibilities  will be written to
-     * @param aggregatedTransit      vector to which the the aggregated transit accessibilities will be written to
-     * @param keys                   zone ids that will be considered for aggregation
-     */
-    static void aggregateAccessibilities(IndexedDoubleMatrix2D autoAcessibilities, IndexedDoubleMatrix2D transitAccessibilities,
-                                         IndexedDoubleMatrix1D aggregatedAuto, IndexedDoubleMatrix1D aggregatedTransit, Collection<Integer> keys) {
-        keys.forEach(i -> {
-            aggregatedAuto.setIndexed(i, autoAcessibilities.viewRow(i).zSum());
-            aggregatedTransit.setIndexed(i, transitAccessibilities.viewRow(i).zSum());
-        });
-    }
-
-    /**
-     * Aggregates the zone to zone Hansen accessibilities into the given vectors, only considering the given keys.
-     * Formula for origin i to destinations j:
-     * accessibility_i = population_j^alpha * e^(beta * traveltime_ij)
-     *
-     * @param employment  a vector containing the employment by zone
-     * @param travelTimes zone to zone travel time matrix
-     * @param alpha       alpha parameter used for the hansen calculation
-     * @param beta        beta parameter used for the hansen calculation
-     */
-    static IndexedDoubleMatrix2D calculateZoneToZoneAccessibilities(IndexedDoubleMatrix1D employment, IndexedDoubleMatrix2D travelTimes, double alpha, double beta) {
-        final IndexedDoubleMatrix2D travelTimesCopy = travelTimes.copy();
-        return travelTimesCopy.forEachNonZero((origin, destination, travelTime) ->
-                travelTime > 0 ? Math.pow(employment.getIndexed(travelTimesCopy.getIdForInternalColumnIndex(destination)), alpha) * Math.exp(beta * travelTime) : 0);
-    }
-
     @Override
     public double getAutoAccessibilityForZone(Zone zone) {
     	// Can be combined with getTransitAccessibilityForZone into one method which get the mode
@@ -212,4 +205,48 @@ public class AccessibilityImpl implements Accessibility {
     public double getRegionalAccessibility(Region region) {
         return regionalAccessibilities.getIndexed(region.getId());
     }
-}
\ No newline at end of file
+
+    /**
+     * The impedance e^(beta * traveltime_ij) of all pairs of zones of one skim. Pairs with a travel time
+     * of zero do not contribute to accessibilities and have an impedance of zero.
+     */
+    private static final class ImpedanceKernel {
+
+        /**
+         * The version of the skim the kernel was calculated from, see {@link PeakTravelTimes#getPeakSkimVersion}
+         */
+        private final Object version;
+        private final float[][] impedances;
+
+        /**
+         * @param travelTimes reads the travel times from origin i to all zones into the given row
+         */
+        private ImpedanceKernel(Object version, int[] zoneIds, double beta, BiConsumer<Integer, double[]> travelTimes) {
+            this.version = version;
+            this.impedances = new float[zoneIds.length][];
+            IntStream.range(0, zoneIds.length).parallel().forEach(i -> {
+                final double[] travelTimeRow = new double[zoneIds.length];
+                travelTimes.accept(i, travelTimeRow);
+                final float[] row = new float[zoneIds.length];
+                for (int j = 0; j < zoneIds.length; j++) {
+                    final double travelTime = travelTimeRow[j];
+                    row[j] = travelTime > 0 ? (float) Math.exp(beta * travelTime) : 0;
+                }
+                impedances[i] = row;
+            });
+        }
+
+        private double[] multiply(double[] vector) {
+            final double[] result = new double[impedances.length];
+            IntStream.range(0, impedances.length).parallel().forEach(i -> {
+                final float[] row = impedances[i];
+                double sum = 0;
+                for (int j = 0; j < row.length; j++) {
+                    sum += row[j] * vector[j];
+                }
+                result[i] = sum;
+            });
+            return result;
+        }
+    }
+}
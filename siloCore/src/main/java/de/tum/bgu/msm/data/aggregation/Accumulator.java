@@ -0,0 +1,23 @@
+package de.tum.bgu.msm.data.aggregation;
+
+/**
+ * Collects a summary of micro data objects, e.g. counts of persons by age. The
+ * {@link MicroDataAggregator} feeds a partition of the objects to each accumulator returned by
+ * {@link #newPartition()} and merges the partitions into the registered accumulator afterwards.
+ */
+public interface Accumulator<T> {
+
+    /**
+     * Returns a new, empty accumulator of the same kind that collects one partition of the objects.
+     */
+    Accumulator<T> newPartition();
+
+    void add(T element);
+
+    /**
+     * Adds the summary of a partition that was created by {@link #newPartition()}.
+     */
+    void merge(Accumulator<T> partition);
+
+    void clear();
+}
@@ -0,0 +1,171 @@
+package de.tum.bgu.msm.data.aggregation;
+
+import com.google.common.collect.Iterables;
+import de.tum.bgu.msm.container.DataContainer;
+import de.tum.bgu.msm.data.dwelling.Dwelling;
+import de.tum.bgu.msm.data.household.Household;
+import de.tum.bgu.msm.data.job.Job;
+import de.tum.bgu.msm.data.person.Person;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs all registered {@link Accumulator}s in one pass over the persons, households, dwellings
+ * and jobs. Each pass is split into one partition per thread. The partitions are merged in a
+ * fixed order, so that the results do not depend on the scheduling of the threads.
+ *
+ * The threads are created with the first parallel pass and reused by all later passes, also by the
+ * aggregators created with {@link #newAggregator()}, until {@link #shutdown()} is called.
+ */
+public final class MicroDataAggregator {
+
+    private static final int MIN_PARTITION_SIZE = 10000;
+
+    private final DataContainer dataContainer;
+    private final Workers workers;
+
+    private final List<Accumulator<Person>> personAccumulators = new ArrayList<>();
+    private final List<Accumulator<Household>> householdAccumulators = new ArrayList<>();
+    private final List<Accumulator<Dwelling>> dwellingAccumulators = new ArrayList<>();
+    private final List<Accumulator<Job>> jobAccumulators = new ArrayList<>();
+
+    public MicroDataAggregator(DataContainer dataContainer, int numberOfThreads) {
+        this(dataContainer, new Workers(Math.max(numberOfThreads, 1)));
+    }
+
+    private MicroDataAggregator(DataContainer dataContainer, Workers workers) {
+        this.dataContainer = dataContainer;
+        this.workers = workers;
+    }
+
+    /**
+     * @return an aggregator without accumulators that runs on the threads of this aggregator
+     */
+    public MicroDataAggregator newAggregator() {
+        return new MicroDataAggregator(dataContainer, workers);
+    }
+
+    public void addPersonAccumulator(Accumulator<Person> accumulator) {
+        personAccumulators.add(accumulator);
+    }
+
+    public void addHouseholdAccumulator(Accumulator<Household> accumulator) {
+        householdAccumulators.add(accumulator);
+    }
+
+    public void addDwellingAccumulator(Accumulator<Dwelling> accumulator) {
+        dwellingAccumulators.add(accumulator);
+    }
+
+    public void addJobAccumulator(Accumulator<Job> accumulator) {
+        jobAccumulators.add(accumulator);
+    }
+
+    /**
+     * Clears all registered accumulators and fills them with the current micro data.
+     */
+    public void aggregate() {
+        final ExecutorService executor = workers.get();
+        aggregate(dataContainer.getHouseholdDataManager().getPersons(), personAccumulators, executor, workers.numberOfThreads);
+        aggregate(dataContainer.getHouseholdDataManager().getHouseholds(), householdAccumulators, executor, workers.numberOfThreads);
+        aggregate(dataContainer.getRealEstateDataManager().getDwellings(), dwellingAccumulators, executor, workers.numberOfThreads);
+        aggregate(dataContainer.getJobDataManager().getJobs(), jobAccumulators, executor, workers.numberOfThreads);
+    }
+
+    /**
+     * Stops the threads of this aggregator and of the aggregators created with {@link #newAggregator()}
+     */
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    static <T> void aggregate(Collection<? extends T> elements, List<Accumulator<T>> accumulators,
+                              ExecutorService executor, int numberOfThreads) {
+        if (accumulators.isEmpty()) {
+            return;
+        }
+        for (Accumulator<T> accumulator : accumulators) {
+            accumulator.clear();
+        }
+        if (executor == null || elements.size() < 2 * MIN_PARTITION_SIZE) {
+            for (T element : elements) {
+                for (Accumulator<T> accumulator : accumulators) {
+                    accumulator.add(element);
+                }
+            }
+            return;
+        }
+
+        final int partitions = Math.min(numberOfThreads, elements.size() / MIN_PARTITION_SIZE);
+        final int partitionSize = elements.size() / partitions + 1;
+        final List<Callable<List<Accumulator<T>>>> tasks = new ArrayList<>();
+        for (final List<? extends T> partition : Iterables.partition(elements, partitionSize)) {
+            tasks.add(() -> {
+                final List<Accumulator<T>> partials = new ArrayList<>(accumulators.size());
+                for (Accumulator<T> accumulator : accumulators) {
+                    partials.add(accumulator.newPartition());
+                }
+                for (T element : partition) {
+                    for (Accumulator<T> partial : partials) {
+                        partial.add(element);
+                    }
+                }
+                return partials;
+            });
+        }
+        try {
+            for (Future<List<Accumulator<T>>> future : executor.invokeAll(tasks)) {
+                final List<Accumulator<T>> partials = future.get();
+                for (int i = 0; i < accumulators.size(); i++) {
+                    accumulators.get(i).merge(partials.get(i));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * The thread pool shared by an aggregator and the aggregators created from it. No pool is created
+     * for a single thread.
+     */
+    private static final class Workers {
+
+        private final int numberOfThreads;
+        private ExecutorService executor;
+
+        private Workers(int numberOfThreads) {
+            this.numberOfThreads = numberOfThreads;
+        }
+
+        private synchronized ExecutorService get() {
+            if (executor == null && numberOfThreads > 1) {
+                final AtomicInteger counter = new AtomicInteger();
+                executor = Executors.newFixedThreadPool(numberOfThreads, runnable -> {
+                    Thread thread = new Thread(runnable, "aggregation-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return executor;
+        }
+
+        private synchronized void shutdown() {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package de.tum.bgu.msm.data.columnar;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Side table for the free attributes of the entities of a columnar store. Only few entities carry
+ * attributes, so they are kept by id instead of in a column.
+ */
+final class AttributeTable {
+
+    private final Map<Integer, Map<String, Object>> attributes = new ConcurrentHashMap<>();
+
+    Optional<Object> get(int id, String key) {
+        final Map<String, Object> attributesOfEntity = attributes.get(id);
+        return attributesOfEntity == null ? Optional.empty() : Optional.ofNullable(attributesOfEntity.get(key));
+    }
+
+    void set(int id, String key, Object value) {
+        if (value == null) {
+            final Map<String, Object> attributesOfEntity = attributes.get(id);
+            if (attributesOfEntity != null) {
+                attributesOfEntity.remove(key);
+            }
+        } else {
+            attributes.computeIfAbsent(id, k -> new ConcurrentHashMap<>()).put(key, value);
+        }
+    }
+
+    void clear(int id) {
+        attributes.remove(id);
+    }
+}
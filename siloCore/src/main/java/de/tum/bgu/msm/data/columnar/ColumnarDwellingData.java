@@ -0,0 +1,284 @@
+package de.tum.bgu.msm.data.columnar;
+
+import de.tum.bgu.msm.data.dwelling.*;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Dwelling data that keeps the attributes of dwellings in primitive arrays indexed by id. The
+ * {@link Dwelling} instances handed out by this store are flyweight views, see {@link ColumnarHouseholdData}.
+ * Dwellings have to be created by the factory of this store ({@link #getDwellingFactory()}).
+ * As in {@link ColumnarHouseholdData}, attributes must not be set while entities are created on another
+ * thread, as the columns may be replaced by larger copies.
+ */
+public final class ColumnarDwellingData implements DwellingData {
+
+    private static final DwellingUsage[] USAGES = DwellingUsage.values();
+
+    private final Slots slots = new Slots();
+    private final AttributeTable attributes = new AttributeTable();
+    private final Map<Integer, Integer> dwellingCountByZone = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<DwellingType, Integer>> dwellingCountByZoneAndType = new ConcurrentHashMap<>();
+
+    /**
+     * Dwelling types are use case specific, so they are stored as index into this list.
+     */
+    private final List<DwellingType> types = new CopyOnWriteArrayList<>();
+    private final Map<DwellingType, Short> typeIndices = new HashMap<>();
+
+    private int[] zoneId = new int[0];
+    private int[] countedZoneId = new int[0];
+    private short[] countedType = new short[0];
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private short[] type = new short[0];
+    private int[] bedrooms = new int[0];
+    private int[] yearBuilt = new int[0];
+    private int[] residentId = new int[0];
+    private int[] quality = new int[0];
+    private int[] price = new int[0];
+    private int[] floorSpace = new int[0];
+    private byte[] usage = new byte[0];
+
+    private final DwellingFactory dwellingFactory = this::allocateDwelling;
+
+    public DwellingFactory getDwellingFactory() {
+        return dwellingFactory;
+    }
+
+    @Override
+    public Dwelling getDwelling(int dwellingId) {
+        return slots.isPresent(dwellingId) ? new DwellingView(dwellingId) : null;
+    }
+
+    @Override
+    public Collection<Dwelling> getDwellings() {
+        return slots.values(DwellingView::new);
+    }
+
+    @Override
+    public synchronized void removeDwelling(int id) {
+        if (slots.remove(id)) {
+            count(id, -1);
+        }
+    }
+
+    /**
+     * The zone and type in which a dwelling is counted are remembered, so the counts stay consistent even
+     * if a dwelling that is part of the data is added again.
+     */
+    @Override
+    public synchronized void addDwelling(Dwelling dwelling) {
+        if (!(dwelling instanceof DwellingView) || ((DwellingView) dwelling).store() != this) {
+            throw new IllegalArgumentException("Dwelling " + dwelling.getId()
+                    + " was not created by the dwelling factory of this columnar store.");
+        }
+        final int id = dwelling.getId();
+        if (slots.add(id)) {
+            count(id, -1);
+        }
+        countedZoneId[id] = zoneId[id];
+        countedType[id] = type[id];
+        count(id, 1);
+    }
+
+    private void count(int id, int change) {
+        dwellingCountByZone.merge(countedZoneId[id], change, Integer::sum);
+        dwellingCountByZoneAndType.computeIfAbsent(countedZoneId[id], zone -> new ConcurrentHashMap<>())
+                .merge(types.get(countedType[id]), change, Integer::sum);
+    }
+
+    @Override
+    public int getNumberOfDwellingsInZone(int zoneId) {
+        return dwellingCountByZone.getOrDefault(zoneId, 0);
+    }
+
+    @Override
+    public int getNumberOfDwellingsInZone(int zoneId, DwellingType dwellingType) {
+        final Map<DwellingType, Integer> countByType = dwellingCountByZoneAndType.get(zoneId);
+        return countByType == null ? 0 : countByType.getOrDefault(dwellingType, 0);
+    }
+
+    private synchronized Dwelling allocateDwelling(int id, int zoneId, Coordinate coordinate,
+                                                   int hhId, DwellingType type, int bedrooms,
+                                                   int quality, int price, int year) {
+        Slots.checkId(id);
+        if (id >= this.zoneId.length) {
+            final int capacity = Slots.grownCapacity(id, this.zoneId.length);
+            this.zoneId = Arrays.copyOf(this.zoneId, capacity);
+            this.countedZoneId = Arrays.copyOf(this.countedZoneId, capacity);
+            this.countedType = Arrays.copyOf(this.countedType, capacity);
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.type = Arrays.copyOf(this.type, capacity);
+            this.bedrooms = Arrays.copyOf(this.bedrooms, capacity);
+            this.yearBuilt = Arrays.copyOf(this.yearBuilt, capacity);
+            this.residentId = Arrays.copyOf(this.residentId, capacity);
+            this.quality = Arrays.copyOf(this.quality, capacity);
+            this.price = Arrays.copyOf(this.price, capacity);
+            this.floorSpace = Arrays.copyOf(this.floorSpace, capacity);
+            this.usage = Arrays.copyOf(this.usage, capacity);
+        }
+        this.zoneId[id] = zoneId;
+        setCoordinate(id, coordinate);
+        this.type[id] = typeIndex(type);
+        this.bedrooms[id] = bedrooms;
+        this.yearBuilt[id] = year;
+        this.residentId[id] = hhId;
+        this.quality[id] = quality;
+        this.price[id] = price;
+        this.floorSpace[id] = 0;
+        this.usage[id] = (byte) DwellingUsage.GROUP_QUARTER_OR_DEFAULT.ordinal();
+        attributes.clear(id);
+        return new DwellingView(id);
+    }
+
+    private short typeIndex(DwellingType dwellingType) {
+        return typeIndices.computeIfAbsent(dwellingType, t -> {
+            types.add(t);
+            return (short) (types.size() - 1);
+        });
+    }
+
+    private void setCoordinate(int id, Coordinate coordinate) {
+        x[id] = coordinate == null ? Double.NaN : coordinate.x;
+        y[id] = coordinate == null ? Double.NaN : coordinate.y;
+    }
+
+    private final class DwellingView implements Dwelling {
+
+        private final int id;
+
+        private DwellingView(int id) {
+            this.id = id;
+        }
+
+        private ColumnarDwellingData store() {
+            return ColumnarDwellingData.this;
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public int getZoneId() {
+            return zoneId[id];
+        }
+
+        /**
+         * @return a new coordinate with the stored position, or null if the dwelling has no coordinate
+         */
+        @Override
+        public Coordinate getCoordinate() {
+            return Double.isNaN(x[id]) ? null : new Coordinate(x[id], y[id]);
+        }
+
+        @Override
+        public void setCoordinate(Coordinate coordinate) {
+            ColumnarDwellingData.this.setCoordinate(id, coordinate);
+        }
+
+        @Override
+        public int getQuality() {
+            return quality[id];
+        }
+
+        @Override
+        public int getResidentId() {
+            return residentId[id];
+        }
+
+        @Override
+        public int getPrice() {
+            return price[id];
+        }
+
+        @Override
+        public DwellingType getType() {
+            return types.get(type[id]);
+        }
+
+        @Override
+        public int getBedrooms() {
+            return bedrooms[id];
+        }
+
+        @Override
+        public int getYearBuilt() {
+            return yearBuilt[id];
+        }
+
+        @Override
+        public void setResidentID(int residentID) {
+            residentId[id] = residentID;
+        }
+
+        @Override
+        public void setQuality(int newQuality) {
+            quality[id] = newQuality;
+        }
+
+        @Override
+        public void setPrice(int newPrice) {
+            price[id] = newPrice;
+        }
+
+        @Override
+        public void setFloorSpace(int newFloorSpace) {
+            floorSpace[id] = newFloorSpace;
+        }
+
+        @Override
+        public int getFloorSpace() {
+            return floorSpace[id];
+        }
+
+        @Override
+        public void setUsage(DwellingUsage newUsage) {
+            usage[id] = (byte) newUsage.ordinal();
+        }
+
+        @Override
+        public DwellingUsage getUsage() {
+            return USAGES[usage[id]];
+        }
+
+        @Override
+        public Optional<Object> getAttribute(String key) {
+            return attributes.get(id, key);
+        }
+
+        @Override
+        public void setAttribute(String key, Object value) {
+            attributes.set(id, key, value);
+        }
+
+        @Override
+        public String toString() {
+            return "Attributes of dwelling  " + id
+                    + "\nLocated in zone         " + getZoneId()
+                    + "\nLocated at		        " + getCoordinate()
+                    + "\nOccupied by household   " + getResidentId()
+                    + "\nDwelling type           " + getType()
+                    + "\nNumber of bedrooms      " + getBedrooms()
+                    + "\nQuality (1 low, 4 high) " + getQuality()
+                    + "\nMonthly price in US$    " + getPrice()
+                    + "\nYear dwelling was built " + getYearBuilt();
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Dwelling && ((Dwelling) o).getId() == this.id;
+        }
+    }
+}
@@ -0,0 +1,573 @@
+package de.tum.bgu.msm.data.columnar;
+
+import de.tum.bgu.msm.data.household.Household;
+import de.tum.bgu.msm.data.household.HouseholdData;
+import de.tum.bgu.msm.data.household.HouseholdFactory;
+import de.tum.bgu.msm.data.household.HouseholdType;
+import de.tum.bgu.msm.data.household.HouseholdUtil;
+import de.tum.bgu.msm.data.person.*;
+import de.tum.bgu.msm.data.vehicle.*;
+
+import java.util.*;
+
+/**
+ * Household data that keeps the attributes of persons and households in primitive arrays indexed by id
+ * instead of one object per entity. {@link Person} and {@link Household} instances handed out by this
+ * store are flyweight views that only hold the id and read and write the columns. Free attributes are
+ * kept in a side table.
+ *
+ * Persons and households have to be created by the factories of this store ({@link #getPersonFactory()},
+ * {@link #getHouseholdFactory()}), which write their columns. Ids are used as array indices, so they
+ * should be dense and must not be negative.
+ *
+ * Adding and removing entities is synchronized. Reading and setting attributes is not. Unlike the fields of
+ * {@link PersonImpl}, the columns are replaced by larger copies when an entity with an id beyond their
+ * capacity is created, and an attribute set by another thread at the same time may be written to the old
+ * column and lost. Attributes therefore must not be set while entities are created on another thread.
+ */
+public final class ColumnarHouseholdData implements HouseholdData {
+
+    private static final Gender[] GENDERS = Gender.values();
+    private static final Occupation[] OCCUPATIONS = Occupation.values();
+    private static final PersonRole[] ROLES = PersonRole.values();
+    private static final PersonType[] PERSON_TYPES = PersonType.values();
+    private static final HouseholdType[] HOUSEHOLD_TYPES = HouseholdType.values();
+    private static final int[] NO_MEMBERS = new int[0];
+    private static final int NO_HOUSEHOLD = -1;
+
+    private final Slots personSlots = new Slots();
+    private final AttributeTable personAttributes = new AttributeTable();
+    private int[] age = new int[0];
+    private byte[] gender = new byte[0];
+    private byte[] occupation = new byte[0];
+    private byte[] role = new byte[0];
+    private byte[] personType = new byte[0];
+    private int[] jobId = new int[0];
+    private int[] income = new int[0];
+    private int[] householdId = new int[0];
+    private boolean[] driverLicense = new boolean[0];
+
+    private final Slots householdSlots = new Slots();
+    private final AttributeTable householdAttributes = new AttributeTable();
+    private int[] dwellingId = new int[0];
+    private byte[] householdType = new byte[0];
+    private int[][] members = new int[0][];
+    private List<Vehicle>[] vehicles = newVehicleColumn(0);
+
+    private final PersonFactory personFactory = new ColumnarPersonFactory();
+    private final HouseholdFactory householdFactory = new ColumnarHouseholdFactory();
+
+    public PersonFactory getPersonFactory() {
+        return personFactory;
+    }
+
+    public HouseholdFactory getHouseholdFactory() {
+        return householdFactory;
+    }
+
+    @Override
+    public Household getHousehold(int householdId) {
+        return householdSlots.isPresent(householdId) ? new HouseholdView(householdId) : null;
+    }
+
+    @Override
+    public Collection<Household> getHouseholds() {
+        return householdSlots.values(HouseholdView::new);
+    }
+
+    @Override
+    public Person getPerson(int id) {
+        return personSlots.isPresent(id) ? new PersonView(id) : null;
+    }
+
+    @Override
+    public synchronized void removePerson(int id) {
+        personSlots.remove(id);
+    }
+
+    @Override
+    public Collection<Person> getPersons() {
+        return personSlots.values(PersonView::new);
+    }
+
+    @Override
+    public synchronized void removeHousehold(int householdId) {
+        householdSlots.remove(householdId);
+    }
+
+    @Override
+    public synchronized void addPerson(Person person) {
+        personSlots.add(personIdOf(person));
+    }
+
+    @Override
+    public synchronized void addHousehold(Household household) {
+        householdSlots.add(householdIdOf(household));
+    }
+
+    private int personIdOf(Person person) {
+        if (!(person instanceof PersonView) || ((PersonView) person).store() != this) {
+            throw new IllegalArgumentException("Person " + person.getId()
+                    + " was not created by the person factory of this columnar store.");
+        }
+        return person.getId();
+    }
+
+    private int householdIdOf(Household household) {
+        if (!(household instanceof HouseholdView) || ((HouseholdView) household).store() != this) {
+            throw new IllegalArgumentException("Household " + household.getId()
+                    + " was not created by the household factory of this columnar store.");
+        }
+        return household.getId();
+    }
+
+    private synchronized Person allocatePerson(int id, int age, Gender gender, Occupation occupation,
+                                               PersonRole role, int jobId, int income) {
+        Slots.checkId(id);
+        if (id >= this.age.length) {
+            final int capacity = Slots.grownCapacity(id, this.age.length);
+            this.age = Arrays.copyOf(this.age, capacity);
+            this.gender = Arrays.copyOf(this.gender, capacity);
+            this.occupation = Arrays.copyOf(this.occupation, capacity);
+            this.role = Arrays.copyOf(this.role, capacity);
+            this.personType = Arrays.copyOf(this.personType, capacity);
+            this.jobId = Arrays.copyOf(this.jobId, capacity);
+            this.income = Arrays.copyOf(this.income, capacity);
+            this.householdId = Arrays.copyOf(this.householdId, capacity);
+            this.driverLicense = Arrays.copyOf(this.driverLicense, capacity);
+        }
+        this.age[id] = age;
+        this.gender[id] = encode(gender);
+        this.occupation[id] = encode(occupation);
+        this.role[id] = encode(role);
+        this.jobId[id] = jobId;
+        this.income[id] = income;
+        this.householdId[id] = NO_HOUSEHOLD;
+        this.driverLicense[id] = false;
+        final PersonView person = new PersonView(id);
+        this.personType[id] = encode(PersonType.defineType(person));
+        personAttributes.clear(id);
+        return person;
+    }
+
+    private synchronized Household allocateHousehold(int id, int dwellingId) {
+        Slots.checkId(id);
+        if (id >= this.dwellingId.length) {
+            final int capacity = Slots.grownCapacity(id, this.dwellingId.length);
+            this.dwellingId = Arrays.copyOf(this.dwellingId, capacity);
+            this.householdType = Arrays.copyOf(this.householdType, capacity);
+            this.members = Arrays.copyOf(this.members, capacity);
+            this.vehicles = Arrays.copyOf(this.vehicles, capacity);
+        }
+        this.dwellingId[id] = dwellingId;
+        this.householdType[id] = 0;
+        this.members[id] = NO_MEMBERS;
+        this.vehicles[id] = null;
+        householdAttributes.clear(id);
+        return new HouseholdView(id);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Vehicle>[] newVehicleColumn(int capacity) {
+        return new List[capacity];
+    }
+
+    private static byte encode(Enum<?> value) {
+        return value == null ? 0 : (byte) (value.ordinal() + 1);
+    }
+
+    private static <E> E decode(E[] values, byte code) {
+        return code == 0 ? null : values[code - 1];
+    }
+
+    private final class PersonView implements Person {
+
+        private final int id;
+
+        private PersonView(int id) {
+            this.id = id;
+        }
+
+        private ColumnarHouseholdData store() {
+            return ColumnarHouseholdData.this;
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public void setHousehold(Household household) {
+            householdId[id] = household == null ? NO_HOUSEHOLD : householdIdOf(household);
+        }
+
+        @Override
+        public Household getHousehold() {
+            final int hhId = householdId[id];
+            return hhId == NO_HOUSEHOLD ? null : new HouseholdView(hhId);
+        }
+
+        @Override
+        public void setRole(PersonRole pr) {
+            role[id] = encode(pr);
+        }
+
+        @Override
+        public void birthday() {
+            age[id]++;
+            personType[id] = encode(PersonType.defineType(this));
+        }
+
+        @Override
+        public void setIncome(int newIncome) {
+            income[id] = newIncome;
+            getHousehold().updateHouseholdType();
+        }
+
+        @Override
+        public void setWorkplace(int newWorkplace) {
+            jobId[id] = newWorkplace;
+        }
+
+        @Override
+        public void setOccupation(Occupation newOccupation) {
+            occupation[id] = encode(newOccupation);
+        }
+
+        @Override
+        public int getAge() {
+            return age[id];
+        }
+
+        @Override
+        public Gender getGender() {
+            return decode(GENDERS, gender[id]);
+        }
+
+        @Override
+        public Occupation getOccupation() {
+            return decode(OCCUPATIONS, occupation[id]);
+        }
+
+        @Override
+        public int getAnnualIncome() {
+            return income[id];
+        }
+
+        @Override
+        public PersonType getType() {
+            return decode(PERSON_TYPES, personType[id]);
+        }
+
+        @Override
+        public PersonRole getRole() {
+            return decode(ROLES, role[id]);
+        }
+
+        @Override
+        public int getJobId() {
+            return jobId[id];
+        }
+
+        @Override
+        public void setDriverLicense(boolean hasDriverLicense) {
+            driverLicense[id] = hasDriverLicense;
+        }
+
+        @Override
+        public boolean hasDriverLicense() {
+            return driverLicense[id];
+        }
+
+        @Override
+        public Optional<Object> getAttribute(String key) {
+            return personAttributes.get(id, key);
+        }
+
+        @Override
+        public void setAttribute(String key, Object value) {
+            personAttributes.set(id, key, value);
+        }
+
+        @Override
+        public String toString() {
+            final int hhId = householdId[id];
+            return "+++ Person " + id
+                    + "\nHousehold id         " + (hhId == NO_HOUSEHOLD ? "null" : hhId)
+                    + "\nAge                  " + getAge()
+                    + "\nGender               " + getGender()
+                    + "\nRole in household    " + getRole()
+                    + "\nOccupation           " + getOccupation()
+                    + "\nWorkplace ID         " + getJobId()
+                    + "\nIncome               " + getAnnualIncome()
+                    + "\nPerson type          " + getType();
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Person && ((Person) o).getId() == this.id;
+        }
+    }
+
+    private final class HouseholdView implements Household {
+
+        private final int id;
+
+        private HouseholdView(int id) {
+            this.id = id;
+        }
+
+        private ColumnarHouseholdData store() {
+            return ColumnarHouseholdData.this;
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public int getHhSize() {
+            return members[id].length;
+        }
+
+        @Override
+        public int getDwellingId() {
+            return dwellingId[id];
+        }
+
+        @Override
+        public int getAutos() {
+            return (int) getVehicles().stream().filter(vv -> vv.getType().equals(VehicleType.CAR)).count();
+        }
+
+        @Override
+        public Map<Integer, ? extends Person> getPersons() {
+            return new MemberMap(id);
+        }
+
+        @Override
+        public HouseholdType getHouseholdType() {
+            return decode(HOUSEHOLD_TYPES, householdType[id]);
+        }
+
+        @Override
+        public void updateHouseholdType() {
+            householdType[id] = encode(HouseholdUtil.defineHouseholdType(this));
+        }
+
+        @Override
+        public void setDwelling(int dwelling) {
+            dwellingId[id] = dwelling;
+        }
+
+        /**
+         * Members are kept in the order in which they were added, like the persons of a
+         * {@link de.tum.bgu.msm.data.household.HouseholdImpl}. The member array is replaced instead
+         * of modified, so iterations over {@link #getPersons()} are not affected.
+         */
+        @Override
+        public void addPerson(Person person) {
+            if (person != null) {
+                final int personId = personIdOf(person);
+                final int[] current = members[id];
+                for (int member : current) {
+                    if (member == personId) {
+                        updateHouseholdType();
+                        return;
+                    }
+                }
+                final int[] added = Arrays.copyOf(current, current.length + 1);
+                added[current.length] = personId;
+                members[id] = added;
+                updateHouseholdType();
+            }
+        }
+
+        @Override
+        public void removePerson(int personId) {
+            final int[] current = members[id];
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == personId) {
+                    final int[] removed = new int[current.length - 1];
+                    System.arraycopy(current, 0, removed, 0, i);
+                    System.arraycopy(current, i + 1, removed, i, current.length - i - 1);
+                    members[id] = removed;
+                    break;
+                }
+            }
+            updateHouseholdType();
+        }
+
+        @Override
+        public void setAutos(int autos) {
+            final List<Vehicle> vehiclesOfHousehold = getVehicles();
+            vehiclesOfHousehold.clear();
+            for (int i = 0; i < autos; i++) {
+                vehiclesOfHousehold.add(new Car(VehicleUtil.getHighestVehicleIdInHousehold(this), CarType.CONVENTIONAL, VehicleUtil.getVehicleAgeInBaseYear()));
+            }
+        }
+
+        @Override
+        public Optional<Object> getAttribute(String key) {
+            return householdAttributes.get(id, key);
+        }
+
+        @Override
+        public void setAttribute(String key, Object value) {
+            householdAttributes.set(id, key, value);
+        }
+
+        @Override
+        public List<Vehicle> getVehicles() {
+            List<Vehicle> vehiclesOfHousehold = vehicles[id];
+            if (vehiclesOfHousehold == null) {
+                vehiclesOfHousehold = new ArrayList<>(2);
+                vehicles[id] = vehiclesOfHousehold;
+            }
+            return vehiclesOfHousehold;
+        }
+
+        @Override
+        public String toString() {
+            return "Attributes of household " + id
+                    + "\nDwelling ID             " + getDwellingId()
+                    + "\nHousehold size          " + getHhSize();
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Household && ((Household) o).getId() == this.id;
+        }
+    }
+
+    /**
+     * Unmodifiable map of the members of a household, backed by the member column.
+     */
+    private final class MemberMap extends AbstractMap<Integer, Person> {
+
+        private final int hhId;
+
+        private MemberMap(int hhId) {
+            this.hhId = hhId;
+        }
+
+        @Override
+        public int size() {
+            return members[hhId].length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && indexOf((Integer) key) >= 0;
+        }
+
+        @Override
+        public Person get(Object key) {
+            return containsKey(key) ? new PersonView((Integer) key) : null;
+        }
+
+        private int indexOf(int personId) {
+            final int[] current = members[hhId];
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == personId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Set<Entry<Integer, Person>> entrySet() {
+            return new AbstractSet<Entry<Integer, Person>>() {
+                @Override
+                public Iterator<Entry<Integer, Person>> iterator() {
+                    final int[] current = members[hhId];
+                    return new Iterator<Entry<Integer, Person>>() {
+                        private int next = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < current.length;
+                        }
+
+                        @Override
+                        public Entry<Integer, Person> next() {
+                            if (next >= current.length) {
+                                throw new NoSuchElementException();
+                            }
+                            final int personId = current[next++];
+                            return new SimpleImmutableEntry<>(personId, new PersonView(personId));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return MemberMap.this.size();
+                }
+            };
+        }
+    }
+
+    private final class ColumnarPersonFactory implements PersonFactory {
+
+        @Override
+        public Person createPerson(int id, int age, Gender gender, Occupation occupation, PersonRole role,
+                                   int workplace, int income) {
+            return allocatePerson(id, age, gender, occupation, role, workplace, income);
+        }
+
+        @Override
+        public Person giveBirth(Person parent, int id, Gender gender) {
+            return allocatePerson(id, 0, gender, Occupation.TODDLER, PersonRole.CHILD, 0, 0);
+        }
+
+        @Override
+        public Person duplicate(Person originalPerson, int nextPersonId) {
+            final Person duplicate = allocatePerson(nextPersonId,
+                    originalPerson.getAge(),
+                    originalPerson.getGender(),
+                    originalPerson.getOccupation(),
+                    originalPerson.getRole(),
+                    -1,
+                    originalPerson.getAnnualIncome());
+            duplicate.setDriverLicense(originalPerson.hasDriverLicense());
+            return duplicate;
+        }
+    }
+
+    private final class ColumnarHouseholdFactory implements HouseholdFactory {
+
+        @Override
+        public Household createHousehold(int id, int dwellingID, int autos) {
+            final Household household = allocateHousehold(id, dwellingID);
+            for (int i = 0; i < autos; i++) {
+                household.getVehicles().add(new Car(i, CarType.CONVENTIONAL, VehicleUtil.getVehicleAgeInBaseYear()));
+            }
+            return household;
+        }
+
+        @Override
+        public Household duplicate(Household original, int nextHouseholdId) {
+            final Household duplicate = allocateHousehold(nextHouseholdId, original.getDwellingId());
+            original.getVehicles().forEach(vv -> {
+                if (vv.getType().equals(VehicleType.CAR)) {
+                    duplicate.getVehicles().add(new Car(vv.getId(), ((Car) vv).getCarType(), vv.getAge()));
+                }
+            });
+            return duplicate;
+        }
+    }
+}
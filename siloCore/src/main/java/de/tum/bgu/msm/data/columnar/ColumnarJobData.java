@@ -0,0 +1,217 @@
+package de.tum.bgu.msm.data.columnar;
+
+import de.tum.bgu.msm.data.Zone;
+import de.tum.bgu.msm.data.job.Job;
+import de.tum.bgu.msm.data.job.JobData;
+import de.tum.bgu.msm.data.job.JobFactory;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Job data that keeps the attributes of jobs in primitive arrays indexed by id. The {@link Job}
+ * instances handed out by this store are flyweight views, see {@link ColumnarHouseholdData}.
+ * Jobs have to be created by the factory of this store ({@link #getJobFactory()}).
+ * As in {@link ColumnarHouseholdData}, attributes must not be set while entities are created on another
+ * thread, as the columns may be replaced by larger copies.
+ */
+public final class ColumnarJobData implements JobData {
+
+    private final Slots slots = new Slots();
+    private final AttributeTable attributes = new AttributeTable();
+    private final Map<Integer, Integer> jobCountByZone = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<String, Integer>> jobCountByZoneAndType = new ConcurrentHashMap<>();
+
+    /**
+     * There are only few job types, so they are stored as index into this list.
+     */
+    private final List<String> types = new CopyOnWriteArrayList<>();
+    private final Map<String, Short> typeIndices = new HashMap<>();
+
+    private int[] zoneId = new int[0];
+    private int[] countedZoneId = new int[0];
+    private short[] countedType = new short[0];
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private short[] type = new short[0];
+    private int[] workerId = new int[0];
+
+    private final JobFactory jobFactory = this::allocateJob;
+
+    public JobFactory getJobFactory() {
+        return jobFactory;
+    }
+
+    @Override
+    public Job get(int jobId) {
+        return slots.isPresent(jobId) ? new JobView(jobId) : null;
+    }
+
+    @Override
+    public Collection<Job> getJobs() {
+        return slots.values(JobView::new);
+    }
+
+    @Override
+    public synchronized void removeJob(int id) {
+        if (slots.remove(id)) {
+            count(id, -1);
+        }
+    }
+
+    /**
+     * The zone and type in which a job is counted are remembered, so the counts stay consistent even if
+     * a job is relocated while it is part of the data and added again.
+     */
+    @Override
+    public synchronized void addJob(Job jj) {
+        if (!(jj instanceof JobView) || ((JobView) jj).store() != this) {
+            throw new IllegalArgumentException("Job " + jj.getId()
+                    + " was not created by the job factory of this columnar store.");
+        }
+        final int id = jj.getId();
+        if (slots.add(id)) {
+            count(id, -1);
+        }
+        countedZoneId[id] = zoneId[id];
+        countedType[id] = type[id];
+        count(id, 1);
+    }
+
+    private void count(int id, int change) {
+        jobCountByZone.merge(countedZoneId[id], change, Integer::sum);
+        jobCountByZoneAndType.computeIfAbsent(countedZoneId[id], zone -> new ConcurrentHashMap<>())
+                .merge(types.get(countedType[id]), change, Integer::sum);
+    }
+
+    @Override
+    public int getNumberOfJobsInZone(int zoneId) {
+        return jobCountByZone.getOrDefault(zoneId, 0);
+    }
+
+    @Override
+    public int getNumberOfJobsInZone(int zoneId, String jobType) {
+        final Map<String, Integer> countByType = jobCountByZoneAndType.get(zoneId);
+        return countByType == null ? 0 : countByType.getOrDefault(jobType, 0);
+    }
+
+    private synchronized Job allocateJob(int id, int zoneId, Coordinate coordinate, int workerId, String type) {
+        Slots.checkId(id);
+        if (id >= this.zoneId.length) {
+            final int capacity = Slots.grownCapacity(id, this.zoneId.length);
+            this.zoneId = Arrays.copyOf(this.zoneId, capacity);
+            this.countedZoneId = Arrays.copyOf(this.countedZoneId, capacity);
+            this.countedType = Arrays.copyOf(this.countedType, capacity);
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.type = Arrays.copyOf(this.type, capacity);
+            this.workerId = Arrays.copyOf(this.workerId, capacity);
+        }
+        this.zoneId[id] = zoneId;
+        setCoordinate(id, coordinate);
+        this.type[id] = typeIndices.computeIfAbsent(type, t -> {
+            types.add(t);
+            return (short) (types.size() - 1);
+        });
+        this.workerId[id] = workerId;
+        attributes.clear(id);
+        return new JobView(id);
+    }
+
+    private void setCoordinate(int id, Coordinate coordinate) {
+        x[id] = coordinate == null ? Double.NaN : coordinate.x;
+        y[id] = coordinate == null ? Double.NaN : coordinate.y;
+    }
+
+    private final class JobView implements Job {
+
+        private final int id;
+
+        private JobView(int id) {
+            this.id = id;
+        }
+
+        private ColumnarJobData store() {
+            return ColumnarJobData.this;
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public int getZoneId() {
+            return zoneId[id];
+        }
+
+        /**
+         * @return a new coordinate with the stored position, or null if the job has no coordinate
+         */
+        @Override
+        public Coordinate getCoordinate() {
+            return Double.isNaN(x[id]) ? null : new Coordinate(x[id], y[id]);
+        }
+
+        @Override
+        public int getWorkerId() {
+            return workerId[id];
+        }
+
+        @Override
+        public String getType() {
+            return types.get(type[id]);
+        }
+
+        @Override
+        public void setWorkerID(int personID) {
+            workerId[id] = personID;
+        }
+
+        @Override
+        public Optional<Integer> getStartTimeInSeconds() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<Integer> getWorkingTimeInSeconds() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<Object> getAttribute(String key) {
+            return attributes.get(id, key);
+        }
+
+        @Override
+        public void setAttribute(String key, Object value) {
+            attributes.set(id, key, value);
+        }
+
+        @Override
+        public void relocateJob(Zone newZone, Coordinate newCoordinate) {
+            zoneId[id] = newZone.getZoneId();
+            setCoordinate(id, newCoordinate);
+        }
+
+        @Override
+        public String toString() {
+            return "Attributes of job       " + id
+                    + "\nLocated at         " + getCoordinate()
+                    + "\nFilled by person        " + getWorkerId()
+                    + "\nJob type                " + getType();
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Job && ((Job) o).getId() == this.id;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package de.tum.bgu.msm.data.columnar;
+
+import java.util.AbstractCollection;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * Keeps track of the slots of a columnar store. The columns of a slot are written when an entity is
+ * created by a factory of the store, and the slot is present while the entity is part of the data.
+ * Removed entities keep their columns, so views that are still referenced (e.g. the household of a
+ * person that just died) continue to return the last values.
+ */
+final class Slots {
+
+    private final BitSet present = new BitSet();
+    private int size = 0;
+
+    static void checkId(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Columnar stores require non-negative ids, got " + id);
+        }
+    }
+
+    static int grownCapacity(int id, int currentCapacity) {
+        return Math.max(id + 1, currentCapacity + (currentCapacity >> 1) + 16);
+    }
+
+    boolean isPresent(int id) {
+        return id >= 0 && present.get(id);
+    }
+
+    /**
+     * @return true if the slot was present already
+     */
+    boolean add(int id) {
+        if (present.get(id)) {
+            return true;
+        }
+        present.set(id);
+        size++;
+        return false;
+    }
+
+    /**
+     * @return true if the slot was present
+     */
+    boolean remove(int id) {
+        if (!isPresent(id)) {
+            return false;
+        }
+        present.clear(id);
+        size--;
+        return true;
+    }
+
+    /**
+     * @return a collection of the present slots, which creates a view for each slot while iterating.
+     * Like the values of a concurrent map, the iteration does not fail if slots are added or removed.
+     */
+    <T> Collection<T> values(IntFunction<T> viewFactory) {
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new Iterator<T>() {
+                    private int next = present.nextSetBit(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next >= 0;
+                    }
+
+                    @Override
+                    public T next() {
+                        if (next < 0) {
+                            throw new NoSuchElementException();
+                        }
+                        final T view = viewFactory.apply(next);
+                        next = present.nextSetBit(next + 1);
+                        return view;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -10,4 +10,14 @@ public interface DwellingData {
     void removeDwelling(int id);
 
     void addDwelling(Dwelling dwelling);
+
+    /**
+     * @return the number of dwellings located in the given zone
+     */
+    int getNumberOfDwellingsInZone(int zoneId);
+
+    /**
+     * @return the number of dwellings of the given type located in the given zone
+     */
+    int getNumberOfDwellingsInZone(int zoneId, DwellingType dwellingType);
 }
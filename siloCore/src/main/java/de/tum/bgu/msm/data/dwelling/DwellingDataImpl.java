@@ -7,6 +7,8 @@ import java.util.concurrent.ConcurrentHashMap;
 public class DwellingDataImpl implements DwellingData {
 
     private final Map<Integer, Dwelling> dwellings = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> dwellingCountByZone = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<DwellingType, Integer>> dwellingCountByZoneAndType = new ConcurrentHashMap<>();
 
     @Override
     public Dwelling getDwelling(int dwellingId) {
@@ -20,11 +22,35 @@ public class DwellingDataImpl implements DwellingData {
 
     @Override
     public void removeDwelling(int id) {
-        dwellings.remove(id);
+        final Dwelling removed = dwellings.remove(id);
+        if (removed != null) {
+            count(removed, -1);
+        }
     }
 
     @Override
     public void addDwelling(Dwelling dwelling) {
-        dwellings.put(dwelling.getId(), dwelling);
+        final Dwelling previous = dwellings.put(dwelling.getId(), dwelling);
+        if (previous != null) {
+            count(previous, -1);
+        }
+        count(dwelling, 1);
+    }
+
+    private void count(Dwelling dwelling, int change) {
+        dwellingCountByZone.merge(dwelling.getZoneId(), change, Integer::sum);
+        dwellingCountByZoneAndType.computeIfAbsent(dwelling.getZoneId(), zone -> new ConcurrentHashMap<>())
+                .merge(dwelling.getType(), change, Integer::sum);
+    }
+
+    @Override
+    public int getNumberOfDwellingsInZone(int zoneId) {
+        return dwellingCountByZone.getOrDefault(zoneId, 0);
+    }
+
+    @Override
+    public int getNumberOfDwellingsInZone(int zoneId, DwellingType dwellingType) {
+        final Map<DwellingType, Integer> countByType = dwellingCountByZoneAndType.get(zoneId);
+        return countByType == null ? 0 : countByType.getOrDefault(dwellingType, 0);
     }
 }
@@ -1,12 +1,26 @@
 package de.tum.bgu.msm.data.dwelling;
 
-
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
 import org.locationtech.jts.geom.Coordinate;
 
-public class DwellingFactoryImpl implements DwellingFactory {
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class DwellingFactoryImpl implements DwellingFactory, EntityCheckpointCodec<Dwelling> {
 
     @Override
     public Dwelling createDwelling(int id, int zoneId, Coordinate coordinate, int hhId, DwellingType type, int bedrooms, int quality, int price, int year) {
         return new DwellingImpl(id, zoneId, coordinate, hhId, type, bedrooms, quality, price, year);
     }
+
+    @Override
+    public void writeCheckpointFields(Dwelling dwelling, DataOutputStream out) throws IOException {
+        // DwellingImpl has no fields besides the ones of Dwelling
+    }
+
+    @Override
+    public void readCheckpointFields(Dwelling dwelling, DataInputStream in) throws IOException {
+        // DwellingImpl has no fields besides the ones of Dwelling
+    }
 }
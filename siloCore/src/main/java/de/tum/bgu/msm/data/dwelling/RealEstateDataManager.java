@@ -1,11 +1,13 @@
 package de.tum.bgu.msm.data.dwelling;
 
 import de.tum.bgu.msm.data.household.IncomeCategory;
+import de.tum.bgu.msm.io.output.MicroDataOutput;
 import de.tum.bgu.msm.models.ModelUpdateListener;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 public interface RealEstateDataManager extends ModelUpdateListener {
 
@@ -23,8 +25,16 @@ public interface RealEstateDataManager extends ModelUpdateListener {
 
     List<Dwelling> getListOfVacantDwellingsInRegion(int region);
 
+    /**
+     * Draws up to numberOfDwellings distinct vacant dwellings of the region at random,
+     * without copying the vacancy list.
+     */
+    List<Dwelling> sampleVacantDwellingsInRegion(int region, int numberOfDwellings, Random random);
+
     int getNumberOfVacantDDinRegion(int region);
 
+    int getNumberOfVacantDDinRegionAndType(int region, DwellingType dwellingType);
+
     DwellingTypes getDwellingTypes();
 
     Dwelling getDwelling(int dwellingId);
@@ -56,4 +66,11 @@ public interface RealEstateDataManager extends ModelUpdateListener {
     void convertLand(int zone, float acres);
 
     void vacateDwelling(int idOldDD);
+
+    /**
+     * Sets the writer of the micro data files written at the end of each year and of the simulation. Without it
+     * the files are written on the simulation thread.
+     */
+    default void setMicroDataOutput(MicroDataOutput microDataOutput) {
+    }
 }
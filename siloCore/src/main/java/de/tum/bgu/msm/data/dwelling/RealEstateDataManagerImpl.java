@@ -10,11 +10,16 @@ import de.tum.bgu.msm.data.geo.GeoData;
 import de.tum.bgu.msm.data.household.HouseholdData;
 import de.tum.bgu.msm.data.household.HouseholdUtil;
 import de.tum.bgu.msm.data.household.IncomeCategory;
+import de.tum.bgu.msm.io.checkpoint.Checkpointable;
 import de.tum.bgu.msm.io.output.DefaultDwellingWriter;
+import de.tum.bgu.msm.io.output.MicroDataOutput;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.util.*;
@@ -27,7 +32,7 @@ import static de.tum.bgu.msm.data.dwelling.RealEstateUtils.RENT_CATEGORIES;
  * Author: Rolf Moeckel, PB Albuquerque
  * Created on 7 January 2010 in Rhede
  **/
-public class RealEstateDataManagerImpl implements RealEstateDataManager {
+public class RealEstateDataManagerImpl implements RealEstateDataManager, Checkpointable {
 
     private final static Logger logger = Logger.getLogger(RealEstateDataManagerImpl.class);
 
@@ -39,6 +44,7 @@ public class RealEstateDataManagerImpl implements RealEstateDataManager {
     private final DwellingFactory dwellingFactory;
     private final Properties properties;
 
+
     public static int largestNoBedrooms;
 
     /**
@@ -53,13 +59,15 @@ public class RealEstateDataManagerImpl implements RealEstateDataManager {
     private int highestDwellingIdInUse;
     private static final Map<IncomeCategory, Map<Integer, Float>> ddPriceByIncomeCategory = new EnumMap<>(IncomeCategory.class);
 
-    private Map<Integer, List<Dwelling>> vacDwellingsByRegion = new LinkedHashMap<>();
+    private final Map<Integer, VacantDwellingPool> vacDwellingsByRegion = new LinkedHashMap<>();
 
     private double[] avePrice;
     private double[] aveVac;
 
     private final DwellingTypes dwellingTypes;
 
+    private MicroDataOutput microDataOutput = MicroDataOutput.onCallingThread();
+
     public RealEstateDataManagerImpl(DwellingTypes dwellingTypes, DwellingData dwellingData,
                                      HouseholdData householdData, GeoData geoData,
                                      DwellingFactory dwellingFactory, Properties properties) {
@@ -82,6 +90,11 @@ public class RealEstateDataManagerImpl implements RealEstateDataManager {
         return dwellingData;
     }
 
+    @Override
+    public void setMicroDataOutput(MicroDataOutput microDataOutput) {
+        this.microDataOutput = microDataOutput;
+    }
+
     @Override
     public void setup() {
         readDevelopmentData();
@@ -108,8 +121,8 @@ public class RealEstateDataManagerImpl implements RealEstateDataManager {
                     + properties.realEstate.dwellingsIntermediatesFileName
                     + "_"
                     + year
-                    + ".csv";
-            new DefaultDwellingWriter(this.dwellingData.getDwellings()).writeDwellings(filedd);
+                    + MicroDataOutput.getCsvExtension(properties);
+            microDataOutput.submit(new DefaultDwellingWriter(this.dwellingData.getDwellings()).snapshot(), filedd);
         }
     }
 
@@ -120,8 +133,9 @@ public class RealEstateDataManagerImpl implements RealEstateDataManager {
                 + properties.realEstate.dwellingsFinalFileName
                 + "_"
                 + properties.main.endYear
-                + ".csv";
-        new DefaultDwellingWriter(this.dwellingData.getDwellings()).writeDwellings(filedd);
+                + MicroDataOutput.getCsvExtension(properties);
+        microDataOutput.submit(new DefaultDwellingWriter(this.dwellingData.getDwellings()).snapshot(), filedd);
+        microDataOutput.awaitCompletion();
     }
 
     @Override
@@ -152,13 +166,26 @@ public class RealEstateDataManagerImpl implements RealEstateDataManager {
      */
     @Override
     public List<Dwelling> getListOfVacantDwellingsInRegion(int region) {
-        return Collections.unmodifiableList(vacDwellingsByRegion.getOrDefault(region,
-                new ArrayList<>()));
+        final VacantDwellingPool pool = vacDwellingsByRegion.get(region);
+        return pool == null ? Collections.emptyList() : pool.asList();
+    }
+
+    @Override
+    public List<Dwelling> sampleVacantDwellingsInRegion(int region, int numberOfDwellings, Random random) {
+        final VacantDwellingPool pool = vacDwellingsByRegion.get(region);
+        return pool == null ? Collections.emptyList() : pool.sample(numberOfDwellings, random);
     }
 
     @Override
     public int getNumberOfVacantDDinRegion(int region) {
-        return vacDwellingsByRegion.getOrDefault(region, new ArrayList<>()).size();
+        final VacantDwellingPool pool = vacDwellingsByRegion.get(region);
+        return pool == null ? 0 : pool.size();
+    }
+
+    @Override
+    public int getNumberOfVacantDDinRegionAndType(int region, DwellingType dwellingType) {
+        final VacantDwellingPool pool = vacDwellingsByRegion.get(region);
+        return pool == null ? 0 : pool.getCount(dwellingType);
     }
 
     @Override
@@ -198,8 +225,7 @@ public class RealEstateDataManagerImpl implements RealEstateDataManager {
                 int dwellingId = dd.getId();
                 //logger.info(dwellingId);
                 int region = geoData.getZones().get(dd.getZoneId()).getRegion().getId();
-                vacDwellingsByRegion.putIfAbsent(region, new ArrayList<>());
-                vacDwellingsByRegion.get(region).add(dd);
+                getVacancyPool(region).add(dd);
                 if (dwellingId == SiloUtil.trackDd) {
                     SiloUtil.trackWriter.println("Added dwelling " + dwellingId + " to list of vacant dwelling.");
                 }
@@ -288,9 +314,9 @@ public class RealEstateDataManagerImpl implements RealEstateDataManager {
 
         Dwelling dwelling = dwellingData.getDwelling(ddId);
         int region = geoData.getZones().get(dwelling.getZoneId()).getRegion().getId();
-        List<Dwelling> vacDwellings = vacDwellingsByRegion.get(region);
+        VacantDwellingPool vacDwellings = vacDwellingsByRegion.get(region);
         if (vacDwellings != null) {
-            found = vacDwellings.remove(dwelling);
+            found = vacDwellings.remove(ddId);
             if (ddId == SiloUtil.trackDd) {
                 SiloUtil.trackWriter.println("Removed dwelling " + ddId +
                         " from list of vacant dwellings.");
@@ -311,14 +337,75 @@ public class RealEstateDataManagerImpl implements RealEstateDataManager {
     public void addDwellingToVacancyList(Dwelling dd) {
 
         int region = geoData.getZones().get(dd.getZoneId()).getRegion().getId();
-        vacDwellingsByRegion.putIfAbsent(region, new ArrayList<>());
-        vacDwellingsByRegion.get(region).add(dd);
+        if (!getVacancyPool(region).add(dd)) {
+            logger.warn("Consistency error: Dwelling " + dd.getId() + " is already in vacDwellingsByRegion.");
+        }
         if (dd.getId() == SiloUtil.trackDd) {
             SiloUtil.trackWriter.println("Added dwelling " + dd.getId() +
                     " to list of vacant dwellings.");
         }
     }
 
+    private VacantDwellingPool getVacancyPool(int region) {
+        return vacDwellingsByRegion.computeIfAbsent(region, r -> new VacantDwellingPool(dwellingTypes));
+    }
+
+    /**
+     * Writes the highest dwelling id, the vacant dwellings of each region in the order of their pool,
+     * the developable land of each zone and the initial shares of dwellings by quality level. The current
+     * shares are calculated again when the next year is prepared.
+     */
+    @Override
+    public void writeCheckpoint(DataOutputStream out) throws IOException {
+        out.writeInt(highestDwellingIdInUse);
+        out.writeInt(vacDwellingsByRegion.size());
+        for (Map.Entry<Integer, VacantDwellingPool> entry : vacDwellingsByRegion.entrySet()) {
+            out.writeInt(entry.getKey());
+            final List<Dwelling> vacantDwellings = entry.getValue().asList();
+            out.writeInt(vacantDwellings.size());
+            for (Dwelling dwelling : vacantDwellings) {
+                out.writeInt(dwelling.getId());
+            }
+        }
+        final Map<Integer, Zone> zones = geoData.getZones();
+        out.writeInt(zones.size());
+        for (Zone zone : zones.values()) {
+            out.writeInt(zone.getZoneId());
+            out.writeInt(zone.getDevelopment().getDwellingCapacity());
+            out.writeDouble(zone.getDevelopment().getDevelopableArea());
+        }
+        out.writeInt(initialQualityShares.size());
+        for (Map.Entry<Integer, Double> entry : initialQualityShares.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeDouble(entry.getValue());
+        }
+    }
+
+    @Override
+    public void readCheckpoint(DataInputStream in) throws IOException {
+        highestDwellingIdInUse = in.readInt();
+        vacDwellingsByRegion.clear();
+        final int numberOfRegions = in.readInt();
+        for (int i = 0; i < numberOfRegions; i++) {
+            final VacantDwellingPool pool = getVacancyPool(in.readInt());
+            final int numberOfDwellings = in.readInt();
+            for (int j = 0; j < numberOfDwellings; j++) {
+                pool.add(dwellingData.getDwelling(in.readInt()));
+            }
+        }
+        final int numberOfZones = in.readInt();
+        for (int i = 0; i < numberOfZones; i++) {
+            final Development development = geoData.getZones().get(in.readInt()).getDevelopment();
+            development.changeCapacityBy(in.readInt() - development.getDwellingCapacity());
+            development.changeAreaBy(in.readDouble() - development.getDevelopableArea());
+        }
+        initialQualityShares.clear();
+        final int numberOfQualityLevels = in.readInt();
+        for (int i = 0; i < numberOfQualityLevels; i++) {
+            initialQualityShares.put(in.readInt(), in.readDouble());
+        }
+    }
+
 
     private void calculateRegionWidePriceAndVacancyByDwellingType() {
         // calculate region-wide average dwelling costs and vacancy by dwelling type
@@ -359,27 +446,21 @@ public class RealEstateDataManagerImpl implements RealEstateDataManager {
     }
 
 
+    /**
+     * Vacancy rate by dwelling type and region, from the dwellings by zone and type of the dwelling data
+     * and the vacant dwellings by type of the vacancy pool of each region.
+     */
     @Override
     public double[][] getVacancyRateByTypeAndRegion() {
-        // calculate vacancy rate by region and dwelling type
         final int highestRegionId = geoData.getRegions().keySet().stream().mapToInt(Integer::intValue).max().getAsInt();
-        int[][][] vacOcc = SiloUtil.setArrayToValue(new int[2][dwellingTypes.getTypes().size()][highestRegionId + 1], 0);
-
-        for (Dwelling dd : dwellingData.getDwellings()) {
-            int dto = dwellingTypes.getTypes().indexOf(dd.getType());
-            if (dd.getResidentId() > 0) {
-                vacOcc[1][dto][geoData.getZones().get(dd.getZoneId()).getRegion().getId()]++;
-            } else {
-                vacOcc[0][dto][geoData.getZones().get(dd.getZoneId()).getRegion().getId()]++;
-            }
-        }
+        final int[][] dwellingCount = countDwellingsByTypeAndRegion(highestRegionId);
 
         double[][] vacRate = new double[dwellingTypes.getTypes().size()][highestRegionId + 1];
         for (DwellingType dt : dwellingTypes.getTypes()) {
             int dto = dwellingTypes.getTypes().indexOf(dt);
             for (int region : geoData.getRegions().keySet()) {
-                if ((vacOcc[0][dto][region] + vacOcc[1][dto][region]) > 0) {
-                    vacRate[dto][region] = (double) vacOcc[0][dto][region] / (double) (vacOcc[0][dto][region] + vacOcc[1][dto][region]);
+                if (dwellingCount[dto][region] > 0) {
+                    vacRate[dto][region] = (double) getNumberOfVacantDDinRegionAndType(region, dt) / (double) dwellingCount[dto][region];
                 } else {
                     vacRate[dto][region] = 0.;
                 }
@@ -409,13 +490,28 @@ public class RealEstateDataManagerImpl implements RealEstateDataManager {
 
     @Override
     public int[][] getDwellingCountByTypeAndRegion() {
-        // return number of dwellings by type and region
+        // return number of dwellings by type and region, every count starts at 1
         final int highestRegionId = geoData.getRegions().keySet().stream().mapToInt(Integer::intValue).max().getAsInt();
-        int[][] dwellingCount =
-                SiloUtil.setArrayToValue(new int[dwellingTypes.getTypes().size()][highestRegionId + 1], 1);
+        int[][] dwellingCount = countDwellingsByTypeAndRegion(highestRegionId);
+        for (int[] countByRegion : dwellingCount) {
+            for (int region = 0; region < countByRegion.length; region++) {
+                countByRegion[region]++;
+            }
+        }
+        return dwellingCount;
+    }
 
-        for (Dwelling dd : dwellingData.getDwellings()) {
-            dwellingCount[dwellingTypes.getTypes().indexOf(dd.getType())][geoData.getZones().get(dd.getZoneId()).getRegion().getId()]++;
+    /**
+     * Sums up the dwellings by zone and type of the dwelling data, without a pass over all dwellings
+     */
+    private int[][] countDwellingsByTypeAndRegion(int highestRegionId) {
+        final List<DwellingType> types = dwellingTypes.getTypes();
+        final int[][] dwellingCount = new int[types.size()][highestRegionId + 1];
+        for (Zone zone : geoData.getZones().values()) {
+            final int region = zone.getRegion().getId();
+            for (int dto = 0; dto < types.size(); dto++) {
+                dwellingCount[dto][region] += dwellingData.getNumberOfDwellingsInZone(zone.getZoneId(), types.get(dto));
+            }
         }
         return dwellingCount;
     }
@@ -0,0 +1,128 @@
+package de.tum.bgu.msm.data.dwelling;
+
+import java.util.*;
+
+/**
+ * Indexed pool of the vacant dwellings of one region. Dwellings are kept in a dense array
+ * and removed by swapping the last element into the freed slot, so that adding and removing
+ * is done in constant time. Random draws are taken from the array without copying it.
+ */
+public final class VacantDwellingPool {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final DwellingTypes dwellingTypes;
+
+    private Dwelling[] dwellings = new Dwelling[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Slot in {@link #dwellings} by dwelling id
+     */
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+
+    /**
+     * Number of vacant dwellings by index of the dwelling type in {@link DwellingTypes#getTypes()}
+     */
+    private final int[] countByType;
+
+    public VacantDwellingPool(DwellingTypes dwellingTypes) {
+        this.dwellingTypes = dwellingTypes;
+        this.countByType = new int[dwellingTypes.getTypes().size()];
+    }
+
+    /**
+     * Adds the dwelling to the pool.
+     * @return false if the dwelling was already in the pool
+     */
+    public boolean add(Dwelling dwelling) {
+        if (slotById.containsKey(dwelling.getId())) {
+            return false;
+        }
+        if (size == dwellings.length) {
+            dwellings = Arrays.copyOf(dwellings, dwellings.length * 2);
+        }
+        dwellings[size] = dwelling;
+        slotById.put(dwelling.getId(), size);
+        size++;
+        countByType[typeIndex(dwelling)]++;
+        return true;
+    }
+
+    /**
+     * Removes the dwelling with the given id from the pool.
+     * @return false if the dwelling was not in the pool
+     */
+    public boolean remove(int dwellingId) {
+        final Integer slot = slotById.remove(dwellingId);
+        if (slot == null) {
+            return false;
+        }
+        final Dwelling removed = dwellings[slot];
+        final int last = --size;
+        if (slot != last) {
+            final Dwelling moved = dwellings[last];
+            dwellings[slot] = moved;
+            slotById.put(moved.getId(), slot);
+        }
+        dwellings[last] = null;
+        countByType[typeIndex(removed)]--;
+        return true;
+    }
+
+    public boolean contains(int dwellingId) {
+        return slotById.containsKey(dwellingId);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCount(DwellingType dwellingType) {
+        final int index = dwellingTypes.getTypes().indexOf(dwellingType);
+        return index < 0 ? 0 : countByType[index];
+    }
+
+    /**
+     * Draws up to numberOfDwellings distinct dwellings uniformly at random and in random order.
+     * Uses a sparse partial Fisher-Yates shuffle over the slot indices, so the pool itself is
+     * neither copied nor reordered.
+     */
+    public List<Dwelling> sample(int numberOfDwellings, Random random) {
+        final int k = Math.min(numberOfDwellings, size);
+        final List<Dwelling> sample = new ArrayList<>(k);
+        final Map<Integer, Integer> swapped = new HashMap<>();
+        for (int i = 0; i < k; i++) {
+            final int j = i + random.nextInt(size - i);
+            final int slotJ = swapped.getOrDefault(j, j);
+            swapped.put(j, swapped.getOrDefault(i, i));
+            sample.add(dwellings[slotJ]);
+        }
+        return sample;
+    }
+
+    /**
+     * @return an unmodifiable view of the vacant dwellings in this pool. The order is arbitrary
+     * and changes as dwellings are removed.
+     */
+    public List<Dwelling> asList() {
+        return new AbstractList<Dwelling>() {
+            @Override
+            public Dwelling get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index " + index + " for pool of size " + size);
+                }
+                return dwellings[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int typeIndex(Dwelling dwelling) {
+        return dwellingTypes.getTypes().indexOf(dwelling.getType());
+    }
+}
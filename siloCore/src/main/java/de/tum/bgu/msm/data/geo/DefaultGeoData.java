@@ -4,6 +4,7 @@ package de.tum.bgu.msm.data.geo;
 import de.tum.bgu.msm.data.Region;
 import de.tum.bgu.msm.data.Zone;
 import org.apache.log4j.Logger;
+import org.locationtech.jts.geom.Coordinate;
 
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -16,6 +17,12 @@ public class DefaultGeoData implements GeoData {
     private final Map<Integer, Zone> zones = new LinkedHashMap<>();
     private final Map<Integer, Region> regions = new LinkedHashMap<>();
 
+    /**
+     * Built with the first lookup, so that runs which do not look up zones by coordinate do not index the zone
+     * geometries at setup. Reset if zones are added afterwards.
+     */
+    private volatile ZoneLocator zoneLocator;
+
     @Override
     public Map<Integer, Zone> getZones() {
         return Collections.unmodifiableMap(zones);
@@ -32,6 +39,7 @@ public class DefaultGeoData implements GeoData {
         if(previous != null) {
             logger.warn("Overwriting zone " + previous + " with " + zone);
         }
+        zoneLocator = null;
     }
 
     @Override
@@ -42,6 +50,26 @@ public class DefaultGeoData implements GeoData {
         }
     }
 
+    @Override
+    public Zone getZone(Coordinate coordinate) {
+        return getZoneLocator().getZone(coordinate);
+    }
+
+    private ZoneLocator getZoneLocator() {
+        ZoneLocator locator = zoneLocator;
+        if (locator == null) {
+            synchronized (this) {
+                locator = zoneLocator;
+                if (locator == null) {
+                    locator = new ZoneLocator(zones.values());
+                    zoneLocator = locator;
+                    logger.info("  Indexed the geometries of " + locator.size() + " of " + zones.size() + " zones");
+                }
+            }
+        }
+        return locator;
+    }
+
     @Override
     public void setup() {
 
@@ -3,6 +3,7 @@ package de.tum.bgu.msm.data.geo;
 import de.tum.bgu.msm.data.Region;
 import de.tum.bgu.msm.data.Zone;
 import de.tum.bgu.msm.models.ModelUpdateListener;
+import org.locationtech.jts.geom.Coordinate;
 
 import java.util.Map;
 
@@ -37,5 +38,11 @@ public interface GeoData extends ModelUpdateListener {
      */
     void addRegion(Region region);
 
+    /**
+     * Returns the zone whose geometry contains the coordinate, or null if it lies outside of all zones.
+     * The zones are indexed once at setup and the lookup can be used by several threads.
+     */
+    Zone getZone(Coordinate coordinate);
+
 
 }
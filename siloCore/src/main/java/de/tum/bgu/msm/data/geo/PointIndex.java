@@ -0,0 +1,103 @@
+package de.tum.bgu.msm.data.geo;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.ItemDistance;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Static index of located items, e.g. schools, transit stops or jobs, for nearest neighbour and radius queries.
+ * The coordinates are packed into an STRtree once, so the index does not reflect items that are added or moved
+ * afterwards and has to be created again in that case.
+ *
+ * The index is only read after construction and can be shared by threads.
+ */
+public final class PointIndex<T> {
+
+    private static final ItemDistance EUCLIDEAN = (first, second) ->
+            ((Envelope) first.getBounds()).distance((Envelope) second.getBounds());
+
+    private final STRtree tree = new STRtree();
+    private final Function<T, Coordinate> coordinateOf;
+    private final int size;
+
+    /**
+     * @param coordinateOf coordinate of an item, items without a coordinate are left out
+     */
+    public PointIndex(Collection<T> items, Function<T, Coordinate> coordinateOf) {
+        this.coordinateOf = coordinateOf;
+        int size = 0;
+        for (T item : items) {
+            final Coordinate coordinate = coordinateOf.apply(item);
+            if (coordinate != null) {
+                tree.insert(new Envelope(coordinate), item);
+                size++;
+            }
+        }
+        this.size = size;
+        tree.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the item nearest to the coordinate or null if the index is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T getNearest(Coordinate coordinate) {
+        if (size == 0) {
+            return null;
+        }
+        return (T) tree.nearestNeighbour(new Envelope(coordinate), null, EUCLIDEAN);
+    }
+
+    /**
+     * @return the k items nearest to the coordinate, sorted by their distance, or all items if there are less
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getNearest(Coordinate coordinate, int k) {
+        if (size == 0 || k <= 0) {
+            return Collections.emptyList();
+        }
+        final Object[] nearest = tree.nearestNeighbour(new Envelope(coordinate), null, EUCLIDEAN, Math.min(k, size));
+        final List<T> result = new ArrayList<>(nearest.length);
+        for (Object item : nearest) {
+            result.add((T) item);
+        }
+        result.sort(byDistanceTo(coordinate));
+        return result;
+    }
+
+    /**
+     * @return all items within the radius around the coordinate, sorted by their distance
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getWithinDistance(Coordinate coordinate, double radius) {
+        if (size == 0 || radius < 0) {
+            return Collections.emptyList();
+        }
+        final Envelope searchArea = new Envelope(coordinate);
+        searchArea.expandBy(radius);
+        final List<T> result = new ArrayList<>();
+        for (Object item : tree.query(searchArea)) {
+            if (coordinateOf.apply((T) item).distance(coordinate) <= radius) {
+                result.add((T) item);
+            }
+        }
+        result.sort(byDistanceTo(coordinate));
+        return result;
+    }
+
+    private Comparator<T> byDistanceTo(Coordinate coordinate) {
+        return Comparator.comparingDouble(item -> coordinateOf.apply(item).distance(coordinate));
+    }
+}
@@ -3,14 +3,9 @@ package de.tum.bgu.msm.data.geo;
 import de.tum.bgu.msm.data.Region;
 import de.tum.bgu.msm.data.Zone;
 import de.tum.bgu.msm.data.development.Development;
-import de.tum.bgu.msm.utils.SeededRandomPointsBuilder;
-import de.tum.bgu.msm.utils.SiloUtil;
+import de.tum.bgu.msm.utils.PolygonPointSampler;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.geom.GeometryFactory;
-import org.locationtech.jts.geom.Point;
-import org.locationtech.jts.shape.random.RandomPointsBuilder;
-import org.matsim.core.utils.geometry.geotools.MGC;
 import org.opengis.feature.simple.SimpleFeature;
 
 import java.util.HashMap;
@@ -26,6 +21,11 @@ public class ZoneImpl implements Zone {
     
     private SimpleFeature zoneFeature;
 
+    /**
+     * Created with the first random coordinate of the zone
+     */
+    private volatile PolygonPointSampler pointSampler;
+
     private Development development;
 
     private final Map<String, Object> attributes = new HashMap<>();
@@ -59,17 +59,22 @@ public class ZoneImpl implements Zone {
     @Override
 	public void setZoneFeature(SimpleFeature zoneFeature) {
         this.zoneFeature = zoneFeature;
+        this.pointSampler = null;
     }
 
     @Override
 	public Coordinate getRandomCoordinate(Random random) {
-        //TODO:this can be optimized by using the same (static) points builder multiple times instead of recreating it
-        RandomPointsBuilder randomPointsBuilder = new SeededRandomPointsBuilder(new GeometryFactory(), random);
-        randomPointsBuilder.setNumPoints(1);
-        randomPointsBuilder.setExtent((Geometry) zoneFeature.getDefaultGeometry());
-        Coordinate coordinate = randomPointsBuilder.getGeometry().getCoordinates()[0];
-        Point p = MGC.coordinate2Point(coordinate);
-        return new Coordinate(p.getX(), p.getY());
+        PolygonPointSampler sampler = pointSampler;
+        if (sampler == null) {
+            synchronized (this) {
+                sampler = pointSampler;
+                if (sampler == null) {
+                    sampler = new PolygonPointSampler((Geometry) zoneFeature.getDefaultGeometry());
+                    pointSampler = sampler;
+                }
+            }
+        }
+        return sampler.sample(random);
     }
 
     @Override
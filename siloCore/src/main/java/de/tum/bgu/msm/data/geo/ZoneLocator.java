@@ -0,0 +1,90 @@
+package de.tum.bgu.msm.data.geo;
+
+import de.tum.bgu.msm.data.Zone;
+import org.locationtech.jts.algorithm.locate.IndexedPointInAreaLocator;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Location;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Finds the zone that contains a coordinate. The envelopes of the zone geometries are packed into an STRtree and
+ * each candidate is tested with an indexed point-in-area locator, the same test a prepared geometry uses, so that
+ * a lookup does not scan all zones or all edges of a zone.
+ *
+ * The tree and the locators are built completely in the constructor. Afterwards the locator is only read and can
+ * be shared by threads.
+ */
+public final class ZoneLocator {
+
+    private final STRtree tree = new STRtree();
+    private final int size;
+
+    /**
+     * Indexes the default geometries of the zone features. Zones without a feature are left out.
+     */
+    public ZoneLocator(Collection<Zone> zones) {
+        this(zones, zone -> zone.getZoneFeature() == null ? null : (Geometry) zone.getZoneFeature().getDefaultGeometry());
+    }
+
+    ZoneLocator(Collection<Zone> zones, Function<Zone, Geometry> geometryOfZone) {
+        int size = 0;
+        for (Zone zone : zones) {
+            final Geometry geometry = geometryOfZone.apply(zone);
+            if (geometry == null || geometry.isEmpty()) {
+                continue;
+            }
+            final Entry entry = new Entry(zone, geometry);
+            tree.insert(geometry.getEnvelopeInternal(), entry);
+            size++;
+        }
+        this.size = size;
+        tree.build();
+    }
+
+    /**
+     * @return the number of zones with a geometry
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the zone whose geometry contains the coordinate. A coordinate on the border of several zones is
+     * assigned to the zone with the lowest id.
+     * @return the zone or null if the coordinate lies outside of all zones
+     */
+    public Zone getZone(Coordinate coordinate) {
+        final List<?> candidates = tree.query(new Envelope(coordinate));
+        Zone onBoundary = null;
+        for (Object candidate : candidates) {
+            final Entry entry = (Entry) candidate;
+            final int location = entry.locator.locate(coordinate);
+            if (location == Location.INTERIOR) {
+                return entry.zone;
+            } else if (location == Location.BOUNDARY
+                    && (onBoundary == null || entry.zone.getZoneId() < onBoundary.getZoneId())) {
+                onBoundary = entry.zone;
+            }
+        }
+        return onBoundary;
+    }
+
+    private static final class Entry {
+
+        private final Zone zone;
+        private final IndexedPointInAreaLocator locator;
+
+        private Entry(Zone zone, Geometry geometry) {
+            this.zone = zone;
+            this.locator = new IndexedPointInAreaLocator(geometry);
+            // the edge index of the locator is built with the first query, build it before the locator is shared
+            locator.locate(geometry.getEnvelopeInternal().centre());
+        }
+    }
+}
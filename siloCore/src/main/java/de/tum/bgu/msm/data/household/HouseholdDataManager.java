@@ -4,6 +4,7 @@ import de.tum.bgu.msm.data.person.Gender;
 import de.tum.bgu.msm.data.person.Occupation;
 import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.data.person.PersonFactory;
+import de.tum.bgu.msm.io.output.MicroDataOutput;
 import de.tum.bgu.msm.models.ModelUpdateListener;
 
 import java.util.Collection;
@@ -61,4 +62,26 @@ public interface HouseholdDataManager extends ModelUpdateListener {
     HouseholdFactory getHouseholdFactory();
 
     Household duplicateHousehold(Household original);
+
+    /**
+     * Updates the number of households and persons by zone after the given household moved to another dwelling.
+     */
+    void updateZoneOfHousehold(Household household);
+
+    /**
+     * @return the number of households living in the given zone
+     */
+    int getNumberOfHouseholdsInZone(int zoneId);
+
+    /**
+     * @return the number of persons living in the given zone
+     */
+    int getNumberOfPersonsInZone(int zoneId);
+
+    /**
+     * Sets the writer of the micro data files written at the end of each year and of the simulation. Without it
+     * the files are written on the simulation thread.
+     */
+    default void setMicroDataOutput(MicroDataOutput microDataOutput) {
+    }
 }
@@ -23,23 +23,30 @@ import de.tum.bgu.msm.data.person.Gender;
 import de.tum.bgu.msm.data.person.Occupation;
 import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.data.person.PersonFactory;
+import de.tum.bgu.msm.io.checkpoint.Checkpointable;
 import de.tum.bgu.msm.io.output.DefaultHouseholdWriter;
 import de.tum.bgu.msm.io.output.DefaultPersonWriter;
+import de.tum.bgu.msm.io.output.MicroDataOutput;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.util.concurrent.ConcurrentExecutor;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Greg Erhardt
  * Created on Dec 2, 2009
  */
-public class HouseholdDataManagerImpl implements HouseholdDataManager {
+public class HouseholdDataManagerImpl implements HouseholdDataManager, Checkpointable {
 
     private final static Logger logger = Logger.getLogger(HouseholdDataManagerImpl.class);
 
@@ -53,6 +60,7 @@ public class HouseholdDataManagerImpl implements HouseholdDataManager {
     //TODO: get rid of data manager dependecy!
     private final RealEstateDataManager realEstateDataManager;
 
+
     private int highestHouseholdIdInUse;
     private int highestPersonIdInUse;
 
@@ -60,6 +68,18 @@ public class HouseholdDataManagerImpl implements HouseholdDataManager {
 
     private Map<Integer, Household> householdMementos = new HashMap<>();
 
+    private MicroDataOutput microDataOutput = MicroDataOutput.onCallingThread();
+
+    private final Map<Integer, Integer> householdCountByZone = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> personCountByZone = new ConcurrentHashMap<>();
+
+    /**
+     * Zone and size in which each household is counted, indexed by household id. Households that are
+     * not counted have the zone -1.
+     */
+    private int[] countedZoneId = new int[0];
+    private int[] countedSize = new int[0];
+
     public HouseholdDataManagerImpl(HouseholdData householdData, DwellingData dwellingData,
                                     PersonFactory ppFactory, HouseholdFactory hhFactory,
                                     Properties properties, RealEstateDataManager realEstateDataManager) {
@@ -71,10 +91,16 @@ public class HouseholdDataManagerImpl implements HouseholdDataManager {
         this.realEstateDataManager = realEstateDataManager;
     }
 
+    @Override
+    public void setMicroDataOutput(MicroDataOutput microDataOutput) {
+        this.microDataOutput = microDataOutput;
+    }
+
     @Override
     public void setup() {
         identifyHighestHouseholdAndPersonId();
         avgIncomeByGenderByAgeByOccupation = calculateIncomeDistribution();
+        countHouseholdsAndPersonsByZone();
     }
 
     @Override
@@ -91,15 +117,15 @@ public class HouseholdDataManagerImpl implements HouseholdDataManager {
         if (!Properties.get().householdData.householdIntermediatesFileName.equals("")) {
             String filehh = outputDirectory + "/" + properties.householdData.householdFinalFileName + "_"
                     + year
-                    + ".csv";
-            new DefaultHouseholdWriter(this.householdData.getHouseholds()).writeHouseholds(filehh);
+                    + MicroDataOutput.getCsvExtension(properties);
+            microDataOutput.submit(new DefaultHouseholdWriter(this.householdData.getHouseholds()).snapshot(), filehh);
         }
 
         if (!Properties.get().householdData.personIntermediatesFileName.equals("")) {
             String filepp = outputDirectory + "/" + properties.householdData.personIntermediatesFileName + "_"
                     + year
-                    + ".csv";
-            new DefaultPersonWriter(householdData).writePersons(filepp);
+                    + MicroDataOutput.getCsvExtension(properties);
+            microDataOutput.submit(new DefaultPersonWriter(householdData).snapshot(), filepp);
         }
     }
 
@@ -108,13 +134,14 @@ public class HouseholdDataManagerImpl implements HouseholdDataManager {
         final String outputDirectory = properties.main.baseDirectory + "scenOutput/" + properties.main.scenarioName;
         String filehh = outputDirectory +"/"+ properties.householdData.householdFinalFileName + "_"
                 + properties.main.endYear
-                + ".csv";
-        new DefaultHouseholdWriter(this.householdData.getHouseholds()).writeHouseholds(filehh);
+                + MicroDataOutput.getCsvExtension(properties);
+        microDataOutput.submit(new DefaultHouseholdWriter(this.householdData.getHouseholds()).snapshot(), filehh);
 
         String filepp = outputDirectory +"/"+ properties.householdData.personFinalFileName + "_"
                 + properties.main.endYear
-                + ".csv";
-        new DefaultPersonWriter(householdData).writePersons(filepp);
+                + MicroDataOutput.getCsvExtension(properties);
+        microDataOutput.submit(new DefaultPersonWriter(householdData).snapshot(), filepp);
+        microDataOutput.awaitCompletion();
     }
 
     @Override
@@ -154,6 +181,7 @@ public class HouseholdDataManagerImpl implements HouseholdDataManager {
         if (household != null) {
             household.removePerson(person.getId());
             person.setHousehold(null);
+            updateZonalCounts(household);
             if (household.getPersons().isEmpty()) {
                 removeHousehold(household.getId());
             }
@@ -172,6 +200,7 @@ public class HouseholdDataManagerImpl implements HouseholdDataManager {
         }
         household.addPerson(person);
         person.setHousehold(household);
+        updateZonalCounts(household);
         if (person.getId() == SiloUtil.trackPp || household.getId() == SiloUtil.trackHh) {
             SiloUtil.trackWriter.println("A person " +
                     "(not a child) named " + person.getId() + " was added to household " + household.getId() + ".");
@@ -198,6 +227,24 @@ public class HouseholdDataManagerImpl implements HouseholdDataManager {
         return highestPersonIdInUse;
     }
 
+    @Override
+    public void writeCheckpoint(DataOutputStream out) throws IOException {
+        out.writeInt(highestHouseholdIdInUse);
+        out.writeInt(highestPersonIdInUse);
+    }
+
+    /**
+     * Mementos of the year in which the checkpoint was written are not restored, as they are only kept
+     * until the end of a year.
+     */
+    @Override
+    public void readCheckpoint(DataInputStream in) throws IOException {
+        highestHouseholdIdInUse = in.readInt();
+        highestPersonIdInUse = in.readInt();
+        householdMementos.clear();
+        countHouseholdsAndPersonsByZone();
+    }
+
     @Override
     public void removeHousehold(int householdId) {
         // remove household and add dwelling to vacancy list
@@ -217,6 +264,7 @@ public class HouseholdDataManagerImpl implements HouseholdDataManager {
         }
         householdData.removeHousehold(householdId);
         householdMementos.remove(householdId);
+        updateZonalCounts(householdId, -1, 0);
         if (householdId == SiloUtil.trackHh) {
             SiloUtil.trackWriter.println("Households " + householdId + " was removed");
         }
@@ -336,6 +384,63 @@ public class HouseholdDataManagerImpl implements HouseholdDataManager {
     @Override
     public void addHousehold(Household household) {
         householdData.addHousehold(household);
+        updateZonalCounts(household);
+    }
+
+    @Override
+    public void updateZoneOfHousehold(Household household) {
+        updateZonalCounts(household);
+    }
+
+    @Override
+    public int getNumberOfHouseholdsInZone(int zoneId) {
+        return householdCountByZone.getOrDefault(zoneId, 0);
+    }
+
+    @Override
+    public int getNumberOfPersonsInZone(int zoneId) {
+        return personCountByZone.getOrDefault(zoneId, 0);
+    }
+
+    private synchronized void countHouseholdsAndPersonsByZone() {
+        householdCountByZone.clear();
+        personCountByZone.clear();
+        Arrays.fill(countedZoneId, -1);
+        for (Household household : householdData.getHouseholds()) {
+            updateZonalCounts(household);
+        }
+    }
+
+    /**
+     * Counts the household in the zone of its dwelling, households without a dwelling are not counted.
+     * A household is counted by its id, so that it is counted only once however often it changes.
+     */
+    private void updateZonalCounts(Household household) {
+        final Dwelling dwelling = household.getDwellingId() > 0 ? dwellingData.getDwelling(household.getDwellingId()) : null;
+        updateZonalCounts(household.getId(), dwelling == null ? -1 : dwelling.getZoneId(), household.getHhSize());
+    }
+
+    private synchronized void updateZonalCounts(int householdId, int zoneId, int size) {
+        if (householdId >= countedZoneId.length) {
+            if (zoneId == -1) {
+                return;
+            }
+            final int previousLength = countedZoneId.length;
+            final int capacity = Math.max(householdId + 1, previousLength + (previousLength >> 1));
+            countedZoneId = Arrays.copyOf(countedZoneId, capacity);
+            countedSize = Arrays.copyOf(countedSize, capacity);
+            Arrays.fill(countedZoneId, previousLength, capacity, -1);
+        }
+        if (countedZoneId[householdId] != -1) {
+            householdCountByZone.merge(countedZoneId[householdId], -1, Integer::sum);
+            personCountByZone.merge(countedZoneId[householdId], -countedSize[householdId], Integer::sum);
+        }
+        countedZoneId[householdId] = zoneId;
+        countedSize[householdId] = size;
+        if (zoneId != -1) {
+            householdCountByZone.merge(zoneId, 1, Integer::sum);
+            personCountByZone.merge(zoneId, size, Integer::sum);
+        }
     }
 
     @Override
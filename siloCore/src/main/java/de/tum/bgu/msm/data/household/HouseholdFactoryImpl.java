@@ -2,8 +2,13 @@ package de.tum.bgu.msm.data.household;
 
 import de.tum.bgu.msm.data.vehicle.Car;
 import de.tum.bgu.msm.data.vehicle.VehicleType;
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
 
-public class HouseholdFactoryImpl implements HouseholdFactory {
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class HouseholdFactoryImpl implements HouseholdFactory, EntityCheckpointCodec<Household> {
     @Override
     public HouseholdImpl createHousehold(int id, int dwellingID, int autos) {
         return new HouseholdImpl(id, dwellingID, autos);
@@ -22,4 +27,14 @@ public class HouseholdFactoryImpl implements HouseholdFactory {
 
         return duplicate;
     }
+
+    @Override
+    public void writeCheckpointFields(Household household, DataOutputStream out) throws IOException {
+        // HouseholdImpl has no fields besides the ones of Household
+    }
+
+    @Override
+    public void readCheckpointFields(Household household, DataInputStream in) throws IOException {
+        // HouseholdImpl has no fields besides the ones of Household
+    }
 }
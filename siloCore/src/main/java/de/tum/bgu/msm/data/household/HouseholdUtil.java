@@ -200,13 +200,9 @@ public class HouseholdUtil {
 
     public static Map<Integer, Integer> getPopulationByZoneAsMap(DataContainer dataContainer) {
         Map<Integer, Integer> zonePopulationMap = new HashMap<>();
+        final HouseholdDataManager householdDataManager = dataContainer.getHouseholdDataManager();
         for (int zone : dataContainer.getGeoData().getZones().keySet()) {
-            zonePopulationMap.put(zone, 0);
-        }
-
-        for (Household hh : dataContainer.getHouseholdDataManager().getHouseholds()) {
-            final int zone = dataContainer.getRealEstateDataManager().getDwelling(hh.getDwellingId()).getZoneId();
-            zonePopulationMap.put(zone, zonePopulationMap.get(zone) + hh.getHhSize());
+            zonePopulationMap.put(zone, householdDataManager.getNumberOfPersonsInZone(zone));
         }
         return zonePopulationMap;
     }
@@ -10,4 +10,14 @@ public interface JobData {
     void removeJob(int id);
 
     void addJob(Job jj);
+
+    /**
+     * @return the number of jobs located in the given zone
+     */
+    int getNumberOfJobsInZone(int zoneId);
+
+    /**
+     * @return the number of jobs of the given type located in the given zone
+     */
+    int getNumberOfJobsInZone(int zoneId, String jobType);
 }
@@ -7,6 +7,8 @@ import java.util.concurrent.ConcurrentHashMap;
 public class JobDataImpl implements JobData {
 
     private final Map<Integer, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> jobCountByZone = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<String, Integer>> jobCountByZoneAndType = new ConcurrentHashMap<>();
 
     @Override
     public Job get(int jobId) {
@@ -20,11 +22,39 @@ public class JobDataImpl implements JobData {
 
     @Override
     public void removeJob(int id) {
-        jobs.remove(id);
+        final Job removed = jobs.remove(id);
+        if (removed != null) {
+            count(removed, -1);
+        }
     }
 
     @Override
     public void addJob(Job jj) {
-        jobs.put(jj.getId(), jj);
+        final Job previous = jobs.put(jj.getId(), jj);
+        if (previous != null) {
+            count(previous, -1);
+        }
+        count(jj, 1);
+    }
+
+    private void count(Job job, int change) {
+        jobCountByZone.merge(job.getZoneId(), change, Integer::sum);
+        if (job.getType() == null) {
+            // jobs without a type only count towards the total of the zone
+            return;
+        }
+        jobCountByZoneAndType.computeIfAbsent(job.getZoneId(), zone -> new ConcurrentHashMap<>())
+                .merge(job.getType(), change, Integer::sum);
+    }
+
+    @Override
+    public int getNumberOfJobsInZone(int zoneId) {
+        return jobCountByZone.getOrDefault(zoneId, 0);
+    }
+
+    @Override
+    public int getNumberOfJobsInZone(int zoneId, String jobType) {
+        final Map<String, Integer> countByType = jobCountByZoneAndType.get(zoneId);
+        return countByType == null ? 0 : countByType.getOrDefault(jobType, 0);
     }
 }
@@ -1,8 +1,8 @@
 package de.tum.bgu.msm.data.job;
 
-import de.tum.bgu.msm.data.Region;
 import de.tum.bgu.msm.data.Zone;
 import de.tum.bgu.msm.data.person.Person;
+import de.tum.bgu.msm.io.output.MicroDataOutput;
 import de.tum.bgu.msm.models.ModelUpdateListener;
 
 import java.util.Collection;
@@ -24,7 +24,7 @@ public interface JobDataManager extends ModelUpdateListener {
 
     void quitJob(boolean makeJobAvailableToOthers, Person person);
 
-    Job findVacantJob(Zone homeZone, Collection<Region> regions);
+    Job findVacantJob(Zone homeZone);
 
     double getJobDensityInZone(int zone);
 
@@ -35,4 +35,11 @@ public interface JobDataManager extends ModelUpdateListener {
     JobFactory getFactory();
 
     Map<Integer, List<Job>> getVacantJobsByRegion();
+
+    /**
+     * Sets the writer of the micro data files written at the end of each year and of the simulation. Without it
+     * the files are written on the simulation thread.
+     */
+    default void setMicroDataOutput(MicroDataOutput microDataOutput) {
+    }
 }
@@ -17,26 +17,25 @@
 package de.tum.bgu.msm.data.job;
 
 
-import com.google.common.collect.ConcurrentHashMultiset;
-import com.google.common.collect.Multiset;
 import de.tum.bgu.msm.common.datafile.TableDataSet;
-import de.tum.bgu.msm.data.Region;
 import de.tum.bgu.msm.data.Zone;
 import de.tum.bgu.msm.data.accessibility.CommutingTimeProbability;
 import de.tum.bgu.msm.data.geo.GeoData;
 import de.tum.bgu.msm.data.person.Occupation;
 import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.io.checkpoint.Checkpointable;
 import de.tum.bgu.msm.io.output.DefaultJobWriter;
+import de.tum.bgu.msm.io.output.MicroDataOutput;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.properties.modules.JobDataProperties;
 import de.tum.bgu.msm.simulator.UpdateListener;
-import de.tum.bgu.msm.utils.SampleException;
-import de.tum.bgu.msm.utils.Sampler;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
-import org.matsim.api.core.v01.TransportMode;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -47,12 +46,13 @@ import java.util.concurrent.ConcurrentHashMap;
  * Author: Rolf Moeckel, PB Albuquerque
  * Created on 22 February 2013 in Rhede
  **/
-public class JobDataManagerImpl implements UpdateListener, JobDataManager {
+public class JobDataManagerImpl implements UpdateListener, JobDataManager, Checkpointable {
     
     private final static Logger logger = Logger.getLogger(JobDataManagerImpl.class);
 
     private final GeoData geoData;
     private final Properties properties;
+
     private final JobFactory jobFactory;
 
     private final JobData jobData;
@@ -61,9 +61,11 @@ public class JobDataManagerImpl implements UpdateListener, JobDataManager {
 
     private int highestJobIdInUse;
 
-    private final Map<Integer, List<Job>> vacantJobsByRegion = new LinkedHashMap<>();
+    private final VacantJobMarket vacantJobs;
     private final Map<Integer, Double> zonalJobDensity;
 
+    private MicroDataOutput microDataOutput = MicroDataOutput.onCallingThread();
+
     private final Map<Integer, Map<Integer,Map<String,Float>>> jobsByYearByZoneByIndustry = new ConcurrentHashMap<>();
 
     public JobDataManagerImpl(Properties properties,
@@ -76,6 +78,13 @@ public class JobDataManagerImpl implements UpdateListener, JobDataManager {
         this.travelTimes = travelTimes;
         this.commutingTimeProbability = commutingTimeProbability;
         this.zonalJobDensity = new HashMap<>();
+        this.vacantJobs = new VacantJobMarket(geoData, travelTimes, commutingTimeProbability,
+                properties.transportModel.peakHour_s);
+    }
+
+    @Override
+    public void setMicroDataOutput(MicroDataOutput microDataOutput) {
+        this.microDataOutput = microDataOutput;
     }
 
     @Override
@@ -98,8 +107,8 @@ public class JobDataManagerImpl implements UpdateListener, JobDataManager {
             String filejj = outputDirectory
                     + properties.jobData.jobsIntermediatesFileName
                     + "_"
-                    + year + ".csv";
-            new DefaultJobWriter(this.jobData.getJobs()).writeJobs(filejj);
+                    + year + MicroDataOutput.getCsvExtension(properties);
+            microDataOutput.submit(new DefaultJobWriter(this.jobData.getJobs()).snapshot(), filejj);
         }
     }
 
@@ -109,8 +118,9 @@ public class JobDataManagerImpl implements UpdateListener, JobDataManager {
         String filejj = outputDirectory
                 + properties.jobData.jobsFinalFileName
                 + "_"
-                + properties.main.endYear + ".csv";
-        new DefaultJobWriter(this.jobData.getJobs()).writeJobs(filejj);
+                + properties.main.endYear + MicroDataOutput.getCsvExtension(properties);
+        microDataOutput.submit(new DefaultJobWriter(this.jobData.getJobs()).snapshot(), filejj);
+        microDataOutput.awaitCompletion();
     }
 
     @Override
@@ -166,20 +176,14 @@ public class JobDataManagerImpl implements UpdateListener, JobDataManager {
         int year = properties.main.startYear;
         Map<Integer, Map<String, Float>> jobCountBaseyear = new HashMap<>();
         jobsByYearByZoneByIndustry.put(year, jobCountBaseyear);
-        //initialize maps with count = 0
+        //count jobs in SP of base year by zone and job type
         for (Zone zone : geoData.getZones().values()){
             Map<String, Float> jobsInThisZone = new HashMap<>();
             jobCountBaseyear.put(zone.getZoneId(), jobsInThisZone);
             for (String jobType : JobType.getJobTypes()){
-                jobsInThisZone.put(jobType, 0.f);
+                jobsInThisZone.put(jobType, (float) jobData.getNumberOfJobsInZone(zone.getZoneId(), jobType));
             }
         }
-        //count jobs in SP of base year
-        for (Job job : jobData.getJobs()){
-            int zoneId = job.getZoneId();
-            String jobType = job.getType();
-            jobCountBaseyear.get(zoneId).put(jobType, jobCountBaseyear.get(zoneId).get(jobType) + 1);
-        }
         logger.info("Count of jobs in synthetic population of the base year completed");
         //forecast the following years
         year++;
@@ -301,16 +305,14 @@ public class JobDataManagerImpl implements UpdateListener, JobDataManager {
     }
 
     /**
-     * identify vacant jobs by region (one-time task at beginning of model run only)
+     * identify vacant jobs by region. The vacancies are identified again at the beginning of every year
      */
     private void identifyVacantJobs() {
         logger.info("  Identifying vacant jobs");
+        vacantJobs.clear();
         for (Job jj : jobData.getJobs()) {
             if (jj.getWorkerId() == -1) {
-                int region = geoData.getZones().get(jj.getZoneId()).getRegion().getId();
-
-                vacantJobsByRegion.putIfAbsent(region, new ArrayList<>());
-                vacantJobsByRegion.get(region).add(jj);
+                vacantJobs.add(jj);
 
                 if (jj.getId() == SiloUtil.trackJj) {
                     SiloUtil.trackWriter.println("Added job " + jj.getId() + " to list of vacant jobs.");
@@ -341,63 +343,22 @@ public class JobDataManagerImpl implements UpdateListener, JobDataManager {
         person.setIncome((int) (person.getAnnualIncome() * 0.6 + 0.5));
         //todo: think about smarter retirement/social welfare algorithm to adjust income after employee leaves work.
     }
-    
-    private int getNumberOfVacantJobsByRegion(int region) {
-        return vacantJobsByRegion.getOrDefault(region, Collections.EMPTY_LIST).size();
-    }
-    
+
+    /**
+     * Selects the region of the job from all regions of the model, by the commuting time probability from the
+     * home zone times the number of vacant jobs of each region. See {@link VacantJobMarket#selectRegion}.
+     */
     @Override
-    public Job findVacantJob(Zone homeZone, Collection<Region> regions) {
+    public Job findVacantJob(Zone homeZone) {
         // select vacant job for person living in homeZone
-
-        Sampler<Region> regionSampler = new Sampler<>(regions.size(), Region.class, SiloUtil.getRandomObject());
-
-        if (homeZone != null) {
-            // person has home location (i.e., is not inmigrating right now)
-            for (Region reg : regions) {
-                int numberOfVacantJobs = getNumberOfVacantJobsByRegion(reg.getId());
-                if (numberOfVacantJobs > 0) {
-                    int travelTime_min = (int) ((travelTimes.getTravelTimeToRegion(homeZone, reg,
-                            properties.transportModel.peakHour_s, TransportMode.car) + 0.5));
-                    //todo make region probability sensitve to mode choice to find a vacant job
-                    final double prob = commutingTimeProbability.getCommutingTimeProbability(Math.max(1, travelTime_min), TransportMode.car) * (double) numberOfVacantJobs;
-                    regionSampler.incrementalAdd(reg, prob);
-                }
-            }
-            if (regionSampler.getCumulatedProbability() == 0) {
-                // could not find job in reasonable distance. Person will have to commute far and is likely to relocate in the future
-                for (Region reg : regions) {
-                    if (getNumberOfVacantJobsByRegion(reg.getId()) > 0) {
-                        int travelTime_min = (int) ((travelTimes.getTravelTimeToRegion(homeZone, reg,
-                                properties.transportModel.peakHour_s, TransportMode.car) + 0.5));
-                        final double prob = 1. / Math.max(1, travelTime_min);
-                        regionSampler.incrementalAdd(reg, prob);
-                    }
-                }
-            }
-        } else {
-            // person has no home location because (s)he is inmigrating right now and a dwelling has not been chosen yet
-            for (Region reg : regions) {
-                int numberOfJobs = getNumberOfVacantJobsByRegion(reg.getId());
-                if (numberOfJobs > 0) {
-                    regionSampler.incrementalAdd(reg, (double) numberOfJobs);
-                }
-            }
-        }
-
-        if (regionSampler.getCumulatedProbability() == 0) {
+        //todo make region probability sensitve to mode choice to find a vacant job
+        final int selectedRegion = vacantJobs.selectRegion(homeZone, SiloUtil.getRandomObject());
+        if (selectedRegion < 0) {
             logger.warn("No jobs remaining. Could not find new job.");
             return null;
         }
-        int selectedRegion = -1;
-        try {
-            selectedRegion = regionSampler.sampleObject().getId();
-        } catch (SampleException e) {
-            e.printStackTrace();
-        }
 
-        List<Job> eligibleJobs = vacantJobsByRegion.get(selectedRegion);
-        Job selectedJob = eligibleJobs.remove(SiloUtil.getRandomObject().nextInt(eligibleJobs.size()));
+        Job selectedJob = vacantJobs.takeJob(selectedRegion, SiloUtil.getRandomObject());
 
         if (selectedJob.getId() == SiloUtil.trackJj) {
             SiloUtil.trackWriter.println("Removed job " + selectedJob.getId() + " from list of vacant jobs.");
@@ -411,23 +372,16 @@ public class JobDataManagerImpl implements UpdateListener, JobDataManager {
      * @param job
      */
     private void addJobToVacancyList(Job job) {
-
-        int region = geoData.getZones().get(job.getZoneId()).getRegion().getId();
-        vacantJobsByRegion.putIfAbsent(region, new ArrayList<>());
-        vacantJobsByRegion.get(region).add(job);
+        vacantJobs.add(job);
 
         if (job.getId() == SiloUtil.trackJj) {
             SiloUtil.trackWriter.println("Added job " + job.getId() + " to list of vacant jobs.");
         }
-        }
-
-
+    }
 
 
     private void calculateJobDensityByZone() {
-        final Multiset<Integer> counter = ConcurrentHashMultiset.create();
-        jobData.getJobs().parallelStream().forEach(j -> counter.add(j.getZoneId()));
-        geoData.getZones().forEach((id, zone) -> zonalJobDensity.put(id, (double) (counter.count(id) / zone.getArea_sqmi())));
+        geoData.getZones().forEach((id, zone) -> zonalJobDensity.put(id, (double) (jobData.getNumberOfJobsInZone(id) / zone.getArea_sqmi())));
     }
 
 
@@ -461,6 +415,21 @@ public class JobDataManagerImpl implements UpdateListener, JobDataManager {
 
     @Override
     public Map<Integer, List<Job>> getVacantJobsByRegion() {
-        return vacantJobsByRegion;
+        return vacantJobs.getVacantJobsByRegion();
+    }
+
+    /**
+     * Writes the highest job id and the vacant jobs of each region in the order of their lists.
+     */
+    @Override
+    public void writeCheckpoint(DataOutputStream out) throws IOException {
+        out.writeInt(highestJobIdInUse);
+        vacantJobs.writeCheckpoint(out);
+    }
+
+    @Override
+    public void readCheckpoint(DataInputStream in) throws IOException {
+        highestJobIdInUse = in.readInt();
+        vacantJobs.readCheckpoint(in, jobData);
     }
 }
@@ -17,8 +17,6 @@
 package de.tum.bgu.msm.data.job;
 
 
-import com.google.common.collect.ConcurrentHashMultiset;
-import com.google.common.collect.Multiset;
 import de.tum.bgu.msm.common.datafile.TableDataSet;
 import de.tum.bgu.msm.data.Region;
 import de.tum.bgu.msm.data.Zone;
@@ -27,7 +25,9 @@ import de.tum.bgu.msm.data.geo.GeoData;
 import de.tum.bgu.msm.data.household.Household;
 import de.tum.bgu.msm.data.person.*;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.io.checkpoint.Checkpointable;
 import de.tum.bgu.msm.io.output.DefaultJobWriter;
+import de.tum.bgu.msm.io.output.MicroDataOutput;
 import de.tum.bgu.msm.models.modeChoice.CommuteModeChoice;
 import de.tum.bgu.msm.models.modeChoice.CommuteModeChoiceMapping;
 import de.tum.bgu.msm.properties.Properties;
@@ -37,8 +37,10 @@ import de.tum.bgu.msm.utils.SampleException;
 import de.tum.bgu.msm.utils.Sampler;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
-import org.matsim.api.core.v01.TransportMode;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -49,12 +51,13 @@ import java.util.concurrent.ConcurrentHashMap;
  * Author: Rolf Moeckel, PB Albuquerque
  * Created on 22 February 2013 in Rhede
  **/
-public class JobDataManagerWithCommuteModeChoice implements UpdateListener, JobDataManager {
+public class JobDataManagerWithCommuteModeChoice implements UpdateListener, JobDataManager, Checkpointable {
 
     private final static Logger logger = Logger.getLogger(JobDataManagerWithCommuteModeChoice.class);
 
     private final GeoData geoData;
     private final Properties properties;
+
     private final JobFactory jobFactory;
 
     private final JobData jobData;
@@ -63,13 +66,15 @@ public class JobDataManagerWithCommuteModeChoice implements UpdateListener, JobD
 
     private int highestJobIdInUse;
 
-    private final Map<Integer, List<Job>> vacantJobsByRegion = new LinkedHashMap<>();
+    private final VacantJobMarket vacantJobs;
     private final Map<Integer, Double> zonalJobDensity;
 
     private final Map<Integer, Map<Integer, Map<String, Float>>> jobsByYearByZoneByIndustry = new ConcurrentHashMap<>();
 
     private final CommuteModeChoice commuteModeChoice;
 
+    private MicroDataOutput microDataOutput = MicroDataOutput.onCallingThread();
+
     public JobDataManagerWithCommuteModeChoice(Properties properties,
                                                JobFactory jobFactory, JobData jobData, GeoData geoData,
                                                TravelTimes travelTimes, CommutingTimeProbability commutingTimeProbability, CommuteModeChoice commuteModeChoice) {
@@ -81,6 +86,13 @@ public class JobDataManagerWithCommuteModeChoice implements UpdateListener, JobD
         this.commutingTimeProbability = commutingTimeProbability;
         this.commuteModeChoice = commuteModeChoice;
         this.zonalJobDensity = new HashMap<>();
+        this.vacantJobs = new VacantJobMarket(geoData, travelTimes, commutingTimeProbability,
+                properties.transportModel.peakHour_s);
+    }
+
+    @Override
+    public void setMicroDataOutput(MicroDataOutput microDataOutput) {
+        this.microDataOutput = microDataOutput;
     }
 
     @Override
@@ -103,8 +115,8 @@ public class JobDataManagerWithCommuteModeChoice implements UpdateListener, JobD
             String filejj = outputDirectory
                     + properties.jobData.jobsIntermediatesFileName
                     + "_"
-                    + year + ".csv";
-            new DefaultJobWriter(this.jobData.getJobs()).writeJobs(filejj);
+                    + year + MicroDataOutput.getCsvExtension(properties);
+            microDataOutput.submit(new DefaultJobWriter(this.jobData.getJobs()).snapshot(), filejj);
         }
     }
 
@@ -114,8 +126,9 @@ public class JobDataManagerWithCommuteModeChoice implements UpdateListener, JobD
         String filejj = outputDirectory
                 + properties.jobData.jobsFinalFileName
                 + "_"
-                + properties.main.endYear + ".csv";
-        new DefaultJobWriter(this.jobData.getJobs()).writeJobs(filejj);
+                + properties.main.endYear + MicroDataOutput.getCsvExtension(properties);
+        microDataOutput.submit(new DefaultJobWriter(this.jobData.getJobs()).snapshot(), filejj);
+        microDataOutput.awaitCompletion();
     }
 
     @Override
@@ -171,20 +184,14 @@ public class JobDataManagerWithCommuteModeChoice implements UpdateListener, JobD
         int year = properties.main.startYear;
         Map<Integer, Map<String, Float>> jobCountBaseyear = new HashMap<>();
         jobsByYearByZoneByIndustry.put(year, jobCountBaseyear);
-        //initialize maps with count = 0
+        //count jobs in SP of base year by zone and job type
         for (Zone zone : geoData.getZones().values()) {
             Map<String, Float> jobsInThisZone = new HashMap<>();
             jobCountBaseyear.put(zone.getZoneId(), jobsInThisZone);
             for (String jobType : JobType.getJobTypes()) {
-                jobsInThisZone.put(jobType, 0.f);
+                jobsInThisZone.put(jobType, (float) jobData.getNumberOfJobsInZone(zone.getZoneId(), jobType));
             }
         }
-        //count jobs in SP of base year
-        for (Job job : jobData.getJobs()) {
-            int zoneId = job.getZoneId();
-            String jobType = job.getType();
-            jobCountBaseyear.get(zoneId).put(jobType, jobCountBaseyear.get(zoneId).get(jobType) + 1);
-        }
         logger.info("Count of jobs in synthetic population of the base year completed");
         //forecast the following years
         year++;
@@ -306,16 +313,14 @@ public class JobDataManagerWithCommuteModeChoice implements UpdateListener, JobD
     }
 
     /**
-     * identify vacant jobs by region (one-time task at beginning of model run only)
+     * identify vacant jobs by region. The vacancies are identified again at the beginning of every year
      */
     private void identifyVacantJobs() {
         logger.info("  Identifying vacant jobs");
+        vacantJobs.clear();
         for (Job jj : jobData.getJobs()) {
             if (jj.getWorkerId() == -1) {
-                int region = geoData.getZones().get(jj.getZoneId()).getRegion().getId();
-
-                vacantJobsByRegion.putIfAbsent(region, new ArrayList<>());
-                vacantJobsByRegion.get(region).add(jj);
+                vacantJobs.add(jj);
 
                 if (jj.getId() == SiloUtil.trackJj) {
                     SiloUtil.trackWriter.println("Added job " + jj.getId() + " to list of vacant jobs.");
@@ -348,21 +353,21 @@ public class JobDataManagerWithCommuteModeChoice implements UpdateListener, JobD
         //todo: think about smarter retirement/social welfare algorithm to adjust income after employee leaves work.
     }
 
-    private int getNumberOfVacantJobsByRegion(int region) {
-        return vacantJobsByRegion.getOrDefault(region, Collections.EMPTY_LIST).size();
-    }
-
+    /**
+     * The commute mode choice utilities include a random draw and are calculated for every call, only the
+     * fallbacks by travel time and by number of vacant jobs are taken from the {@link VacantJobMarket}.
+     */
     @Override
-    public Job findVacantJob(Zone homeZone, Collection<Region> regions) {
+    public Job findVacantJob(Zone homeZone) {
         // select vacant job for person living in homeZone
         //todo move find vacant job to a model
-        Sampler<Region> regionSampler = new Sampler<>(regions.size(), Region.class, SiloUtil.getRandomObject());
-
+        int selectedRegion = -1;
         if (homeZone != null) {
             // person has home location (i.e., is not inmigrating right now)
+            final Collection<Region> regions = geoData.getRegions().values();
+            Sampler<Region> regionSampler = new Sampler<>(regions.size(), Region.class, SiloUtil.getRandomObject());
             for (Region reg : regions) {
-                int numberOfVacantJobs = getNumberOfVacantJobsByRegion(reg.getId());
-                if (numberOfVacantJobs > 0) {
+                if (vacantJobs.getNumberOfVacantJobs(reg.getId()) > 0) {
 
                     CommuteModeChoiceMapping mapping =
                             commuteModeChoice.assignRegionalCommuteModeChoiceToFindNewJobs(reg,
@@ -377,38 +382,25 @@ public class JobDataManagerWithCommuteModeChoice implements UpdateListener, JobD
             }
             if (regionSampler.getCumulatedProbability() == 0) {
                 // could not find job in reasonable distance. Person will have to commute far and is likely to relocate in the future
-                for (Region reg : regions) {
-                    if (getNumberOfVacantJobsByRegion(reg.getId()) > 0) {
-                        int travelTime_min = (int) ((travelTimes.getTravelTimeToRegion(homeZone, reg,
-                                properties.transportModel.peakHour_s, TransportMode.car) + 0.5));
-                        final double prob = 1. / Math.max(1, travelTime_min);
-                        regionSampler.incrementalAdd(reg, prob);
-                    }
+                selectedRegion = vacantJobs.selectRegionByTravelTime(homeZone, SiloUtil.getRandomObject());
+            } else {
+                try {
+                    selectedRegion = regionSampler.sampleObject().getId();
+                } catch (SampleException e) {
+                    e.printStackTrace();
                 }
             }
         } else {
             // person has no home location because (s)he is inmigrating right now and a dwelling has not been chosen yet
-            for (Region reg : regions) {
-                int numberOfJobs = getNumberOfVacantJobsByRegion(reg.getId());
-                if (numberOfJobs > 0) {
-                    regionSampler.incrementalAdd(reg, (double) numberOfJobs);
-                }
-            }
+            selectedRegion = vacantJobs.selectRegionByVacancies(SiloUtil.getRandomObject());
         }
 
-        if (regionSampler.getCumulatedProbability() == 0) {
+        if (selectedRegion < 0) {
             logger.warn("No jobs remaining. Could not find new job.");
             return null;
         }
-        int selectedRegion = -1;
-        try {
-            selectedRegion = regionSampler.sampleObject().getId();
-        } catch (SampleException e) {
-            e.printStackTrace();
-        }
 
-        List<Job> eligibleJobs = vacantJobsByRegion.get(selectedRegion);
-        Job selectedJob = eligibleJobs.remove(SiloUtil.getRandomObject().nextInt(eligibleJobs.size()));
+        Job selectedJob = vacantJobs.takeJob(selectedRegion, SiloUtil.getRandomObject());
 
         if (selectedJob.getId() == SiloUtil.trackJj) {
             SiloUtil.trackWriter.println("Removed job " + selectedJob.getId() + " from list of vacant jobs.");
@@ -424,10 +416,7 @@ public class JobDataManagerWithCommuteModeChoice implements UpdateListener, JobD
      * @param job
      */
     private void addJobToVacancyList(Job job) {
-
-        int region = geoData.getZones().get(job.getZoneId()).getRegion().getId();
-        vacantJobsByRegion.putIfAbsent(region, new ArrayList<>());
-        vacantJobsByRegion.get(region).add(job);
+        vacantJobs.add(job);
 
         if (job.getId() == SiloUtil.trackJj) {
             SiloUtil.trackWriter.println("Added job " + job.getId() + " to list of vacant jobs.");
@@ -436,9 +425,7 @@ public class JobDataManagerWithCommuteModeChoice implements UpdateListener, JobD
 
 
     private void calculateJobDensityByZone() {
-        final Multiset<Integer> counter = ConcurrentHashMultiset.create();
-        jobData.getJobs().parallelStream().forEach(j -> counter.add(j.getZoneId()));
-        geoData.getZones().forEach((id, zone) -> zonalJobDensity.put(id, (double) (counter.count(id) / zone.getArea_sqmi())));
+        geoData.getZones().forEach((id, zone) -> zonalJobDensity.put(id, (double) (jobData.getNumberOfJobsInZone(id) / zone.getArea_sqmi())));
     }
 
 
@@ -472,7 +459,7 @@ public class JobDataManagerWithCommuteModeChoice implements UpdateListener, JobD
 
     @Override
     public Map<Integer, List<Job>> getVacantJobsByRegion() {
-        return vacantJobsByRegion;
+        return vacantJobs.getVacantJobsByRegion();
     }
 
     private Person OneWorker() {
@@ -574,4 +561,18 @@ public class JobDataManagerWithCommuteModeChoice implements UpdateListener, JobD
         };
     }
 
+    /**
+     * Writes the highest job id and the vacant jobs of each region in the order of their lists.
+     */
+    @Override
+    public void writeCheckpoint(DataOutputStream out) throws IOException {
+        out.writeInt(highestJobIdInUse);
+        vacantJobs.writeCheckpoint(out);
+    }
+
+    @Override
+    public void readCheckpoint(DataInputStream in) throws IOException {
+        highestJobIdInUse = in.readInt();
+        vacantJobs.readCheckpoint(in, jobData);
+    }
 }
@@ -1,11 +1,26 @@
 package de.tum.bgu.msm.data.job;
 
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
 import org.locationtech.jts.geom.Coordinate;
 
-public class JobFactoryImpl implements JobFactory {
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class JobFactoryImpl implements JobFactory, EntityCheckpointCodec<Job> {
 
     @Override
     public Job createJob(int id, int zoneId, Coordinate coordinate, int workerId, String type) {
         return new JobImpl(id, zoneId, coordinate, workerId, type);
     }
+
+    @Override
+    public void writeCheckpointFields(Job job, DataOutputStream out) throws IOException {
+        // JobImpl has no fields besides the ones of Job
+    }
+
+    @Override
+    public void readCheckpointFields(Job job, DataInputStream in) throws IOException {
+        // JobImpl has no fields besides the ones of Job
+    }
 }
@@ -0,0 +1,320 @@
+package de.tum.bgu.msm.data.job;
+
+import de.tum.bgu.msm.data.Region;
+import de.tum.bgu.msm.data.Zone;
+import de.tum.bgu.msm.data.accessibility.CommutingTimeProbability;
+import de.tum.bgu.msm.data.geo.GeoData;
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.utils.FenwickTree;
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.TransportMode;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import java.util.*;
+
+/**
+ * Vacant jobs by region, kept in {@link VacantJobPool}s, together with the samplers that select the
+ * region in which a person finds a new job. A person takes a vacant job of any type in the selected region,
+ * so the jobs are not kept by type.
+ *
+ * The number of vacant jobs by region is kept in a {@link FenwickTree}. For home zones, the commuting
+ * time probabilities to all regions are calculated from the car travel times once and cached. Each
+ * home zone keeps its own tree of commuting probability times vacancies, which is brought up to date
+ * with the regions whose vacancies changed since it was used last. Selecting a region therefore takes
+ * O(log R) instead of one travel time lookup per region.
+ *
+ * Travel times are only updated between years, so the cached probabilities are dropped whenever
+ * the market is cleared to identify the vacant jobs of a new year. Not thread safe.
+ */
+public final class VacantJobMarket {
+
+    private final static Logger logger = Logger.getLogger(VacantJobMarket.class);
+
+    /**
+     * Number of changed regions that is remembered for home zones that are out of date
+     */
+    private static final int JOURNAL_CAPACITY = 1 << 12;
+
+    private final GeoData geoData;
+    private final TravelTimes travelTimes;
+    private final CommutingTimeProbability commutingTimeProbability;
+    private final double peakHour_s;
+
+    private final Map<Integer, Integer> slotByRegion = new HashMap<>();
+    private Region[] regions = new Region[0];
+    private VacantJobPool[] pools = new VacantJobPool[0];
+    private FenwickTree vacancies = new FenwickTree(0);
+
+    private final Map<Integer, List<Job>> vacantJobsByRegion = new LinkedHashMap<>();
+
+    private final Map<Integer, HomeZoneWeights> weightsByHomeZone = new HashMap<>();
+    private final int[] journal = new int[JOURNAL_CAPACITY];
+    private long journalEnd = 0;
+
+    public VacantJobMarket(GeoData geoData, TravelTimes travelTimes,
+                           CommutingTimeProbability commutingTimeProbability, double peakHour_s) {
+        this.geoData = geoData;
+        this.travelTimes = travelTimes;
+        this.commutingTimeProbability = commutingTimeProbability;
+        this.peakHour_s = peakHour_s;
+    }
+
+    /**
+     * Removes all vacant jobs and cached commuting probabilities and indexes the current regions.
+     */
+    public void clear() {
+        slotByRegion.clear();
+        vacantJobsByRegion.clear();
+        weightsByHomeZone.clear();
+        regions = new Region[0];
+        pools = new VacantJobPool[0];
+        for (Region region : geoData.getRegions().values()) {
+            addRegion(region);
+        }
+        vacancies = new FenwickTree(regions.length);
+    }
+
+    /**
+     * Adds the job to the pool of the region of its zone.
+     * @return false if the job was already listed as vacant
+     */
+    public boolean add(Job job) {
+        final Region region = geoData.getZones().get(job.getZoneId()).getRegion();
+        Integer slot = slotByRegion.get(region.getId());
+        if (slot == null) {
+            slot = addRegion(region);
+            vacancies = countVacancies();
+            weightsByHomeZone.clear();
+        }
+        final VacantJobPool pool = pools[slot];
+        if (!pool.add(job)) {
+            return false;
+        }
+        vacantJobsByRegion.computeIfAbsent(region.getId(), id -> pool.asList());
+        changed(slot);
+        return true;
+    }
+
+    public int getNumberOfVacantJobs(int regionId) {
+        final Integer slot = slotByRegion.get(regionId);
+        return slot == null ? 0 : pools[slot].size();
+    }
+
+    public int getNumberOfRegions() {
+        return regions.length;
+    }
+
+    /**
+     * @return the total number of vacant jobs
+     */
+    public int size() {
+        return (int) Math.round(vacancies.getTotal());
+    }
+
+    /**
+     * Selects a region with a probability proportional to the commuting time probability from the home
+     * zone times the number of vacant jobs in the region. If no job can be reached in a reasonable commuting
+     * time, the region is selected by the inverse travel time instead. Without home zone, the region is
+     * selected by the number of vacant jobs only.
+     *
+     * @return the id of the selected region or -1 if there are no vacant jobs
+     */
+    public int selectRegion(Zone homeZone, Random random) {
+        if (homeZone == null) {
+            return selectRegionByVacancies(random);
+        }
+        final HomeZoneWeights weights = getWeights(homeZone);
+        final int slot = weights.weights.sample(random);
+        if (slot >= 0) {
+            return regions[slot].getId();
+        }
+        return selectRegionByTravelTime(weights, random);
+    }
+
+    /**
+     * @return the id of a region selected by its number of vacant jobs or -1 if there are none
+     */
+    public int selectRegionByVacancies(Random random) {
+        final int slot = vacancies.sample(random);
+        return slot < 0 ? -1 : regions[slot].getId();
+    }
+
+    /**
+     * @return the id of a region with vacant jobs selected by the inverse car travel time from the
+     * home zone or -1 if there are no vacant jobs
+     */
+    public int selectRegionByTravelTime(Zone homeZone, Random random) {
+        return selectRegionByTravelTime(getWeights(homeZone), random);
+    }
+
+    /**
+     * Removes a job drawn uniformly at random from the vacant jobs of the region.
+     * @return the job or null if the region has no vacant jobs
+     */
+    public Job takeJob(int regionId, Random random) {
+        final Integer slot = slotByRegion.get(regionId);
+        if (slot == null) {
+            return null;
+        }
+        final Job job = pools[slot].removeRandom(random);
+        if (job != null) {
+            changed(slot);
+        }
+        return job;
+    }
+
+    /**
+     * @return unmodifiable lists of the vacant jobs by region id, for the regions that had vacant jobs
+     * since the market was cleared
+     */
+    public Map<Integer, List<Job>> getVacantJobsByRegion() {
+        return Collections.unmodifiableMap(vacantJobsByRegion);
+    }
+
+    /**
+     * Writes the vacant jobs of each region in the order of their lists, for {@link #readCheckpoint}.
+     */
+    public void writeCheckpoint(DataOutputStream out) throws IOException {
+        out.writeInt(vacantJobsByRegion.size());
+        for (Map.Entry<Integer, List<Job>> entry : vacantJobsByRegion.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (Job job : entry.getValue()) {
+                out.writeInt(job.getId());
+            }
+        }
+    }
+
+    /**
+     * Clears the market and adds the vacant jobs of the checkpoint in their order. Jobs that were removed
+     * from the job data while still being listed as vacant cannot be restored and are dropped.
+     */
+    public void readCheckpoint(DataInputStream in, JobData jobData) throws IOException {
+        clear();
+        int missingJobs = 0;
+        final int numberOfRegions = in.readInt();
+        for (int i = 0; i < numberOfRegions; i++) {
+            in.readInt();
+            final int numberOfJobs = in.readInt();
+            for (int j = 0; j < numberOfJobs; j++) {
+                final Job job = jobData.get(in.readInt());
+                if (job == null) {
+                    missingJobs++;
+                } else {
+                    add(job);
+                }
+            }
+        }
+        if (missingJobs > 0) {
+            logger.warn(missingJobs + " vacant jobs of the checkpoint no longer exist and were not restored.");
+        }
+    }
+
+    private int addRegion(Region region) {
+        final int slot = regions.length;
+        regions = Arrays.copyOf(regions, slot + 1);
+        pools = Arrays.copyOf(pools, slot + 1);
+        regions[slot] = region;
+        pools[slot] = new VacantJobPool();
+        slotByRegion.put(region.getId(), slot);
+        return slot;
+    }
+
+    private FenwickTree countVacancies() {
+        final double[] counts = new double[pools.length];
+        for (int i = 0; i < pools.length; i++) {
+            counts[i] = pools[i].size();
+        }
+        final FenwickTree tree = new FenwickTree(counts.length);
+        tree.assign(counts);
+        return tree;
+    }
+
+    private void changed(int slot) {
+        vacancies.set(slot, pools[slot].size());
+        journal[(int) (journalEnd % JOURNAL_CAPACITY)] = slot;
+        journalEnd++;
+    }
+
+    private HomeZoneWeights getWeights(Zone homeZone) {
+        HomeZoneWeights weights = weightsByHomeZone.get(homeZone.getZoneId());
+        if (weights == null) {
+            weights = new HomeZoneWeights(homeZone);
+            weightsByHomeZone.put(homeZone.getZoneId(), weights);
+        } else {
+            weights.update();
+        }
+        return weights;
+    }
+
+    private int selectRegionByTravelTime(HomeZoneWeights weights, Random random) {
+        double total = 0;
+        for (int i = 0; i < pools.length; i++) {
+            if (pools[i].size() > 0) {
+                total += 1. / Math.max(1, weights.travelTimes[i]);
+            }
+        }
+        if (total == 0) {
+            return -1;
+        }
+        final double target = random.nextDouble() * total;
+        double cumulated = 0;
+        int selected = -1;
+        for (int i = 0; i < pools.length; i++) {
+            if (pools[i].size() > 0) {
+                cumulated += 1. / Math.max(1, weights.travelTimes[i]);
+                selected = i;
+                if (cumulated > target) {
+                    break;
+                }
+            }
+        }
+        return regions[selected].getId();
+    }
+
+    private final class HomeZoneWeights {
+
+        private final int[] travelTimes;
+        private final double[] probabilities;
+        private final FenwickTree weights;
+        private long updatedUntil;
+
+        private HomeZoneWeights(Zone homeZone) {
+            travelTimes = new int[regions.length];
+            probabilities = new double[regions.length];
+            for (int i = 0; i < regions.length; i++) {
+                travelTimes[i] = (int) (VacantJobMarket.this.travelTimes.getTravelTimeToRegion(homeZone, regions[i],
+                        peakHour_s, TransportMode.car) + 0.5);
+                probabilities[i] = Math.max(0, commutingTimeProbability.getCommutingTimeProbability(
+                        Math.max(1, travelTimes[i]), TransportMode.car));
+            }
+            weights = new FenwickTree(regions.length);
+            recalculate();
+        }
+
+        private void update() {
+            final long behind = journalEnd - updatedUntil;
+            if (behind > Math.min(JOURNAL_CAPACITY, regions.length)) {
+                recalculate();
+            } else {
+                for (long i = updatedUntil; i < journalEnd; i++) {
+                    final int slot = journal[(int) (i % JOURNAL_CAPACITY)];
+                    weights.set(slot, probabilities[slot] * pools[slot].size());
+                }
+                updatedUntil = journalEnd;
+            }
+        }
+
+        private void recalculate() {
+            final double[] values = new double[regions.length];
+            for (int i = 0; i < regions.length; i++) {
+                values[i] = probabilities[i] * pools[i].size();
+            }
+            weights.assign(values);
+            updatedUntil = journalEnd;
+        }
+    }
+}
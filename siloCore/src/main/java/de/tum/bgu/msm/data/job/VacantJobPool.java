@@ -0,0 +1,111 @@
+package de.tum.bgu.msm.data.job;
+
+import java.util.*;
+
+/**
+ * Indexed pool of the vacant jobs of one region. Jobs are kept in a dense array and removed by
+ * swapping the last element into the freed slot, so that adding, removing and drawing a random
+ * job is done in constant time. The jobs are not kept by type, as vacant jobs are taken regardless of
+ * their type.
+ */
+public final class VacantJobPool {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Job[] jobs = new Job[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Slot in {@link #jobs} by job id
+     */
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+
+    /**
+     * Adds the job to the pool.
+     * @return false if the job was already in the pool
+     */
+    public boolean add(Job job) {
+        if (slotById.containsKey(job.getId())) {
+            return false;
+        }
+        if (size == jobs.length) {
+            jobs = Arrays.copyOf(jobs, jobs.length * 2);
+        }
+        jobs[size] = job;
+        slotById.put(job.getId(), size);
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the job with the given id from the pool.
+     * @return false if the job was not in the pool
+     */
+    public boolean remove(int jobId) {
+        final Integer slot = slotById.get(jobId);
+        if (slot == null) {
+            return false;
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    /**
+     * Removes a job drawn uniformly at random from the pool.
+     * @return the removed job or null if the pool is empty
+     */
+    public Job removeRandom(Random random) {
+        if (size == 0) {
+            return null;
+        }
+        return removeSlot(random.nextInt(size));
+    }
+
+    public boolean contains(int jobId) {
+        return slotById.containsKey(jobId);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(jobs, 0, size, null);
+        size = 0;
+        slotById.clear();
+    }
+
+    /**
+     * @return an unmodifiable view of the vacant jobs in this pool. The order is arbitrary
+     * and changes as jobs are removed.
+     */
+    public List<Job> asList() {
+        return new AbstractList<Job>() {
+            @Override
+            public Job get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index " + index + " for pool of size " + size);
+                }
+                return jobs[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private Job removeSlot(int slot) {
+        final Job removed = jobs[slot];
+        slotById.remove(removed.getId());
+        final int last = --size;
+        if (slot != last) {
+            final Job moved = jobs[last];
+            jobs[slot] = moved;
+            slotById.put(moved.getId(), slot);
+        }
+        jobs[last] = null;
+        return removed;
+    }
+}
@@ -1,6 +1,12 @@
 package de.tum.bgu.msm.data.person;
 
-public class PersonFactoryImpl implements PersonFactory {
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class PersonFactoryImpl implements PersonFactory, EntityCheckpointCodec<Person> {
 
     @Override
     public PersonImpl createPerson(int id, int age, Gender gender, Occupation occupation, PersonRole role,
@@ -25,4 +31,14 @@ public class PersonFactoryImpl implements PersonFactory {
         duplicate.setDriverLicense(originalPerson.hasDriverLicense());
         return duplicate;
     }
+
+    @Override
+    public void writeCheckpointFields(Person person, DataOutputStream out) throws IOException {
+        // PersonImpl has no fields besides the ones of Person
+    }
+
+    @Override
+    public void readCheckpointFields(Person person, DataInputStream in) throws IOException {
+        // PersonImpl has no fields besides the ones of Person
+    }
 }
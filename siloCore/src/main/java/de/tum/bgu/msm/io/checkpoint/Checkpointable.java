@@ -0,0 +1,23 @@
+package de.tum.bgu.msm.io.checkpoint;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Implemented by data managers that keep state besides the micro data which changes during the
+ * simulation, e.g. id counters or vacancy lists. See {@link DataContainerCheckpoint}.
+ */
+public interface Checkpointable {
+
+    /**
+     * Writes the state of this manager. Called after the micro data was written.
+     */
+    void writeCheckpoint(DataOutputStream out) throws IOException;
+
+    /**
+     * Replaces the state of this manager with the one written by {@link #writeCheckpoint}. Called after
+     * the micro data was restored, so the state may refer to dwellings, jobs etc. by id.
+     */
+    void readCheckpoint(DataInputStream in) throws IOException;
+}
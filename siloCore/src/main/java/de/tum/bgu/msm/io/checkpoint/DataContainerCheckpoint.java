@@ -0,0 +1,532 @@
+package de.tum.bgu.msm.io.checkpoint;
+
+import de.tum.bgu.msm.container.DataContainer;
+import de.tum.bgu.msm.data.MappedSkimTravelTimes;
+import de.tum.bgu.msm.data.dwelling.*;
+import de.tum.bgu.msm.data.geo.GeoData;
+import de.tum.bgu.msm.data.household.Household;
+import de.tum.bgu.msm.data.household.HouseholdDataManager;
+import de.tum.bgu.msm.data.household.HouseholdFactory;
+import de.tum.bgu.msm.data.job.Job;
+import de.tum.bgu.msm.data.job.JobDataManager;
+import de.tum.bgu.msm.data.job.JobFactory;
+import de.tum.bgu.msm.data.person.*;
+import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.data.vehicle.Car;
+import de.tum.bgu.msm.data.vehicle.CarType;
+import de.tum.bgu.msm.data.vehicle.Vehicle;
+import de.tum.bgu.msm.properties.Properties;
+import de.tum.bgu.msm.properties.modules.TransportModelPropertiesModule.TransportModelIdentifier;
+import de.tum.bgu.msm.properties.modules.TransportModelPropertiesModule.TravelTimeImplIdentifier;
+import de.tum.bgu.msm.utils.SiloUtil;
+import org.apache.log4j.Logger;
+import org.locationtech.jts.geom.Coordinate;
+import org.matsim.api.core.v01.TransportMode;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Writes the state of a {@link DataContainer} at the end of a year to a binary file and restores it,
+ * so a simulation can be continued from that year instead of being started over.
+ *
+ * A checkpoint contains the micro data (persons, households with their vehicles, dwellings and jobs),
+ * the state of the data managers and further data of the container that implement {@link Checkpointable}
+ * (id counters, vacancy lists, developable land, ...) and the states of the random number generators of
+ * {@link SiloUtil}. Entities are written and restored in the iteration order of the data, and household
+ * members in the order of the household.
+ *
+ * Entities are restored by the factories of the data managers, which have to implement
+ * {@link EntityCheckpointCodec} to write and restore the fields of use case specific entity classes. The
+ * classes of the factories are part of the checkpoint, so it can only be restored by the same use case.
+ *
+ * The input skims of the checkpoint year are read again when restoring. In runs with a transport model, the
+ * skims of the last transport model run are written next to the checkpoint as a skim file of
+ * {@link MappedSkimTravelTimes} and replace the input skims when restoring. MATSim travel times cannot be
+ * restored from skims, see {@link #checkConfiguration}. State that is calculated in the setup from the base
+ * year data is reproduced by restoring after a regular setup with the base year data, see
+ * {@link de.tum.bgu.msm.SiloModel}.
+ *
+ * A checkpoint does not contain the free attributes of entities ({@code setAttribute}), which may hold
+ * arbitrary objects, nor state that models carry from one year to the next, e.g. the plans of the transport
+ * model or attributes cached by housing strategies. Models recalculate such state from the restored data as
+ * in the first simulated year of a run. A continuation therefore starts from the same micro data and random
+ * numbers as the original run, but is not guaranteed to be identical to it.
+ */
+public final class DataContainerCheckpoint {
+
+    private final static Logger logger = Logger.getLogger(DataContainerCheckpoint.class);
+
+    private static final int MAGIC = 0x53434b50;
+    private static final int VERSION = 2;
+    private static final int NONE = -1;
+
+    private DataContainerCheckpoint() {
+    }
+
+    /**
+     * Fails if checkpoints are written or restored in a run with MATSim travel times, as the travel times of a
+     * transport model are only kept as skims in a checkpoint.
+     */
+    public static void checkConfiguration(Properties properties) {
+        final boolean usesCheckpoints = !properties.main.checkpointYears.isEmpty()
+                || !properties.main.resumeCheckpointFile.isEmpty();
+        if (usesCheckpoints && properties.transportModel.travelTimeImplIdentifier == TravelTimeImplIdentifier.MATSIM) {
+            throw new RuntimeException("Checkpoints only contain the skims of the transport model, which cannot be "
+                    + "restored into MATSim travel times. Remove checkpoint.years and checkpoint.resume.file or use "
+                    + "travel.time=SKIM or MAPPED_SKIM.");
+        }
+    }
+
+    public static void write(DataContainer dataContainer, int year, String fileName) {
+        final Path file = Paths.get(fileName);
+        final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        final long start = System.currentTimeMillis();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(year);
+            writeFactoryClasses(dataContainer, out);
+
+            writeDwellings(dataContainer.getRealEstateDataManager(), out);
+            writeJobs(dataContainer.getJobDataManager(), out);
+            writePersons(dataContainer.getHouseholdDataManager(), out);
+            writeHouseholds(dataContainer.getHouseholdDataManager(), out);
+
+            writeManagerState(dataContainer.getHouseholdDataManager(), out);
+            writeManagerState(dataContainer.getRealEstateDataManager(), out);
+            writeManagerState(dataContainer.getJobDataManager(), out);
+            writeData(dataContainer.getCheckpointableData(), out);
+
+            SiloUtil.writeRandomStates(out);
+
+            final boolean withSkims = Properties.get().transportModel.transportModelIdentifier != TransportModelIdentifier.NONE;
+            out.writeBoolean(withSkims);
+            if (withSkims) {
+                writeSkims(dataContainer, skimFile(file));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write checkpoint " + fileName, e);
+        }
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write checkpoint " + fileName, e);
+        }
+        logger.info("Wrote checkpoint of year " + year + " to " + fileName + " in "
+                + (System.currentTimeMillis() - start) / 1000 + " seconds.");
+    }
+
+    /**
+     * Replaces the micro data and the state of the data managers of the given container with the
+     * checkpoint, and restores the random number generators. Free attributes of entities and the
+     * state of models are not restored.
+     *
+     * @return the year at the end of which the checkpoint was written
+     */
+    public static int restore(DataContainer dataContainer, String fileName) {
+        final long start = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(fileName)), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new RuntimeException("File " + fileName + " is not a checkpoint of version " + VERSION);
+            }
+            final int year = in.readInt();
+            checkFactoryClasses(dataContainer, in);
+            clear(dataContainer);
+
+            final int[] dwellingOrder = readDwellings(dataContainer.getRealEstateDataManager(), in);
+            final int[] jobOrder = readJobs(dataContainer.getJobDataManager(), in);
+            final int[] personOrder = readPersons(dataContainer.getHouseholdDataManager(), in);
+            final int[] householdOrder = readHouseholds(dataContainer.getHouseholdDataManager(), in);
+
+            readManagerState(dataContainer.getHouseholdDataManager(), in);
+            readManagerState(dataContainer.getRealEstateDataManager(), in);
+            readManagerState(dataContainer.getJobDataManager(), in);
+            readData(dataContainer.getCheckpointableData(), in);
+
+            SiloUtil.readRandomStates(in);
+            final boolean withSkims = in.readBoolean();
+
+            checkOrder("dwellings", dataContainer.getRealEstateDataManager().getDwellings(), Dwelling::getId, dwellingOrder);
+            checkOrder("jobs", dataContainer.getJobDataManager().getJobs(), Job::getId, jobOrder);
+            checkOrder("persons", dataContainer.getHouseholdDataManager().getPersons(), Person::getId, personOrder);
+            checkOrder("households", dataContainer.getHouseholdDataManager().getHouseholds(), Household::getId, householdOrder);
+
+            dataContainer.restoredCheckpoint(year);
+            if (withSkims) {
+                // replaces the input skims read by the data container
+                restoreSkims(dataContainer, skimFile(Paths.get(fileName)));
+            }
+
+            logger.info("Restored checkpoint of year " + year + " from " + fileName + " with " + personOrder.length + " persons, "
+                    + householdOrder.length + " households, " + dwellingOrder.length + " dwellings and " + jobOrder.length
+                    + " jobs in " + (System.currentTimeMillis() - start) / 1000 + " seconds.");
+            return year;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read checkpoint " + fileName, e);
+        }
+    }
+
+    /**
+     * The restored entities are created by the factories of the data managers, which have to be of the same
+     * classes as the factories of the run that wrote the checkpoint, so that the same entity classes are created
+     * and their codecs read what was written
+     */
+    private static void writeFactoryClasses(DataContainer dataContainer, DataOutputStream out) throws IOException {
+        for (Object factory : getFactories(dataContainer)) {
+            out.writeUTF(factory.getClass().getName());
+        }
+    }
+
+    private static void checkFactoryClasses(DataContainer dataContainer, DataInputStream in) throws IOException {
+        for (Object factory : getFactories(dataContainer)) {
+            final String writtenClass = in.readUTF();
+            if (!factory.getClass().getName().equals(writtenClass)) {
+                throw new IllegalStateException("Checkpoint was written with entities created by " + writtenClass
+                        + " and cannot be restored with entities created by " + factory.getClass().getName() + ".");
+            }
+        }
+    }
+
+    private static List<Object> getFactories(DataContainer dataContainer) {
+        return Arrays.asList(dataContainer.getRealEstateDataManager().getDwellingFactory(),
+                dataContainer.getJobDataManager().getFactory(),
+                dataContainer.getHouseholdDataManager().getPersonFactory(),
+                dataContainer.getHouseholdDataManager().getHouseholdFactory());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> EntityCheckpointCodec<T> getCodec(String name, Object factory) {
+        if (!(factory instanceof EntityCheckpointCodec)) {
+            throw new IllegalStateException("Checkpoints cannot contain " + name + " created by "
+                    + factory.getClass().getSimpleName() + ", which does not implement EntityCheckpointCodec.");
+        }
+        return (EntityCheckpointCodec<T>) factory;
+    }
+
+    /**
+     * Removes all micro data that was read for the base year. Side effects on vacancy lists are
+     * irrelevant, as they are replaced by the state of the managers.
+     */
+    private static void clear(DataContainer dataContainer) {
+        final HouseholdDataManager householdDataManager = dataContainer.getHouseholdDataManager();
+        for (Household household : new ArrayList<>(householdDataManager.getHouseholds())) {
+            householdDataManager.removeHousehold(household.getId());
+        }
+        for (Person person : new ArrayList<>(householdDataManager.getPersons())) {
+            householdDataManager.removePerson(person.getId());
+        }
+        final RealEstateDataManager realEstateDataManager = dataContainer.getRealEstateDataManager();
+        for (Dwelling dwelling : new ArrayList<>(realEstateDataManager.getDwellings())) {
+            realEstateDataManager.removeDwelling(dwelling.getId());
+        }
+        final JobDataManager jobDataManager = dataContainer.getJobDataManager();
+        for (Job job : new ArrayList<>(jobDataManager.getJobs())) {
+            jobDataManager.removeJob(job.getId());
+        }
+    }
+
+    private static void writeDwellings(RealEstateDataManager realEstateDataManager, DataOutputStream out) throws IOException {
+        final List<DwellingType> types = realEstateDataManager.getDwellingTypes().getTypes();
+        final EntityCheckpointCodec<Dwelling> codec = getCodec("dwellings", realEstateDataManager.getDwellingFactory());
+        final Collection<Dwelling> dwellings = realEstateDataManager.getDwellings();
+        out.writeInt(dwellings.size());
+        for (Dwelling dwelling : dwellings) {
+            out.writeInt(dwelling.getId());
+            out.writeInt(dwelling.getZoneId());
+            writeCoordinate(dwelling.getCoordinate(), out);
+            out.writeInt(dwelling.getResidentId());
+            out.writeInt(types.indexOf(dwelling.getType()));
+            out.writeInt(dwelling.getBedrooms());
+            out.writeInt(dwelling.getQuality());
+            out.writeInt(dwelling.getPrice());
+            out.writeInt(dwelling.getYearBuilt());
+            out.writeInt(dwelling.getFloorSpace());
+            out.writeByte(dwelling.getUsage().ordinal());
+            codec.writeCheckpointFields(dwelling, out);
+        }
+    }
+
+    private static int[] readDwellings(RealEstateDataManager realEstateDataManager, DataInputStream in) throws IOException {
+        final List<DwellingType> types = realEstateDataManager.getDwellingTypes().getTypes();
+        final DwellingFactory factory = realEstateDataManager.getDwellingFactory();
+        final EntityCheckpointCodec<Dwelling> codec = getCodec("dwellings", factory);
+        final DwellingUsage[] usages = DwellingUsage.values();
+        final int[] order = new int[in.readInt()];
+        for (int i = 0; i < order.length; i++) {
+            final int id = in.readInt();
+            final int zoneId = in.readInt();
+            final Coordinate coordinate = readCoordinate(in);
+            final int residentId = in.readInt();
+            final int typeIndex = in.readInt();
+            final DwellingType type = typeIndex == NONE ? null : types.get(typeIndex);
+            final Dwelling dwelling = factory.createDwelling(id, zoneId, coordinate, residentId, type,
+                    in.readInt(), in.readInt(), in.readInt(), in.readInt());
+            dwelling.setFloorSpace(in.readInt());
+            dwelling.setUsage(usages[in.readByte()]);
+            codec.readCheckpointFields(dwelling, in);
+            realEstateDataManager.addDwelling(dwelling);
+            order[i] = id;
+        }
+        return order;
+    }
+
+    private static void writeJobs(JobDataManager jobDataManager, DataOutputStream out) throws IOException {
+        final EntityCheckpointCodec<Job> codec = getCodec("jobs", jobDataManager.getFactory());
+        final Collection<Job> jobs = jobDataManager.getJobs();
+        out.writeInt(jobs.size());
+        for (Job job : jobs) {
+            out.writeInt(job.getId());
+            out.writeInt(job.getZoneId());
+            writeCoordinate(job.getCoordinate(), out);
+            out.writeInt(job.getWorkerId());
+            out.writeUTF(job.getType());
+            codec.writeCheckpointFields(job, out);
+        }
+    }
+
+    private static int[] readJobs(JobDataManager jobDataManager, DataInputStream in) throws IOException {
+        final JobFactory factory = jobDataManager.getFactory();
+        final EntityCheckpointCodec<Job> codec = getCodec("jobs", factory);
+        final int[] order = new int[in.readInt()];
+        for (int i = 0; i < order.length; i++) {
+            final int id = in.readInt();
+            final int zoneId = in.readInt();
+            final Coordinate coordinate = readCoordinate(in);
+            final int workerId = in.readInt();
+            final Job job = factory.createJob(id, zoneId, coordinate, workerId, in.readUTF());
+            codec.readCheckpointFields(job, in);
+            jobDataManager.addJob(job);
+            order[i] = id;
+        }
+        return order;
+    }
+
+    private static void writePersons(HouseholdDataManager householdDataManager, DataOutputStream out) throws IOException {
+        final EntityCheckpointCodec<Person> codec = getCodec("persons", householdDataManager.getPersonFactory());
+        final Collection<Person> persons = householdDataManager.getPersons();
+        out.writeInt(persons.size());
+        for (Person person : persons) {
+            out.writeInt(person.getId());
+            out.writeInt(person.getAge());
+            out.writeByte(person.getGender().getCode());
+            out.writeByte(person.getOccupation() == null ? NONE : person.getOccupation().ordinal());
+            out.writeByte(person.getRole() == null ? NONE : person.getRole().ordinal());
+            out.writeInt(person.getJobId());
+            out.writeInt(person.getAnnualIncome());
+            out.writeBoolean(person.hasDriverLicense());
+            codec.writeCheckpointFields(person, out);
+        }
+    }
+
+    private static int[] readPersons(HouseholdDataManager householdDataManager, DataInputStream in) throws IOException {
+        final PersonFactory factory = householdDataManager.getPersonFactory();
+        final EntityCheckpointCodec<Person> codec = getCodec("persons", factory);
+        final Occupation[] occupations = Occupation.values();
+        final PersonRole[] roles = PersonRole.values();
+        final int[] order = new int[in.readInt()];
+        for (int i = 0; i < order.length; i++) {
+            final int id = in.readInt();
+            final int age = in.readInt();
+            final Gender gender = Gender.valueOf(in.readByte());
+            final byte occupation = in.readByte();
+            final byte role = in.readByte();
+            final Person person = factory.createPerson(id, age, gender,
+                    occupation == NONE ? null : occupations[occupation],
+                    role == NONE ? null : roles[role],
+                    in.readInt(), in.readInt());
+            person.setDriverLicense(in.readBoolean());
+            codec.readCheckpointFields(person, in);
+            householdDataManager.addPerson(person);
+            order[i] = id;
+        }
+        return order;
+    }
+
+    private static void writeHouseholds(HouseholdDataManager householdDataManager, DataOutputStream out) throws IOException {
+        final EntityCheckpointCodec<Household> codec = getCodec("households", householdDataManager.getHouseholdFactory());
+        final Collection<Household> households = householdDataManager.getHouseholds();
+        out.writeInt(households.size());
+        for (Household household : households) {
+            out.writeInt(household.getId());
+            out.writeInt(household.getDwellingId());
+            final List<Vehicle> vehicles = household.getVehicles();
+            out.writeInt(vehicles.size());
+            for (Vehicle vehicle : vehicles) {
+                if (!(vehicle instanceof Car)) {
+                    throw new IllegalStateException("Vehicles of type " + vehicle.getClass().getSimpleName()
+                            + " cannot be written to checkpoints.");
+                }
+                out.writeInt(vehicle.getId());
+                out.writeByte(((Car) vehicle).getCarType().ordinal());
+                out.writeInt(vehicle.getAge());
+            }
+            out.writeInt(household.getHhSize());
+            for (Integer personId : household.getPersons().keySet()) {
+                out.writeInt(personId);
+            }
+            codec.writeCheckpointFields(household, out);
+        }
+    }
+
+    private static int[] readHouseholds(HouseholdDataManager householdDataManager, DataInputStream in) throws IOException {
+        final HouseholdFactory factory = householdDataManager.getHouseholdFactory();
+        final EntityCheckpointCodec<Household> codec = getCodec("households", factory);
+        final CarType[] carTypes = CarType.values();
+        final int[] order = new int[in.readInt()];
+        for (int i = 0; i < order.length; i++) {
+            final int id = in.readInt();
+            final Household household = factory.createHousehold(id, in.readInt(), 0);
+            final int numberOfVehicles = in.readInt();
+            for (int j = 0; j < numberOfVehicles; j++) {
+                final int vehicleId = in.readInt();
+                final CarType carType = carTypes[in.readByte()];
+                household.getVehicles().add(new Car(vehicleId, carType, in.readInt()));
+            }
+            final int size = in.readInt();
+            for (int j = 0; j < size; j++) {
+                final Person person = householdDataManager.getPersonFromId(in.readInt());
+                household.addPerson(person);
+                person.setHousehold(household);
+            }
+            codec.readCheckpointFields(household, in);
+            householdDataManager.addHousehold(household);
+            order[i] = id;
+        }
+        return order;
+    }
+
+    private static void writeManagerState(Object manager, DataOutputStream out) throws IOException {
+        if (manager instanceof Checkpointable) {
+            out.writeBoolean(true);
+            ((Checkpointable) manager).writeCheckpoint(out);
+        } else {
+            logger.warn(manager.getClass().getSimpleName() + " does not implement Checkpointable. Its state will be the one after the setup when restoring.");
+            out.writeBoolean(false);
+        }
+    }
+
+    private static void readManagerState(Object manager, DataInputStream in) throws IOException {
+        final boolean written = in.readBoolean();
+        if (written && !(manager instanceof Checkpointable)) {
+            throw new IllegalStateException("Checkpoint holds a state for " + manager.getClass().getSimpleName()
+                    + " which does not implement Checkpointable.");
+        } else if (written) {
+            ((Checkpointable) manager).readCheckpoint(in);
+        } else if (manager instanceof Checkpointable) {
+            logger.warn("Checkpoint holds no state for " + manager.getClass().getSimpleName() + ". Its state will be the one after the setup.");
+        }
+    }
+
+    private static void writeData(List<Checkpointable> data, DataOutputStream out) throws IOException {
+        out.writeInt(data.size());
+        for (Checkpointable checkpointable : data) {
+            out.writeUTF(checkpointable.getClass().getName());
+            checkpointable.writeCheckpoint(out);
+        }
+    }
+
+    private static void readData(List<Checkpointable> data, DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        if (size != data.size()) {
+            throw new IllegalStateException("Checkpoint holds the state of " + size + " further data, but the data container has "
+                    + data.size() + ".");
+        }
+        for (Checkpointable checkpointable : data) {
+            final String writtenClass = in.readUTF();
+            if (!checkpointable.getClass().getName().equals(writtenClass)) {
+                throw new IllegalStateException("Checkpoint holds a state for " + writtenClass + " instead of "
+                        + checkpointable.getClass().getName() + ".");
+            }
+            checkpointable.readCheckpoint(in);
+        }
+    }
+
+    /**
+     * @return the skim file that is written next to the given checkpoint file
+     */
+    private static Path skimFile(Path checkpointFile) {
+        final String name = checkpointFile.getFileName().toString();
+        final String baseName = name.endsWith(".bin") ? name.substring(0, name.length() - ".bin".length()) : name;
+        return checkpointFile.resolveSibling(baseName + "_skims.bin");
+    }
+
+    /**
+     * Writes the car and transit skims, which were updated by the transport model, to a skim file of
+     * {@link MappedSkimTravelTimes}. Mapped travel times already are such a file, which is copied.
+     */
+    private static void writeSkims(DataContainer dataContainer, Path skimFile) throws IOException {
+        final TravelTimes travelTimes = dataContainer.getTravelTimes();
+        if (travelTimes instanceof MappedSkimTravelTimes) {
+            Files.copy(((MappedSkimTravelTimes) travelTimes).getFile(), skimFile, StandardCopyOption.REPLACE_EXISTING);
+        } else if (travelTimes instanceof SkimTravelTimes) {
+            final GeoData geoData = dataContainer.getGeoData();
+            MappedSkimTravelTimes.convert(travelTimes, geoData.getZones().values(), geoData.getRegions().values(),
+                    Arrays.asList(TransportMode.car, TransportMode.pt), skimFile, Properties.get().main.numberOfThreads);
+        } else {
+            throw new IllegalStateException("Skims of travel times of type " + travelTimes.getClass().getSimpleName()
+                    + " cannot be written to checkpoints.");
+        }
+        logger.info("Wrote skims of the checkpoint to " + skimFile);
+    }
+
+    private static void restoreSkims(DataContainer dataContainer, Path skimFile) {
+        if (!Files.exists(skimFile)) {
+            throw new IllegalStateException("Checkpoint was written with the skims of a transport model, but the skim file "
+                    + skimFile + " does not exist.");
+        }
+        final TravelTimes travelTimes = dataContainer.getTravelTimes();
+        final GeoData geoData = dataContainer.getGeoData();
+        if (travelTimes instanceof MappedSkimTravelTimes) {
+            ((MappedSkimTravelTimes) travelTimes).load(skimFile, geoData.getZones().values());
+        } else if (travelTimes instanceof SkimTravelTimes) {
+            final MappedSkimTravelTimes mappedTravelTimes = new MappedSkimTravelTimes();
+            mappedTravelTimes.load(skimFile, geoData.getZones().values());
+            final SkimTravelTimes skimTravelTimes = (SkimTravelTimes) travelTimes;
+            for (String mode : Arrays.asList(TransportMode.car, TransportMode.pt)) {
+                skimTravelTimes.updateSkimMatrix(mappedTravelTimes.getPeakSkim(mode), mode);
+            }
+            skimTravelTimes.updateRegionalTravelTimes(geoData.getRegions().values(), geoData.getZones().values());
+        } else {
+            throw new IllegalStateException("Skims of checkpoints cannot be restored into travel times of type "
+                    + travelTimes.getClass().getSimpleName() + ".");
+        }
+        logger.info("Restored skims of the checkpoint from " + skimFile);
+    }
+
+    private static void writeCoordinate(Coordinate coordinate, DataOutputStream out) throws IOException {
+        out.writeDouble(coordinate == null ? Double.NaN : coordinate.x);
+        out.writeDouble(coordinate == null ? Double.NaN : coordinate.y);
+    }
+
+    private static Coordinate readCoordinate(DataInputStream in) throws IOException {
+        final double x = in.readDouble();
+        final double y = in.readDouble();
+        return Double.isNaN(x) ? null : new Coordinate(x, y);
+    }
+
+    /**
+     * Models iterate over the micro data, e.g. to create events, and draw random numbers in that order. Hash
+     * based data stores do not guarantee the same order if they were sized differently.
+     */
+    private static <T> void checkOrder(String name, Collection<T> entities, ToIntFunction<T> id, int[] expectedOrder) {
+        final Iterator<T> iterator = entities.iterator();
+        for (int expectedId : expectedOrder) {
+            if (!iterator.hasNext() || id.applyAsInt(iterator.next()) != expectedId) {
+                logger.warn("The restored " + name + " are iterated in a different order than in the run that wrote the checkpoint. "
+                        + "Models will process them in a different order than the original run.");
+                return;
+            }
+        }
+    }
+}
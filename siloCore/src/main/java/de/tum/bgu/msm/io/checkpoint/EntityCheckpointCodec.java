@@ -0,0 +1,26 @@
+package de.tum.bgu.msm.io.checkpoint;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Implemented by the factories of dwellings, jobs, persons and households to write the fields of their
+ * entities that are not accessible through the core interfaces, e.g. the race of persons in Maryland, to
+ * checkpoints. The fields of the core interfaces are written by {@link DataContainerCheckpoint}, so factories
+ * of entities without further fields implement both methods without writing or reading anything.
+ */
+public interface EntityCheckpointCodec<T> {
+
+    /**
+     * Writes the fields of the entity that are not part of the core interface. Called after its core fields
+     * were written.
+     */
+    void writeCheckpointFields(T entity, DataOutputStream out) throws IOException;
+
+    /**
+     * Sets the fields written by {@link #writeCheckpointFields} on an entity that was just created by this
+     * factory from the core fields, before it is added to its data manager.
+     */
+    void readCheckpointFields(T entity, DataInputStream in) throws IOException;
+}
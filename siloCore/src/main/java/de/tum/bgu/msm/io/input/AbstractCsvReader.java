@@ -1,6 +1,7 @@
 package de.tum.bgu.msm.io.input;
 
 import de.tum.bgu.msm.data.DataSet;
+import de.tum.bgu.msm.properties.Properties;
 import org.apache.log4j.Logger;
 
 import java.io.BufferedReader;
@@ -8,6 +9,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 
 public abstract class AbstractCsvReader extends AbstractInputReader{
 
@@ -25,7 +27,18 @@ public abstract class AbstractCsvReader extends AbstractInputReader{
 
     protected abstract void processRecord(String[] record);
 
+    /**
+     * Single character delimiters are split off in parallel by a {@link ParallelCsvReader} on the configured
+     * number of threads, which also reads gzip compressed files. Records are processed in the order of the
+     * file either way, and trailing empty fields are dropped as by {@code String.split}. Unlike
+     * {@code String.split}, the parallel reader skips empty lines instead of passing them on as a record
+     * with one empty field.
+     */
     public void read(Path filePath, String delimiter) {
+        if (delimiter.length() == 1 && ".$|()[]{}^?*+\\".indexOf(delimiter.charAt(0)) < 0 && delimiter.charAt(0) <= 0x7f) {
+            readInParallel(filePath, delimiter.charAt(0));
+            return;
+        }
         initializeReader(filePath, delimiter);
         try {
             String record;
@@ -45,6 +58,27 @@ public abstract class AbstractCsvReader extends AbstractInputReader{
         logger.info(this.getClass().getSimpleName() + ": Read " + numberOfRecords + " records.");
     }
 
+    private void readInParallel(Path filePath, char delimiter) {
+        try {
+            numberOfRecords += new ParallelCsvReader(Properties.get().main.numberOfThreads, delimiter, StandardCharsets.ISO_8859_1)
+                    .read(filePath.toString(), header -> {
+                        processHeader(withoutTrailingEmptyFields(header));
+                        return record -> withoutTrailingEmptyFields(record.toArray());
+                    }, this::processRecord);
+        } catch (IOException e) {
+            logger.error("Error reading " + filePath + ": " + e.getMessage(), e);
+        }
+        logger.info(this.getClass().getSimpleName() + ": Read " + numberOfRecords + " records.");
+    }
+
+    private static String[] withoutTrailingEmptyFields(String[] fields) {
+        int length = fields.length;
+        while (length > 0 && fields[length - 1].isEmpty()) {
+            length--;
+        }
+        return length == fields.length ? fields : Arrays.copyOf(fields, length);
+    }
+
     private void initializeReader(Path filePath, String delimiter) {
         try {
 
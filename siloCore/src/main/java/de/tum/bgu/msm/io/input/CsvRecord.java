@@ -0,0 +1,156 @@
+package de.tum.bgu.msm.io.input;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * One line of a csv file read by {@link ParallelCsvReader}. The record is a view on the bytes of the
+ * file, fields are only decoded when they are requested. A record is reused for the following lines,
+ * so parsers must not keep a reference to it.
+ *
+ * Like {@code String.split}, fields are separated at every delimiter, quotes are not treated specially.
+ */
+public final class CsvRecord {
+
+    private final Charset charset;
+
+    private ByteBuffer buffer;
+    private int lineStart;
+    private int lineEnd;
+
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int numberOfFields;
+
+    CsvRecord(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * Points this record to the line between start (inclusive) and end (exclusive, without line break)
+     */
+    void set(ByteBuffer buffer, int start, int end, byte delimiter) {
+        this.buffer = buffer;
+        this.lineStart = start;
+        this.lineEnd = end;
+        numberOfFields = 0;
+        int fieldStart = start;
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == delimiter) {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+        }
+        addField(fieldStart, end);
+    }
+
+    private void addField(int start, int end) {
+        if (numberOfFields == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, numberOfFields * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, numberOfFields * 2);
+        }
+        fieldStarts[numberOfFields] = start;
+        fieldEnds[numberOfFields] = end;
+        numberOfFields++;
+    }
+
+    public int size() {
+        return numberOfFields;
+    }
+
+    public String getString(int column) {
+        checkColumn(column);
+        return decode(fieldStarts[column], fieldEnds[column]);
+    }
+
+    /**
+     * @return the field with all quotes removed
+     */
+    public String getUnquotedString(int column) {
+        checkColumn(column);
+        final int start = fieldStarts[column];
+        final int end = fieldEnds[column];
+        final byte[] bytes = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            final byte b = buffer.get(i);
+            if (b != '"') {
+                bytes[length++] = b;
+            }
+        }
+        return new String(bytes, 0, length, charset);
+    }
+
+    /**
+     * Parses the field without creating a string. Fields that are not plain decimal integers are
+     * handed to {@link Integer#parseInt}, so the same exceptions are thrown.
+     */
+    public int getInt(int column) {
+        checkColumn(column);
+        final int start = fieldStarts[column];
+        final int end = fieldEnds[column];
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if (i == end || end - i > 9) {
+            return Integer.parseInt(getString(column));
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            final int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(getString(column));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    public double getDouble(int column) {
+        return Double.parseDouble(getString(column));
+    }
+
+    /**
+     * @return true if the field equals "true", ignoring case, as {@link Boolean#parseBoolean}
+     */
+    public boolean getBoolean(int column) {
+        checkColumn(column);
+        final int start = fieldStarts[column];
+        if (fieldEnds[column] - start != 4) {
+            return false;
+        }
+        return (buffer.get(start) | 0x20) == 't' && (buffer.get(start + 1) | 0x20) == 'r'
+                && (buffer.get(start + 2) | 0x20) == 'u' && (buffer.get(start + 3) | 0x20) == 'e';
+    }
+
+    public String[] toArray() {
+        final String[] fields = new String[numberOfFields];
+        for (int i = 0; i < numberOfFields; i++) {
+            fields[i] = decode(fieldStarts[i], fieldEnds[i]);
+        }
+        return fields;
+    }
+
+    private String decode(int start, int end) {
+        final byte[] bytes = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            bytes[i - start] = buffer.get(i);
+        }
+        return new String(bytes, charset);
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= numberOfFields) {
+            throw new ArrayIndexOutOfBoundsException("Column " + column + " of record <" + this + "> with " + numberOfFields + " fields");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return decode(lineStart, lineEnd);
+    }
+}
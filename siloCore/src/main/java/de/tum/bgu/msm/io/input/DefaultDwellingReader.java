@@ -1,13 +1,13 @@
 package de.tum.bgu.msm.io.input;
 
 import de.tum.bgu.msm.data.dwelling.*;
+import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
 import org.locationtech.jts.geom.Coordinate;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 public class DefaultDwellingReader implements DwellingReader {
 
@@ -45,68 +45,84 @@ public class DefaultDwellingReader implements DwellingReader {
     @Override
     public void readData(String path) {
         logger.info("Reading dwelling micro data from ascii file");
-        String recString = "";
         int recCount = 0;
+        int[] noCoordCounter = {0};
         try {
-            BufferedReader in = new BufferedReader(new FileReader(path));
-            recString = in.readLine();
-
-            String[] header = recString.split(",");
-            int posId = SiloUtil.findPositionInArray("id", header);
-            int posZone = SiloUtil.findPositionInArray("zone", header);
-            int posHh = SiloUtil.findPositionInArray("hhID", header);
-            int posType = SiloUtil.findPositionInArray("type", header);
-            int posRooms = SiloUtil.findPositionInArray("bedrooms", header);
-            int posQuality = SiloUtil.findPositionInArray("quality", header);
-            int posCosts = SiloUtil.findPositionInArray("monthlyCost", header);
-            int posYear = SiloUtil.findPositionInArray("yearBuilt", header);
-
-            int posCoordX = -1;
-            int posCoordY = -1;
-            try {
-                posCoordX = SiloUtil.findPositionInArray("coordX", header);
-                posCoordY = SiloUtil.findPositionInArray("coordY", header);
-            } catch (Exception e) {
-                logger.warn("No coords given in dwelling input file. Models using microlocations will not work.");
-            }
-
-            int noCoordCounter = 0;
-            while ((recString = in.readLine()) != null) {
-                recCount++;
-                String[] lineElements = recString.split(",");
-                int id = Integer.parseInt(lineElements[posId]);
-                int zoneId = Integer.parseInt(lineElements[posZone]);
-                int hhId = Integer.parseInt(lineElements[posHh]);
-                String tp = lineElements[posType].replace("\"", "");
-                DwellingType type = dwellingTypes.valueOf(tp);
-                int price = Integer.parseInt(lineElements[posCosts]);
-                int area = Integer.parseInt(lineElements[posRooms]);
-                int quality = Integer.parseInt(lineElements[posQuality]);
-                int yearBuilt = Integer.parseInt(lineElements[posYear]);
-
-                Coordinate coordinate = null;
-                if (posCoordX >= 0 && posCoordY >= 0) {
-                    try {
-                        coordinate = new Coordinate(Double.parseDouble(lineElements[posCoordX]), Double.parseDouble(lineElements[posCoordY]));
-                    } catch (Exception e) {
-                        noCoordCounter++;
+            recCount = new ParallelCsvReader(Properties.get().main.numberOfThreads, ',', StandardCharsets.UTF_8).read(path, header -> {
+                int posId = SiloUtil.findPositionInArray("id", header);
+                int posZone = SiloUtil.findPositionInArray("zone", header);
+                int posHh = SiloUtil.findPositionInArray("hhID", header);
+                int posType = SiloUtil.findPositionInArray("type", header);
+                int posRooms = SiloUtil.findPositionInArray("bedrooms", header);
+                int posQuality = SiloUtil.findPositionInArray("quality", header);
+                int posCosts = SiloUtil.findPositionInArray("monthlyCost", header);
+                int posYear = SiloUtil.findPositionInArray("yearBuilt", header);
+
+                int posCoordX = -1;
+                int posCoordY = -1;
+                try {
+                    posCoordX = SiloUtil.findPositionInArray("coordX", header);
+                    posCoordY = SiloUtil.findPositionInArray("coordY", header);
+                } catch (Exception e) {
+                    logger.warn("No coords given in dwelling input file. Models using microlocations will not work.");
+                }
+                final int coordX = posCoordX;
+                final int coordY = posCoordY;
+
+                return record -> {
+                    DwellingRecord dd = new DwellingRecord();
+                    dd.id = record.getInt(posId);
+                    dd.zoneId = record.getInt(posZone);
+                    dd.hhId = record.getInt(posHh);
+                    dd.type = dwellingTypes.valueOf(record.getUnquotedString(posType));
+                    dd.price = record.getInt(posCosts);
+                    dd.area = record.getInt(posRooms);
+                    dd.quality = record.getInt(posQuality);
+                    dd.yearBuilt = record.getInt(posYear);
+
+                    if (coordX >= 0 && coordY >= 0) {
+                        try {
+                            dd.coordinate = new Coordinate(record.getDouble(coordX), record.getDouble(coordY));
+                        } catch (Exception e) {
+                            dd.invalidCoordinate = true;
+                        }
                     }
+                    return dd;
+                };
+            }, record -> {
+                if (record.invalidCoordinate) {
+                    noCoordCounter[0]++;
                 }
-
-                Dwelling dwelling = dwellingFactory.createDwelling(id, zoneId, coordinate, hhId, type, area, quality, price, yearBuilt);
+                Dwelling dwelling = dwellingFactory.createDwelling(record.id, record.zoneId, record.coordinate, record.hhId,
+                        record.type, record.area, record.quality, record.price, record.yearBuilt);
                 dwellingData.addDwelling(dwelling);
-                if (id == SiloUtil.trackDd) {
+                if (record.id == SiloUtil.trackDd) {
                     SiloUtil.trackWriter.println("Read dwelling with following attributes from " + path);
                     SiloUtil.trackWriter.println(dwelling.toString());
                 }
-            }
-            if(noCoordCounter > 0) {
-                logger.warn("There were " + noCoordCounter + " dwellings without coordinates.");
+            });
+            if(noCoordCounter[0] > 0) {
+                logger.warn("There were " + noCoordCounter[0] + " dwellings without coordinates.");
             }
         } catch (IOException e) {
-            logger.fatal("IO Exception caught reading synpop dwelling file: " + path);
-            logger.fatal("recCount = " + recCount + ", recString = <" + recString + ">");
+            logger.fatal("IO Exception caught reading synpop dwelling file: " + path, e);
         }
         logger.info("Finished reading " + recCount + " dwellings.");
     }
+
+    /**
+     * Attributes of a dwelling as parsed from one line, dwellings are created in the order of the file
+     */
+    private static final class DwellingRecord {
+        private int id;
+        private int zoneId;
+        private int hhId;
+        private DwellingType type;
+        private int price;
+        private int area;
+        private int quality;
+        private int yearBuilt;
+        private Coordinate coordinate;
+        private boolean invalidCoordinate;
+    }
 }
@@ -3,12 +3,12 @@ package de.tum.bgu.msm.io.input;
 import de.tum.bgu.msm.data.household.Household;
 import de.tum.bgu.msm.data.household.HouseholdDataManager;
 import de.tum.bgu.msm.data.household.HouseholdFactory;
+import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 public class DefaultHouseholdReader implements HouseholdReader{
 
@@ -24,36 +24,25 @@ public class DefaultHouseholdReader implements HouseholdReader{
     public void readData(String fileName) {
         logger.info("Reading household micro data from ascii file");
 
-        String recString = "";
         int recCount = 0;
         try {
-            BufferedReader in = new BufferedReader(new FileReader(fileName));
-            recString = in.readLine();
-
-            // read header
-            String[] header = recString.split(",");
-            int posId = SiloUtil.findPositionInArray("id", header);
-            int posDwell = SiloUtil.findPositionInArray("dwelling", header);
-            int posAutos = SiloUtil.findPositionInArray("autos", header);
-
-            // read line
-            while ((recString = in.readLine()) != null) {
-                recCount++;
-                String[] lineElements = recString.split(",");
-                int id = Integer.parseInt(lineElements[posId]);
-                int dwellingID = Integer.parseInt(lineElements[posDwell]);
-                int autos = Integer.parseInt(lineElements[posAutos]);
-
-                Household hh = factory.createHousehold(id, dwellingID, autos);  // this automatically puts it in id->household map in Household class
+            recCount = new ParallelCsvReader(Properties.get().main.numberOfThreads, ',', StandardCharsets.UTF_8).read(fileName, header -> {
+                int posId = SiloUtil.findPositionInArray("id", header);
+                int posDwell = SiloUtil.findPositionInArray("dwelling", header);
+                int posAutos = SiloUtil.findPositionInArray("autos", header);
+                return record -> new int[]{record.getInt(posId), record.getInt(posDwell), record.getInt(posAutos)};
+            }, record -> {
+                int id = record[0];
+                // households are created in the order of the file, as the ages of their cars are drawn at random
+                Household hh = factory.createHousehold(id, record[1], record[2]);  // this automatically puts it in id->household map in Household class
                 householdData.addHousehold(hh);
                 if (id == SiloUtil.trackHh) {
                     SiloUtil.trackWriter.println("Read household with following attributes from " + fileName);
                     SiloUtil.trackWriter.println(hh.toString());
                 }
-            }
+            });
         } catch (IOException e) {
-            logger.fatal("IO Exception caught reading synpop household file: " + fileName);
-            logger.fatal("recCount = " + recCount + ", recString = <" + recString + ">");
+            logger.fatal("IO Exception caught reading synpop household file: " + fileName, e);
         }
         logger.info("Finished reading " + recCount + " households.");
 
@@ -1,13 +1,13 @@
 package de.tum.bgu.msm.io.input;
 
 import de.tum.bgu.msm.data.job.*;
+import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
 import org.locationtech.jts.geom.Coordinate;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 public class DefaultJobReader implements JobReader {
 
@@ -23,64 +23,72 @@ public class DefaultJobReader implements JobReader {
 
         logger.info("Reading job micro data from ascii file");
         JobFactory factory = jobData.getFactory();
-        String recString = "";
         int recCount = 0;
+        int[] noCoordCounter = {0};
         try {
-            BufferedReader in = new BufferedReader(new FileReader(fileName));
-            recString = in.readLine();
-
-            // read header
-            String[] header = recString.split(",");
-            int posId = SiloUtil.findPositionInArray("id", header);
-            int posZone = SiloUtil.findPositionInArray("zone", header);
-            int posWorker = SiloUtil.findPositionInArray("personId", header);
-            int posType = SiloUtil.findPositionInArray("type", header);
-
-            int posCoordX = -1;
-            int posCoordY = -1;
-            try {
-                posCoordX = SiloUtil.findPositionInArray("coordX", header);
-                posCoordY = SiloUtil.findPositionInArray("coordY", header);
-            } catch (Exception e) {
-                logger.warn("No coords given in dwelling input file. Models using microlocations will not work.");
-            }
-
-            int noCoordCounter = 0;
+            recCount = new ParallelCsvReader(Properties.get().main.numberOfThreads, ',', StandardCharsets.UTF_8).read(fileName, header -> {
+                int posId = SiloUtil.findPositionInArray("id", header);
+                int posZone = SiloUtil.findPositionInArray("zone", header);
+                int posWorker = SiloUtil.findPositionInArray("personId", header);
+                int posType = SiloUtil.findPositionInArray("type", header);
 
+                int posCoordX = -1;
+                int posCoordY = -1;
+                try {
+                    posCoordX = SiloUtil.findPositionInArray("coordX", header);
+                    posCoordY = SiloUtil.findPositionInArray("coordY", header);
+                } catch (Exception e) {
+                    logger.warn("No coords given in dwelling input file. Models using microlocations will not work.");
+                }
+                final int coordX = posCoordX;
+                final int coordY = posCoordY;
 
-            // read line
-            while ((recString = in.readLine()) != null) {
-                recCount++;
-                String[] lineElements = recString.split(",");
-                int id = Integer.parseInt(lineElements[posId]);
-                int zoneId = Integer.parseInt(lineElements[posZone]);
-                int worker = Integer.parseInt(lineElements[posWorker]);
-                String type = lineElements[posType].replace("\"", "");
+                return record -> {
+                    JobRecord jj = new JobRecord();
+                    jj.id = record.getInt(posId);
+                    jj.zoneId = record.getInt(posZone);
+                    jj.worker = record.getInt(posWorker);
+                    jj.type = record.getUnquotedString(posType);
 
-                Coordinate coordinate = null;
-                if (posCoordX >= 0 && posCoordY >= 0) {
-                    try {
-                        coordinate = new Coordinate(Double.parseDouble(lineElements[posCoordX]), Double.parseDouble(lineElements[posCoordY]));
-                    } catch (Exception e) {
-                        noCoordCounter++;
+                    if (coordX >= 0 && coordY >= 0) {
+                        try {
+                            jj.coordinate = new Coordinate(record.getDouble(coordX), record.getDouble(coordY));
+                        } catch (Exception e) {
+                            jj.invalidCoordinate = true;
+                        }
                     }
+                    return jj;
+                };
+            }, record -> {
+                if (record.invalidCoordinate) {
+                    noCoordCounter[0]++;
                 }
-
-                Job jj = factory.createJob(id, zoneId, coordinate, worker, type);
+                Job jj = factory.createJob(record.id, record.zoneId, record.coordinate, record.worker, record.type);
 
                 jobData.addJob(jj);
-                if (id == SiloUtil.trackJj) {
+                if (record.id == SiloUtil.trackJj) {
                     SiloUtil.trackWriter.println("Read job with following attributes from " + fileName);
                     SiloUtil.trackWriter.println(jj.toString());
                 }
-            }
-            if(noCoordCounter > 0) {
-                logger.warn("There were " + noCoordCounter + " dwellings without coordinates.");
+            });
+            if(noCoordCounter[0] > 0) {
+                logger.warn("There were " + noCoordCounter[0] + " dwellings without coordinates.");
             }
         } catch (IOException e) {
-            logger.fatal("IO Exception caught reading synpop job file: " + fileName, new RuntimeException());
-            logger.fatal("recCount = " + recCount + ", recString = <" + recString + ">", new RuntimeException());
+            logger.fatal("IO Exception caught reading synpop job file: " + fileName, e);
         }
         logger.info("Finished reading " + recCount + " jobs.");
     }
+
+    /**
+     * Attributes of a job as parsed from one line, jobs are created in the order of the file
+     */
+    private static final class JobRecord {
+        private int id;
+        private int zoneId;
+        private int worker;
+        private String type;
+        private Coordinate coordinate;
+        private boolean invalidCoordinate;
+    }
 }
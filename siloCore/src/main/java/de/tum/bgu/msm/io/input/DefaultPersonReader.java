@@ -3,12 +3,12 @@ package de.tum.bgu.msm.io.input;
 import de.tum.bgu.msm.data.household.HouseholdDataManager;
 import de.tum.bgu.msm.data.household.Household;
 import de.tum.bgu.msm.data.person.*;
+import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 public class DefaultPersonReader implements PersonReader{
 
@@ -24,62 +24,71 @@ public class DefaultPersonReader implements PersonReader{
         logger.info("Reading person micro data from ascii file");
 
         PersonFactory ppFactory = PersonUtils.getFactory();
-        String recString = "";
         int recCount = 0;
         try {
-            BufferedReader in = new BufferedReader(new FileReader(path));
-            recString = in.readLine();
+            recCount = new ParallelCsvReader(Properties.get().main.numberOfThreads, ',', StandardCharsets.UTF_8).read(path, header -> {
+                int posId = SiloUtil.findPositionInArray("id", header);
+                int posHhId = SiloUtil.findPositionInArray("hhID",header);
+                int posAge = SiloUtil.findPositionInArray("age",header);
+                int posGender = SiloUtil.findPositionInArray("gender",header);
+                int posRelShp = SiloUtil.findPositionInArray("relationShip",header);
+                int posOccupation = SiloUtil.findPositionInArray("occupation",header);
+                int posWorkplace = SiloUtil.findPositionInArray("workplace",header);
+                int posIncome = SiloUtil.findPositionInArray("income",header);
+                int posDriver = SiloUtil.findPositionInArray("driversLicense", header);
 
-            // read header
-            String[] header = recString.split(",");
-            int posId = SiloUtil.findPositionInArray("id", header);
-            int posHhId = SiloUtil.findPositionInArray("hhID",header);
-            int posAge = SiloUtil.findPositionInArray("age",header);
-            int posGender = SiloUtil.findPositionInArray("gender",header);
-            int posRelShp = SiloUtil.findPositionInArray("relationShip",header);
-            int posOccupation = SiloUtil.findPositionInArray("occupation",header);
-            int posWorkplace = SiloUtil.findPositionInArray("workplace",header);
-            int posIncome = SiloUtil.findPositionInArray("income",header);
-            int posDriver = SiloUtil.findPositionInArray("driversLicense", header);
-
-            // read line
-            while ((recString = in.readLine()) != null) {
-                recCount++;
-                String[] lineElements = recString.split(",");
-                int id         = Integer.parseInt(lineElements[posId]);
-                int hhid       = Integer.parseInt(lineElements[posHhId]);
-                int age        = Integer.parseInt(lineElements[posAge]);
-                Gender gender     = Gender.valueOf(Integer.parseInt(lineElements[posGender]));
-                String relShp  = lineElements[posRelShp].replace("\"", "");
-                PersonRole pr  = PersonRole.valueOf(relShp.toUpperCase());
-                Occupation occupation = Occupation.valueOf(Integer.parseInt(lineElements[posOccupation]));
-                int workplace  = Integer.parseInt(lineElements[posWorkplace]);
-                //todo remove the workplace if they are not employed - temporary if school ids or zones are stored there
-                if (!occupation.equals(Occupation.EMPLOYED)){
-                    workplace = -1;
-                }
-                int income     = Integer.parseInt(lineElements[posIncome]);
-                boolean license = Boolean.parseBoolean(lineElements[posDriver]);
-                //todo temporary assign driving license since this is not in the current SP version
-                //boolean license = MicroDataManager.obtainLicense(gender, age);
-                Household household = householdDataManager.getHouseholdFromId(hhid);
+                return record -> {
+                    PersonRecord pp = new PersonRecord();
+                    pp.id = record.getInt(posId);
+                    pp.hhid = record.getInt(posHhId);
+                    pp.age = record.getInt(posAge);
+                    pp.gender = Gender.valueOf(record.getInt(posGender));
+                    pp.role = PersonRole.valueOf(record.getUnquotedString(posRelShp).toUpperCase());
+                    pp.occupation = Occupation.valueOf(record.getInt(posOccupation));
+                    pp.workplace = record.getInt(posWorkplace);
+                    //todo remove the workplace if they are not employed - temporary if school ids or zones are stored there
+                    if (!pp.occupation.equals(Occupation.EMPLOYED)){
+                        pp.workplace = -1;
+                    }
+                    pp.income = record.getInt(posIncome);
+                    pp.license = record.getBoolean(posDriver);
+                    //todo temporary assign driving license since this is not in the current SP version
+                    //boolean license = MicroDataManager.obtainLicense(gender, age);
+                    return pp;
+                };
+            }, record -> {
+                Household household = householdDataManager.getHouseholdFromId(record.hhid);
                 if(household == null) {
-                    throw new RuntimeException("Person " + id + " refers to non existing household " + hhid + "!");
+                    throw new RuntimeException("Person " + record.id + " refers to non existing household " + record.hhid + "!");
                 }
-                Person pp = ppFactory.createPerson(id, age, gender, occupation,pr, workplace, income);
+                Person pp = ppFactory.createPerson(record.id, record.age, record.gender, record.occupation, record.role, record.workplace, record.income);
                 householdDataManager.addPerson(pp);
                 householdDataManager.addPersonToHousehold(pp, household);
-                pp.setDriverLicense(license);
+                pp.setDriverLicense(record.license);
 
-                if (id == SiloUtil.trackPp) {
+                if (record.id == SiloUtil.trackPp) {
                     SiloUtil.trackWriter.println("Read person with following attributes from " + path);
                     SiloUtil.trackWriter.println(pp.toString());
                 }
-            }
+            });
         } catch (IOException e) {
-            logger.fatal("IO Exception caught reading synpop household file: " + path);
-            logger.fatal("recCount = " + recCount + ", recString = <" + recString + ">");
+            logger.fatal("IO Exception caught reading synpop person file: " + path, e);
         }
         logger.info("Finished reading " + recCount + " persons.");
     }
+
+    /**
+     * Attributes of a person as parsed from one line, persons are created in the order of the file
+     */
+    private static final class PersonRecord {
+        private int id;
+        private int hhid;
+        private int age;
+        private Gender gender;
+        private PersonRole role;
+        private Occupation occupation;
+        private int workplace;
+        private int income;
+        private boolean license;
+    }
 }
@@ -0,0 +1,369 @@
+package de.tum.bgu.msm.io.input;
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads csv files with a header line in chunks that are parsed in parallel.
+ *
+ * Plain files are memory-mapped chunk by chunk, gzip compressed files are decompressed by the calling
+ * thread and handed over in chunks. Chunks are cut at line boundaries, and their records are parsed by
+ * a {@link RecordParser} on several threads. The parsed records are then passed to a consumer on the
+ * calling thread in the order of the file, so everything that depends on the order of records or is
+ * not thread safe, like adding entities to data managers, linking persons to households or drawing
+ * random numbers, belongs into the consumer.
+ *
+ * Only a limited number of chunks is kept in memory at a time, so files of any size can be read.
+ */
+public final class ParallelCsvReader {
+
+    private final static Logger logger = Logger.getLogger(ParallelCsvReader.class);
+
+    private static final int CHUNK_SIZE = 4 << 20;
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+    /**
+     * Parses one record into an object that is handed to the consumer. Called concurrently for different
+     * records, so implementations must be thread safe. Records for which null is returned are skipped.
+     */
+    public interface RecordParser<T> {
+        T parse(CsvRecord record);
+    }
+
+    private final int threads;
+    private final byte delimiter;
+    private final Charset charset;
+
+    public ParallelCsvReader() {
+        this(Runtime.getRuntime().availableProcessors(), ',', StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param delimiter an ASCII character
+     * @param charset   a charset in which ASCII characters are encoded as single bytes, like UTF-8 or ISO-8859-1
+     */
+    public ParallelCsvReader(int threads, char delimiter, Charset charset) {
+        if (delimiter > 0x7f) {
+            throw new IllegalArgumentException("Only ASCII delimiters are supported.");
+        }
+        this.threads = Math.max(threads, 1);
+        this.delimiter = (byte) delimiter;
+        this.charset = charset;
+    }
+
+    /**
+     * Reads the file at the given path. If there is no file at the path, but a gzip compressed one with
+     * the additional extension ".gz", that one is read. Files are recognized as gzip compressed by their
+     * content, not by their name.
+     *
+     * @param parserForHeader creates the parser from the fields of the header line, e.g. to look up the
+     *                        positions of columns
+     * @param consumer        receives the parsed records in the order of the file
+     * @return the number of records that were read. Empty lines are not counted.
+     */
+    public <T> int read(String path, Function<String[], RecordParser<T>> parserForHeader,
+                        Consumer<? super T> consumer) throws IOException {
+        Path file = Paths.get(path);
+        if (!Files.exists(file) && Files.exists(Paths.get(path + ".gz"))) {
+            file = Paths.get(path + ".gz");
+        }
+        try (ChunkSource source = isGzip(file) ? new GzipChunks(file) : new MappedChunks(file)) {
+            final ByteBuffer header = source.header();
+            if (header == null) {
+                throw new IOException("File " + file + " is empty.");
+            }
+            final CsvRecord headerRecord = new CsvRecord(charset);
+            headerRecord.set(header, 0, lineEnd(header, 0, header.limit()), delimiter);
+            final RecordParser<T> parser = parserForHeader.apply(headerRecord.toArray());
+            final int records = threads == 1 ? readSequentially(source, parser, consumer) : readInParallel(source, parser, consumer);
+            logger.info("Read " + records + " records from " + file);
+            return records;
+        }
+    }
+
+    private <T> int readSequentially(ChunkSource source, RecordParser<T> parser, Consumer<? super T> consumer) throws IOException {
+        int records = 0;
+        ByteBuffer chunk;
+        while ((chunk = source.next()) != null) {
+            records += consume(parse(chunk, parser, source.position()), consumer);
+        }
+        return records;
+    }
+
+    private <T> int readInParallel(ChunkSource source, RecordParser<T> parser, Consumer<? super T> consumer) throws IOException {
+        final AtomicInteger counter = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "csv-parser-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final ArrayDeque<Future<List<T>>> pending = new ArrayDeque<>();
+            int records = 0;
+            ByteBuffer chunk;
+            while ((chunk = source.next()) != null) {
+                final ByteBuffer next = chunk;
+                final long position = source.position();
+                pending.add(executor.submit(() -> parse(next, parser, position)));
+                if (pending.size() >= threads * CHUNKS_IN_FLIGHT_PER_THREAD) {
+                    records += consume(await(pending.poll()), consumer);
+                }
+            }
+            while (!pending.isEmpty()) {
+                records += consume(await(pending.poll()), consumer);
+            }
+            return records;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> List<T> await(Future<List<T>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static <T> int consume(List<T> parsed, Consumer<? super T> consumer) {
+        int records = 0;
+        for (T record : parsed) {
+            records++;
+            if (record != null) {
+                consumer.accept(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @param position offset of the chunk in the (uncompressed) file, for error messages
+     * @return the parsed records of the chunk, with null for records that were skipped by the parser
+     */
+    private <T> List<T> parse(ByteBuffer chunk, RecordParser<T> parser, long position) {
+        final List<T> parsed = new ArrayList<>();
+        final CsvRecord record = new CsvRecord(charset);
+        final int limit = chunk.limit();
+        int start = 0;
+        while (start < limit) {
+            int end = start;
+            while (end < limit && chunk.get(end) != '\n') {
+                end++;
+            }
+            final int contentEnd = lineEnd(chunk, start, end);
+            if (contentEnd > start) {
+                record.set(chunk, start, contentEnd, delimiter);
+                try {
+                    parsed.add(parser.parse(record));
+                } catch (RuntimeException e) {
+                    throw new RuntimeException("Could not parse record <" + record + "> at byte " + (position + start) + ": " + e.getMessage(), e);
+                }
+            }
+            start = end + 1;
+        }
+        return parsed;
+    }
+
+    /**
+     * @return the end of the line without a trailing carriage return
+     */
+    private static int lineEnd(ByteBuffer buffer, int start, int end) {
+        return end > start && buffer.get(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    private static boolean isGzip(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.read() == 0x1f && in.read() == 0x8b;
+        }
+    }
+
+    /**
+     * Supplies the content of a file in chunks that end at line breaks
+     */
+    private interface ChunkSource extends Closeable {
+
+        /**
+         * @return the first line, or null if the file is empty
+         */
+        ByteBuffer header() throws IOException;
+
+        /**
+         * @return the next chunk, or null at the end of the file
+         */
+        ByteBuffer next() throws IOException;
+
+        /**
+         * @return the offset of the last chunk returned by {@link #next()}
+         */
+        long position();
+    }
+
+    private static final class MappedChunks implements ChunkSource {
+
+        private final FileChannel channel;
+        private final long size;
+        private long position = 0;
+        private long chunkPosition = 0;
+
+        private MappedChunks(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+        }
+
+        @Override
+        public ByteBuffer header() throws IOException {
+            if (size == 0) {
+                return null;
+            }
+            final long end = findLineEnd(0);
+            final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+            position = end;
+            // the line break is not part of the header
+            return header.limit() > 0 && header.get(header.limit() - 1) == '\n' ? (ByteBuffer) header.limit(header.limit() - 1) : header;
+        }
+
+        @Override
+        public ByteBuffer next() throws IOException {
+            if (position >= size) {
+                return null;
+            }
+            final long end = findLineEnd(Math.min(position + CHUNK_SIZE, size) - 1);
+            final ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, end - position);
+            chunkPosition = position;
+            position = end;
+            return chunk;
+        }
+
+        @Override
+        public long position() {
+            return chunkPosition;
+        }
+
+        /**
+         * @return the offset after the first line break at or after the given offset, or the file size
+         */
+        private long findLineEnd(long from) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long offset = from;
+            while (offset < size) {
+                buffer.clear();
+                final int read = channel.read(buffer, offset);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        return offset + i + 1;
+                    }
+                }
+                offset += read;
+            }
+            return size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static final class GzipChunks implements ChunkSource {
+
+        private final InputStream in;
+        private byte[] buffer = new byte[CHUNK_SIZE];
+        private int filled = 0;
+        private boolean endOfFile = false;
+        private long position = 0;
+        private long chunkPosition = 0;
+
+        private GzipChunks(Path file) throws IOException {
+            this.in = new GZIPInputStream(Files.newInputStream(file), 1 << 16);
+        }
+
+        @Override
+        public ByteBuffer header() throws IOException {
+            final ByteArrayOutputStream header = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) >= 0 && b != '\n') {
+                header.write(b);
+            }
+            if (b < 0 && header.size() == 0) {
+                return null;
+            }
+            position = header.size() + 1;
+            return ByteBuffer.wrap(header.toByteArray());
+        }
+
+        /**
+         * Fills the buffer and returns all complete lines in it, the remainder is kept for the next chunk.
+         * The buffer is enlarged if it does not hold a single complete line.
+         */
+        @Override
+        public ByteBuffer next() throws IOException {
+            while (true) {
+                while (!endOfFile && filled < buffer.length) {
+                    final int read = in.read(buffer, filled, buffer.length - filled);
+                    if (read < 0) {
+                        endOfFile = true;
+                    } else {
+                        filled += read;
+                    }
+                }
+                if (filled == 0) {
+                    return null;
+                }
+                int end = filled;
+                if (!endOfFile) {
+                    while (end > 0 && buffer[end - 1] != '\n') {
+                        end--;
+                    }
+                    if (end == 0) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                        continue;
+                    }
+                }
+                final byte[] chunk = Arrays.copyOf(buffer, end);
+                System.arraycopy(buffer, end, buffer, 0, filled - end);
+                filled -= end;
+                chunkPosition = position;
+                position += end;
+                return ByteBuffer.wrap(chunk);
+            }
+        }
+
+        @Override
+        public long position() {
+            return chunkPosition;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
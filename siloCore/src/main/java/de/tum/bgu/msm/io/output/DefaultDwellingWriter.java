@@ -3,8 +3,8 @@ package de.tum.bgu.msm.io.output;
 import de.tum.bgu.msm.data.dwelling.Dwelling;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
+import org.locationtech.jts.geom.Coordinate;
 
-import java.io.PrintWriter;
 import java.util.Collection;
 
 public class DefaultDwellingWriter implements DwellingWriter {
@@ -19,40 +19,69 @@ public class DefaultDwellingWriter implements DwellingWriter {
     @Override
     public void writeDwellings(String path) {
         logger.info("  Writing dwelling file to " + path);
-        PrintWriter pwd = SiloUtil.openFileForSequentialWriting(path, false);
-        pwd.print("id,zone,type,hhID,bedrooms,quality,monthlyCost,yearBuilt,coordX,coordY");
-        pwd.println();
+        MicroDataOutput.write(snapshot(), path);
+    }
 
+    /**
+     * Copies the written attributes of all dwellings
+     */
+    public MicroDataSnapshot snapshot() {
+        final int size = dwellings.size();
+        final int[] id = new int[size];
+        final int[] zone = new int[size];
+        final String[] type = new String[size];
+        final int[] hhId = new int[size];
+        final int[] bedrooms = new int[size];
+        final int[] quality = new int[size];
+        final int[] monthlyCost = new int[size];
+        final int[] yearBuilt = new int[size];
+        final boolean[] hasCoordinate = new boolean[size];
+        final double[] x = new double[size];
+        final double[] y = new double[size];
+        int i = 0;
         for (Dwelling dd : dwellings) {
-            pwd.print(dd.getId());
-            pwd.print(",");
-            pwd.print(dd.getZoneId());
-            pwd.print(",\"");
-            pwd.print(dd.getType());
-            pwd.print("\",");
-            pwd.print(dd.getResidentId());
-            pwd.print(",");
-            pwd.print(dd.getBedrooms());
-            pwd.print(",");
-            pwd.print(dd.getQuality());
-            pwd.print(",");
-            pwd.print(dd.getPrice());
-            pwd.print(",");
-            pwd.print(dd.getYearBuilt());
-            pwd.print(",");
-            if(dd.getCoordinate() != null) {
-                pwd.print(dd.getCoordinate().x);
-                pwd.print(",");
-                pwd.print(dd.getCoordinate().y);
-            } else {
-                pwd.print("NULL,NULL");
+            id[i] = dd.getId();
+            zone[i] = dd.getZoneId();
+            type[i] = String.valueOf(dd.getType());
+            hhId[i] = dd.getResidentId();
+            bedrooms[i] = dd.getBedrooms();
+            quality[i] = dd.getQuality();
+            monthlyCost[i] = dd.getPrice();
+            yearBuilt[i] = dd.getYearBuilt();
+            final Coordinate coordinate = dd.getCoordinate();
+            if (coordinate != null) {
+                hasCoordinate[i] = true;
+                x[i] = coordinate.x;
+                y[i] = coordinate.y;
             }
-            pwd.println();
+            i++;
             if (dd.getId() == SiloUtil.trackDd) {
                 SiloUtil.trackingFile("Writing dd " + dd.getId() + " to micro data file.");
                 SiloUtil.trackWriter.println(dd.toString());
             }
         }
-        pwd.close();
+        final int rows = i;
+        return writer -> {
+            writer.write("id,zone,type,hhID,bedrooms,quality,monthlyCost,yearBuilt,coordX,coordY" + System.lineSeparator());
+            final StringBuilder row = new StringBuilder(96);
+            for (int r = 0; r < rows; r++) {
+                row.setLength(0);
+                row.append(id[r]).append(',')
+                        .append(zone[r]).append(",\"")
+                        .append(type[r]).append("\",")
+                        .append(hhId[r]).append(',')
+                        .append(bedrooms[r]).append(',')
+                        .append(quality[r]).append(',')
+                        .append(monthlyCost[r]).append(',')
+                        .append(yearBuilt[r]).append(',');
+                if (hasCoordinate[r]) {
+                    row.append(x[r]).append(',').append(y[r]);
+                } else {
+                    row.append("NULL,NULL");
+                }
+                row.append(System.lineSeparator());
+                writer.append(row);
+            }
+        };
     }
 }
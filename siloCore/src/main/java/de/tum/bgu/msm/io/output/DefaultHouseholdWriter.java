@@ -5,7 +5,6 @@ import de.tum.bgu.msm.data.vehicle.VehicleType;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
 
-import java.io.PrintWriter;
 import java.util.Collection;
 
 public class DefaultHouseholdWriter implements HouseholdWriter {
@@ -19,21 +18,42 @@ public class DefaultHouseholdWriter implements HouseholdWriter {
     @Override
     public void writeHouseholds(String path) {
         logger.info("  Writing household file to " + path);
-        PrintWriter pwh = SiloUtil.openFileForSequentialWriting(path, false);
-        pwh.println("id,dwelling,hhSize,autos");
+        MicroDataOutput.write(snapshot(), path);
+    }
+
+    /**
+     * Copies the written attributes of all households
+     */
+    public MicroDataSnapshot snapshot() {
+        final int size = householdData.size();
+        final int[] id = new int[size];
+        final int[] dwelling = new int[size];
+        final int[] hhSize = new int[size];
+        final int[] autos = new int[size];
+        int i = 0;
         for (Household hh : householdData) {
             if (hh.getId() == SiloUtil.trackHh) {
                 SiloUtil.trackingFile("Writing hh " + hh.getId() + " to micro data file.");
                 SiloUtil.trackWriter.println(hh.toString());
             }
-            pwh.print(hh.getId());
-            pwh.print(",");
-            pwh.print(hh.getDwellingId());
-            pwh.print(",");
-            pwh.print(hh.getHhSize());
-            pwh.print(",");
-            pwh.println((int) hh.getVehicles().stream().filter(v-> v.getType().equals(VehicleType.CAR)).count());
+            id[i] = hh.getId();
+            dwelling[i] = hh.getDwellingId();
+            hhSize[i] = hh.getHhSize();
+            autos[i] = (int) hh.getVehicles().stream().filter(v-> v.getType().equals(VehicleType.CAR)).count();
+            i++;
         }
-        pwh.close();
+        final int rows = i;
+        return writer -> {
+            writer.write("id,dwelling,hhSize,autos" + System.lineSeparator());
+            final StringBuilder row = new StringBuilder(32);
+            for (int r = 0; r < rows; r++) {
+                row.setLength(0);
+                row.append(id[r]).append(',')
+                        .append(dwelling[r]).append(',')
+                        .append(hhSize[r]).append(',')
+                        .append(autos[r]).append(System.lineSeparator());
+                writer.append(row);
+            }
+        };
     }
 }
@@ -1,10 +1,9 @@
 package de.tum.bgu.msm.io.output;
 
 import de.tum.bgu.msm.data.job.Job;
-import de.tum.bgu.msm.data.job.JobData;
 import de.tum.bgu.msm.utils.SiloUtil;
+import org.locationtech.jts.geom.Coordinate;
 
-import java.io.PrintWriter;
 import java.util.Collection;
 
 public class DefaultJobWriter implements JobWriter {
@@ -17,32 +16,57 @@ public class DefaultJobWriter implements JobWriter {
 
     @Override
     public void writeJobs(String path) {
-        PrintWriter pwj = SiloUtil.openFileForSequentialWriting(path, false);
-        pwj.print("id,zone,personId,type,coordX,coordY");
-        pwj.println();
+        MicroDataOutput.write(snapshot(), path);
+    }
+
+    /**
+     * Copies the written attributes of all jobs
+     */
+    public MicroDataSnapshot snapshot() {
+        final int size = jobs.size();
+        final int[] id = new int[size];
+        final int[] zone = new int[size];
+        final int[] personId = new int[size];
+        final String[] type = new String[size];
+        final boolean[] hasCoordinate = new boolean[size];
+        final double[] x = new double[size];
+        final double[] y = new double[size];
+        int i = 0;
         for (Job jj : jobs) {
-            pwj.print(jj.getId());
-            pwj.print(",");
-            pwj.print(jj.getZoneId());
-            pwj.print(",");
-            pwj.print(jj.getWorkerId());
-            pwj.print(",\"");
-            pwj.print(jj.getType());
-            pwj.print("\"");
-            pwj.print(",");
-            if(jj.getCoordinate() != null) {
-                pwj.print(jj.getCoordinate().x);
-                pwj.print(",");
-                pwj.print(jj.getCoordinate().y);
-            } else {
-                pwj.print("NULL,NULL");
+            id[i] = jj.getId();
+            zone[i] = jj.getZoneId();
+            personId[i] = jj.getWorkerId();
+            type[i] = jj.getType();
+            final Coordinate coordinate = jj.getCoordinate();
+            if (coordinate != null) {
+                hasCoordinate[i] = true;
+                x[i] = coordinate.x;
+                y[i] = coordinate.y;
             }
-            pwj.println();
+            i++;
             if (jj.getId() == SiloUtil.trackJj) {
                 SiloUtil.trackingFile("Writing jj " + jj.getId() + " to micro data file.");
                 SiloUtil.trackWriter.println(jj.toString());
             }
         }
-        pwj.close();
+        final int rows = i;
+        return writer -> {
+            writer.write("id,zone,personId,type,coordX,coordY" + System.lineSeparator());
+            final StringBuilder row = new StringBuilder(64);
+            for (int r = 0; r < rows; r++) {
+                row.setLength(0);
+                row.append(id[r]).append(',')
+                        .append(zone[r]).append(',')
+                        .append(personId[r]).append(",\"")
+                        .append(type[r]).append("\",");
+                if (hasCoordinate[r]) {
+                    row.append(x[r]).append(',').append(y[r]);
+                } else {
+                    row.append("NULL,NULL");
+                }
+                row.append(System.lineSeparator());
+                writer.append(row);
+            }
+        };
     }
 }
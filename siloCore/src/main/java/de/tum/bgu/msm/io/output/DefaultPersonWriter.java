@@ -5,7 +5,7 @@ import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
 
-import java.io.PrintWriter;
+import java.util.Collection;
 
 public class DefaultPersonWriter implements PersonWriter {
 
@@ -19,35 +19,59 @@ public class DefaultPersonWriter implements PersonWriter {
     @Override
     public void writePersons(String path) {
         logger.info("  Writing person file to " + path);
-        PrintWriter pwp = SiloUtil.openFileForSequentialWriting(path, false);
-        pwp.print("id,hhid,age,gender,relationShip,occupation,driversLicense,workplace,income");
-        pwp.println();
-        for (Person pp : householdData.getPersons()) {
-            pwp.print(pp.getId());
-            pwp.print(",");
-            pwp.print(pp.getHousehold().getId());
-            pwp.print(",");
-            pwp.print(pp.getAge());
-            pwp.print(",");
-            pwp.print(pp.getGender().getCode());
-            pwp.print(",\"");
-            String role = pp.getRole().toString();
-            pwp.print(role);
-            pwp.print("\",");
-            pwp.print(pp.getOccupation().getCode());
-            pwp.print(",");
-            pwp.print(pp.hasDriverLicense());
-            pwp.print(",");
-            pwp.print(pp.getJobId());
-            pwp.print(",");
-            pwp.print(pp.getAnnualIncome());
-            pwp.println();
+        MicroDataOutput.write(snapshot(), path);
+    }
+
+    /**
+     * Copies the written attributes of all persons
+     */
+    public MicroDataSnapshot snapshot() {
+        final Collection<Person> persons = householdData.getPersons();
+        final int size = persons.size();
+        final int[] id = new int[size];
+        final int[] hhId = new int[size];
+        final int[] age = new int[size];
+        final int[] gender = new int[size];
+        final String[] role = new String[size];
+        final int[] occupation = new int[size];
+        final boolean[] driversLicense = new boolean[size];
+        final int[] workplace = new int[size];
+        final int[] income = new int[size];
+        int i = 0;
+        for (Person pp : persons) {
+            id[i] = pp.getId();
+            hhId[i] = pp.getHousehold().getId();
+            age[i] = pp.getAge();
+            gender[i] = pp.getGender().getCode();
+            role[i] = pp.getRole().toString();
+            occupation[i] = pp.getOccupation().getCode();
+            driversLicense[i] = pp.hasDriverLicense();
+            workplace[i] = pp.getJobId();
+            income[i] = pp.getAnnualIncome();
+            i++;
 
             if (pp.getId() == SiloUtil.trackPp) {
                 SiloUtil.trackingFile("Writing pp " + pp.getId() + " to micro data file.");
                 SiloUtil.trackWriter.println(pp.toString());
             }
         }
-        pwp.close();
+        final int rows = i;
+        return writer -> {
+            writer.write("id,hhid,age,gender,relationShip,occupation,driversLicense,workplace,income" + System.lineSeparator());
+            final StringBuilder row = new StringBuilder(64);
+            for (int r = 0; r < rows; r++) {
+                row.setLength(0);
+                row.append(id[r]).append(',')
+                        .append(hhId[r]).append(',')
+                        .append(age[r]).append(',')
+                        .append(gender[r]).append(",\"")
+                        .append(role[r]).append("\",")
+                        .append(occupation[r]).append(',')
+                        .append(driversLicense[r]).append(',')
+                        .append(workplace[r]).append(',')
+                        .append(income[r]).append(System.lineSeparator());
+                writer.append(row);
+            }
+        };
     }
 }
@@ -1,27 +1,16 @@
 package de.tum.bgu.msm.io.output;
 
-import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
-import com.google.common.math.Quantiles;
 import de.tum.bgu.msm.container.DataContainer;
 import de.tum.bgu.msm.data.Region;
-import de.tum.bgu.msm.data.Zone;
-import de.tum.bgu.msm.data.dwelling.Dwelling;
+import de.tum.bgu.msm.data.aggregation.MicroDataAggregator;
 import de.tum.bgu.msm.data.dwelling.DwellingType;
 import de.tum.bgu.msm.data.geo.GeoData;
-import de.tum.bgu.msm.data.household.Household;
 import de.tum.bgu.msm.data.household.HouseholdType;
-import de.tum.bgu.msm.data.household.HouseholdUtil;
-import de.tum.bgu.msm.data.job.Job;
 import de.tum.bgu.msm.data.job.JobType;
-import de.tum.bgu.msm.data.person.Gender;
-import de.tum.bgu.msm.data.person.Person;
-import de.tum.bgu.msm.data.vehicle.Vehicle;
-import de.tum.bgu.msm.data.vehicle.VehicleType;
 import de.tum.bgu.msm.events.MicroEvent;
 import de.tum.bgu.msm.properties.Properties;
 import org.apache.log4j.Logger;
-import org.matsim.api.core.v01.TransportMode;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -29,7 +18,6 @@ import java.io.PrintWriter;
 import java.util.Formatter;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 public class DefaultResultsMonitor implements ResultsMonitor {
 
@@ -37,6 +25,11 @@ public class DefaultResultsMonitor implements ResultsMonitor {
     private PrintWriter resultWriter;
     private DataContainer dataContainer;
     private Properties properties;
+    private PersonSummary personSummary;
+    private HouseholdSummary householdSummary;
+    private HousingCostSummary housingCostSummary;
+    private DwellingSummary dwellingSummary;
+    private JobSummary jobSummary;
 
     public DefaultResultsMonitor(DataContainer dataContainer, Properties properties) {
         this.dataContainer = dataContainer;
@@ -53,6 +46,20 @@ public class DefaultResultsMonitor implements ResultsMonitor {
         } catch (FileNotFoundException e) {
             logger.error("Cannot write the result file: " + pathname, e);
         }
+        personSummary = new PersonSummary(dataContainer);
+        householdSummary = new HouseholdSummary();
+        housingCostSummary = new HousingCostSummary(dataContainer.getRealEstateDataManager());
+        dwellingSummary = new DwellingSummary(dataContainer.getRealEstateDataManager().getDwellingTypes().getTypes());
+        jobSummary = new JobSummary(dataContainer.getGeoData());
+    }
+
+    @Override
+    public void registerAccumulators(MicroDataAggregator aggregator) {
+        aggregator.addPersonAccumulator(personSummary);
+        aggregator.addHouseholdAccumulator(householdSummary);
+        aggregator.addHouseholdAccumulator(housingCostSummary);
+        aggregator.addDwellingAccumulator(dwellingSummary);
+        aggregator.addJobAccumulator(jobSummary);
     }
 
 
@@ -77,12 +84,7 @@ public class DefaultResultsMonitor implements ResultsMonitor {
 
 
     private void summarizePopulationByAgeAndGender() {
-        int pers[][] = new int[2][101];
-        for (Person per : dataContainer.getHouseholdDataManager().getPersons()) {
-            Gender gender = per.getGender();
-            int age = Math.min(per.getAge(), 100);
-            pers[gender.ordinal()][age] += 1;
-        }
+        int pers[][] = personSummary.byGenderAndAge;
         resultWriter.println("Age,Men,Women");
         for (int i = 0; i <= 100; i++) {
             String row = i + "," + pers[0][i] + "," + pers[1][i];
@@ -105,10 +107,7 @@ public class DefaultResultsMonitor implements ResultsMonitor {
 //    }
 
     private void summarizeHouseholdsByType() {
-        int hht[] = new int[HouseholdType.values().length + 1];
-        for (Household hh : dataContainer.getHouseholdDataManager().getHouseholds()) {
-            hht[hh.getHouseholdType().ordinal()]++;
-        }
+        int hht[] = householdSummary.byType;
         resultWriter.println("hhByType,hh");
         for (HouseholdType ht : HouseholdType.values()) {
             String row = ht + "," + hht[ht.ordinal()];
@@ -129,11 +128,7 @@ public class DefaultResultsMonitor implements ResultsMonitor {
 //    }
 
     private void summarizeHouseholdsBySize() {
-        int hhs[] = new int[10];
-        for (Household hh : dataContainer.getHouseholdDataManager().getHouseholds()) {
-            int hhSize = Math.min(hh.getHhSize(), 10);
-            hhs[hhSize - 1]++;
-        }
+        int hhs[] = householdSummary.bySize;
 
         String row = "hhBySize";
         for (int i : hhs) row = row + "," + i;
@@ -141,83 +136,39 @@ public class DefaultResultsMonitor implements ResultsMonitor {
     }
 
     private void summarizeAverageHouseholdSize() {
-        String row = "AveHHSize," + dataContainer.getHouseholdDataManager().getHouseholds().stream().mapToInt(h -> h.getPersons().size()).average().getAsDouble();
+        String row = "AveHHSize," + householdSummary.getAverageHouseholdSize();
         resultWriter.println(row);
     }
 
     private void summarizeHouseholdIncome() {
-        List<Integer> incomes = dataContainer.getHouseholdDataManager().getHouseholds().stream().map(h -> h.getPersons().values().stream().mapToInt(p -> p.getAnnualIncome()).sum()).collect(Collectors.toList());
-        double aveHHincome = incomes.stream().mapToDouble(i -> i).average().getAsDouble();
-        double medianHhIncome = Quantiles.median().compute(incomes);
+        double aveHHincome = householdSummary.getAverageIncome();
+        double medianHhIncome = householdSummary.getMedianIncome();
         String row = "AveHHInc," + aveHHincome + ",MedianHHInc," + medianHhIncome;
         resultWriter.println(row);
     }
 
     private void summarizeLabourParticipationRates() {
-        float[][][] labP = new float[2][2][5];
-        for (Person per : dataContainer.getHouseholdDataManager().getPersons()) {
-            int age = per.getAge();
-            Gender gender = per.getGender();
-            boolean employed = per.getJobId() > 0;
-            int ageGroup = 0;
-            if (age >= 65) {
-                ageGroup = 4;
-            } else if (age >= 50) {
-                ageGroup = 3;
-            } else if (age >= 30) {
-                ageGroup = 2;
-            } else if (age >= 18) {
-                ageGroup = 1;
-            }
-
-            if (employed) {
-                labP[1][gender.ordinal()][ageGroup]++;
-            } else {
-                labP[0][gender.ordinal()][ageGroup]++;
-            }
-
-        }
-        String[] grp = {"<18", "18-29", "30-49", "50-64", ">=65"};
+        String[] grp = PersonSummary.AGE_GROUPS;
         resultWriter.println("laborParticipationRateByAge,male,female");
         for (int ag = 0; ag < 5; ag++) {
             Formatter f = new Formatter();
-            f.format("%s,%f,%f", grp[ag], labP[1][0][ag] / (labP[0][0][ag] + labP[1][0][ag]), labP[1][1][ag] / (labP[0][1][ag] + labP[1][1][ag]));
+            f.format("%s,%f,%f", grp[ag], personSummary.getLabourParticipationRate(0, ag), personSummary.getLabourParticipationRate(1, ag));
             resultWriter.println(f.toString());
         }
     }
 
     private void summarizeAverageCommutingDistanceByRegion() {
-        float[][] commDist = new float[2][dataContainer.getGeoData().getRegions().keySet().stream().mapToInt(Integer::intValue).max().getAsInt() + 1];
-        for (Person per : dataContainer.getHouseholdDataManager().getPersons()) {
-            boolean employed = per.getJobId() > 0;
-            if (employed) {
-                Zone zone = null;
-                Household household = dataContainer.getHouseholdDataManager().getHouseholdFromId(per.getHousehold().getId());
-                Dwelling dwelling = dataContainer.getRealEstateDataManager().getDwelling(household.getDwellingId());
-                if (dwelling != null) {
-                    zone = dataContainer.getGeoData().getZones().get(dwelling.getZoneId());
-                }
-                try {
-                    Zone destination = dataContainer.getGeoData().getZones().get(dataContainer.getJobDataManager().getJobFromId(per.getJobId()).getZoneId());
-                    double ds = dataContainer.getTravelTimes().getPeakSkim(TransportMode.car).getIndexed(zone.getZoneId(), destination.getZoneId());
-                    commDist[0][zone.getRegion().getId()] += ds;
-                    commDist[1][zone.getRegion().getId()]++;
-                } catch (NullPointerException e){
-                    logger.warn("Error found since hh does not have a dd? hh: " + household.getId());
-                }
-            }
+        for (int householdId : personSummary.householdsWithoutCommute) {
+            logger.warn("Error found since hh does not have a dd? hh: " + householdId);
         }
         resultWriter.println("aveCommuteDistByRegion,minutes");
         for (int i : dataContainer.getGeoData().getRegions().keySet()) {
-            resultWriter.println(i + "," + commDist[0][i] / commDist[1][i]);
+            resultWriter.println(i + "," + personSummary.getAverageCommuteDistance(i));
         }
     }
 
     private void summarizeCarOwnership() {
-        int[] carOwnership = new int[4];
-        for (Household hh : dataContainer.getHouseholdDataManager().getHouseholds()) {
-            carOwnership[(int) hh.getVehicles().stream().filter(v-> v.getType().equals(VehicleType.CAR)).count()]++;
-        }
+        int[] carOwnership = householdSummary.byCars;
         resultWriter.println("carOwnershipLevel,households");
         resultWriter.println("0cars," + carOwnership[0]);
         resultWriter.println("1car," + carOwnership[1]);
@@ -237,13 +188,8 @@ public class DefaultResultsMonitor implements ResultsMonitor {
 
         List<DwellingType> dwellingTypes = dataContainer.getRealEstateDataManager().getDwellingTypes().getTypes();
 
-        Multiset<DwellingType> countsByDwellingType = HashMultiset.create(dwellingTypes.size());
-
-        for (Dwelling dd : dataContainer.getRealEstateDataManager().getDwellings()) {
-            countsByDwellingType.add(dd.getType());
-        }
         for (DwellingType dt : dwellingTypes) {
-            resultWriter.println("CountOfDD," + dt.toString() + "," + countsByDwellingType.count(dt));
+            resultWriter.println("CountOfDD," + dt.toString() + "," + dwellingSummary.byType[dwellingTypes.indexOf(dt)]);
         }
         for (DwellingType dt : dwellingTypes) {
             double avePrice = dataContainer.getRealEstateDataManager().getAveragePriceByDwellingType()[dwellingTypes.indexOf(dt)];
@@ -284,19 +230,10 @@ public class DefaultResultsMonitor implements ResultsMonitor {
         }
         header = header.concat(",averageRent");
         resultWriter.println(header);
-        int[][] rentByIncome = new int[10][10];
-        long [] rents = new long[10];
-        for (Household hh : dataContainer.getHouseholdDataManager().getHouseholds()) {
-            try {
-                int hhInc = HouseholdUtil.getAnnualHhIncome(hh);
-                int rent = dataContainer.getRealEstateDataManager().getDwelling(hh.getDwellingId()).getPrice();
-                int incCat = Math.min((hhInc / 10000), 9);
-                int rentCat = Math.min((rent / 250), 9);
-                rentByIncome[incCat][rentCat]++;
-                rents[incCat] += rent;
-            } catch (NullPointerException e){
-                logger.warn("A household has a null dwelling");
-            }
+        int[][] rentByIncome = housingCostSummary.rentByIncome;
+        long [] rents = housingCostSummary.rents;
+        if (housingCostSummary.householdsWithoutDwelling > 0) {
+            logger.warn(housingCostSummary.householdsWithoutDwelling + " households have a null dwelling");
         }
         for (int i = 0; i < 10; i++) {
             String line = String.valueOf((i + 1) * 10000);
@@ -320,11 +257,7 @@ public class DefaultResultsMonitor implements ResultsMonitor {
         }
         resultWriter.println(txt + ",total");
         Map<Integer, Region> regions = dataContainer.getGeoData().getRegions();
-        final int highestId = regions.keySet().stream().mapToInt(Integer::intValue).max().getAsInt();
-        int[][] jobsByTypeAndRegion = new int[JobType.getNumberOfJobTypes()][highestId + 1];
-        for (Job job : dataContainer.getJobDataManager().getJobs()) {
-            jobsByTypeAndRegion[JobType.getOrdinal(job.getType())][dataContainer.getGeoData().getZones().get(job.getZoneId()).getRegion().getId()]++;
-        }
+        int[][] jobsByTypeAndRegion = jobSummary.byTypeAndRegion;
 
         for (int region : regions.keySet()) {
             StringBuilder line = new StringBuilder(String.valueOf(region));
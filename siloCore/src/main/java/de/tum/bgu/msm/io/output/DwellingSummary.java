@@ -0,0 +1,52 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.data.aggregation.Accumulator;
+import de.tum.bgu.msm.data.dwelling.Dwelling;
+import de.tum.bgu.msm.data.dwelling.DwellingType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dwellings by type.
+ */
+final class DwellingSummary implements Accumulator<Dwelling> {
+
+    private final List<DwellingType> dwellingTypes;
+
+    /**
+     * Dwellings by index of the type in the list of dwelling types
+     */
+    final int[] byType;
+
+    DwellingSummary(List<DwellingType> dwellingTypes) {
+        this.dwellingTypes = dwellingTypes;
+        this.byType = new int[dwellingTypes.size()];
+    }
+
+    @Override
+    public Accumulator<Dwelling> newPartition() {
+        return new DwellingSummary(dwellingTypes);
+    }
+
+    @Override
+    public void add(Dwelling dd) {
+        final int type = dwellingTypes.indexOf(dd.getType());
+        if (type >= 0) {
+            byType[type]++;
+        }
+    }
+
+    @Override
+    public void merge(Accumulator<Dwelling> partition) {
+        final DwellingSummary other = (DwellingSummary) partition;
+        for (int i = 0; i < byType.length; i++) {
+            byType[i] += other.byType[i];
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(byType, 0);
+    }
+}
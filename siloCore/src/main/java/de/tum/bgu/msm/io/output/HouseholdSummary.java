@@ -0,0 +1,104 @@
+package de.tum.bgu.msm.io.output;
+
+import com.google.common.math.Quantiles;
+import de.tum.bgu.msm.data.aggregation.Accumulator;
+import de.tum.bgu.msm.data.household.Household;
+import de.tum.bgu.msm.data.household.HouseholdType;
+import de.tum.bgu.msm.data.person.Person;
+import de.tum.bgu.msm.data.vehicle.Vehicle;
+import de.tum.bgu.msm.data.vehicle.VehicleType;
+
+import java.util.Arrays;
+
+/**
+ * Households by type, size and number of cars, and the household incomes.
+ */
+final class HouseholdSummary implements Accumulator<Household> {
+
+    final int[] byType = new int[HouseholdType.values().length + 1];
+    /**
+     * Households by size, where the last entry counts all households with 10 or more persons
+     */
+    final int[] bySize = new int[10];
+    /**
+     * Households by cars, where the last entry counts all households with 3 or more cars
+     */
+    final int[] byCars = new int[4];
+    private long persons = 0;
+    private int[] incomes = new int[1024];
+    private int households = 0;
+
+    @Override
+    public Accumulator<Household> newPartition() {
+        return new HouseholdSummary();
+    }
+
+    @Override
+    public void add(Household hh) {
+        byType[hh.getHouseholdType().ordinal()]++;
+        bySize[Math.min(hh.getHhSize(), 10) - 1]++;
+
+        int cars = 0;
+        for (Vehicle vehicle : hh.getVehicles()) {
+            if (vehicle.getType().equals(VehicleType.CAR)) {
+                cars++;
+            }
+        }
+        byCars[Math.min(cars, 3)]++;
+
+        int income = 0;
+        for (Person pp : hh.getPersons().values()) {
+            income += pp.getAnnualIncome();
+        }
+        persons += hh.getPersons().size();
+        if (households == incomes.length) {
+            incomes = Arrays.copyOf(incomes, 2 * households);
+        }
+        incomes[households++] = income;
+    }
+
+    @Override
+    public void merge(Accumulator<Household> partition) {
+        final HouseholdSummary other = (HouseholdSummary) partition;
+        for (int i = 0; i < byType.length; i++) {
+            byType[i] += other.byType[i];
+        }
+        for (int i = 0; i < bySize.length; i++) {
+            bySize[i] += other.bySize[i];
+        }
+        for (int i = 0; i < byCars.length; i++) {
+            byCars[i] += other.byCars[i];
+        }
+        persons += other.persons;
+        if (households + other.households > incomes.length) {
+            incomes = Arrays.copyOf(incomes, households + other.households);
+        }
+        System.arraycopy(other.incomes, 0, incomes, households, other.households);
+        households += other.households;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(byType, 0);
+        Arrays.fill(bySize, 0);
+        Arrays.fill(byCars, 0);
+        persons = 0;
+        households = 0;
+    }
+
+    double getAverageHouseholdSize() {
+        return (double) persons / households;
+    }
+
+    double getAverageIncome() {
+        long sum = 0;
+        for (int i = 0; i < households; i++) {
+            sum += incomes[i];
+        }
+        return (double) sum / households;
+    }
+
+    double getMedianIncome() {
+        return Quantiles.median().compute(Arrays.copyOf(incomes, households));
+    }
+}
@@ -0,0 +1,66 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.data.aggregation.Accumulator;
+import de.tum.bgu.msm.data.dwelling.Dwelling;
+import de.tum.bgu.msm.data.dwelling.RealEstateDataManager;
+import de.tum.bgu.msm.data.household.Household;
+import de.tum.bgu.msm.data.household.HouseholdUtil;
+
+import java.util.Arrays;
+
+/**
+ * Households by income group of 10,000 and rent group of 250.
+ */
+final class HousingCostSummary implements Accumulator<Household> {
+
+    private final RealEstateDataManager realEstateDataManager;
+
+    final int[][] rentByIncome = new int[10][10];
+    final long[] rents = new long[10];
+    int householdsWithoutDwelling = 0;
+
+    HousingCostSummary(RealEstateDataManager realEstateDataManager) {
+        this.realEstateDataManager = realEstateDataManager;
+    }
+
+    @Override
+    public Accumulator<Household> newPartition() {
+        return new HousingCostSummary(realEstateDataManager);
+    }
+
+    @Override
+    public void add(Household hh) {
+        final Dwelling dwelling = realEstateDataManager.getDwelling(hh.getDwellingId());
+        if (dwelling == null) {
+            householdsWithoutDwelling++;
+            return;
+        }
+        final int hhInc = HouseholdUtil.getAnnualHhIncome(hh);
+        final int rent = dwelling.getPrice();
+        final int incCat = Math.min((hhInc / 10000), 9);
+        final int rentCat = Math.min((rent / 250), 9);
+        rentByIncome[incCat][rentCat]++;
+        rents[incCat] += rent;
+    }
+
+    @Override
+    public void merge(Accumulator<Household> partition) {
+        final HousingCostSummary other = (HousingCostSummary) partition;
+        for (int inc = 0; inc < 10; inc++) {
+            for (int rent = 0; rent < 10; rent++) {
+                rentByIncome[inc][rent] += other.rentByIncome[inc][rent];
+            }
+            rents[inc] += other.rents[inc];
+        }
+        householdsWithoutDwelling += other.householdsWithoutDwelling;
+    }
+
+    @Override
+    public void clear() {
+        for (int[] row : rentByIncome) {
+            Arrays.fill(row, 0);
+        }
+        Arrays.fill(rents, 0);
+        householdsWithoutDwelling = 0;
+    }
+}
@@ -0,0 +1,51 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.data.aggregation.Accumulator;
+import de.tum.bgu.msm.data.geo.GeoData;
+import de.tum.bgu.msm.data.job.Job;
+import de.tum.bgu.msm.data.job.JobType;
+
+import java.util.Arrays;
+
+/**
+ * Jobs by type and region.
+ */
+final class JobSummary implements Accumulator<Job> {
+
+    private final GeoData geoData;
+
+    final int[][] byTypeAndRegion;
+
+    JobSummary(GeoData geoData) {
+        this.geoData = geoData;
+        final int highestId = geoData.getRegions().keySet().stream().mapToInt(Integer::intValue).max().getAsInt();
+        this.byTypeAndRegion = new int[JobType.getNumberOfJobTypes()][highestId + 1];
+    }
+
+    @Override
+    public Accumulator<Job> newPartition() {
+        return new JobSummary(geoData);
+    }
+
+    @Override
+    public void add(Job job) {
+        byTypeAndRegion[JobType.getOrdinal(job.getType())][geoData.getZones().get(job.getZoneId()).getRegion().getId()]++;
+    }
+
+    @Override
+    public void merge(Accumulator<Job> partition) {
+        final JobSummary other = (JobSummary) partition;
+        for (int type = 0; type < byTypeAndRegion.length; type++) {
+            for (int region = 0; region < byTypeAndRegion[type].length; region++) {
+                byTypeAndRegion[type][region] += other.byTypeAndRegion[type][region];
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int[] row : byTypeAndRegion) {
+            Arrays.fill(row, 0);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.properties.Properties;
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes snapshots of micro data files in the background on a fixed number of threads. Only the snapshot
+ * is taken on the simulation thread, the rows are formatted and written while the simulation goes on.
+ * The number of snapshots that wait to be written is bounded, so a simulation that is faster than its
+ * output waits for the files of earlier years instead of keeping all snapshots in memory.
+ *
+ * The data container creates one writer per run and hands it to its data managers, so the number of writer
+ * threads and pending files is bounded for the whole simulation. Its methods are meant to be called from the
+ * simulation thread. Failures of the background writing are thrown by the next call, at the latest by
+ * {@link #rethrowFailures()} at the end of the year.
+ */
+public final class MicroDataOutput {
+
+    private final static Logger logger = Logger.getLogger(MicroDataOutput.class);
+
+    private final ExecutorService service;
+    private final Semaphore pendingFiles;
+    private final List<Future<?>> futures = new ArrayList<>();
+
+    private MicroDataOutput() {
+        this.service = null;
+        this.pendingFiles = null;
+    }
+
+    public MicroDataOutput(int numberOfThreads, int maximumPendingFiles) {
+        final AtomicInteger counter = new AtomicInteger();
+        this.service = Executors.newFixedThreadPool(Math.max(1, numberOfThreads), runnable -> {
+            final Thread thread = new Thread(runnable, "micro-data-writer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pendingFiles = new Semaphore(Math.max(1, maximumPendingFiles));
+    }
+
+    /**
+     * Writer with the number of threads and pending files set in the properties
+     */
+    public static MicroDataOutput fromProperties(Properties properties) {
+        return new MicroDataOutput(properties.main.microDataWriterThreads, 2 * properties.main.microDataWriterThreads);
+    }
+
+    /**
+     * Writer that writes each snapshot on the calling thread when it is submitted. Used by data managers that
+     * were not given the writer of a data container.
+     */
+    public static MicroDataOutput onCallingThread() {
+        return new MicroDataOutput();
+    }
+
+    /**
+     * @return the extension of micro data files, .csv.gz if they are compressed or .csv otherwise
+     */
+    public static String getCsvExtension(Properties properties) {
+        return properties.main.gzipMicroData ? ".csv.gz" : ".csv";
+    }
+
+    /**
+     * Writes the snapshot to the given path on the calling thread. The file is compressed with gzip if the
+     * path ends with .gz
+     */
+    public static void write(MicroDataSnapshot snapshot, String path) {
+        final File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (Writer writer = openFile(file, path.endsWith(".gz"))) {
+            snapshot.write(writer);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write micro data file " + path, e);
+        }
+    }
+
+    private static Writer openFile(File file, boolean gzip) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        if (gzip) {
+            out = new GZIPOutputStream(out, 1 << 16);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /**
+     * Writes the snapshot in the background. Blocks only if the maximum number of pending files is reached.
+     */
+    public void submit(MicroDataSnapshot snapshot, String path) {
+        if (service == null) {
+            write(snapshot, path);
+            return;
+        }
+        rethrowFailures();
+        logger.info("  Writing micro data file " + path + " in the background");
+        try {
+            pendingFiles.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        try {
+            futures.add(service.submit(() -> {
+                try {
+                    write(snapshot, path);
+                } finally {
+                    pendingFiles.release();
+                }
+            }));
+        } catch (RuntimeException e) {
+            pendingFiles.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Blocks until all submitted files are written
+     */
+    public void awaitCompletion() {
+        if (futures.stream().anyMatch(future -> !future.isDone())) {
+            logger.info("  Waiting for micro data files to be written");
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            futures.removeIf(Future::isDone);
+        }
+    }
+
+    /**
+     * Waits for all submitted files and stops the threads
+     */
+    public void shutdown() {
+        try {
+            awaitCompletion();
+        } finally {
+            if (service != null) {
+                service.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Throws the failure of a file that was written in the background since the last call, without waiting for
+     * files that are still being written
+     */
+    public void rethrowFailures() {
+        final Iterator<Future<?>> iterator = futures.iterator();
+        while (iterator.hasNext()) {
+            final Future<?> future = iterator.next();
+            if (future.isDone()) {
+                iterator.remove();
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } catch (ExecutionException e) {
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        }
+    }
+}
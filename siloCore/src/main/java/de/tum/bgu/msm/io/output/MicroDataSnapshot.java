@@ -0,0 +1,16 @@
+package de.tum.bgu.msm.io.output;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Copy of the attributes of micro data that are written to a file. A snapshot does not refer to the
+ * micro data anymore, so that it can be written on another thread while the simulation goes on.
+ */
+public interface MicroDataSnapshot {
+
+    /**
+     * Writes the header and one row per entity
+     */
+    void write(Writer writer) throws IOException;
+}
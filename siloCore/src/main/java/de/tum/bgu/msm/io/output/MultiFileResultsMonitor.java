@@ -1,33 +1,23 @@
 package de.tum.bgu.msm.io.output;
 
-import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
-import com.google.common.math.Quantiles;
 import de.tum.bgu.msm.container.DataContainer;
-import de.tum.bgu.msm.data.Zone;
-import de.tum.bgu.msm.data.dwelling.Dwelling;
+import de.tum.bgu.msm.data.aggregation.MicroDataAggregator;
 import de.tum.bgu.msm.data.dwelling.DwellingType;
 import de.tum.bgu.msm.data.geo.GeoData;
-import de.tum.bgu.msm.data.household.Household;
 import de.tum.bgu.msm.data.household.HouseholdType;
 import de.tum.bgu.msm.data.job.Job;
-import de.tum.bgu.msm.data.person.Gender;
 import de.tum.bgu.msm.data.person.Occupation;
-import de.tum.bgu.msm.data.person.Person;
-import de.tum.bgu.msm.data.vehicle.VehicleType;
 import de.tum.bgu.msm.events.MicroEvent;
 import de.tum.bgu.msm.events.impls.household.MigrationEvent;
 import de.tum.bgu.msm.properties.Properties;
 import org.apache.log4j.Logger;
-import org.matsim.api.core.v01.TransportMode;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
-import java.util.Formatter;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 public class MultiFileResultsMonitor implements ResultsMonitor {
 
@@ -48,6 +38,9 @@ public class MultiFileResultsMonitor implements ResultsMonitor {
     private PrintWriter ddQualW;
     private PrintWriter migrantsW;
     private PrintWriter vacantJobsRegionW;
+    private PersonSummary personSummary;
+    private HouseholdSummary householdSummary;
+    private DwellingSummary dwellingSummary;
 
     public MultiFileResultsMonitor(DataContainer dataContainer, Properties properties) {
         this.dataContainer = dataContainer;
@@ -80,6 +73,16 @@ public class MultiFileResultsMonitor implements ResultsMonitor {
         } catch (FileNotFoundException e) {
             logger.error("Cannot write the result file: " + pathname, e);
         }
+        personSummary = new PersonSummary(dataContainer);
+        householdSummary = new HouseholdSummary();
+        dwellingSummary = new DwellingSummary(dataContainer.getRealEstateDataManager().getDwellingTypes().getTypes());
+    }
+
+    @Override
+    public void registerAccumulators(MicroDataAggregator aggregator) {
+        aggregator.addPersonAccumulator(personSummary);
+        aggregator.addHouseholdAccumulator(householdSummary);
+        aggregator.addDwellingAccumulator(dwellingSummary);
     }
 
 
@@ -130,12 +133,7 @@ public class MultiFileResultsMonitor implements ResultsMonitor {
 
 
     private void summarizePopulationByAgeAndGender(int year) {
-        int pers[][] = new int[2][101];
-        for (Person per : dataContainer.getHouseholdDataManager().getPersons()) {
-            Gender gender = per.getGender();
-            int age = Math.min(per.getAge(), 100);
-            pers[gender.ordinal()][age] += 1;
-        }
+        int pers[][] = personSummary.byGenderAndAge;
         if (year == properties.main.baseYear) {
             popYearW.println("year,age,men,women");
         }
@@ -160,10 +158,7 @@ public class MultiFileResultsMonitor implements ResultsMonitor {
 //    }
 
     private void summarizeHouseholdsByType(int year) {
-        int hht[] = new int[HouseholdType.values().length + 1];
-        for (Household hh : dataContainer.getHouseholdDataManager().getHouseholds()) {
-            hht[hh.getHouseholdType().ordinal()]++;
-        }
+        int hht[] = householdSummary.byType;
         if (year == properties.main.baseYear) {
             hhTypeW.println("year,type,count");
         }
@@ -187,11 +182,7 @@ public class MultiFileResultsMonitor implements ResultsMonitor {
 //    }
 
     private void summarizeHouseholdsBySize(int year) {
-        int hhs[] = new int[10];
-        for (Household hh : dataContainer.getHouseholdDataManager().getHouseholds()) {
-            int hhSize = Math.min(hh.getHhSize(), 10);
-            hhs[hhSize - 1]++;
-        }
+        int hhs[] = householdSummary.bySize;
 
         if (year == properties.main.baseYear) {
             hhSizeW.println("year,size,count");
@@ -212,14 +203,13 @@ public class MultiFileResultsMonitor implements ResultsMonitor {
         if (year == properties.main.baseYear) {
             hhAveSizeW.println("year,size");
         }
-        String row = year + "," + dataContainer.getHouseholdDataManager().getHouseholds().stream().mapToInt(h -> h.getPersons().size()).average().getAsDouble();
+        String row = year + "," + householdSummary.getAverageHouseholdSize();
         hhAveSizeW.println(row);
     }
 
     private void summarizeHouseholdIncome(int year) {
-        List<Integer> incomes = dataContainer.getHouseholdDataManager().getHouseholds().stream().map(h -> h.getPersons().values().stream().mapToInt(p -> p.getAnnualIncome()).sum()).collect(Collectors.toList());
-        double aveHHincome = incomes.stream().mapToDouble(i -> i).average().getAsDouble();
-        double medianHhIncome = Quantiles.median().compute(incomes);
+        double aveHHincome = householdSummary.getAverageIncome();
+        double medianHhIncome = householdSummary.getMedianIncome();
         if (year == properties.main.baseYear) {
             hhAveIncomeW.println("year,variable,value");
         }
@@ -232,59 +222,21 @@ public class MultiFileResultsMonitor implements ResultsMonitor {
     }
 
     private void summarizeLabourParticipationRates(int year) {
-        float[][][] labP = new float[2][2][5];
-        for (Person per : dataContainer.getHouseholdDataManager().getPersons()) {
-            int age = per.getAge();
-            Gender gender = per.getGender();
-            boolean employed = per.getJobId() > 0;
-            int ageGroup = 0;
-            if (age >= 65) {
-                ageGroup = 4;
-            } else if (age >= 50) {
-                ageGroup = 3;
-            } else if (age >= 30) {
-                ageGroup = 2;
-            } else if (age >= 18) {
-                ageGroup = 1;
-            }
-
-            if (employed) {
-                labP[1][gender.ordinal()][ageGroup]++;
-            } else {
-                labP[0][gender.ordinal()][ageGroup]++;
-            }
-
-        }
         if (year == properties.main.baseYear) {
             labourParticipationRateW.println("year,group,male,female");
         }
-        String[] grp = {"<18", "18-29", "30-49", "50-64", ">=65"};
+        String[] grp = PersonSummary.AGE_GROUPS;
 
         for (int ag = 0; ag < 5; ag++) {
-            Formatter f = new Formatter();
-            float rateMale = labP[1][0][ag] / (labP[0][0][ag] + labP[1][0][ag]);
-            float rateFemale = labP[1][1][ag] / (labP[0][1][ag] + labP[1][1][ag]);
-            //f.format("%s,%f,%f", grp[ag], rateMale, rateFemale);
+            float rateMale = personSummary.getLabourParticipationRate(0, ag);
+            float rateFemale = personSummary.getLabourParticipationRate(1, ag);
             labourParticipationRateW.println(year + "," + grp[ag] + "," + rateMale + "," + rateFemale);
         }
     }
 
     private void summarizeAverageCommutingDistanceByRegion(int year) {
-        float[][] commDist = new float[2][dataContainer.getGeoData().getRegions().keySet().stream().mapToInt(Integer::intValue).max().getAsInt() + 1];
-        for (Person per : dataContainer.getHouseholdDataManager().getPersons()) {
-            boolean employed = per.getJobId() > 0;
-            if (employed) {
-                Zone zone = null;
-                Household household = dataContainer.getHouseholdDataManager().getHouseholdFromId(per.getHousehold().getId());
-                Dwelling dwelling = dataContainer.getRealEstateDataManager().getDwelling(household.getDwellingId());
-                if (dwelling != null) {
-                    zone = dataContainer.getGeoData().getZones().get(dwelling.getZoneId());
-                }
-                Zone destination = dataContainer.getGeoData().getZones().get(dataContainer.getJobDataManager().getJobFromId(per.getJobId()).getZoneId());
-                double ds = dataContainer.getTravelTimes().getPeakSkim(TransportMode.car).getIndexed(zone.getZoneId(), destination.getZoneId());
-                commDist[0][zone.getRegion().getId()] += ds;
-                commDist[1][zone.getRegion().getId()]++;
-            }
+        for (int householdId : personSummary.householdsWithoutCommute) {
+            logger.warn("Error found since hh does not have a dd? hh: " + householdId);
         }
 
         if (year == properties.main.baseYear) {
@@ -292,15 +244,12 @@ public class MultiFileResultsMonitor implements ResultsMonitor {
         }
 
         for (int i : dataContainer.getGeoData().getRegions().keySet()) {
-            commutingTimeW.println(year + "," + i + "," + commDist[0][i] / commDist[1][i]);
+            commutingTimeW.println(year + "," + i + "," + personSummary.getAverageCommuteDistance(i));
         }
     }
 
     private void summarizeCarOwnership(int year) {
-        int[] carOwnership = new int[4];
-        for (Household hh : dataContainer.getHouseholdDataManager().getHouseholds()) {
-            carOwnership[Math.min(3,(int) hh.getVehicles().stream().filter(vv-> vv.getType().equals(VehicleType.CAR)).count())]++;
-        }
+        int[] carOwnership = householdSummary.byCars;
 
         if (year == properties.main.baseYear) {
             carOwnW.println("year,carOwnershipLevel,households");
@@ -334,15 +283,10 @@ public class MultiFileResultsMonitor implements ResultsMonitor {
 
         List<DwellingType> dwellingTypes = dataContainer.getRealEstateDataManager().getDwellingTypes().getTypes();
 
-        Multiset<DwellingType> countsByDwellingType = HashMultiset.create(dwellingTypes.size());
-
-        for (Dwelling dd : dataContainer.getRealEstateDataManager().getDwellings()) {
-            countsByDwellingType.add(dd.getType());
-        }
         for (DwellingType dt : dwellingTypes) {
             double aveVac = dataContainer.getRealEstateDataManager().getAverageVacancyByDwellingType()[dwellingTypes.indexOf(dt)];
             double avePrice = dataContainer.getRealEstateDataManager().getAveragePriceByDwellingType()[dwellingTypes.indexOf(dt)];
-            ddCountW.println(year + "," + dt.toString() + "," + countsByDwellingType.count(dt) + "," + avePrice + "," + aveVac);
+            ddCountW.println(year + "," + dt.toString() + "," + dwellingSummary.byType[dwellingTypes.indexOf(dt)] + "," + avePrice + "," + aveVac);
         }
     }
 
@@ -0,0 +1,142 @@
+package de.tum.bgu.msm.io.output;
+
+import de.tum.bgu.msm.container.DataContainer;
+import de.tum.bgu.msm.data.PeakTravelTimes;
+import de.tum.bgu.msm.data.Zone;
+import de.tum.bgu.msm.data.aggregation.Accumulator;
+import de.tum.bgu.msm.data.dwelling.Dwelling;
+import de.tum.bgu.msm.data.job.Job;
+import de.tum.bgu.msm.data.person.Person;
+import org.matsim.api.core.v01.TransportMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Persons by age and gender, labour participation and commute distances by region of residence.
+ */
+final class PersonSummary implements Accumulator<Person> {
+
+    static final String[] AGE_GROUPS = {"<18", "18-29", "30-49", "50-64", ">=65"};
+
+    private final DataContainer dataContainer;
+    private final int regions;
+
+    /**
+     * Persons by gender and age, where the last age counts all persons of 100 years and older
+     */
+    final int[][] byGenderAndAge = new int[2][101];
+    /**
+     * Persons by employment (0 not employed, 1 employed), gender and age group
+     */
+    final int[][][] byEmploymentGenderAndAgeGroup = new int[2][2][AGE_GROUPS.length];
+    final double[] commuteDistanceByRegion;
+    final int[] commutersByRegion;
+    /**
+     * Households of commuters whose commute could not be determined
+     */
+    final List<Integer> householdsWithoutCommute = new ArrayList<>();
+
+    PersonSummary(DataContainer dataContainer) {
+        this(dataContainer, dataContainer.getGeoData().getRegions().keySet().stream().mapToInt(Integer::intValue).max().getAsInt() + 1);
+    }
+
+    private PersonSummary(DataContainer dataContainer, int regions) {
+        this.dataContainer = dataContainer;
+        this.regions = regions;
+        this.commuteDistanceByRegion = new double[regions];
+        this.commutersByRegion = new int[regions];
+    }
+
+    @Override
+    public Accumulator<Person> newPartition() {
+        return new PersonSummary(dataContainer, regions);
+    }
+
+    @Override
+    public void add(Person per) {
+        final int gender = per.getGender().ordinal();
+        final int age = per.getAge();
+        byGenderAndAge[gender][Math.min(age, 100)]++;
+
+        final boolean employed = per.getJobId() > 0;
+        byEmploymentGenderAndAgeGroup[employed ? 1 : 0][gender][getAgeGroup(age)]++;
+        if (employed) {
+            addCommute(per);
+        }
+    }
+
+    private static int getAgeGroup(int age) {
+        if (age >= 65) {
+            return 4;
+        } else if (age >= 50) {
+            return 3;
+        } else if (age >= 30) {
+            return 2;
+        } else if (age >= 18) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private void addCommute(Person per) {
+        final Dwelling dwelling = dataContainer.getRealEstateDataManager().getDwelling(per.getHousehold().getDwellingId());
+        final Job job = dataContainer.getJobDataManager().getJobFromId(per.getJobId());
+        if (dwelling == null || job == null) {
+            householdsWithoutCommute.add(per.getHousehold().getId());
+            return;
+        }
+        final Zone zone = dataContainer.getGeoData().getZones().get(dwelling.getZoneId());
+        final Zone destination = dataContainer.getGeoData().getZones().get(job.getZoneId());
+        final double ds = PeakTravelTimes.of(dataContainer.getTravelTimes())
+                .getPeakTravelTime(zone.getZoneId(), destination.getZoneId(), TransportMode.car);
+        commuteDistanceByRegion[zone.getRegion().getId()] += ds;
+        commutersByRegion[zone.getRegion().getId()]++;
+    }
+
+    @Override
+    public void merge(Accumulator<Person> partition) {
+        final PersonSummary other = (PersonSummary) partition;
+        for (int gender = 0; gender < 2; gender++) {
+            for (int age = 0; age < byGenderAndAge[gender].length; age++) {
+                byGenderAndAge[gender][age] += other.byGenderAndAge[gender][age];
+            }
+            for (int employed = 0; employed < 2; employed++) {
+                for (int group = 0; group < AGE_GROUPS.length; group++) {
+                    byEmploymentGenderAndAgeGroup[employed][gender][group] += other.byEmploymentGenderAndAgeGroup[employed][gender][group];
+                }
+            }
+        }
+        for (int region = 0; region < regions; region++) {
+            commuteDistanceByRegion[region] += other.commuteDistanceByRegion[region];
+            commutersByRegion[region] += other.commutersByRegion[region];
+        }
+        householdsWithoutCommute.addAll(other.householdsWithoutCommute);
+    }
+
+    @Override
+    public void clear() {
+        for (int gender = 0; gender < 2; gender++) {
+            Arrays.fill(byGenderAndAge[gender], 0);
+            for (int employed = 0; employed < 2; employed++) {
+                Arrays.fill(byEmploymentGenderAndAgeGroup[employed][gender], 0);
+            }
+        }
+        Arrays.fill(commuteDistanceByRegion, 0);
+        Arrays.fill(commutersByRegion, 0);
+        householdsWithoutCommute.clear();
+    }
+
+    /**
+     * Share of employed persons of the gender (0 male, 1 female) in the age group
+     */
+    float getLabourParticipationRate(int gender, int ageGroup) {
+        final float employed = byEmploymentGenderAndAgeGroup[1][gender][ageGroup];
+        return employed / (byEmploymentGenderAndAgeGroup[0][gender][ageGroup] + employed);
+    }
+
+    float getAverageCommuteDistance(int region) {
+        return (float) (commuteDistanceByRegion[region] / commutersByRegion[region]);
+    }
+}
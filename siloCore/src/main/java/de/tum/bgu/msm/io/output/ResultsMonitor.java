@@ -1,6 +1,7 @@
 package de.tum.bgu.msm.io.output;
 
 import com.google.common.collect.Multiset;
+import de.tum.bgu.msm.data.aggregation.MicroDataAggregator;
 import de.tum.bgu.msm.events.MicroEvent;
 
 import java.util.List;
@@ -8,6 +9,13 @@ import java.util.List;
 public interface ResultsMonitor {
     void setup();
 
+    /**
+     * Called after {@link #setup()}. Accumulators registered here are filled in one shared pass over
+     * the micro data at the end of each year, before {@link #endYear} is called.
+     */
+    default void registerAccumulators(MicroDataAggregator aggregator) {
+    }
+
     void endYear(int year, Multiset<Class<? extends MicroEvent>> eventCounter, List<MicroEvent> events);
 
     void endSimulation();
@@ -0,0 +1,27 @@
+package de.tum.bgu.msm.models;
+
+import de.tum.bgu.msm.events.MicroEvent;
+
+import java.util.function.IntConsumer;
+
+/**
+ * An {@link EventModel} whose events are fully described by the id of their subject, e.g. a person,
+ * household or dwelling. The simulator keeps such events as primitive ids and only creates the event
+ * object right before it is handled, instead of allocating one object per subject for the whole year.
+ *
+ * @param <T> the type of events handled by this model
+ */
+public interface CompactEventModel<T extends MicroEvent> extends EventModel<T> {
+
+    /**
+     * Passes the subject ids of the events of the current year to the given consumer. Used by the
+     * simulator instead of {@link #getEventsForCurrentYear}, so it has to produce the same events in
+     * the same order, including any side effects.
+     */
+    void addEventsForCurrentYear(int year, IntConsumer subjectIds);
+
+    /**
+     * @return the event for the subject with the given id. May be called concurrently.
+     */
+    T createEvent(int subjectId);
+}
@@ -0,0 +1,46 @@
+package de.tum.bgu.msm.models;
+
+import de.tum.bgu.msm.events.MicroEvent;
+
+import java.util.Random;
+
+/**
+ * An {@link EventModel} whose events can be evaluated optimistically in parallel.
+ * The expensive, read-only part of handling an event is computed by {@link #speculate} on
+ * several threads against the state at the beginning of a window of events. The outcomes are then
+ * committed one by one in the original event order by {@link #handleSpeculatedEvent}, which has
+ * to detect whether the speculation is still valid and re-evaluate the event otherwise.
+ *
+ * @param <T> the type of events handled by this model
+ * @param <S> the type of the speculated outcome
+ */
+public interface SpeculativeEventModel<T extends MicroEvent, S> extends EventModel<T> {
+
+    /**
+     * Prepares the model for speculation by the given number of threads, e.g. by
+     * duplicating strategies that are not thread-safe.
+     */
+    void startSpeculation(int threads);
+
+    /**
+     * Computes the outcome of the given event without changing any data. May be called
+     * concurrently for different events.
+     * @param random the random number generator of this event. It is passed on to
+     *               {@link #handleSpeculatedEvent} afterwards.
+     * @return the speculated outcome, or null if the event cannot be speculated
+     */
+    S speculate(T event, Random random);
+
+    /**
+     * Commits the speculated outcome of the event. If the data has changed in a way that
+     * invalidates the speculation, the event is re-evaluated using the given random number generator.
+     * @param speculation the result of {@link #speculate}, may be null
+     * @return true if the event is triggered, i.e. a change in data occurred; false otherwise
+     */
+    boolean handleSpeculatedEvent(T event, S speculation, Random random);
+
+    /**
+     * Releases resources that were acquired for speculation.
+     */
+    void endSpeculation();
+}
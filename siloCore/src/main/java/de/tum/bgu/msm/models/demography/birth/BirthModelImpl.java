@@ -23,6 +23,7 @@ import de.tum.bgu.msm.data.household.HouseholdUtil;
 import de.tum.bgu.msm.data.person.*;
 import de.tum.bgu.msm.events.impls.person.BirthEvent;
 import de.tum.bgu.msm.models.AbstractModel;
+import de.tum.bgu.msm.models.CompactEventModel;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 
@@ -30,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Random;
+import java.util.function.IntConsumer;
 
 import static de.tum.bgu.msm.data.person.Gender.FEMALE;
 import static de.tum.bgu.msm.data.person.Gender.MALE;
@@ -40,7 +42,7 @@ import static de.tum.bgu.msm.data.person.Gender.MALE;
  * Created on 28 December 2009 in Bocholt
  **/
 
-public class BirthModelImpl extends AbstractModel implements BirthModel {
+public class BirthModelImpl extends AbstractModel implements BirthModel, CompactEventModel<BirthEvent> {
 
     private final PersonFactory factory;
     private final BirthStrategy strategy;
@@ -51,7 +53,7 @@ public class BirthModelImpl extends AbstractModel implements BirthModel {
                           Properties properties, BirthStrategy strategy, Random rnd) {
         super(dataContainer, properties, rnd);
         this.factory = factory;
-        this.strategy = strategy;
+        this.strategy = BirthProbabilityTable.of(strategy);
     }
 
     @Override
@@ -64,13 +66,23 @@ public class BirthModelImpl extends AbstractModel implements BirthModel {
     @Override
     public Collection<BirthEvent> getEventsForCurrentYear(int year) {
         final List<BirthEvent> events = new ArrayList<>();
+        addEventsForCurrentYear(year, id -> events.add(createEvent(id)));
+        return events;
+    }
+
+    @Override
+    public void addEventsForCurrentYear(int year, IntConsumer subjectIds) {
         for (Person per : dataContainer.getHouseholdDataManager().getPersons()) {
             final int id = per.getId();
             if (properties.eventRules.birth && personCanGiveBirth(per)) {
-                events.add(new BirthEvent(id));
+                subjectIds.accept(id);
             }
         }
-        return events;
+    }
+
+    @Override
+    public BirthEvent createEvent(int subjectId) {
+        return new BirthEvent(subjectId);
     }
 
     @Override
@@ -0,0 +1,50 @@
+package de.tum.bgu.msm.models.demography.birth;
+
+/**
+ * Birth probabilities of a {@link BoundedBirthStrategy} for every age and number of children,
+ * stored in one array indexed by number of children and age.
+ */
+public final class BirthProbabilityTable implements BirthStrategy {
+
+    private final BirthStrategy strategy;
+    private final int ages;
+    private final int children;
+    private final double[] probabilities;
+    private final double probabilityForGirl;
+
+    private BirthProbabilityTable(BoundedBirthStrategy strategy) {
+        this.strategy = strategy;
+        this.ages = strategy.getMaximumAge() + 1;
+        this.children = strategy.getMaximumNumberOfChildren() + 1;
+        this.probabilities = new double[children * ages];
+        for (int numberOfChildren = 0; numberOfChildren < children; numberOfChildren++) {
+            for (int age = 0; age < ages; age++) {
+                probabilities[numberOfChildren * ages + age] = strategy.calculateBirthProbability(age, numberOfChildren);
+            }
+        }
+        this.probabilityForGirl = strategy.getProbabilityForGirl();
+    }
+
+    /**
+     * Returns a table of the probabilities if the strategy is bounded, otherwise the strategy itself.
+     */
+    public static BirthStrategy of(BirthStrategy strategy) {
+        if (strategy instanceof BoundedBirthStrategy) {
+            return new BirthProbabilityTable((BoundedBirthStrategy) strategy);
+        }
+        return strategy;
+    }
+
+    @Override
+    public double calculateBirthProbability(int personAge, int numberOfChildren) {
+        if (personAge < 0 || numberOfChildren < 0) {
+            return strategy.calculateBirthProbability(personAge, numberOfChildren);
+        }
+        return probabilities[Math.min(numberOfChildren, children - 1) * ages + Math.min(personAge, ages - 1)];
+    }
+
+    @Override
+    public double getProbabilityForGirl() {
+        return probabilityForGirl;
+    }
+}
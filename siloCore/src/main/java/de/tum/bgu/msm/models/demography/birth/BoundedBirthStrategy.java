@@ -0,0 +1,13 @@
+package de.tum.bgu.msm.models.demography.birth;
+
+/**
+ * Birth strategy whose probabilities do not change above a maximum age and a maximum number of
+ * children. Its probabilities are looked up in a {@link BirthProbabilityTable} that is filled once
+ * when the birth model is created.
+ */
+public interface BoundedBirthStrategy extends BirthStrategy {
+
+    int getMaximumAge();
+
+    int getMaximumNumberOfChildren();
+}
@@ -1,10 +1,20 @@
 package de.tum.bgu.msm.models.demography.birth;
 
-public class DefaultBirthStrategy implements BirthStrategy {
+public class DefaultBirthStrategy implements BoundedBirthStrategy {
 
     public DefaultBirthStrategy() {
     }
 
+    @Override
+    public int getMaximumAge() {
+        return 50;
+    }
+
+    @Override
+    public int getMaximumNumberOfChildren() {
+        return 3;
+    }
+
     @Override
     public double calculateBirthProbability(int personAge, int numberOfChildren) {
         var alpha = 0.;
@@ -4,6 +4,7 @@ import de.tum.bgu.msm.container.DataContainer;
 import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.events.impls.person.BirthDayEvent;
 import de.tum.bgu.msm.models.AbstractModel;
+import de.tum.bgu.msm.models.CompactEventModel;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 
@@ -11,8 +12,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Random;
+import java.util.function.IntConsumer;
 
-public class BirthdayModelImpl extends AbstractModel implements BirthdayModel {
+public class BirthdayModelImpl extends AbstractModel implements BirthdayModel, CompactEventModel<BirthDayEvent> {
 
     public BirthdayModelImpl(DataContainer dataContainer, Properties properties, Random random) {
         super(dataContainer, properties, random);
@@ -26,14 +28,24 @@ public class BirthdayModelImpl extends AbstractModel implements BirthdayModel {
 
     @Override
     public Collection<BirthDayEvent> getEventsForCurrentYear(int year) {
-        List<BirthDayEvent> events = new ArrayList<>();
+        final List<BirthDayEvent> events = new ArrayList<>();
+        addEventsForCurrentYear(year, id -> events.add(createEvent(id)));
+        return events;
+    }
+
+    @Override
+    public void addEventsForCurrentYear(int year, IntConsumer subjectIds) {
         for (Person per : dataContainer.getHouseholdDataManager().getPersons()) {
             final int id = per.getId();
             if(properties.eventRules.birthday) {
-                events.add(new BirthDayEvent(id));
+                subjectIds.accept(id);
             }
         }
-        return events;
+    }
+
+    @Override
+    public BirthDayEvent createEvent(int subjectId) {
+        return new BirthDayEvent(subjectId);
     }
 
     @Override
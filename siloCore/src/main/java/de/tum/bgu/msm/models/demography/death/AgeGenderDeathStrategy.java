@@ -0,0 +1,23 @@
+package de.tum.bgu.msm.models.demography.death;
+
+import de.tum.bgu.msm.data.person.Gender;
+import de.tum.bgu.msm.data.person.Person;
+
+/**
+ * Death strategy that only depends on age and gender. Its probabilities are looked up in a
+ * {@link DeathProbabilityTable} that is filled once when the death model is created.
+ */
+public interface AgeGenderDeathStrategy extends DeathStrategy {
+
+    double calculateDeathProbability(int age, Gender gender);
+
+    /**
+     * Persons older than the maximum age get the probability of the maximum age.
+     */
+    int getMaximumAge();
+
+    @Override
+    default double calculateDeathProbability(Person person) {
+        return calculateDeathProbability(person.getAge(), person.getGender());
+    }
+}
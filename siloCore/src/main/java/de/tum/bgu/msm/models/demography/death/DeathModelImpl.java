@@ -8,6 +8,7 @@ import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.data.person.PersonRole;
 import de.tum.bgu.msm.events.impls.person.DeathEvent;
 import de.tum.bgu.msm.models.AbstractModel;
+import de.tum.bgu.msm.models.CompactEventModel;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 
@@ -15,28 +16,39 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Random;
+import java.util.function.IntConsumer;
 
 /**
  * @author Greg Erhardt, Rolf Moeckel
  * Created on Dec 2, 2009
  * Revised on Jan 19, 2018
  */
-public class DeathModelImpl extends AbstractModel implements DeathModel {
+public class DeathModelImpl extends AbstractModel implements DeathModel, CompactEventModel<DeathEvent> {
 
     private final DeathStrategy strategy;
 
     public DeathModelImpl(DataContainer dataContainer, Properties properties, DeathStrategy strategy, Random rnd) {
         super(dataContainer, properties, rnd);
-        this.strategy = strategy;
+        this.strategy = DeathProbabilityTable.of(strategy);
     }
 
     @Override
     public Collection<DeathEvent> getEventsForCurrentYear(int year) {
         final List<DeathEvent> events = new ArrayList<>();
+        addEventsForCurrentYear(year, id -> events.add(createEvent(id)));
+        return events;
+    }
+
+    @Override
+    public void addEventsForCurrentYear(int year, IntConsumer subjectIds) {
         for (Person person : dataContainer.getHouseholdDataManager().getPersons()) {
-            events.add(new DeathEvent(person.getId()));
+            subjectIds.accept(person.getId());
         }
-        return events;
+    }
+
+    @Override
+    public DeathEvent createEvent(int subjectId) {
+        return new DeathEvent(subjectId);
     }
 
     @Override
@@ -0,0 +1,48 @@
+package de.tum.bgu.msm.models.demography.death;
+
+import de.tum.bgu.msm.data.person.Gender;
+import de.tum.bgu.msm.data.person.Person;
+
+/**
+ * Death probabilities of an {@link AgeGenderDeathStrategy} for every age and gender, stored in
+ * one array indexed by gender and age.
+ */
+public final class DeathProbabilityTable implements DeathStrategy {
+
+    private static final Gender[] GENDERS = Gender.values();
+
+    private final AgeGenderDeathStrategy strategy;
+    private final int ages;
+    private final double[] probabilities;
+
+    private DeathProbabilityTable(AgeGenderDeathStrategy strategy) {
+        this.strategy = strategy;
+        this.ages = strategy.getMaximumAge() + 1;
+        this.probabilities = new double[GENDERS.length * ages];
+        for (Gender gender : GENDERS) {
+            for (int age = 0; age < ages; age++) {
+                probabilities[gender.ordinal() * ages + age] = strategy.calculateDeathProbability(age, gender);
+            }
+        }
+    }
+
+    /**
+     * Returns a table of the probabilities if the strategy only depends on age and gender,
+     * otherwise the strategy itself.
+     */
+    public static DeathStrategy of(DeathStrategy strategy) {
+        if (strategy instanceof AgeGenderDeathStrategy) {
+            return new DeathProbabilityTable((AgeGenderDeathStrategy) strategy);
+        }
+        return strategy;
+    }
+
+    @Override
+    public double calculateDeathProbability(Person person) {
+        final int age = person.getAge();
+        if (age < 0) {
+            return strategy.calculateDeathProbability(person);
+        }
+        return probabilities[person.getGender().ordinal() * ages + Math.min(age, ages - 1)];
+    }
+}
@@ -1,17 +1,20 @@
 package de.tum.bgu.msm.models.demography.death;
 
 import de.tum.bgu.msm.data.person.Gender;
-import de.tum.bgu.msm.data.person.Person;
 
-public class DefaultDeathStrategy implements DeathStrategy {
+public class DefaultDeathStrategy implements AgeGenderDeathStrategy {
 
     public DefaultDeathStrategy() {
     }
 
     @Override
-    public double calculateDeathProbability(Person person) {
-        final int personAge = Math.min(person.getAge(), 100);
-        Gender personSex = person.getGender();
+    public int getMaximumAge() {
+        return 100;
+    }
+
+    @Override
+    public double calculateDeathProbability(int age, Gender personSex) {
+        final int personAge = Math.min(age, 100);
 
         var alpha = 0.;
 
@@ -1,17 +1,17 @@
 package de.tum.bgu.msm.models.demography.divorce;
 
-import de.tum.bgu.msm.data.person.Person;
+import de.tum.bgu.msm.data.person.PersonType;
 
-public class DefaultDivorceStrategy implements DivorceStrategy {
+public class DefaultDivorceStrategy implements PersonTypeDivorceStrategy {
 
     public DefaultDivorceStrategy() {
     }
 
     @Override
-    public double calculateDivorceProbability(Person per) {
+    public double calculateDivorceProbability(PersonType type) {
         var alpha = 0.;
 
-        int personType = per.getType().ordinal();
+        int personType = type.ordinal();
 
         if (personType == 4){
             alpha = 0.0071;
@@ -9,6 +9,7 @@ import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.data.person.PersonRole;
 import de.tum.bgu.msm.events.impls.person.DivorceEvent;
 import de.tum.bgu.msm.models.AbstractModel;
+import de.tum.bgu.msm.models.CompactEventModel;
 import de.tum.bgu.msm.models.autoOwnership.CreateCarOwnershipModel;
 import de.tum.bgu.msm.models.relocation.moves.MovesModelImpl;
 import de.tum.bgu.msm.properties.Properties;
@@ -19,8 +20,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Random;
+import java.util.function.IntConsumer;
 
-public class DivorceModelImpl extends AbstractModel implements DivorceModel {
+public class DivorceModelImpl extends AbstractModel implements DivorceModel, CompactEventModel<DivorceEvent> {
 
     private final static Logger logger = Logger.getLogger(DivorceModelImpl.class);
 
@@ -37,7 +39,7 @@ public class DivorceModelImpl extends AbstractModel implements DivorceModel {
         this.hhFactory = hhFactory;
         this.movesModel = movesModel;
         this.carOwnership = carOwnership;
-        this.strategy = strategy;
+        this.strategy = DivorceProbabilityTable.of(strategy);
     }
 
 
@@ -53,12 +55,22 @@ public class DivorceModelImpl extends AbstractModel implements DivorceModel {
     @Override
     public Collection<DivorceEvent> getEventsForCurrentYear(int year) {
         final List<DivorceEvent> events = new ArrayList<>();
+        addEventsForCurrentYear(year, id -> events.add(createEvent(id)));
+        return events;
+    }
+
+    @Override
+    public void addEventsForCurrentYear(int year, IntConsumer subjectIds) {
         for (Person person : dataContainer.getHouseholdDataManager().getPersons()) {
             if (person.getRole() == PersonRole.MARRIED) {
-                events.add(new DivorceEvent(person.getId()));
+                subjectIds.accept(person.getId());
             }
         }
-        return events;
+    }
+
+    @Override
+    public DivorceEvent createEvent(int subjectId) {
+        return new DivorceEvent(subjectId);
     }
 
     @Override
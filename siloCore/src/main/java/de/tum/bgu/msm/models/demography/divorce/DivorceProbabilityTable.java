@@ -0,0 +1,36 @@
+package de.tum.bgu.msm.models.demography.divorce;
+
+import de.tum.bgu.msm.data.person.Person;
+import de.tum.bgu.msm.data.person.PersonType;
+
+/**
+ * Divorce probabilities of a {@link PersonTypeDivorceStrategy} indexed by the ordinal of the person type.
+ */
+public final class DivorceProbabilityTable implements DivorceStrategy {
+
+    private final double[] probabilities;
+
+    private DivorceProbabilityTable(PersonTypeDivorceStrategy strategy) {
+        final PersonType[] types = PersonType.values();
+        this.probabilities = new double[types.length];
+        for (PersonType type : types) {
+            probabilities[type.ordinal()] = strategy.calculateDivorceProbability(type);
+        }
+    }
+
+    /**
+     * Returns a table of the probabilities if the strategy only depends on the person type,
+     * otherwise the strategy itself.
+     */
+    public static DivorceStrategy of(DivorceStrategy strategy) {
+        if (strategy instanceof PersonTypeDivorceStrategy) {
+            return new DivorceProbabilityTable((PersonTypeDivorceStrategy) strategy);
+        }
+        return strategy;
+    }
+
+    @Override
+    public double calculateDivorceProbability(Person per) {
+        return probabilities[per.getType().ordinal()];
+    }
+}
@@ -0,0 +1,18 @@
+package de.tum.bgu.msm.models.demography.divorce;
+
+import de.tum.bgu.msm.data.person.Person;
+import de.tum.bgu.msm.data.person.PersonType;
+
+/**
+ * Divorce strategy that only depends on the person type. Its probabilities are looked up in a
+ * {@link DivorceProbabilityTable} that is filled once when the divorce model is created.
+ */
+public interface PersonTypeDivorceStrategy extends DivorceStrategy {
+
+    double calculateDivorceProbability(PersonType type);
+
+    @Override
+    default double calculateDivorceProbability(Person per) {
+        return calculateDivorceProbability(per.getType());
+    }
+}
@@ -1,19 +1,17 @@
 package de.tum.bgu.msm.models.demography.driversLicense;
 
-import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.data.person.PersonType;
 
 /**
  * Created by matthewokrah on 13/11/2017.
  */
-public class DefaultDriversLicenseStrategy implements DriversLicenseStrategy{
+public class DefaultDriversLicenseStrategy implements PersonTypeDriversLicenseStrategy {
 
     public DefaultDriversLicenseStrategy() {
     }
 
     @Override
-    public double calculateChangeDriversLicenseProbability(Person person) {
-        PersonType personType = person.getType();
+    public double calculateChangeDriversLicenseProbability(PersonType personType) {
         switch (personType.name()) {
             case "MEN_AGE_15_TO_19":
                 return 0.86;
@@ -92,8 +90,7 @@ public class DefaultDriversLicenseStrategy implements DriversLicenseStrategy{
     }
 
     @Override
-    public double calculateCreateDriversLicenseProbability(Person pp) {
-        PersonType personType = pp.getType();
+    public double calculateCreateDriversLicenseProbability(PersonType personType) {
         switch (personType.name()) {
             case "MEN_AGE_15_TO_19":
                 return 0.86;
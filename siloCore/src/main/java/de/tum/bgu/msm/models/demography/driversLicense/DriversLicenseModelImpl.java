@@ -4,6 +4,7 @@ import de.tum.bgu.msm.container.DataContainer;
 import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.events.impls.person.LicenseEvent;
 import de.tum.bgu.msm.models.AbstractModel;
+import de.tum.bgu.msm.models.CompactEventModel;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 
@@ -11,6 +12,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Random;
+import java.util.function.IntConsumer;
 
 /**
  * Simulates if someone obtains a drivers license
@@ -18,13 +20,13 @@ import java.util.Random;
  * Created on 13 October 2017 in Cape Town, South Africa
  **/
 
-public class DriversLicenseModelImpl extends AbstractModel implements DriversLicenseModel {
+public class DriversLicenseModelImpl extends AbstractModel implements DriversLicenseModel, CompactEventModel<LicenseEvent> {
 
     private final DriversLicenseStrategy strategy;
 
     public DriversLicenseModelImpl(DataContainer dataContainer, Properties properties, DriversLicenseStrategy strategy, Random rnd) {
         super(dataContainer, properties, rnd);
-        this.strategy = strategy;
+        this.strategy = DriversLicenseProbabilityTable.of(strategy);
     }
 
     @Override
@@ -36,10 +38,20 @@ public class DriversLicenseModelImpl extends AbstractModel implements DriversLic
     @Override
     public Collection<LicenseEvent> getEventsForCurrentYear(int year) {
         final List<LicenseEvent> events = new ArrayList<>();
+        addEventsForCurrentYear(year, id -> events.add(createEvent(id)));
+        return events;
+    }
+
+    @Override
+    public void addEventsForCurrentYear(int year, IntConsumer subjectIds) {
         for (Person person : dataContainer.getHouseholdDataManager().getPersons()) {
-            events.add(new LicenseEvent(person.getId()));
+            subjectIds.accept(person.getId());
         }
-        return events;
+    }
+
+    @Override
+    public LicenseEvent createEvent(int subjectId) {
+        return new LicenseEvent(subjectId);
     }
 
     @Override
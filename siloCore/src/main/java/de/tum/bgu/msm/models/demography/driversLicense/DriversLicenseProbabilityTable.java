@@ -0,0 +1,45 @@
+package de.tum.bgu.msm.models.demography.driversLicense;
+
+import de.tum.bgu.msm.data.person.Person;
+import de.tum.bgu.msm.data.person.PersonType;
+
+/**
+ * Drivers license probabilities of a {@link PersonTypeDriversLicenseStrategy} indexed by the ordinal
+ * of the person type.
+ */
+public final class DriversLicenseProbabilityTable implements DriversLicenseStrategy {
+
+    private final double[] changeProbabilities;
+    private final double[] createProbabilities;
+
+    private DriversLicenseProbabilityTable(PersonTypeDriversLicenseStrategy strategy) {
+        final PersonType[] types = PersonType.values();
+        this.changeProbabilities = new double[types.length];
+        this.createProbabilities = new double[types.length];
+        for (PersonType type : types) {
+            changeProbabilities[type.ordinal()] = strategy.calculateChangeDriversLicenseProbability(type);
+            createProbabilities[type.ordinal()] = strategy.calculateCreateDriversLicenseProbability(type);
+        }
+    }
+
+    /**
+     * Returns a table of the probabilities if the strategy only depends on the person type,
+     * otherwise the strategy itself.
+     */
+    public static DriversLicenseStrategy of(DriversLicenseStrategy strategy) {
+        if (strategy instanceof PersonTypeDriversLicenseStrategy) {
+            return new DriversLicenseProbabilityTable((PersonTypeDriversLicenseStrategy) strategy);
+        }
+        return strategy;
+    }
+
+    @Override
+    public double calculateChangeDriversLicenseProbability(Person pp) {
+        return changeProbabilities[pp.getType().ordinal()];
+    }
+
+    @Override
+    public double calculateCreateDriversLicenseProbability(Person pp) {
+        return createProbabilities[pp.getType().ordinal()];
+    }
+}
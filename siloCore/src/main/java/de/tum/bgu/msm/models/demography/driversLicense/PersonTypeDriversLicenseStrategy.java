@@ -0,0 +1,25 @@
+package de.tum.bgu.msm.models.demography.driversLicense;
+
+import de.tum.bgu.msm.data.person.Person;
+import de.tum.bgu.msm.data.person.PersonType;
+
+/**
+ * Drivers license strategy that only depends on the person type. Its probabilities are looked up in a
+ * {@link DriversLicenseProbabilityTable} that is filled once when the drivers license model is created.
+ */
+public interface PersonTypeDriversLicenseStrategy extends DriversLicenseStrategy {
+
+    double calculateChangeDriversLicenseProbability(PersonType type);
+
+    double calculateCreateDriversLicenseProbability(PersonType type);
+
+    @Override
+    default double calculateChangeDriversLicenseProbability(Person pp) {
+        return calculateChangeDriversLicenseProbability(pp.getType());
+    }
+
+    @Override
+    default double calculateCreateDriversLicenseProbability(Person pp) {
+        return calculateCreateDriversLicenseProbability(pp.getType());
+    }
+}
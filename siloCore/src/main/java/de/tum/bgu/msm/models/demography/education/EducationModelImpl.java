@@ -5,6 +5,7 @@ import de.tum.bgu.msm.data.person.Occupation;
 import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.events.impls.person.EducationEvent;
 import de.tum.bgu.msm.models.AbstractModel;
+import de.tum.bgu.msm.models.CompactEventModel;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 
@@ -12,13 +13,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Random;
+import java.util.function.IntConsumer;
 
 /**
  * Simulates if someone changes school
  * Author: Rolf Moeckel, TUM and Ana Moreno, TUM
  * Created on 13 October 2017 in Cape Town, South Africa
  **/
-public class EducationModelImpl extends AbstractModel implements EducationModel {
+public class EducationModelImpl extends AbstractModel implements EducationModel, CompactEventModel<EducationEvent> {
 
     public EducationModelImpl(DataContainer dataContainer, Properties properties, Random rnd) {
         super(dataContainer, properties, rnd);
@@ -27,12 +29,22 @@ public class EducationModelImpl extends AbstractModel implements EducationModel
     @Override
     public Collection<EducationEvent> getEventsForCurrentYear(int year) {
         final List<EducationEvent> events = new ArrayList<>();
+        addEventsForCurrentYear(year, id -> events.add(createEvent(id)));
+        return events;
+    }
+
+    @Override
+    public void addEventsForCurrentYear(int year, IntConsumer subjectIds) {
         for (Person person : dataContainer.getHouseholdDataManager().getPersons()) {
             if (person.getAge() >= 19 && person.getOccupation().equals(Occupation.STUDENT)) {
-                events.add(new EducationEvent(person.getId()));
+                subjectIds.accept(person.getId());
             }
         }
-        return events;
+    }
+
+    @Override
+    public EducationEvent createEvent(int subjectId) {
+        return new EducationEvent(subjectId);
     }
 
     @Override
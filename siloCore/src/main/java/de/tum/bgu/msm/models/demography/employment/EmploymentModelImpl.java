@@ -187,8 +187,7 @@ public class EmploymentModelImpl extends AbstractModel implements EmploymentMode
         if (dwelling != null) {
             zone = dataContainer.getGeoData().getZones().get(dwelling.getZoneId());
         }
-        return dataContainer.getJobDataManager().findVacantJob(
-                zone, dataContainer.getGeoData().getRegions().values());
+        return dataContainer.getJobDataManager().findVacantJob(zone);
     }
 
     boolean takeNewJob(Person person, Job job) {
@@ -1,13 +1,11 @@
 package de.tum.bgu.msm.models.demography.leaveParentalHousehold;
 
-import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.data.person.PersonType;
 
-public class DefaultLeaveParentalHouseholdStrategy implements LeaveParentalHouseholdStrategy {
+public class DefaultLeaveParentalHouseholdStrategy implements PersonTypeLeaveParentalHouseholdStrategy {
 
     @Override
-    public double calculateLeaveParentsProbability(Person person) {
-        PersonType type = person.getType();
+    public double calculateLeaveParentsProbability(PersonType type) {
         var alpha = 0.;
         var typeCode = type.ordinal();
 
@@ -24,6 +24,7 @@ import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.data.person.PersonRole;
 import de.tum.bgu.msm.events.impls.person.LeaveParentsEvent;
 import de.tum.bgu.msm.models.AbstractModel;
+import de.tum.bgu.msm.models.CompactEventModel;
 import de.tum.bgu.msm.models.autoOwnership.CreateCarOwnershipModel;
 import de.tum.bgu.msm.models.relocation.moves.MovesModelImpl;
 import de.tum.bgu.msm.properties.Properties;
@@ -34,13 +35,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Random;
+import java.util.function.IntConsumer;
 
 /**
  * Simulates children that leave the parental household
  * Author: Rolf Moeckel, PB Albuquerque
  * Created on 30 December 2009 in Cologne
  **/
-public class LeaveParentHhModelImpl extends AbstractModel implements LeaveParentHhModel {
+public class LeaveParentHhModelImpl extends AbstractModel implements LeaveParentHhModel, CompactEventModel<LeaveParentsEvent> {
 
     private final static Logger logger = Logger.getLogger(LeaveParentHhModelImpl.class);
 
@@ -60,7 +62,7 @@ public class LeaveParentHhModelImpl extends AbstractModel implements LeaveParent
         this.createCarOwnershipModel = createCarOwnershipModel;
         this.hhFactory = hhFactory;
         this.householdDataManager = dataContainer.getHouseholdDataManager();
-        this.strategy = strategy;
+        this.strategy = LeaveParentsProbabilityTable.of(strategy);
     }
 
     @Override
@@ -75,12 +77,22 @@ public class LeaveParentHhModelImpl extends AbstractModel implements LeaveParent
     @Override
     public Collection<LeaveParentsEvent> getEventsForCurrentYear(int year) {
         final List<LeaveParentsEvent> events = new ArrayList<>();
+        addEventsForCurrentYear(year, id -> events.add(createEvent(id)));
+        return events;
+    }
+
+    @Override
+    public void addEventsForCurrentYear(int year, IntConsumer subjectIds) {
         for (Person person : dataContainer.getHouseholdDataManager().getPersons()) {
             if (qualifiesForParentalHHLeave(person)) {
-                events.add(new LeaveParentsEvent(person.getId()));
+                subjectIds.accept(person.getId());
             }
         }
-        return events;
+    }
+
+    @Override
+    public LeaveParentsEvent createEvent(int subjectId) {
+        return new LeaveParentsEvent(subjectId);
     }
 
     @Override
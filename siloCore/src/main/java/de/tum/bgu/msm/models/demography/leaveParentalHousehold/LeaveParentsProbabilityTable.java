@@ -0,0 +1,37 @@
+package de.tum.bgu.msm.models.demography.leaveParentalHousehold;
+
+import de.tum.bgu.msm.data.person.Person;
+import de.tum.bgu.msm.data.person.PersonType;
+
+/**
+ * Leave parental household probabilities of a {@link PersonTypeLeaveParentalHouseholdStrategy} indexed by
+ * the ordinal of the person type.
+ */
+public final class LeaveParentsProbabilityTable implements LeaveParentalHouseholdStrategy {
+
+    private final double[] probabilities;
+
+    private LeaveParentsProbabilityTable(PersonTypeLeaveParentalHouseholdStrategy strategy) {
+        final PersonType[] types = PersonType.values();
+        this.probabilities = new double[types.length];
+        for (PersonType type : types) {
+            probabilities[type.ordinal()] = strategy.calculateLeaveParentsProbability(type);
+        }
+    }
+
+    /**
+     * Returns a table of the probabilities if the strategy only depends on the person type,
+     * otherwise the strategy itself.
+     */
+    public static LeaveParentalHouseholdStrategy of(LeaveParentalHouseholdStrategy strategy) {
+        if (strategy instanceof PersonTypeLeaveParentalHouseholdStrategy) {
+            return new LeaveParentsProbabilityTable((PersonTypeLeaveParentalHouseholdStrategy) strategy);
+        }
+        return strategy;
+    }
+
+    @Override
+    public double calculateLeaveParentsProbability(Person person) {
+        return probabilities[person.getType().ordinal()];
+    }
+}
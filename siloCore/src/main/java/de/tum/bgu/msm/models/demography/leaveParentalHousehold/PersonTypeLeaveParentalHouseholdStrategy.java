@@ -0,0 +1,18 @@
+package de.tum.bgu.msm.models.demography.leaveParentalHousehold;
+
+import de.tum.bgu.msm.data.person.Person;
+import de.tum.bgu.msm.data.person.PersonType;
+
+/**
+ * Leave parental household strategy that only depends on the person type. Its probabilities are looked up
+ * in a {@link LeaveParentsProbabilityTable} that is filled once when the model is created.
+ */
+public interface PersonTypeLeaveParentalHouseholdStrategy extends LeaveParentalHouseholdStrategy {
+
+    double calculateLeaveParentsProbability(PersonType type);
+
+    @Override
+    default double calculateLeaveParentsProbability(Person person) {
+        return calculateLeaveParentsProbability(person.getType());
+    }
+}
@@ -0,0 +1,166 @@
+package de.tum.bgu.msm.models.realEstate.construction;
+
+import de.tum.bgu.msm.data.Region;
+import de.tum.bgu.msm.data.Zone;
+import de.tum.bgu.msm.utils.FenwickTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Draws the zones of new dwellings of one dwelling type with a probability proportional to the weight of the zone,
+ * i.e. the available land times the utility of building this dwelling type in the zone.
+ *
+ * The weights are kept in one Fenwick tree in which the zones of a region form one block, followed by the zones
+ * without a region. A zone is drawn within a region or within the whole study area in O(log z), and only the weight
+ * of the zone in which land was consumed has to be updated after a dwelling was planned.
+ */
+final class ConstructionLocationSampler {
+
+    private final IntToDoubleFunction weightOfZone;
+    private final FenwickTree weights;
+
+    private final int[] zoneIds;
+    private final int[] positionByZoneId;
+    private final int[] blockOfPosition;
+    private final Map<Integer, Integer> blockByRegion = new HashMap<>();
+
+    /**
+     * The zones of block b are at [blockStart[b], blockStart[b + 1])
+     */
+    private final int[] blockStart;
+
+    /**
+     * Number of zones with a positive weight by block. The partial sums of the tree collect rounding errors,
+     * so they are not used to decide whether a region has land left.
+     */
+    private final int[] positiveZones;
+    private int totalPositiveZones;
+
+    /**
+     * @param weightOfZone weight of a zone by zone id, values that are not positive exclude the zone
+     */
+    ConstructionLocationSampler(Collection<Region> regions, Collection<Zone> zones, IntToDoubleFunction weightOfZone) {
+        this.weightOfZone = weightOfZone;
+        final List<Integer> sortedZones = new ArrayList<>(zones.size());
+        final List<Integer> starts = new ArrayList<>(regions.size() + 2);
+        for (Region region : regions) {
+            blockByRegion.put(region.getId(), starts.size());
+            starts.add(sortedZones.size());
+            for (Zone zone : region.getZones()) {
+                sortedZones.add(zone.getZoneId());
+            }
+        }
+        // zones without a region come last, they are only drawn within the whole study area
+        starts.add(sortedZones.size());
+        for (Zone zone : zones) {
+            if (zone.getRegion() == null) {
+                sortedZones.add(zone.getZoneId());
+            }
+        }
+        starts.add(sortedZones.size());
+
+        this.zoneIds = sortedZones.stream().mapToInt(Integer::intValue).toArray();
+        this.blockStart = starts.stream().mapToInt(Integer::intValue).toArray();
+        this.positionByZoneId = new int[Arrays.stream(zoneIds).max().orElse(-1) + 1];
+        Arrays.fill(positionByZoneId, -1);
+        this.blockOfPosition = new int[zoneIds.length];
+        for (int block = 0; block < blockStart.length - 1; block++) {
+            for (int position = blockStart[block]; position < blockStart[block + 1]; position++) {
+                positionByZoneId[zoneIds[position]] = position;
+                blockOfPosition[position] = block;
+            }
+        }
+
+        this.weights = new FenwickTree(zoneIds.length);
+        this.positiveZones = new int[blockStart.length - 1];
+        final double[] initialWeights = new double[zoneIds.length];
+        for (int position = 0; position < zoneIds.length; position++) {
+            initialWeights[position] = calculateWeight(zoneIds[position]);
+            if (initialWeights[position] > 0) {
+                positiveZones[blockOfPosition[position]]++;
+                totalPositiveZones++;
+            }
+        }
+        weights.assign(initialWeights);
+    }
+
+    /**
+     * Draws a zone of the given region
+     * @return the zone id or -1 if no zone of the region has a positive weight
+     */
+    int sampleInRegion(int regionId, Random random) {
+        final Integer block = blockByRegion.get(regionId);
+        if (block == null || positiveZones[block] == 0) {
+            return -1;
+        }
+        return sample(blockStart[block], blockStart[block + 1], random);
+    }
+
+    /**
+     * Draws a zone of the whole study area
+     * @return the zone id or -1 if no zone has a positive weight
+     */
+    int sample(Random random) {
+        if (totalPositiveZones == 0) {
+            return -1;
+        }
+        return sample(0, zoneIds.length, random);
+    }
+
+    /**
+     * Recalculates the weight of the zone, e.g. after land of the zone was consumed
+     */
+    void update(int zoneId) {
+        final int position = positionByZoneId[zoneId];
+        final double weight = calculateWeight(zoneId);
+        final boolean wasPositive = weights.get(position) > 0;
+        if (wasPositive != weight > 0) {
+            final int change = wasPositive ? -1 : 1;
+            positiveZones[blockOfPosition[position]] += change;
+            totalPositiveZones += change;
+        }
+        weights.set(position, weight);
+    }
+
+    private double calculateWeight(int zoneId) {
+        final double weight = weightOfZone.applyAsDouble(zoneId);
+        return weight > 0 && !Double.isInfinite(weight) ? weight : 0;
+    }
+
+    private int sample(int start, int end, Random random) {
+        final double draw = random.nextDouble();
+        final double lower = weights.getSum(start);
+        final double total = weights.getSum(end) - lower;
+        if (total > 0) {
+            final int position = weights.find(lower + draw * total);
+            if (position >= start && position < end && weights.get(position) > 0) {
+                return zoneIds[position];
+            }
+        }
+        // the partial sums drifted from the weights, fall back to the exact weights of the block
+        double exactTotal = 0;
+        for (int position = start; position < end; position++) {
+            exactTotal += weights.get(position);
+        }
+        final double target = draw * exactTotal;
+        double cumulated = 0;
+        int lastPositive = -1;
+        for (int position = start; position < end; position++) {
+            if (weights.get(position) > 0) {
+                cumulated += weights.get(position);
+                lastPositive = position;
+                if (cumulated > target) {
+                    break;
+                }
+            }
+        }
+        return zoneIds[lastPositive];
+    }
+}
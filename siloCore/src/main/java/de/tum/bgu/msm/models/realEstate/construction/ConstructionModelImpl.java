@@ -6,6 +6,7 @@ import de.tum.bgu.msm.data.Zone;
 import de.tum.bgu.msm.data.accessibility.Accessibility;
 import de.tum.bgu.msm.data.development.Development;
 import de.tum.bgu.msm.data.dwelling.Dwelling;
+import de.tum.bgu.msm.data.dwelling.DwellingData;
 import de.tum.bgu.msm.data.dwelling.DwellingFactory;
 import de.tum.bgu.msm.data.dwelling.DwellingType;
 import de.tum.bgu.msm.data.dwelling.RealEstateDataManager;
@@ -19,7 +20,6 @@ import org.locationtech.jts.geom.Coordinate;
 
 import java.io.PrintWriter;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Build new dwellings based on current demand. Model works in two steps. At the end of each simulation period,
@@ -42,7 +42,7 @@ public class ConstructionModelImpl extends AbstractModel implements Construction
 
     private float betaForZoneChoice;
     private float priceIncreaseForNewDwelling;
-    private Map<Integer, List<Dwelling>> dwellingsByRegion;
+    private Map<Integer, Integer> dwellingsByRegion;
     PrintWriter pwd;
 
 
@@ -73,9 +73,15 @@ public class ConstructionModelImpl extends AbstractModel implements Construction
 
     @Override
     public void prepareYear(int year) {
-        dwellingsByRegion = dataContainer.getRealEstateDataManager().getDwellings()
-                .stream().collect(Collectors.groupingBy(d -> geoData.getZones().get(d.getZoneId()).getRegion().getId()
-        ));
+        // sums up the dwellings by zone of the dwelling data, regions without dwellings are left out
+        final DwellingData dwellingData = dataContainer.getRealEstateDataManager().getDwellingData();
+        dwellingsByRegion = new HashMap<>();
+        for (Zone zone : geoData.getZones().values()) {
+            final int dwellings = dwellingData.getNumberOfDwellingsInZone(zone.getZoneId());
+            if (dwellings > 0) {
+                dwellingsByRegion.merge(zone.getRegion().getId(), dwellings, Integer::sum);
+            }
+        }
     }
 
     @Override
@@ -92,18 +98,19 @@ public class ConstructionModelImpl extends AbstractModel implements Construction
 
         List<DwellingType> dwellingTypes = realEstate.getDwellingTypes().getTypes();
         double[][] demandByRegion = new double[dwellingTypes.size()][geoData.getRegions().keySet().stream().max(Comparator.naturalOrder()).get() + 1];
-        double[][] avePriceByTypeAndZone = calculateScaledAveragePriceByZone(100);
-        double[][] aveAbsolutePriceByTypeAndZone = calculateAbsoluteAveragePriceByZone();
-        double[][] avePriceByTypeAndRegion = calculateScaledAveragePriceByRegion(100);
-        double[][] aveAbsolutePriceByTypeAndRegion = calculateAbosluteAveragePriceByRegion();
-        float[][] aveSizeByTypeAndRegion = calculateAverageSizeByTypeAndByRegion();
+        DwellingStatistics statistics = new DwellingStatistics(dwellingTypes);
+        double[][] avePriceByTypeAndZone = calculateScaledAveragePriceByZone(statistics, 100);
+        double[][] aveAbsolutePriceByTypeAndZone = calculateAbsoluteAveragePriceByZone(statistics);
+        double[][] avePriceByTypeAndRegion = calculateScaledAveragePriceByRegion(statistics, 100);
+        double[][] aveAbsolutePriceByTypeAndRegion = calculateAbosluteAveragePriceByRegion(statistics);
+        float[][] aveSizeByTypeAndRegion = calculateAverageSizeByTypeAndByRegion(statistics);
 
 
         for (DwellingType dt : dwellingTypes) {
             int dto = dwellingTypes.indexOf(dt);
             for (int region : geoData.getRegions().keySet()) {
                 if (dwellingsByRegion.containsKey(region)){
-                    demandByRegion[dto][region] = demandStrategy.calculateConstructionDemand(vacancyByRegion[dto][region], dt, dwellingsByRegion.get(region).size());
+                    demandByRegion[dto][region] = demandStrategy.calculateConstructionDemand(vacancyByRegion[dto][region], dt, dwellingsByRegion.get(region));
                 } else {
                     //regions that, after scaling down the population, do not have any dwelling, thus are not in the map dwellingsByRegion
                     demandByRegion[dto][region] = 0;
@@ -138,48 +145,36 @@ public class ConstructionModelImpl extends AbstractModel implements Construction
 
         for (DwellingType dt : sortedDwellingTypes) {
             int dto = dwellingTypes.indexOf(dt);
+            // the weights only change in the zones in which a dwelling of this type is planned
+            ConstructionLocationSampler sampler = new ConstructionLocationSampler(geoData.getRegions().values(),
+                    geoData.getZones().values(),
+                    zone -> calculateConstructionWeight(realEstate, dt, zone, utilitiesByDwellingTypeByZone[dto]));
             for (int region : geoData.getRegions().keySet()) {
                 int unrealizedDwellings = 0;
                 int demand = (int) (existingDwellings[dto][region] * demandByRegion[dto][region] + 0.5);
                 if (demand == 0) {
                     continue;
                 }
-                int[] zonesInThisRegion = geoData.getRegions().get(region).getZones().stream().mapToInt(Zone::getZoneId).toArray();
-                double[] prob = new double[SiloUtil.getHighestVal(zonesInThisRegion) + 1];
                 // walk through every dwelling to be built
                 for (int i = 1; i <= demand; i++) {
-                    double probSum = 0;
-                    for (int zone : zonesInThisRegion) {
-                        Development development = dataContainer.getGeoData().getZones().get(zone).getDevelopment();
-                        boolean useDwellingsAsCapacity = development.isUseDwellingCapacity();
-                        double availableLand = realEstate.getAvailableCapacityForConstruction(zone);
-                        if ((useDwellingsAsCapacity && availableLand == 0) ||                              // capacity by dwellings is use
-                                (!useDwellingsAsCapacity && availableLand < dt.getAreaPerDwelling()) ||  // not enough land available?
-                                !development.isThisDwellingTypeAllowed(dt)) {                 // construction of this dwelling type allowed in this zone?
-                            prob[zone] = 0.;
-                        } else {
-                            prob[zone] = betaForZoneChoice * availableLand * utilitiesByDwellingTypeByZone[dto][zone];
-                            probSum += prob[zone];
-                        }
-                    }
-                    if (probSum == 0) {
-                        unrealizedDwellings++;
-                        continue;
-                    }
-                    for (int zone : zonesInThisRegion) {
-                        prob[zone] = prob[zone] / probSum;
+                    int zone = sampler.sampleInRegion(region, random);
+                    if (zone == -1) {
+                        // no land left in this region, the remaining demand is built elsewhere
+                        unrealizedDwellings = demand - i + 1;
+                        break;
                     }
-                    int zone = SiloUtil.select(prob, random);
                     events.add(createNewDwelling(realEstate, aveSizeByTypeAndRegion, aveAbsolutePriceByTypeAndZone,
                             aveAbsolutePriceByTypeAndRegion, dt, dto, region, zone));
+                    sampler.update(zone);
                 }
                 for (int i = 1; i <= unrealizedDwellings; i++) {
-                    int zone = allocateUnrealizedDemandInDifferentRegion(realEstate, dt, dto,
-                            avePriceByTypeAndZone, avePriceByTypeAndRegion, utilitiesByDwellingTypeByZone);
-
+                    // Due to limited available land or zoning, not all demand can be realized in all zones. Find an
+                    // alternative region where demand can be built
+                    int zone = sampler.sample(random);
                     if (zone > -1) {
                         events.add(createNewDwelling(realEstate, aveSizeByTypeAndRegion, aveAbsolutePriceByTypeAndZone,
                                 aveAbsolutePriceByTypeAndRegion, dt, dto, region, zone));
+                        sampler.update(zone);
                     } else {
                         unrealizedDemandCounter++;
                     }
@@ -243,21 +238,14 @@ public class ConstructionModelImpl extends AbstractModel implements Construction
         pwd.close();
     }
 
-    private double[][] calculateScaledAveragePriceByZone(float scaler) {
+    private double[][] calculateScaledAveragePriceByZone(DwellingStatistics statistics, float scaler) {
         // calculate scaled average housing price by dwelling type and zone
 
-        RealEstateDataManager realEstate = dataContainer.getRealEstateDataManager();
-        List<DwellingType> dwellingTypes = realEstate.getDwellingTypes().getTypes();
+        List<DwellingType> dwellingTypes = statistics.dwellingTypes;
 
-        final int highestZoneId = geoData.getZones().keySet().stream().max(Comparator.naturalOrder()).get();
-        double[][] avePrice = new double[dwellingTypes.size()][highestZoneId + 1];
-        int[][] counter = new int[dwellingTypes.size()][highestZoneId + 1];
-        for (Dwelling dd : realEstate.getDwellings()) {
-            int dt = dwellingTypes.indexOf(dd.getType());
-            int zone = geoData.getZones().get(dd.getZoneId()).getZoneId();
-            counter[dt][zone]++;
-            avePrice[dt][zone] += dd.getPrice();
-        }
+        final int highestZoneId = statistics.highestZoneId;
+        double[][] avePrice = copy(statistics.priceByTypeAndZone);
+        int[][] counter = statistics.countByTypeAndZone;
         for (DwellingType dt : dwellingTypes) {
             int dto = dwellingTypes.indexOf(dt);
             double[] avePriceThisType = new double[highestZoneId + 1];
@@ -276,21 +264,14 @@ public class ConstructionModelImpl extends AbstractModel implements Construction
         return avePrice;
     }
 
-    private double[][] calculateAbsoluteAveragePriceByZone() {
+    private double[][] calculateAbsoluteAveragePriceByZone(DwellingStatistics statistics) {
         // calculate scaled average housing price by dwelling type and zone
 
-        RealEstateDataManager realEstate = dataContainer.getRealEstateDataManager();
-        List<DwellingType> dwellingTypes = realEstate.getDwellingTypes().getTypes();
+        List<DwellingType> dwellingTypes = statistics.dwellingTypes;
 
-        final int highestZoneId = geoData.getZones().keySet().stream().max(Comparator.naturalOrder()).get();
-        double[][] avePrice = new double[dwellingTypes.size()][highestZoneId + 1];
-        int[][] counter = new int[dwellingTypes.size()][highestZoneId + 1];
-        for (Dwelling dd : realEstate.getDwellings()) {
-            int dt = dwellingTypes.indexOf(dd.getType());
-            int zone = geoData.getZones().get(dd.getZoneId()).getZoneId();
-            counter[dt][zone]++;
-            avePrice[dt][zone] += dd.getPrice();
-        }
+        final int highestZoneId = statistics.highestZoneId;
+        double[][] avePrice = copy(statistics.priceByTypeAndZone);
+        int[][] counter = statistics.countByTypeAndZone;
         for (DwellingType dt : dwellingTypes) {
             int dto = dwellingTypes.indexOf(dt);
             double[] avePriceThisType = new double[highestZoneId + 1];
@@ -339,52 +320,25 @@ public class ConstructionModelImpl extends AbstractModel implements Construction
         return (new ConstructionEvent(plannedDwelling));
     }
 
-    private int allocateUnrealizedDemandInDifferentRegion(RealEstateDataManager realEstate, DwellingType dt, int dto,
-                                                          double[][] avePriceByTypeAndZone, double[][] avePriceByTypeAndRegion, double[][] utilitiesByDwellingTypeByZone) {
-        // Due to limited available land or zoning, not all demand can be realized in all zones. Find an alternative
-        // region where demand can be built
-        int selectedZone = 1;
-        double probSum = 0;
-        double[] prob = new double[geoData.getZones().keySet().stream().max(Comparator.naturalOrder()).get() + 1];
-        for (Map.Entry<Integer, Zone> zone : geoData.getZones().entrySet()) {
-            double availableLand = realEstate.getAvailableCapacityForConstruction(zone.getValue().getId());
-            if (availableLand < dt.getAreaPerDwelling()) {
-                continue;
-            }
-            Development development = zone.getValue().getDevelopment();
-            boolean useDwellingsAsCapacity = development.isUseDwellingCapacity();
-            if ((useDwellingsAsCapacity && availableLand == 0) ||                              // capacity by dwellings is use
-                    (!useDwellingsAsCapacity && availableLand < dt.getAreaPerDwelling()) ||  // not enough land available?
-                    !development.isThisDwellingTypeAllowed(dt)) {                 // construction of this dwelling type allowed in this zone?
-                prob[zone.getValue().getId()] = 0.;
-            } else {
-                prob[zone.getValue().getId()] = betaForZoneChoice * availableLand * utilitiesByDwellingTypeByZone[dto][zone.getValue().getId()];
-                probSum += prob[zone.getValue().getId()];
-            }
-        }
-        if (probSum == 0) {
-            return -1;
+    private double calculateConstructionWeight(RealEstateDataManager realEstate, DwellingType dt, int zone,
+                                               double[] utilitiesByZone) {
+        Development development = geoData.getZones().get(zone).getDevelopment();
+        boolean useDwellingsAsCapacity = development.isUseDwellingCapacity();
+        double availableLand = realEstate.getAvailableCapacityForConstruction(zone);
+        if ((useDwellingsAsCapacity && availableLand == 0) ||                              // capacity by dwellings is use
+                (!useDwellingsAsCapacity && availableLand < dt.getAreaPerDwelling()) ||  // not enough land available?
+                !development.isThisDwellingTypeAllowed(dt)) {                 // construction of this dwelling type allowed in this zone?
+            return 0.;
         }
-        for (Map.Entry<Integer, Zone> zone : geoData.getZones().entrySet()) {
-            prob[zone.getValue().getId()] = prob[zone.getValue().getId()] / probSum;
-        }
-        return SiloUtil.select(prob, random);
+        return betaForZoneChoice * availableLand * utilitiesByZone[zone];
     }
 
+    private double[][] calculateScaledAveragePriceByRegion(DwellingStatistics statistics, float scaler) {
 
-    private double[][] calculateScaledAveragePriceByRegion(float scaler) {
-
-        RealEstateDataManager realEstate = dataContainer.getRealEstateDataManager();
-        List<DwellingType> dwellingTypes = realEstate.getDwellingTypes().getTypes();
-        final int highestRegionId = geoData.getRegions().keySet().stream().max(Comparator.naturalOrder()).get();
-        double[][] avePrice = new double[dwellingTypes.size()][highestRegionId + 1];
-        int[][] counter = new int[dwellingTypes.size()][highestRegionId + 1];
-        for (Dwelling dd : realEstate.getDwellings()) {
-            int dt = dwellingTypes.indexOf(dd.getType());
-            int region = geoData.getZones().get(dd.getZoneId()).getRegion().getId();
-            counter[dt][region]++;
-            avePrice[dt][region] += dd.getPrice();
-        }
+        List<DwellingType> dwellingTypes = statistics.dwellingTypes;
+        final int highestRegionId = statistics.highestRegionId;
+        double[][] avePrice = copy(statistics.priceByTypeAndRegion);
+        int[][] counter = statistics.countByTypeAndRegion;
         for (DwellingType dt : dwellingTypes) {
             int dto = dwellingTypes.indexOf(dt);
             double[] avePriceThisType = new double[highestRegionId + 1];
@@ -403,19 +357,12 @@ public class ConstructionModelImpl extends AbstractModel implements Construction
         return avePrice;
     }
 
-    private double[][] calculateAbosluteAveragePriceByRegion() {
+    private double[][] calculateAbosluteAveragePriceByRegion(DwellingStatistics statistics) {
 
-        RealEstateDataManager realEstate = dataContainer.getRealEstateDataManager();
-        List<DwellingType> dwellingTypes = realEstate.getDwellingTypes().getTypes();
-        final int highestRegionId = geoData.getRegions().keySet().stream().max(Comparator.naturalOrder()).get();
-        double[][] avePrice = new double[dwellingTypes.size()][highestRegionId + 1];
-        int[][] counter = new int[dwellingTypes.size()][highestRegionId + 1];
-        for (Dwelling dd : realEstate.getDwellings()) {
-            int dt = dwellingTypes.indexOf(dd.getType());
-            int region = geoData.getZones().get(dd.getZoneId()).getRegion().getId();
-            counter[dt][region]++;
-            avePrice[dt][region] += dd.getPrice();
-        }
+        List<DwellingType> dwellingTypes = statistics.dwellingTypes;
+        final int highestRegionId = statistics.highestRegionId;
+        double[][] avePrice = copy(statistics.priceByTypeAndRegion);
+        int[][] counter = statistics.countByTypeAndRegion;
         for (DwellingType dt : dwellingTypes) {
             int dto = dwellingTypes.indexOf(dt);
             double[] avePriceThisType = new double[highestRegionId + 1];
@@ -434,18 +381,14 @@ public class ConstructionModelImpl extends AbstractModel implements Construction
         return avePrice;
     }
 
-    private float[][] calculateAverageSizeByTypeAndByRegion() {
+    private float[][] calculateAverageSizeByTypeAndByRegion(DwellingStatistics statistics) {
         // calculate average housing size by dwelling type and region
-        final int highestRegionId = geoData.getRegions().keySet().stream().max(Comparator.naturalOrder()).get();
-        List<DwellingType> dwellingTypes = dataContainer.getRealEstateDataManager().getDwellingTypes().getTypes();
-        float[][] aveSize = new float[dwellingTypes.size()][highestRegionId + 1];
-        int[][] counter = new int[dwellingTypes.size()][highestRegionId + 1];
-        for (Dwelling dd : dataContainer.getRealEstateDataManager().getDwellings()) {
-            int dt = dwellingTypes.indexOf(dd.getType());
-            int region = geoData.getZones().get(dd.getZoneId()).getRegion().getId();
-            counter[dt][region]++;
-            aveSize[dt][region] += dd.getBedrooms();
+        List<DwellingType> dwellingTypes = statistics.dwellingTypes;
+        float[][] aveSize = new float[dwellingTypes.size()][];
+        for (int dto = 0; dto < dwellingTypes.size(); dto++) {
+            aveSize[dto] = statistics.sizeByTypeAndRegion[dto].clone();
         }
+        int[][] counter = statistics.countByTypeAndRegion;
         for (DwellingType dt : dwellingTypes) {
             int dto = dwellingTypes.indexOf(dt);
             for (int region : geoData.getRegions().keySet()) {
@@ -481,6 +424,58 @@ public class ConstructionModelImpl extends AbstractModel implements Construction
     }
 
 
+    private static double[][] copy(double[][] values) {
+        double[][] copy = new double[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            copy[i] = values[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Number, summed prices and summed sizes of the existing dwellings by dwelling type and zone or region,
+     * collected in one pass over all dwellings for the price and size averages of the year
+     */
+    private final class DwellingStatistics {
+
+        private final List<DwellingType> dwellingTypes;
+        private final int highestZoneId;
+        private final int highestRegionId;
+
+        private final int[][] countByTypeAndZone;
+        private final double[][] priceByTypeAndZone;
+        private final int[][] countByTypeAndRegion;
+        private final double[][] priceByTypeAndRegion;
+        private final float[][] sizeByTypeAndRegion;
+
+        private DwellingStatistics(List<DwellingType> dwellingTypes) {
+            this.dwellingTypes = dwellingTypes;
+            this.highestZoneId = geoData.getZones().keySet().stream().max(Comparator.naturalOrder()).get();
+            this.highestRegionId = geoData.getRegions().keySet().stream().max(Comparator.naturalOrder()).get();
+            countByTypeAndZone = new int[dwellingTypes.size()][highestZoneId + 1];
+            priceByTypeAndZone = new double[dwellingTypes.size()][highestZoneId + 1];
+            countByTypeAndRegion = new int[dwellingTypes.size()][highestRegionId + 1];
+            priceByTypeAndRegion = new double[dwellingTypes.size()][highestRegionId + 1];
+            sizeByTypeAndRegion = new float[dwellingTypes.size()][highestRegionId + 1];
+
+            Map<DwellingType, Integer> indexByType = new HashMap<>();
+            for (int i = dwellingTypes.size() - 1; i >= 0; i--) {
+                indexByType.put(dwellingTypes.get(i), i);
+            }
+            for (Dwelling dd : dataContainer.getRealEstateDataManager().getDwellings()) {
+                int dt = indexByType.getOrDefault(dd.getType(), -1);
+                Zone zone = geoData.getZones().get(dd.getZoneId());
+                int zoneId = zone.getZoneId();
+                int region = zone.getRegion().getId();
+                countByTypeAndZone[dt][zoneId]++;
+                priceByTypeAndZone[dt][zoneId] += dd.getPrice();
+                countByTypeAndRegion[dt][region]++;
+                priceByTypeAndRegion[dt][region] += dd.getPrice();
+                sizeByTypeAndRegion[dt][region] += dd.getBedrooms();
+            }
+        }
+    }
+
     private DwellingType[] findOrderOfDwellingTypes(DataContainer dataContainer) {
         // define order of dwelling types based on their average price. More expensive types are built first.
 
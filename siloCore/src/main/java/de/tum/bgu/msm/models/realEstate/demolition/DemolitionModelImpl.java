@@ -6,6 +6,7 @@ import de.tum.bgu.msm.data.dwelling.Dwelling;
 import de.tum.bgu.msm.data.household.Household;
 import de.tum.bgu.msm.events.impls.realEstate.DemolitionEvent;
 import de.tum.bgu.msm.models.AbstractModel;
+import de.tum.bgu.msm.models.CompactEventModel;
 import de.tum.bgu.msm.models.relocation.migration.InOutMigration;
 import de.tum.bgu.msm.models.relocation.moves.MovesModelImpl;
 import de.tum.bgu.msm.properties.Properties;
@@ -16,6 +17,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Random;
+import java.util.function.IntConsumer;
 
 /**
  * Simulates demolition of dwellings
@@ -23,7 +25,7 @@ import java.util.Random;
  * Created on 8 January 2010 in Rhede
  **/
 
-public class DemolitionModelImpl extends AbstractModel implements DemolitionModel {
+public class DemolitionModelImpl extends AbstractModel implements DemolitionModel, CompactEventModel<DemolitionEvent> {
 
     private final static Logger logger = Logger.getLogger(DemolitionModelImpl.class);
 
@@ -55,12 +57,22 @@ public class DemolitionModelImpl extends AbstractModel implements DemolitionMode
 
     @Override
     public Collection<DemolitionEvent> getEventsForCurrentYear(int year) {
-        currentYear = year;
         final List<DemolitionEvent> events = new ArrayList<>();
+        addEventsForCurrentYear(year, id -> events.add(createEvent(id)));
+        return events;
+    }
+
+    @Override
+    public void addEventsForCurrentYear(int year, IntConsumer subjectIds) {
+        currentYear = year;
         for (Dwelling dwelling : dataContainer.getRealEstateDataManager().getDwellings()) {
-            events.add(new DemolitionEvent(dwelling.getId()));
+            subjectIds.accept(dwelling.getId());
         }
-        return events;
+    }
+
+    @Override
+    public DemolitionEvent createEvent(int subjectId) {
+        return new DemolitionEvent(subjectId);
     }
 
     @Override
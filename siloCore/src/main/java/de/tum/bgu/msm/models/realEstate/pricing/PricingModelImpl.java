@@ -1,16 +1,21 @@
 package de.tum.bgu.msm.models.realEstate.pricing;
 
 import de.tum.bgu.msm.container.DataContainer;
+import de.tum.bgu.msm.data.Zone;
 import de.tum.bgu.msm.data.dwelling.Dwelling;
 import de.tum.bgu.msm.data.dwelling.DwellingType;
+import de.tum.bgu.msm.data.dwelling.RealEstateDataManager;
 import de.tum.bgu.msm.models.AbstractModel;
 import de.tum.bgu.msm.properties.Properties;
+import de.tum.bgu.msm.util.concurrent.ConcurrentExecutor;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
 
 import java.io.File;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -73,57 +78,100 @@ public final class PricingModelImpl extends AbstractModel implements PricingMode
     private void updateRealEstatePrices(int year) {
         // updated prices based on current demand
         logger.info("  Updating real-estate prices at the end of " + year);
+        RealEstateDataManager realEstate = dataContainer.getRealEstateDataManager();
 
         // get vacancy rate
-        double[][] vacRate = dataContainer.getRealEstateDataManager().getVacancyRateByTypeAndRegion();
-        List<DwellingType> dwellingTypes = dataContainer.getRealEstateDataManager().getDwellingTypes().getTypes();
-//        HashMap<String, Integer> priceChange = new HashMap<>();
-
-        double[] globalVacRate = dataContainer.getRealEstateDataManager().getAverageVacancyByDwellingType();
-        int[] cnt = new int[dwellingTypes.size()];
-        double[] sumOfPrices = new double[dwellingTypes.size()];
-        for (Dwelling dd: dataContainer.getRealEstateDataManager().getDwellings()) {
-            if (!strategy.isPriceUpdateAllowed(dd)) {
-                continue;
+        double[][] vacRate = realEstate.getVacancyRateByTypeAndRegion();
+        List<DwellingType> dwellingTypes = realEstate.getDwellingTypes().getTypes();
+        double[] globalVacRate = realEstate.getAverageVacancyByDwellingType();
+
+        // the change rate only depends on the dwelling type and the vacancy rate of the region
+        double[][] changeRates = new double[dwellingTypes.size()][];
+        int[][] changeRateBins = new int[dwellingTypes.size()][];
+        Map<DwellingType, Integer> indexByType = new HashMap<>();
+        for (int dto = dwellingTypes.size() - 1; dto >= 0; dto--) {
+            DwellingType type = dwellingTypes.get(dto);
+            indexByType.put(type, dto);
+            float structuralVacancyRate = type.getStructuralVacancyRate();
+            changeRates[dto] = new double[vacRate[dto].length];
+            changeRateBins[dto] = new int[vacRate[dto].length];
+            for (int region = 0; region < vacRate[dto].length; region++) {
+                double vacancyRateAtThisRegion = vacRate[dto][region];
+                if (vacancyRateAtThisRegion == 0) {
+                    changeRates[dto][region] = strategy.getPriceChangeRate(globalVacRate[dto], structuralVacancyRate);
+                } else {
+                    changeRates[dto][region] = strategy.getPriceChangeRate(vacancyRateAtThisRegion, structuralVacancyRate);
+                }
+                changeRateBins[dto][region] = (int) Math.round((changeRates[dto][region] - 1) * 100);
             }
-            int dto = dwellingTypes.indexOf(dd.getType());
-            int currentPrice = dd.getPrice();
-            int region = dataContainer.getGeoData().getZones().get(dd.getZoneId()).getRegion().getId();
-            double vacancyRateAtThisRegion = vacRate[dto][region];
-            float structuralVacancyRate = dd.getType().getStructuralVacancyRate();
-            double changeRate;
-            if (vacancyRateAtThisRegion == 0) {
-                changeRate = strategy.getPriceChangeRate(globalVacRate[dto], structuralVacancyRate);
-            } else {
-                changeRate = strategy.getPriceChangeRate(vacancyRateAtThisRegion, structuralVacancyRate);
-            }
-
-
-            int changeRateInt = (int) Math.round((changeRate - 1) * 100);
-
-            Map<Integer, Integer> changeRatesForThisType = changeRateDistribution.get(dd.getType());
-            changeRatesForThisType.putIfAbsent(changeRateInt, 0);
-            changeRatesForThisType.put(changeRateInt, changeRatesForThisType.get(changeRateInt)+1);
-
-            double newPrice = currentPrice * changeRate;
+        }
+        Map<Integer, Zone> zones = dataContainer.getGeoData().getZones();
+        int[] regionByZone = new int[zones.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1];
+        for (Zone zone : zones.values()) {
+            regionByZone[zone.getZoneId()] = zone.getRegion().getId();
+        }
 
-            if (dd.getId() == SiloUtil.trackDd) {
-                SiloUtil.trackWriter.println("The monthly costs of dwelling " +
-                        dd.getId() + " was changed from " + currentPrice + " to " + newPrice +
-                        " (in constant currency value without inflation).");
+        // dwellings are updated in partitions. The new prices are kept by position and the change rates are
+        // counted in insertion ordered histograms per partition, so that merging them in partition order gives
+        // the same histograms and averages as updating the dwellings one after the other
+        List<Dwelling> dwellings = new ArrayList<>(realEstate.getDwellings());
+        int[] updatedType = new int[dwellings.size()];
+        double[] newPrices = new double[dwellings.size()];
+        int numberOfTasks = Math.max(1, properties.main.numberOfThreads);
+        int partitionSize = dwellings.size() / numberOfTasks + 1;
+        List<List<Map<Integer, Integer>>> histogramsByPartition = new ArrayList<>();
+        ConcurrentExecutor<Void> executor = ConcurrentExecutor.fixedPoolService(numberOfTasks);
+        for (int start = 0; start < dwellings.size(); start += partitionSize) {
+            final int from = start;
+            final int to = Math.min(start + partitionSize, dwellings.size());
+            List<Map<Integer, Integer>> histograms = new ArrayList<>(dwellingTypes.size());
+            for (int dto = 0; dto < dwellingTypes.size(); dto++) {
+                histograms.add(new LinkedHashMap<>());
             }
-            dd.setPrice((int) (newPrice + 0.5));
-            cnt[dto]++;
-            sumOfPrices[dto] += newPrice;
-
-//            String token = dto+"_"+vacRate[dto][region]+"_"+currentPrice+"_"+newPrice;
-//            if (priceChange.containsKey(token)) {
-//                priceChange.put(token, (priceChange.get(token) + 1));
-//            } else {
-//                priceChange.put(token, 1);
-//            }
+            histogramsByPartition.add(histograms);
+            executor.addTaskToQueue(() -> {
+                for (int i = from; i < to; i++) {
+                    Dwelling dd = dwellings.get(i);
+                    if (!strategy.isPriceUpdateAllowed(dd)) {
+                        updatedType[i] = -1;
+                        continue;
+                    }
+                    int dto = indexByType.get(dd.getType());
+                    int currentPrice = dd.getPrice();
+                    int region = regionByZone[dd.getZoneId()];
+                    histograms.get(dto).merge(changeRateBins[dto][region], 1, Integer::sum);
+
+                    double newPrice = currentPrice * changeRates[dto][region];
+
+                    if (dd.getId() == SiloUtil.trackDd) {
+                        SiloUtil.trackWriter.println("The monthly costs of dwelling " +
+                                dd.getId() + " was changed from " + currentPrice + " to " + newPrice +
+                                " (in constant currency value without inflation).");
+                    }
+                    dd.setPrice((int) (newPrice + 0.5));
+                    updatedType[i] = dto;
+                    newPrices[i] = newPrice;
+                }
+                return null;
+            });
+        }
+        executor.execute();
 
+        for (List<Map<Integer, Integer>> histograms : histogramsByPartition) {
+            for (int dto = 0; dto < dwellingTypes.size(); dto++) {
+                Map<Integer, Integer> changeRatesForThisType = changeRateDistribution.get(dwellingTypes.get(dto));
+                histograms.get(dto).forEach((bin, count) -> changeRatesForThisType.merge(bin, count, Integer::sum));
+            }
         }
+        int[] cnt = new int[dwellingTypes.size()];
+        double[] sumOfPrices = new double[dwellingTypes.size()];
+        for (int i = 0; i < dwellings.size(); i++) {
+            if (updatedType[i] >= 0) {
+                cnt[updatedType[i]]++;
+                sumOfPrices[updatedType[i]] += newPrices[i];
+            }
+        }
+
         double[] averagePrice = new double[dwellingTypes.size()];
         logger.info("Updated average real-estate prices by dwelling type:");
         for (DwellingType dt: dwellingTypes) {
@@ -131,6 +179,6 @@ public final class PricingModelImpl extends AbstractModel implements PricingMode
             averagePrice[dto] = sumOfPrices[dto] / cnt[dto];
             logger.info(dt + ": " + averagePrice[dto]);
         }
-        dataContainer.getRealEstateDataManager().setAvePriceByDwellingType(averagePrice);
+        realEstate.setAvePriceByDwellingType(averagePrice);
     }
 }
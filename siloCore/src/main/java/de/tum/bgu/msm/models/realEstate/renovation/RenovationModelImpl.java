@@ -5,17 +5,19 @@ import de.tum.bgu.msm.data.dwelling.Dwelling;
 import de.tum.bgu.msm.data.dwelling.RealEstateDataManager;
 import de.tum.bgu.msm.events.impls.realEstate.RenovationEvent;
 import de.tum.bgu.msm.models.AbstractModel;
+import de.tum.bgu.msm.models.CompactEventModel;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 
 import java.util.*;
+import java.util.function.IntConsumer;
 
 /**
  * Simulates renovation and deterioration of dwellings
  * Author: Rolf Moeckel, PB Albuquerque
  * Created on 7 January 2010 in Rhede
  **/
-public class RenovationModelImpl extends AbstractModel implements RenovationModel {
+public class RenovationModelImpl extends AbstractModel implements RenovationModel, CompactEventModel<RenovationEvent> {
 
     private final RenovationStrategy strategy;
     private double[][] renovationProbability;
@@ -72,10 +74,20 @@ public class RenovationModelImpl extends AbstractModel implements RenovationMode
     @Override
     public Collection<RenovationEvent> getEventsForCurrentYear(int year) {
         final List<RenovationEvent> events = new ArrayList<>();
+        addEventsForCurrentYear(year, id -> events.add(createEvent(id)));
+        return events;
+    }
+
+    @Override
+    public void addEventsForCurrentYear(int year, IntConsumer subjectIds) {
         for (Dwelling dwelling : dataContainer.getRealEstateDataManager().getDwellings()) {
-            events.add(new RenovationEvent(dwelling.getId()));
+            subjectIds.accept(dwelling.getId());
         }
-        return events;
+    }
+
+    @Override
+    public RenovationEvent createEvent(int subjectId) {
+        return new RenovationEvent(subjectId);
     }
 
     @Override
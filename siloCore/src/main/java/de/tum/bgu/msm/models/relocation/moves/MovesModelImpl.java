@@ -10,10 +10,16 @@ import de.tum.bgu.msm.data.household.Household;
 import de.tum.bgu.msm.data.household.HouseholdDataManager;
 import de.tum.bgu.msm.data.household.HouseholdType;
 import de.tum.bgu.msm.data.household.HouseholdUtil;
+import de.tum.bgu.msm.data.job.Job;
+import de.tum.bgu.msm.data.job.JobDataManager;
+import de.tum.bgu.msm.data.person.Occupation;
+import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.data.vehicle.VehicleType;
 import de.tum.bgu.msm.events.impls.household.MoveEvent;
 import de.tum.bgu.msm.io.output.YearByYearCsvModelTracker;
 import de.tum.bgu.msm.models.AbstractModel;
+import de.tum.bgu.msm.models.CompactEventModel;
+import de.tum.bgu.msm.models.SpeculativeEventModel;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.properties.modules.TransportModelPropertiesModule;
 import de.tum.bgu.msm.util.concurrent.ConcurrentExecutor;
@@ -27,10 +33,11 @@ import org.locationtech.jts.geom.Coordinate;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 /**
  * @author Nico
@@ -38,7 +45,7 @@ import java.util.concurrent.CyclicBarrier;
  * and move logic based on housing satisfaction/utility. The actual utility calculations are defined
  * in the {@link HousingStrategy} argument.
  */
-public class MovesModelImpl extends AbstractModel implements MovesModel {
+public class MovesModelImpl extends AbstractModel implements MovesModel, SpeculativeEventModel<MoveEvent, MovesModelImpl.MoveSpeculation>, CompactEventModel<MoveEvent> {
 
 //    public static BufferedWriter fileWriter;
 
@@ -58,6 +65,13 @@ public class MovesModelImpl extends AbstractModel implements MovesModel {
     private final Map<Integer, Double > sumOfSatisfactionsByZone = new HashMap<>();
     private YearByYearCsvModelTracker relocationTracker;
 
+    /**
+     * Duplicated housing strategies for threads that speculate move decisions
+     */
+    private BlockingQueue<HousingStrategy> speculationStrategies;
+    private final AtomicInteger speculatedMoves = new AtomicInteger();
+    private int reevaluatedMoves = 0;
+
 
     public MovesModelImpl(DataContainer dataContainer, Properties properties, MovesStrategy movesStrategy,
                           HousingStrategy housingStrategy, Random random) {
@@ -94,21 +108,24 @@ public class MovesModelImpl extends AbstractModel implements MovesModel {
     @Override
     public List<MoveEvent> getEventsForCurrentYear(int year) {
         final List<MoveEvent> events = new ArrayList<>();
+        addEventsForCurrentYear(year, id -> events.add(createEvent(id)));
+        return events;
+    }
+
+    @Override
+    public void addEventsForCurrentYear(int year, IntConsumer subjectIds) {
         for (Household hh : dataContainer.getHouseholdDataManager().getHouseholds()) {
-            events.add(new MoveEvent(hh.getId()));
-        }
-        if (threaded) {
-            final int threads = Math.max(properties.main.numberOfThreads - 1, 1);
-            UtilityUtils.startThreads(housingStrategy, threads);
-            logger.info("=========> Started " + threads + " background threads for dwelling utility evaluation");
+            subjectIds.accept(hh.getId());
         }
+    }
 
-        return events;
+    @Override
+    public MoveEvent createEvent(int subjectId) {
+        return new MoveEvent(subjectId);
     }
 
     @Override
     public void endYear(int year) {
-        UtilityUtils.endYear();
     }
 
     @Override
@@ -126,6 +143,10 @@ public class MovesModelImpl extends AbstractModel implements MovesModel {
      */
     @Override
     public boolean handleEvent(MoveEvent event) {
+        return handleEvent(event, this.random);
+    }
+
+    private boolean handleEvent(MoveEvent event, Random random) {
 
         int hhId = event.getHouseholdId();
         Household household = dataContainer.getHouseholdDataManager().getHouseholdFromId(hhId);
@@ -136,14 +157,92 @@ public class MovesModelImpl extends AbstractModel implements MovesModel {
 
         // Step 1: Consider relocation if household is not very satisfied or if
         // household income exceed restriction for low-income dwelling
-        if (!moveOrNot(household)) {
+        if (!moveOrNot(household, housingStrategy, random)) {
             return false;
         }
 
-        final int idOldDd = household.getDwellingId();
         // Step 2: Choose new dwelling
-        int idNewDD = searchForNewDwelling(household);
+        int idNewDD = searchForNewDwelling(household, housingStrategy, random);
+        return relocate(household, idNewDD);
+    }
+
+    @Override
+    public void startSpeculation(int threads) {
+        speculationStrategies = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) {
+            speculationStrategies.add(housingStrategy.duplicate());
+        }
+        speculatedMoves.set(0);
+        reevaluatedMoves = 0;
+    }
 
+    /**
+     * Speculates (a) if this household moves and (b) where this household moves, without
+     * changing any data. Uses one of the duplicated housing strategies of {@link #startSpeculation}.
+     */
+    @Override
+    public MoveSpeculation speculate(MoveEvent event, Random random) {
+        Household household = dataContainer.getHouseholdDataManager().getHouseholdFromId(event.getHouseholdId());
+        if (household == null) {
+            return null;
+        }
+        HousingStrategy strategy;
+        try {
+            strategy = speculationStrategies.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        try {
+            speculatedMoves.incrementAndGet();
+            final boolean move = moveOrNot(household, strategy, random);
+            final int idNewDD = move ? searchForNewDwelling(household, strategy, random) : -1;
+            return new MoveSpeculation(household, dataContainer.getJobDataManager(), move, idNewDD);
+        } finally {
+            speculationStrategies.add(strategy);
+        }
+    }
+
+    /**
+     * Commits the speculated move. The move decision is evaluated again if the household has
+     * changed since the speculation in anything the decision depends on: its dwelling, size, income,
+     * household type, or the employment and job locations of its members. The dwelling search is
+     * repeated if the chosen dwelling is no longer vacant.
+     */
+    @Override
+    public boolean handleSpeculatedEvent(MoveEvent event, MoveSpeculation speculation, Random random) {
+        Household household = dataContainer.getHouseholdDataManager().getHouseholdFromId(event.getHouseholdId());
+        if (household == null) {
+            return false;
+        }
+        if (speculation == null || !speculation.isBasedOn(household, dataContainer.getJobDataManager())) {
+            reevaluatedMoves++;
+            return handleEvent(event, random);
+        }
+        if (!speculation.move) {
+            return false;
+        }
+        int idNewDD = speculation.idNewDwelling;
+        if (idNewDD > 0) {
+            final Dwelling newDwelling = dataContainer.getRealEstateDataManager().getDwelling(idNewDD);
+            if (newDwelling == null || newDwelling.getResidentId() > 0) {
+                reevaluatedMoves++;
+                idNewDD = searchForNewDwelling(household, housingStrategy, random);
+            }
+        }
+        return relocate(household, idNewDD);
+    }
+
+    @Override
+    public void endSpeculation() {
+        speculationStrategies = null;
+        logger.info("Speculated " + speculatedMoves.get() + " move decisions, of which "
+                + reevaluatedMoves + " had to be re-evaluated.");
+    }
+
+    private boolean relocate(Household household, int idNewDD) {
+        final int hhId = household.getId();
+        final int idOldDd = household.getDwellingId();
         if (idNewDD > 0) {
 
             // Step 3: Move household
@@ -196,10 +295,18 @@ public class MovesModelImpl extends AbstractModel implements MovesModel {
 
     @Override
     public int searchForNewDwelling(Household household) {
+        return searchForNewDwelling(household, housingStrategy, this.random);
+    }
+
+    /**
+     * Evaluates the candidate dwellings with the given strategy on the calling thread. Several
+     * households are searched for in parallel when move events are speculated, see {@link #speculate}.
+     */
+    private int searchForNewDwelling(Household household, HousingStrategy strategy, Random random) {
 
         // Step 1: select region
         final GeoData geoData = dataContainer.getGeoData();
-        Sampler<Region> regionSampler = new Sampler<>(geoData.getRegions().size(), Region.class, this.random);
+        Sampler<Region> regionSampler = new Sampler<>(geoData.getRegions().size(), Region.class, random);
         for (Region region : geoData.getRegions().values()) {
             double utility;
             if (dataContainer.getRealEstateDataManager().getNumberOfVacantDDinRegion(region.getId()) == 0) {
@@ -208,7 +315,7 @@ public class MovesModelImpl extends AbstractModel implements MovesModel {
                 // dwellings are available in that region.
                 utility = 0.;
             } else {
-                utility = housingStrategy.calculateRegionalUtility(household, region);
+                utility = strategy.calculateRegionalUtility(household, region);
             }
             regionSampler.incrementalAdd(region, utility);
         }
@@ -223,45 +330,30 @@ public class MovesModelImpl extends AbstractModel implements MovesModel {
         }
 
         // Step 2: select vacant dwelling in selected region
-        List<Dwelling> vacantDwellings
-                = new ArrayList<>(dataContainer.getRealEstateDataManager().getListOfVacantDwellingsInRegion(selectedRegion.getId()));
+        /** No household will evaluate more than {@link MAX_NUMBER_DWELLINGS} dwellings */
+        List<Dwelling> vacantDwellings = dataContainer.getRealEstateDataManager()
+                .sampleVacantDwellingsInRegion(selectedRegion.getId(), MAX_NUMBER_DWELLINGS, random);
         if (vacantDwellings.isEmpty()) {
             return -1;
         }
 
-        /** No household will evaluate more than {@link MAX_NUMBER_DWELLINGS} dwellings */
-        int maxNumberOfDwellings = Math.min(MAX_NUMBER_DWELLINGS, vacantDwellings.size());
-
-        UtilityUtils.reset();
-
-        Collections.shuffle(vacantDwellings, this.random);
-        for (int i = 0; i < maxNumberOfDwellings; i++) {
-            Dwelling dwelling = vacantDwellings.get(i);
-            if (housingStrategy.isHouseholdEligibleToLiveHere(household, dwelling)) {
-                if (threaded) {
-                    UtilityUtils.queue.add(new UtilityTask(i, dwelling, household));
-                } else {
-                    double util = housingStrategy.calculateHousingUtility(household, dwelling);
-                    double prob = housingStrategy.calculateSelectDwellingProbability(util);
-                    UtilityUtils.probabilities[i] = prob;
-                    UtilityUtils.dwellings[i] = dwelling;
-                }
-            } else {
-                maxNumberOfDwellings--;
+        List<Dwelling> eligibleDwellings = new ArrayList<>(vacantDwellings.size());
+        for (Dwelling dwelling : vacantDwellings) {
+            if (strategy.isHouseholdEligibleToLiveHere(household, dwelling)) {
+                eligibleDwellings.add(dwelling);
             }
         }
+        if (eligibleDwellings.isEmpty()) {
+            return -1;
+        }
 
-
-        if (threaded) {
-            try {
-                UtilityUtils.barrier.await();
-                UtilityUtils.barrier.await();
-            } catch (InterruptedException | BrokenBarrierException e) {
-                e.printStackTrace();
-            }
+        final double[] probabilities = new double[eligibleDwellings.size()];
+        for (int i = 0; i < probabilities.length; i++) {
+            double util = strategy.calculateHousingUtility(household, eligibleDwellings.get(i));
+            probabilities[i] = strategy.calculateSelectDwellingProbability(util);
         }
 
-        Sampler<Dwelling> sampler = new Sampler<>(UtilityUtils.dwellings, UtilityUtils.probabilities, this.random);
+        Sampler<Dwelling> sampler = new Sampler<>(eligibleDwellings, probabilities, random);
         try {
             return sampler.sampleObject().getId();
         } catch (SampleException e) {
@@ -270,17 +362,17 @@ public class MovesModelImpl extends AbstractModel implements MovesModel {
         }
     }
 
-    private boolean moveOrNot(Household household) {
+    private boolean moveOrNot(Household household, HousingStrategy strategy, Random random) {
         HouseholdType hhType = household.getHouseholdType();
         Dwelling dd = dataContainer.getRealEstateDataManager().getDwelling(household.getDwellingId());
-        if (!housingStrategy.isHouseholdEligibleToLiveHere(household, dd)) {
+        if (!strategy.isHouseholdEligibleToLiveHere(household, dd)) {
             return true;
         }
         final double currentUtil = satisfactionByHousehold.get(household.getId());
         final double avgSatisfaction = averageHousingSatisfaction.getOrDefault(hhType, currentUtil);
 
         final double prop = movesStrategy.getMovingProbability(avgSatisfaction, currentUtil);
-        return this.random.nextDouble() <= prop;
+        return random.nextDouble() <= prop;
     }
 
 
@@ -349,115 +441,83 @@ public class MovesModelImpl extends AbstractModel implements MovesModel {
         }
         dataContainer.getRealEstateDataManager().getDwelling(idNewDD).setResidentID(hh.getId());
         hh.setDwelling(idNewDD);
+        dataContainer.getHouseholdDataManager().updateZoneOfHousehold(hh);
         if (hh.getId() == SiloUtil.trackHh) {
             SiloUtil.trackWriter.println("Household " +
                     hh.getId() + " moved from dwelling " + idOldDD + " to dwelling " + idNewDD + ".");
         }
     }
 
-    private static class UtilityTask {
-        private final int id;
-        private final Dwelling dwelling;
-        private final Household household;
-
-        private UtilityTask(int id, Dwelling dwelling, Household household) {
-            this.id = id;
-            this.dwelling = dwelling;
-            this.household = household;
-        }
-    }
-
-    private static class UtilityUtils extends Thread {
-
-        /**
-         * The queue that each thread listens to to poll for new dwelling evaluations.
-         * Tasks are put into the queue from the main thread inside the searchForNewDwelling method
-         */
-        private static final Queue<UtilityTask> queue = new ConcurrentLinkedQueue<>();
-
-        private static CyclicBarrier barrier;
-
-        /**
-         * boolean that is used to stop threads once they're running.
-         */
-        private static boolean run = false;
-
-        /**
-         * static array that is used to store probabilities of dwelling evaluations accessed
-         * from different threads
-         */
-        private static double[] probabilities;
-
-        /**
-         * static array that is used to store dwellings of evaluations accessed
-         * from different threads
-         */
-        private static Dwelling[] dwellings;
-
-        /**
-         * the strategy for each thread that is used for dwelling evaluation
-         */
-        private HousingStrategy strategy;
-
-        private UtilityUtils(HousingStrategy strategy) {
-            this.strategy = strategy;
-        }
-
-        /**
-         * reset static probability and dwelling arrays for the next dwelling search.
-         * reset the job counter.
-         */
-        private static void reset() {
-            probabilities = new double[MAX_NUMBER_DWELLINGS];
-            dwellings = new Dwelling[MAX_NUMBER_DWELLINGS];
-        }
-
-        /**
-         * start the given number of background threads with the given housing strategy.
-         * The strategy will be duplicated for each thread to ensure thread-safety.
-         */
-        private static void startThreads(HousingStrategy strategy, int threads) {
-            run = true;
-            barrier = new CyclicBarrier(threads +1);
-            for (int i = 0; i < threads; i++) {
-                UtilityUtils thread = new UtilityUtils(strategy.duplicate());
-                thread.setDaemon(true);
-                thread.start();
+    /**
+     * Outcome of a speculated move event, together with the state of the household it was based on.
+     */
+    public static final class MoveSpeculation {
+        private final int idOldDwelling;
+        private final int householdSize;
+        private final int income;
+        private final HouseholdType householdType;
+        private final int[] jobIds;
+        private final int[] jobZones;
+        private final Coordinate[] jobCoordinates;
+        private final boolean move;
+        private final int idNewDwelling;
+
+        private MoveSpeculation(Household household, JobDataManager jobDataManager, boolean move, int idNewDwelling) {
+            this.idOldDwelling = household.getDwellingId();
+            this.householdSize = household.getHhSize();
+            this.income = HouseholdUtil.getAnnualHhIncome(household);
+            this.householdType = HouseholdUtil.defineHouseholdType(household);
+            final int size = household.getPersons().size();
+            this.jobIds = new int[size];
+            this.jobZones = new int[size];
+            this.jobCoordinates = new Coordinate[size];
+            int i = 0;
+            for (Person pp : household.getPersons().values()) {
+                final Job job = getJob(pp, jobDataManager);
+                jobIds[i] = job != null ? job.getId() : -1;
+                jobZones[i] = job != null ? job.getZoneId() : -1;
+                jobCoordinates[i] = job != null ? job.getCoordinate() : null;
+                i++;
             }
+            this.move = move;
+            this.idNewDwelling = idNewDwelling;
         }
 
         /**
-         * stop the background threads from running
+         * @return true if the household is still in the state this speculation was based on
          */
-        private static void endYear() {
-            run = false;
+        private boolean isBasedOn(Household household, JobDataManager jobDataManager) {
+            if (idOldDwelling != household.getDwellingId()
+                    || householdSize != household.getHhSize()
+                    || household.getPersons().size() != jobIds.length
+                    || income != HouseholdUtil.getAnnualHhIncome(household)
+                    || householdType != HouseholdUtil.defineHouseholdType(household)) {
+                return false;
+            }
+            int i = 0;
+            for (Person pp : household.getPersons().values()) {
+                final Job job = getJob(pp, jobDataManager);
+                if (job == null) {
+                    if (jobIds[i] != -1) {
+                        return false;
+                    }
+                } else if (jobIds[i] != job.getId() || jobZones[i] != job.getZoneId()
+                        || !Objects.equals(jobCoordinates[i], job.getCoordinate())) {
+                    return false;
+                }
+                i++;
+            }
+            return true;
         }
 
         /**
-         * when running, a thread polls the queue for utility tasks. for each task
-         * a dwelling has to be evaluated. after the evaluation, the probabilities
-         * are stored in the static array that is shared among the threads and the
-         * jobcounter is incremented
+         * @return the job of the person as the housing strategies see it, or null if the person does not work
          */
-        @Override
-        public void run() {
-            while (run) {
-                final UtilityTask poll = queue.poll();
-                if (poll != null) {
-                    final Dwelling dwelling = poll.dwelling;
-                    final double util = strategy.calculateHousingUtility(poll.household, dwelling);
-                    double probability = strategy.calculateSelectDwellingProbability(util);
-                    final int i = poll.id;
-                    probabilities[i] = probability;
-                    dwellings[i] = dwelling;
-                } else {
-                    try {
-                        barrier.await();
-                    } catch (InterruptedException | BrokenBarrierException e) {
-                        e.printStackTrace();
-                    }
-                }
+        private static Job getJob(Person pp, JobDataManager jobDataManager) {
+            if (pp.getOccupation() != Occupation.EMPLOYED || pp.getJobId() == -2) {
+                return null;
             }
+            return jobDataManager.getJobFromId(pp.getJobId());
         }
     }
 
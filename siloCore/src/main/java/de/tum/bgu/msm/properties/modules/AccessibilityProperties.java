@@ -13,6 +13,7 @@ public class AccessibilityProperties {
 
     private static final String AUTO_PEAK_SKIM = "auto.peak.sov.skim.";
     private static final String TRANSIT_PEAK_SKIM = "transit.peak.time.";
+    private static final String MAPPED_SKIM_FILE_PREFIX = "mappedSkims_";
 
     private final ResourceBundle bundle;
 
@@ -83,6 +84,23 @@ public class AccessibilityProperties {
         return Properties.get().main.baseDirectory + "skims/" +  PropertiesUtil.getStringProperty(bundle, AUTO_PEAK_SKIM + year);
     }
 
+    /**
+     * Binary skim file of the given year that is created from the car and transit skims
+     * if travel times are mapped from disk.
+     */
+    public String mappedSkimFile(int year) {
+        return Properties.get().main.baseDirectory + "skims/" + MAPPED_SKIM_FILE_PREFIX + year + ".bin";
+    }
+
+    /**
+     * Binary skim file of the given year that is created from the skims of a transport model run
+     * if travel times are mapped from disk.
+     */
+    public String simulatedMappedSkimFile(int year) {
+        return Properties.get().main.baseDirectory + "scenOutput/" + Properties.get().main.scenarioName
+                + "/skims/" + MAPPED_SKIM_FILE_PREFIX + year + ".bin";
+    }
+
     public String transitSkimFile(int year) {
         return Properties.get().main.baseDirectory + "skims/" +  PropertiesUtil.getStringProperty(bundle, TRANSIT_PEAK_SKIM + year);
     }
@@ -26,6 +26,11 @@ public class MainProperties {
      */
     public final boolean trackTime;
 
+    /**
+     * Additionally write the handling statistics by event type as JSON
+     */
+    public final boolean exportEventStatistics;
+
     /**
      * Path of the base directory. Set to the properties path by default.
      */
@@ -71,11 +76,44 @@ public class MainProperties {
      */
     public final int numberOfThreads;
 
+    /**
+     * Number of threads that set up independent data at the same time, 1 sets them up one after the other.
+     * Defaults to the number of threads. The models are always set up one after the other, once all data is set up
+     */
+    public final int setupThreads;
+
     /**
      * Returns the sub-sample of the population to be simulated in SILO
      */
     public final double scaleFactor;
 
+    /**
+     * Keep persons, households, dwellings and jobs in columnar primitive arrays instead of one object each
+     */
+    public final boolean columnarDataStore;
+
+    /**
+     * Compress the micro data files of persons, households, dwellings and jobs with gzip
+     */
+    public final boolean gzipMicroData;
+
+    /**
+     * Number of threads that write micro data files in the background while the simulation goes on
+     */
+    public final int microDataWriterThreads;
+
+    /**
+     * Years at the end of which a checkpoint of the data is written to the scenario output folder
+     */
+    public final Set<Integer> checkpointYears;
+
+    /**
+     * Checkpoint file to continue a simulation from, or empty to start from the base year data. The
+     * continuation is not identical to the original run, see
+     * {@link de.tum.bgu.msm.io.checkpoint.DataContainerCheckpoint}.
+     */
+    public final String resumeCheckpointFile;
+
     @Deprecated
     public final String prestoZoneFile;
     @Deprecated
@@ -119,6 +157,7 @@ public class MainProperties {
 
         PropertiesUtil.newPropertySubmodule("Main - runtime tracking");
         trackTime = PropertiesUtil.getBooleanProperty(bundle, "track.time", true);
+        exportEventStatistics = PropertiesUtil.getBooleanProperty(bundle, "track.time.events.json", false);
 
         PropertiesUtil.newPropertySubmodule("Main - dwelling and income input data");
         incomeBrackets = PropertiesUtil.getIntPropertyArray(bundle,"income.brackets.hh.types", new int[]{20000,40000,60000}); //munich implementation
@@ -141,7 +180,19 @@ public class MainProperties {
         housingEnvironmentImpactFile = PropertiesUtil.getStringProperty(bundle, "housing.environment.impact.file.name", "bemHousing");
 
         numberOfThreads = PropertiesUtil.getIntProperty(bundle, "number.of.threads", Runtime.getRuntime().availableProcessors());
+        setupThreads = PropertiesUtil.getIntProperty(bundle, "setup.threads", numberOfThreads);
 
         scaleFactor = PropertiesUtil.getDoubleProperty(bundle, "scale.factor", 1.);
+
+        columnarDataStore = PropertiesUtil.getBooleanProperty(bundle, "data.store.columnar", false);
+
+        PropertiesUtil.newPropertySubmodule("Main - micro data output");
+        gzipMicroData = PropertiesUtil.getBooleanProperty(bundle, "micro.data.gzip", false);
+        microDataWriterThreads = PropertiesUtil.getIntProperty(bundle, "micro.data.writer.threads", 2);
+
+        PropertiesUtil.newPropertySubmodule("Main - checkpoints");
+        checkpointYears = Arrays.stream(PropertiesUtil.getIntPropertyArray(bundle, "checkpoint.years", new int[] {-1}))
+                .boxed().filter(i -> i > 0).collect(Collectors.toSet());
+        resumeCheckpointFile = PropertiesUtil.getStringProperty(bundle, "checkpoint.resume.file", "");
     }
 }
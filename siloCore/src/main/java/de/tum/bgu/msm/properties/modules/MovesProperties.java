@@ -17,6 +17,16 @@ public final class MovesProperties {
 
     public final boolean trackRelocations;
 
+    /**
+     * Evaluate move events optimistically in parallel and commit them in event order.
+     */
+    public final boolean speculativeParallelMoves;
+
+    /**
+     * Number of consecutive events for which move decisions are speculated at once.
+     */
+    public final int speculationWindow;
+
     public final float B_TIME;
     public final float B_PT;
     public final float B_EXP_HOUSING_UTILITY;
@@ -39,6 +49,10 @@ public final class MovesProperties {
 
         trackRelocations = PropertiesUtil.getBooleanProperty(bundle, "track.relocations", true);
 
+        PropertiesUtil.newPropertySubmodule("Relocation properties - parallel processing");
+        speculativeParallelMoves = PropertiesUtil.getBooleanProperty(bundle, "moves.speculative.parallel", false);
+        speculationWindow = PropertiesUtil.getIntProperty(bundle, "moves.speculation.window", 2000);
+
         B_TIME = (float) PropertiesUtil.getDoubleProperty(bundle, "mode.choice.impedance.coefficient", 10f);
         B_PT = (float) PropertiesUtil.getDoubleProperty(bundle, "mode.choice.pt.asc", 0f);
         B_EXP_HOUSING_UTILITY = (float) PropertiesUtil.getDoubleProperty(bundle, "mc.housing.time.coefficient.ratio", 20f);
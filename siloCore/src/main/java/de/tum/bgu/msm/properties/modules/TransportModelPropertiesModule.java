@@ -53,10 +53,11 @@ public class TransportModelPropertiesModule {
     }
 
     /**
-     * Identifier for which data structure to use for travel times.
+     * Identifier for which data structure to use for travel times. MAPPED_SKIM reads the input skims
+     * like SKIM, but keeps them in a memory-mapped file instead of on the heap.
      */
     public enum TravelTimeImplIdentifier {
-        MATSIM, SKIM;
+        MATSIM, SKIM, MAPPED_SKIM;
     }
 
     public TransportModelPropertiesModule(ResourceBundle bundle) {
@@ -68,7 +69,7 @@ public class TransportModelPropertiesModule {
         PropertiesUtil.newPropertySubmodule("Transport model identifier (MITO_MATSIM, MATSIM, NONE, or empty)");
         transportModelIdentifier = TransportModelIdentifier.valueOf(PropertiesUtil.getStringProperty(bundle, "transport.model", "NONE").toUpperCase());
 
-        PropertiesUtil.newPropertySubmodule("Travel time data structure identifier (MATSIM or SKIM)");
+        PropertiesUtil.newPropertySubmodule("Travel time data structure identifier (MATSIM, SKIM or MAPPED_SKIM)");
         travelTimeImplIdentifier = TravelTimeImplIdentifier.valueOf(PropertiesUtil.getStringProperty(bundle, "travel.time", "SKIM").toUpperCase());
 
         if(transportModelIdentifier == TransportModelIdentifier.NONE && travelTimeImplIdentifier == TravelTimeImplIdentifier.MATSIM) {
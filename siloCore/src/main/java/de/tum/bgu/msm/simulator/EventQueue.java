@@ -0,0 +1,119 @@
+package de.tum.bgu.msm.simulator;
+
+import de.tum.bgu.msm.events.MicroEvent;
+import de.tum.bgu.msm.models.CompactEventModel;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Events of one year, packed into a primitive array. Each entry holds the code of the event type in
+ * the upper and a payload in the lower 32 bits. For types of {@link CompactEventModel}s the payload is
+ * the id of the subject and the event object is only created when it is requested. For all other types
+ * the payload is the index of the event object in a side list.
+ */
+final class EventQueue {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Model by event type code, or null if events of the type are kept as objects
+     */
+    private final List<CompactEventModel<?>> compactModels = new ArrayList<>();
+
+    private long[] entries = new long[INITIAL_CAPACITY];
+    private int size = 0;
+    private final List<MicroEvent> objects = new ArrayList<>();
+
+    /**
+     * Sets how events of the given type are kept. Types are numbered consecutively from 0.
+     * @param compactModel the model creating the events of this type from subject ids, or null if the
+     *                     events are added as objects
+     */
+    void setType(int type, CompactEventModel<?> compactModel) {
+        if (type == compactModels.size()) {
+            compactModels.add(compactModel);
+        } else {
+            compactModels.set(type, compactModel);
+        }
+    }
+
+    void addSubject(int type, int subjectId) {
+        add(type, subjectId);
+    }
+
+    void addEvent(int type, MicroEvent event) {
+        add(type, objects.size());
+        objects.add(event);
+    }
+
+    private void add(int type, int payload) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        entries[size++] = ((long) type << 32) | (payload & 0xFFFFFFFFL);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getType(int index) {
+        return (int) (entries[index] >>> 32);
+    }
+
+    /**
+     * @return the event at the given position, created from the subject id for compact event types
+     */
+    MicroEvent getEvent(int index) {
+        final long entry = entries[index];
+        final int payload = (int) entry;
+        final CompactEventModel<?> model = compactModels.get((int) (entry >>> 32));
+        return model == null ? objects.get(payload) : model.createEvent(payload);
+    }
+
+    /**
+     * Shuffles the events in place. Draws the same random numbers and results in the same order as
+     * {@link java.util.Collections#shuffle(List, Random)} for a list of the same events.
+     */
+    void shuffle(Random random) {
+        for (int i = size; i > 1; i--) {
+            final int j = random.nextInt(i);
+            final long entry = entries[i - 1];
+            entries[i - 1] = entries[j];
+            entries[j] = entry;
+        }
+    }
+
+    /**
+     * @return a read only view of the events in their current order. Compact events are created on
+     * every access.
+     */
+    List<MicroEvent> asList() {
+        return new AbstractList<MicroEvent>() {
+            @Override
+            public MicroEvent get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index " + index + " for " + size + " events");
+                }
+                return getEvent(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Removes all events. Registered types and the capacity for the next year are kept.
+     */
+    void clear() {
+        size = 0;
+        objects.clear();
+    }
+}
@@ -0,0 +1,162 @@
+package de.tum.bgu.msm.simulator;
+
+import de.tum.bgu.msm.utils.TimeTracker;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Setup steps of the data and the models with the steps they depend on. A step starts as soon as all steps it
+ * depends on are done, so independent steps, e.g. reading skims and reading development capacities, run at the
+ * same time on a bounded number of threads.
+ *
+ * Dependencies have to be added before the steps that depend on them, so the steps form an acyclic graph and the
+ * order in which they were added is a valid order. With a single thread, the steps run one after the other in
+ * this order on the calling thread.
+ */
+public final class SetupGraph {
+
+    private final static Logger logger = Logger.getLogger(SetupGraph.class);
+
+    private final int numberOfThreads;
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+
+    public SetupGraph(int numberOfThreads) {
+        this.numberOfThreads = Math.max(1, numberOfThreads);
+    }
+
+    /**
+     * @param name unique name of the step, its time is recorded as SetupOf + name
+     * @param dependencies names of the steps that have to be done before this step
+     */
+    public void addStep(String name, Runnable setup, String... dependencies) {
+        if (steps.containsKey(name)) {
+            throw new IllegalArgumentException("Setup step " + name + " was already added.");
+        }
+        final Step step = new Step(name, setup);
+        for (String dependency : dependencies) {
+            final Step before = steps.get(dependency);
+            if (before == null) {
+                throw new IllegalArgumentException("Setup step " + name + " depends on " + dependency
+                        + " which has to be added first.");
+            }
+            if (!step.dependencies.contains(before)) {
+                step.dependencies.add(before);
+                before.dependents.add(step);
+            }
+        }
+        steps.put(name, step);
+    }
+
+    public boolean containsStep(String name) {
+        return steps.containsKey(name);
+    }
+
+    /**
+     * @return the names of all steps added so far, in the order they were added
+     */
+    public String[] getStepNames() {
+        return steps.keySet().toArray(new String[0]);
+    }
+
+    public void run() {
+        run(null);
+    }
+
+    /**
+     * Runs all steps and records the time of each step in the time tracker, if given. The time tracker is only
+     * used by the calling thread.
+     */
+    public void run(TimeTracker timeTracker) {
+        final long start = System.nanoTime();
+        if (numberOfThreads == 1 || steps.size() <= 1) {
+            for (Step step : steps.values()) {
+                record(step, step.call(), timeTracker);
+            }
+        } else {
+            runConcurrently(timeTracker);
+        }
+        logger.info("  Set up " + steps.size() + " steps in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        if (timeTracker != null) {
+            timeTracker.reset();
+        }
+    }
+
+    private void runConcurrently(TimeTracker timeTracker) {
+        final AtomicInteger counter = new AtomicInteger();
+        final ExecutorService service = Executors.newFixedThreadPool(Math.min(numberOfThreads, steps.size()), runnable -> {
+            final Thread thread = new Thread(runnable, "setup-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final CompletionService<Long> completionService = new ExecutorCompletionService<>(service);
+        final Map<Future<Long>, Step> running = new LinkedHashMap<>();
+        final Map<Step, Integer> openDependencies = new LinkedHashMap<>();
+        try {
+            for (Step step : steps.values()) {
+                openDependencies.put(step, step.dependencies.size());
+                if (step.dependencies.isEmpty()) {
+                    running.put(completionService.submit(step::call), step);
+                }
+            }
+            int done = 0;
+            while (done < steps.size()) {
+                final Future<Long> future = completionService.take();
+                final Step step = running.remove(future);
+                record(step, future.get(), timeTracker);
+                done++;
+                for (Step dependent : step.dependents) {
+                    final int open = openDependencies.merge(dependent, -1, Integer::sum);
+                    if (open == 0) {
+                        running.put(completionService.submit(dependent::call), dependent);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    private static void record(Step step, long millis, TimeTracker timeTracker) {
+        if (timeTracker != null) {
+            timeTracker.record("SetupOf" + step.name, millis);
+        }
+    }
+
+    private static final class Step {
+
+        private final String name;
+        private final Runnable setup;
+        private final List<Step> dependencies = new ArrayList<>();
+        private final List<Step> dependents = new ArrayList<>();
+
+        private Step(String name, Runnable setup) {
+            this.name = name;
+            this.setup = setup;
+        }
+
+        /**
+         * @return the time of the step in milliseconds
+         */
+        private long call() {
+            final long start = System.nanoTime();
+            setup.run();
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+}
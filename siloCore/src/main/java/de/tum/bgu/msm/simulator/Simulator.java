@@ -3,16 +3,20 @@ package de.tum.bgu.msm.simulator;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
 import com.google.common.math.LongMath;
+import de.tum.bgu.msm.data.aggregation.MicroDataAggregator;
 import de.tum.bgu.msm.events.MicroEvent;
 import de.tum.bgu.msm.io.output.ResultsMonitor;
 import de.tum.bgu.msm.models.AbstractModel;
+import de.tum.bgu.msm.models.CompactEventModel;
 import de.tum.bgu.msm.models.EventModel;
 import de.tum.bgu.msm.models.ModelUpdateListener;
+import de.tum.bgu.msm.models.SpeculativeEventModel;
 import de.tum.bgu.msm.utils.SiloUtil;
 import de.tum.bgu.msm.utils.TimeTracker;
 import org.apache.log4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Generates a series of events in random order
@@ -28,17 +32,40 @@ public final class Simulator {
     private final Map<Class<? extends MicroEvent>, EventModel> models = new LinkedHashMap<>();
     private final List<ModelUpdateListener> modelUpdateListeners = new ArrayList<>();
 
-    private final List<MicroEvent> events = new ArrayList<>();
+    /**
+     * Registered event classes and their models by event type code of the {@link #events}
+     */
+    private final List<Class<? extends MicroEvent>> eventTypes = new ArrayList<>();
+    private final List<EventModel> eventModels = new ArrayList<>();
+    private final EventQueue events = new EventQueue();
     private final TimeTracker timeTracker;
+    private final MicroDataAggregator aggregator;
 
     private Set<ResultsMonitor> resultsMonitors = new HashSet<>() ;
 
-    public Simulator(TimeTracker timeTracker) {
+    /**
+     * Number of consecutive events for which {@link SpeculativeEventModel}s speculate in parallel.
+     * Speculation is disabled if not positive.
+     */
+    private int speculationWindow = 0;
+    private int speculationThreads = 1;
+
+    public Simulator(TimeTracker timeTracker, MicroDataAggregator aggregator) {
         this.timeTracker = timeTracker;
+        this.aggregator = aggregator;
     }
 
     public <T extends MicroEvent> void registerEventModel(Class<T> klass, EventModel<T> model) {
         this.models.put(klass, model);
+        int type = eventTypes.indexOf(klass);
+        if (type < 0) {
+            type = eventTypes.size();
+            eventTypes.add(klass);
+            eventModels.add(model);
+        } else {
+            eventModels.set(type, model);
+        }
+        events.setType(type, model instanceof CompactEventModel ? (CompactEventModel<T>) model : null);
         logger.info("Registered " + model.getClass().getSimpleName() + " for: " + klass.getSimpleName());
     }
 
@@ -47,6 +74,18 @@ public final class Simulator {
         logger.info("Registered annual model " + model.getClass().getSimpleName());
     }
 
+    /**
+     * Enables optimistic parallel processing of events handled by {@link SpeculativeEventModel}s.
+     * Events are processed in windows of the given size. Within a window, the outcomes of all
+     * speculative events are computed in parallel against the state at the start of the window and
+     * then committed together with all other events in the original order.
+     */
+    public void enableSpeculativeProcessing(int window, int threads) {
+        this.speculationWindow = window;
+        this.speculationThreads = Math.max(threads, 1);
+        logger.info("Enabled speculative event processing with windows of " + window + " events on " + speculationThreads + " threads");
+    }
+
     public void registerResultsMonitor(ResultsMonitor resultsMonitor) {
         this.resultsMonitors.add(resultsMonitor);
         logger.info("Registered results monitor " + resultsMonitor.getClass().getSimpleName());
@@ -54,22 +93,47 @@ public final class Simulator {
 
 
     public void setup() {
-        logger.info("  Setting up annual models");
-        timeTracker.reset();
+        // the model steps run one after the other, so more threads would not set them up faster
+        SetupGraph graph = new SetupGraph(1);
+        addSetupSteps(graph);
+        graph.run(timeTracker);
+    }
+
+    /**
+     * Adds the setup of the annual models, event models and results monitors to the graph, once the given steps,
+     * e.g. the setup of the data, are done. The models do not declare which data or models they read or change
+     * during their setup, e.g. the transport model may replace travel times, so they are set up one after the
+     * other in the order in which they were registered: annual models, event models and then results monitors.
+     */
+    public void addSetupSteps(SetupGraph graph, String... dependencies) {
+        logger.info("  Setting up annual and event models");
+        String[] previous = dependencies;
         for(ModelUpdateListener modelUpdateListener : modelUpdateListeners) {
-            modelUpdateListener.setup();
-            timeTracker.recordAndReset("SetupOf" + modelUpdateListener.getClass().getSimpleName());
+            String name = uniqueStepName(graph, modelUpdateListener.getClass());
+            graph.addStep(name, modelUpdateListener::setup, previous);
+            previous = new String[] {name};
         }
-        logger.info("  Setting up event models");
         for(@SuppressWarnings("unchecked") EventModel<? extends MicroEvent> model: models.values()) {
-            model.setup();
-            timeTracker.recordAndReset("SetupOf" + model.getClass().getSimpleName());
+            String name = uniqueStepName(graph, model.getClass());
+            graph.addStep(name, model::setup, previous);
+            previous = new String[] {name};
         }
 
-        for (ResultsMonitor resultsMonitor : resultsMonitors){
-            resultsMonitor.setup();
-        }
+        // the accumulators are registered one after the other
+        graph.addStep(uniqueStepName(graph, ResultsMonitor.class), () -> {
+            for (ResultsMonitor resultsMonitor : resultsMonitors){
+                resultsMonitor.setup();
+                resultsMonitor.registerAccumulators(aggregator);
+            }
+        }, previous);
+    }
 
+    private static String uniqueStepName(SetupGraph graph, Class<?> klass) {
+        String name = klass.getSimpleName();
+        for (int i = 2; graph.containsStep(name); i++) {
+            name = klass.getSimpleName() + i;
+        }
+        return name;
     }
 
     public void simulate(int year) {
@@ -86,36 +150,143 @@ public final class Simulator {
             timeTracker.recordAndReset("PreparationFor" + modelUpdateListener.getClass().getSimpleName());
         }
         logger.info("  Preparing and creating events");
-        for(EventModel<MicroEvent> model: models.values()) {
+        for (int type = 0; type < eventModels.size(); type++) {
+            final EventModel<MicroEvent> model = eventModels.get(type);
             model.prepareYear(year);
-            events.addAll(model.getEventsForCurrentYear(year));
+            final int eventType = type;
+            if (model instanceof CompactEventModel) {
+                ((CompactEventModel<?>) model).addEventsForCurrentYear(year, id -> events.addSubject(eventType, id));
+            } else {
+                for (MicroEvent event : model.getEventsForCurrentYear(year)) {
+                    events.addEvent(eventType, event);
+                }
+            }
             timeTracker.recordAndReset("PreparationFor" + model.getClass().getSimpleName());
         }
         logger.info("  Created " + events.size() + " events to simulate.");
         logger.info("  Shuffling events...");
-        Collections.shuffle(events, SiloUtil.getRandomObject());
+        events.shuffle(SiloUtil.getRandomObject());
         eventCounter.clear();
     }
 
     private void processEvents() {
+        if (speculationWindow > 0 && models.values().stream().anyMatch(m -> m instanceof SpeculativeEventModel)) {
+            processEventsSpeculatively();
+            return;
+        }
         logger.info("  Processing events...");
-        int counter = 0;
-        for (MicroEvent e: events) {
+        for (int counter = 0; counter < events.size(); counter++) {
             if (LongMath.isPowerOfTwo(counter)) {
                 logger.info("Handled " + counter + " events.");
             }
-//            timeTracker.reset();
-            Class<? extends MicroEvent> klass= e.getClass();
+            final int type = events.getType(counter);
+            final Class<? extends MicroEvent> klass = eventTypes.get(type);
+            final MicroEvent e = events.getEvent(counter);
 
-            boolean success = this.models.get(klass).handleEvent(e);
+            final long start = timeTracker.startEvent();
+            boolean success = eventModels.get(type).handleEvent(e);
+            timeTracker.endEvent(klass, success, start);
             if(success) {
                 eventCounter.add(klass);
             }
-            counter++;
-//            timeTracker.record(klass.getSimpleName());
         }
     }
 
+    private void processEventsSpeculatively() {
+        logger.info("  Processing events speculatively...");
+        final Random random = SiloUtil.getRandomObject();
+        final ExecutorService executor = Executors.newFixedThreadPool(speculationThreads);
+        for (EventModel model : models.values()) {
+            if (model instanceof SpeculativeEventModel) {
+                ((SpeculativeEventModel) model).startSpeculation(speculationThreads);
+            }
+        }
+        try {
+            int nextLog = 0;
+            long speculationNanos = 0;
+            for (int start = 0; start < events.size(); start += speculationWindow) {
+                final int end = Math.min(start + speculationWindow, events.size());
+
+                // Each speculative event gets its own random number generator, seeded in event order,
+                // so that the results do not depend on thread scheduling.
+                final Map<Integer, Random> randomByEvent = new HashMap<>();
+                for (int i = start; i < end; i++) {
+                    if (eventModels.get(events.getType(i)) instanceof SpeculativeEventModel) {
+                        randomByEvent.put(i, new Random(random.nextLong()));
+                    }
+                }
+                final long speculationStart = System.nanoTime();
+                final Map<Integer, Object> speculations = speculate(executor, randomByEvent);
+                speculationNanos += System.nanoTime() - speculationStart;
+
+                for (int i = start; i < end; i++) {
+                    if (i >= nextLog) {
+                        logger.info("Handled " + i + " events.");
+                        nextLog = Math.max(1, nextLog * 2);
+                    }
+                    final int type = events.getType(i);
+                    MicroEvent e = events.getEvent(i);
+                    Class<? extends MicroEvent> klass = eventTypes.get(type);
+                    EventModel model = eventModels.get(type);
+                    boolean success;
+                    final long eventStart = timeTracker.startEvent();
+                    if (randomByEvent.containsKey(i)) {
+                        success = ((SpeculativeEventModel) model).handleSpeculatedEvent(e, speculations.get(i), randomByEvent.get(i));
+                    } else {
+                        success = model.handleEvent(e);
+                    }
+                    timeTracker.endEvent(klass, success, eventStart);
+                    if (success) {
+                        eventCounter.add(klass);
+                    }
+                }
+            }
+            timeTracker.record("SpeculationOfEvents", speculationNanos / 1_000_000);
+        } finally {
+            executor.shutdown();
+            for (EventModel model : models.values()) {
+                if (model instanceof SpeculativeEventModel) {
+                    ((SpeculativeEventModel) model).endSpeculation();
+                }
+            }
+        }
+    }
+
+    /**
+     * Speculates the outcomes of the given events in parallel.
+     * @return speculated outcome by event index
+     */
+    private Map<Integer, Object> speculate(ExecutorService executor, Map<Integer, Random> randomByEvent) {
+        final Map<Integer, Object> speculations = new ConcurrentHashMap<>();
+        final List<Integer> indices = new ArrayList<>(randomByEvent.keySet());
+        final int partitionSize = indices.size() / speculationThreads + 1;
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for (int from = 0; from < indices.size(); from += partitionSize) {
+            final List<Integer> partition = indices.subList(from, Math.min(from + partitionSize, indices.size()));
+            tasks.add(() -> {
+                for (Integer i : partition) {
+                    MicroEvent e = events.getEvent(i);
+                    Object speculation = ((SpeculativeEventModel) eventModels.get(events.getType(i))).speculate(e, randomByEvent.get(i));
+                    if (speculation != null) {
+                        speculations.put(i, speculation);
+                    }
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        return speculations;
+    }
+
     private void finishYear(int year) {
         for(ModelUpdateListener modelUpdateListener : modelUpdateListeners) {
             modelUpdateListener.endYear(year);
@@ -124,8 +295,11 @@ public final class Simulator {
             model.endYear(year);
         }
 
+        timeTracker.reset();
+        aggregator.aggregate();
+        timeTracker.recordAndReset("AggregationOfResults");
         for (ResultsMonitor resultsMonitor : resultsMonitors){
-            resultsMonitor.endYear(year, eventCounter, events);
+            resultsMonitor.endYear(year, eventCounter, events.asList());
         }
 
         events.clear();
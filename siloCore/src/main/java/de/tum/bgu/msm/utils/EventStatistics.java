@@ -0,0 +1,106 @@
+package de.tum.bgu.msm.utils;
+
+/**
+ * Accumulates handling statistics for one type of event within one year: number of events, number
+ * of successful events, total handling time, a log-linear histogram of handling times (used for
+ * percentiles) and the allocation of a sample of the events.
+ * Recording an event costs an array increment and a few additions, so it can be left on in production.
+ */
+public final class EventStatistics {
+
+    /**
+     * Each power of two of nanoseconds is split into this many linear sub-buckets (relative error < 12.5%).
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private long count;
+    private long successes;
+    private long totalNanos;
+    private final long[] histogram = new long[BUCKETS];
+
+    private long sampledNanos;
+    private long sampledBytes;
+
+    public void record(boolean success, long nanos) {
+        count++;
+        if (success) {
+            successes++;
+        }
+        totalNanos += nanos;
+        histogram[bucket(nanos)]++;
+    }
+
+    /**
+     * Records the allocated bytes of a sampled event and its handling time.
+     */
+    public void recordAllocation(long bytes, long nanos) {
+        sampledBytes += bytes;
+        sampledNanos += nanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSuccessRate() {
+        return count == 0 ? 0 : (double) successes / count;
+    }
+
+    public double getTotalMillis() {
+        return totalNanos / 1e6;
+    }
+
+    public double getMeanMicros() {
+        return count == 0 ? 0 : totalNanos / 1e3 / count;
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     * @return upper bound of the histogram bucket that contains the given percentile, in microseconds
+     */
+    public double getPercentileMicros(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = (long) Math.ceil(percentile * count);
+        long cumulated = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulated += histogram[i];
+            if (cumulated >= rank) {
+                return upperBound(i) / 1e3;
+            }
+        }
+        return upperBound(BUCKETS - 1) / 1e3;
+    }
+
+    /**
+     * @return allocated megabytes per second of handling time of the sampled events, or
+     * NaN if no allocations were sampled
+     */
+    public double getAllocationRateMbPerSecond() {
+        if (sampledNanos == 0) {
+            return Double.NaN;
+        }
+        return (sampledBytes / 1e6) / (sampledNanos / 1e9);
+    }
+
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        final int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
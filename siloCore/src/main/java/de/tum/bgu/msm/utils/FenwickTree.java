@@ -0,0 +1,143 @@
+package de.tum.bgu.msm.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Binary indexed (Fenwick) tree over non-negative weights. Changing a weight and drawing an index
+ * with a probability proportional to its weight both take O(log n), so a sampler can be kept up to
+ * date when only a few of its weights change between draws, instead of being set up again for
+ * every draw as the {@link Sampler}.
+ */
+public final class FenwickTree {
+
+    private final double[] values;
+
+    /**
+     * Partial sums, 1-based
+     */
+    private final double[] tree;
+
+    private final int highestStep;
+
+    public FenwickTree(int size) {
+        this.values = new double[size];
+        this.tree = new double[size + 1];
+        this.highestStep = size == 0 ? 0 : Integer.highestOneBit(size);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public double get(int index) {
+        return values[index];
+    }
+
+    public void set(int index, double value) {
+        if (!(value >= 0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Weight has to be finite and non-negative but was " + value);
+        }
+        final double delta = value - values[index];
+        values[index] = value;
+        if (delta != 0) {
+            for (int i = index + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+    }
+
+    public void add(int index, double delta) {
+        set(index, values[index] + delta);
+    }
+
+    /**
+     * Replaces all weights in O(n). This also discards the rounding errors that the partial
+     * sums collect over many updates.
+     */
+    public void assign(double[] weights) {
+        if (weights.length != values.length) {
+            throw new IllegalArgumentException("Expected " + values.length + " weights but got " + weights.length);
+        }
+        Arrays.fill(tree, 0);
+        for (int i = 0; i < weights.length; i++) {
+            if (!(weights[i] >= 0) || Double.isInfinite(weights[i])) {
+                throw new IllegalArgumentException("Weight has to be finite and non-negative but was " + weights[i]);
+            }
+            values[i] = weights[i];
+            tree[i + 1] += weights[i];
+            final int parent = (i + 1) + ((i + 1) & -(i + 1));
+            if (parent < tree.length) {
+                tree[parent] += tree[i + 1];
+            }
+        }
+    }
+
+    /**
+     * Recomputes the partial sums from the current weights.
+     */
+    public void refresh() {
+        assign(values.clone());
+    }
+
+    public double getTotal() {
+        return getSum(values.length);
+    }
+
+    /**
+     * @return the sum of the weights at the indices below end
+     */
+    public double getSum(int end) {
+        double sum = 0;
+        for (int i = end; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return the first index at which the cumulated weight exceeds the target, or {@link #size()}
+     * if the target is not smaller than the total weight
+     */
+    public int find(double target) {
+        int position = 0;
+        double remaining = target;
+        for (int step = highestStep; step > 0; step >>= 1) {
+            final int next = position + step;
+            if (next < tree.length && tree[next] <= remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Draws an index with a probability proportional to its weight.
+     * @return the index or -1 if all weights are zero
+     */
+    public int sample(Random random) {
+        final double total = getTotal();
+        if (!(total > 0)) {
+            return -1;
+        }
+        final double target = random.nextDouble() * total;
+        final int index = find(target);
+        if (index < values.length && values[index] > 0) {
+            return index;
+        }
+        // the partial sums drifted from the weights, fall back to the exact weights
+        double cumulated = 0;
+        int lastPositive = -1;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] > 0) {
+                cumulated += values[i];
+                lastPositive = i;
+                if (cumulated > target) {
+                    return i;
+                }
+            }
+        }
+        return lastPositive;
+    }
+}
@@ -0,0 +1,189 @@
+package de.tum.bgu.msm.utils;
+
+import org.apache.log4j.Logger;
+import org.locationtech.jts.algorithm.locate.SimplePointInAreaLocator;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Location;
+import org.locationtech.jts.geom.Polygonal;
+import org.locationtech.jts.triangulate.ConformingDelaunayTriangulationBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Draws uniformly distributed coordinates within a polygonal geometry. The geometry is triangulated once and a
+ * triangle is drawn from an alias table of the triangle areas, so that a coordinate takes three random numbers and
+ * no allocation besides the result. The same sequence of random numbers gives the same coordinates.
+ *
+ * A sampler is immutable after construction and can be shared by threads, each with its own {@link Random}.
+ */
+public final class PolygonPointSampler {
+
+    private final static Logger logger = Logger.getLogger(PolygonPointSampler.class);
+
+    /**
+     * Relative difference between the area of the triangles and the geometry up to which the triangulation is used
+     */
+    private static final double AREA_TOLERANCE = 1e-6;
+
+    /**
+     * Corners of the triangles, x and y of the three corners of triangle i at [6 * i, 6 * i + 6)
+     */
+    private final double[] triangles;
+    private final double[] probability;
+    private final int[] alias;
+
+    /**
+     * Only used to draw by rejection if the geometry could not be triangulated
+     */
+    private final Geometry geometry;
+    private final Envelope envelope;
+
+    public PolygonPointSampler(Geometry geometry) {
+        if (!(geometry instanceof Polygonal) || !(geometry.getArea() > 0)) {
+            throw new IllegalArgumentException("Random coordinates can only be drawn within polygons with an area.");
+        }
+        this.geometry = geometry;
+        this.envelope = geometry.getEnvelopeInternal();
+        this.triangles = triangulate(geometry);
+
+        final int numberOfTriangles = triangles.length / 6;
+        final double[] areas = new double[numberOfTriangles];
+        double totalArea = 0;
+        for (int i = 0; i < numberOfTriangles; i++) {
+            areas[i] = area(triangles, 6 * i);
+            totalArea += areas[i];
+        }
+        if (numberOfTriangles == 0 || Math.abs(totalArea - geometry.getArea()) > AREA_TOLERANCE * geometry.getArea()) {
+            logger.warn("Could not triangulate geometry with an area of " + geometry.getArea()
+                    + ". Random coordinates are drawn by rejection from its envelope.");
+            this.probability = null;
+            this.alias = null;
+        } else {
+            this.probability = new double[numberOfTriangles];
+            this.alias = new int[numberOfTriangles];
+            buildAliasTable(areas, totalArea);
+        }
+    }
+
+    /**
+     * @return the number of triangles or 0 if coordinates are drawn by rejection
+     */
+    public int getNumberOfTriangles() {
+        return probability == null ? 0 : probability.length;
+    }
+
+    public Coordinate sample(Random random) {
+        if (probability == null) {
+            return sampleByRejection(random);
+        }
+        final double scaled = random.nextDouble() * probability.length;
+        int triangle = (int) scaled;
+        if (scaled - triangle >= probability[triangle]) {
+            triangle = alias[triangle];
+        }
+        double u = random.nextDouble();
+        double v = random.nextDouble();
+        if (u + v > 1) {
+            u = 1 - u;
+            v = 1 - v;
+        }
+        final int offset = 6 * triangle;
+        final double ax = triangles[offset];
+        final double ay = triangles[offset + 1];
+        return new Coordinate(ax + u * (triangles[offset + 2] - ax) + v * (triangles[offset + 4] - ax),
+                ay + u * (triangles[offset + 3] - ay) + v * (triangles[offset + 5] - ay));
+    }
+
+    private Coordinate sampleByRejection(Random random) {
+        final Coordinate coordinate = new Coordinate();
+        do {
+            coordinate.x = envelope.getMinX() + envelope.getWidth() * random.nextDouble();
+            coordinate.y = envelope.getMinY() + envelope.getHeight() * random.nextDouble();
+        } while (SimplePointInAreaLocator.locate(coordinate, geometry) == Location.EXTERIOR);
+        return coordinate;
+    }
+
+    /**
+     * Triangulates the geometry with its boundaries as constraints, so that every triangle lies either inside
+     * or outside of the geometry, and keeps the triangles inside
+     */
+    private static double[] triangulate(Geometry geometry) {
+        final Geometry triangulation;
+        try {
+            final ConformingDelaunayTriangulationBuilder builder = new ConformingDelaunayTriangulationBuilder();
+            builder.setSites(geometry);
+            builder.setConstraints(geometry);
+            triangulation = builder.getTriangles(geometry.getFactory());
+        } catch (RuntimeException e) {
+            logger.warn("Triangulation failed: " + e.getMessage());
+            return new double[0];
+        }
+        final List<double[]> inside = new ArrayList<>();
+        for (int i = 0; i < triangulation.getNumGeometries(); i++) {
+            final Coordinate[] corners = triangulation.getGeometryN(i).getCoordinates();
+            final double[] triangle = {corners[0].x, corners[0].y, corners[1].x, corners[1].y, corners[2].x, corners[2].y};
+            final Coordinate centroid = new Coordinate((triangle[0] + triangle[2] + triangle[4]) / 3,
+                    (triangle[1] + triangle[3] + triangle[5]) / 3);
+            if (area(triangle, 0) > 0 && SimplePointInAreaLocator.locate(centroid, geometry) == Location.INTERIOR) {
+                inside.add(triangle);
+            }
+        }
+        final double[] triangles = new double[6 * inside.size()];
+        for (int i = 0; i < inside.size(); i++) {
+            System.arraycopy(inside.get(i), 0, triangles, 6 * i, 6);
+        }
+        return triangles;
+    }
+
+    private static double area(double[] triangles, int offset) {
+        return Math.abs((triangles[offset + 2] - triangles[offset]) * (triangles[offset + 5] - triangles[offset + 1])
+                - (triangles[offset + 4] - triangles[offset]) * (triangles[offset + 3] - triangles[offset + 1])) / 2;
+    }
+
+    /**
+     * Vose's alias method, each triangle i is kept with probability[i] or replaced by alias[i] otherwise
+     */
+    private void buildAliasTable(double[] areas, double totalArea) {
+        final int n = areas.length;
+        final double[] scaled = new double[n];
+        final Deque<Integer> small = new ArrayDeque<>();
+        final Deque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            scaled[i] = areas[i] * n / totalArea;
+            if (scaled[i] < 1) {
+                small.push(i);
+            } else {
+                large.push(i);
+            }
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            final int less = small.pop();
+            final int more = large.pop();
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small.push(more);
+            } else {
+                large.push(more);
+            }
+        }
+        // the remaining triangles are only left over due to rounding and are always kept
+        while (!large.isEmpty()) {
+            final int i = large.pop();
+            probability[i] = 1;
+            alias[i] = i;
+        }
+        while (!small.isEmpty()) {
+            final int i = small.pop();
+            probability[i] = 1;
+            alias[i] = i;
+        }
+    }
+}
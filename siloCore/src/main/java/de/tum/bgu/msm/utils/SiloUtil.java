@@ -7,6 +7,7 @@ import de.tum.bgu.msm.common.matrix.Matrix;
 import de.tum.bgu.msm.container.DataContainer;
 import de.tum.bgu.msm.container.ModelContainer;
 import de.tum.bgu.msm.data.SummarizeData;
+import de.tum.bgu.msm.data.aggregation.MicroDataAggregator;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.properties.PropertiesUtil;
 import omx.OmxMatrix;
@@ -36,7 +37,9 @@ public class SiloUtil {
     private final static Logger logger = Logger.getLogger(SiloUtil.class);
 
     private static final String TIME_TRACKER_FILE = "timeTracker.csv";
-    private static Random rand;
+    private static final String EVENT_STATISTICS_FILE = "eventStatistics.json";
+    private static RestorableRandom rand;
+    private static final List<RestorableRandom> providedRandoms = new ArrayList<>();
     public static int trackHh;
     public static int trackPp;
     public static int trackDd;
@@ -174,21 +177,63 @@ public class SiloUtil {
 
     private static void initializeRandomNumber(int seed) {
         if (seed == -1)
-            rand = new Random();
+            rand = new RestorableRandom();
         else
-            rand = new Random(seed);
+            rand = new RestorableRandom(seed);
+        synchronized (providedRandoms) {
+            providedRandoms.clear();
+        }
     }
 
 
     public static Random getRandomObject() {
         if(rand == null) {
-            rand = new Random(42);
+            rand = new RestorableRandom(42);
         }
         return rand;
     }
 
     public static Random provideNewRandom() {
-        return new Random(getRandomObject().nextInt());
+        final RestorableRandom random = new RestorableRandom(getRandomObject().nextInt());
+        synchronized (providedRandoms) {
+            providedRandoms.add(random);
+        }
+        return random;
+    }
+
+    /**
+     * Writes the state of the global random number generator and of all generators provided by
+     * {@link #provideNewRandom()}, in the order in which they were provided.
+     */
+    public static void writeRandomStates(DataOutput out) throws IOException {
+        getRandomObject();
+        synchronized (providedRandoms) {
+            out.writeInt(providedRandoms.size());
+            rand.writeState(out);
+            for (RestorableRandom random : providedRandoms) {
+                random.writeState(out);
+            }
+        }
+    }
+
+    /**
+     * Restores the states written by {@link #writeRandomStates}. The same number of generators has to be
+     * provided in the same order as in the run that wrote the states, i.e. the models have to be set up
+     * the same way.
+     */
+    public static void readRandomStates(DataInput in) throws IOException {
+        getRandomObject();
+        synchronized (providedRandoms) {
+            final int numberOfRandoms = in.readInt();
+            if (numberOfRandoms != providedRandoms.size()) {
+                throw new IllegalStateException("Checkpoint holds " + numberOfRandoms + " random number generators of models, but "
+                        + providedRandoms.size() + " were provided in this run. The models have to be set up as in the run that wrote the checkpoint.");
+            }
+            rand.readState(in);
+            for (RestorableRandom random : providedRandoms) {
+                random.readState(in);
+            }
+        }
     }
 
     public static float getRandomNumberAsFloat() {
@@ -1137,7 +1182,8 @@ public class SiloUtil {
     }
 
 
-    public static void summarizeMicroData (int year, ModelContainer modelContainer, DataContainer dataContainer) {
+    public static void summarizeMicroData (int year, ModelContainer modelContainer, DataContainer dataContainer,
+                                           MicroDataAggregator aggregator) {
         // aggregate micro data
 
         if (trackHh != -1 || trackPp != -1 || trackDd != -1)
@@ -1146,7 +1192,7 @@ public class SiloUtil {
 
 
         SummarizeData.resultFileSpatial("Year " + year);
-        SummarizeData.summarizeSpatially(year, dataContainer);
+        SummarizeData.summarizeSpatially(year, dataContainer, aggregator);
         if (Properties.get().main.createHousingEnvironmentImpactFile) {
             SummarizeData.summarizeHousing(year, dataContainer);
         }
@@ -1161,5 +1207,11 @@ public class SiloUtil {
                 Properties.get().main.scenarioName + "/" + TIME_TRACKER_FILE, startYear != Properties.get().main.baseYear);
         pw.write(timeTracker.toString());
         pw.close();
+        if (Properties.get().main.exportEventStatistics) {
+            pw = openFileForSequentialWriting(Properties.get().main.baseDirectory + "scenOutput/" +
+                    Properties.get().main.scenarioName + "/" + EVENT_STATISTICS_FILE, false);
+            pw.write(timeTracker.eventStatisticsToJson());
+            pw.close();
+        }
     }
 }
\ No newline at end of file
@@ -5,14 +5,49 @@ import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Table;
+import com.google.gson.GsonBuilder;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
 
 public class TimeTracker {
 
+    /**
+     * Only every n-th event is measured for allocations, as querying the allocated bytes
+     * of a thread is more expensive than reading the clock.
+     */
+    private static final int ALLOCATION_SAMPLING_INTERVAL = 64;
+
+    private static final String[] EVENT_METRICS = {"count", "successRate", "totalMillis", "meanMicros", "p99Micros", "allocMBperS"};
+
     private int currentYear;
     private final Multiset<String> currentYearRecords = HashMultiset.create();
     private final Timer timer = new Timer().start();
     private final Table<Integer, String, Integer> timeRecords = HashBasedTable.create();
 
+    private final Map<String, EventStatistics> currentYearEvents = new HashMap<>();
+    private final Map<Integer, Map<String, Map<String, Double>>> eventRecords = new TreeMap<>();
+
+    private final com.sun.management.ThreadMXBean threadBean;
+    private int eventsSinceAllocationSample = 0;
+    private long allocationAtEventStart = -1;
+
+    public TimeTracker() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threadBean = (com.sun.management.ThreadMXBean) bean;
+        } else {
+            threadBean = null;
+        }
+    }
+
     public void reset() {
         timer.reset().start();
     }
@@ -26,6 +61,39 @@ public class TimeTracker {
         reset();
     }
 
+    /**
+     * Adds the given time to the record of the identifier, independent of the timer.
+     */
+    public void record(String identifier, long millis) {
+        currentYearRecords.add(identifier, (int) millis);
+    }
+
+    /**
+     * To be called before an event is handled.
+     * @return the start time of the event in nanoseconds, to be passed to {@link #endEvent}
+     */
+    public long startEvent() {
+        if (threadBean != null && ++eventsSinceAllocationSample >= ALLOCATION_SAMPLING_INTERVAL) {
+            eventsSinceAllocationSample = 0;
+            allocationAtEventStart = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * To be called on the same thread after an event was handled.
+     */
+    public void endEvent(Class<?> eventClass, boolean success, long startNanos) {
+        final long nanos = System.nanoTime() - startNanos;
+        EventStatistics statistics = currentYearEvents.computeIfAbsent(eventClass.getSimpleName(), k -> new EventStatistics());
+        statistics.record(success, nanos);
+        if (allocationAtEventStart >= 0) {
+            final long bytes = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocationAtEventStart;
+            statistics.recordAllocation(bytes, nanos);
+            allocationAtEventStart = -1;
+        }
+    }
+
     public void setCurrentYear(int currentYear) {
         this.currentYear = currentYear;
     }
@@ -35,17 +103,67 @@ public class TimeTracker {
             timeRecords.put(currentYear, identifier, currentYearRecords.count(identifier));
         }
         currentYearRecords.clear();
+
+        Map<String, Map<String, Double>> eventsOfYear = new TreeMap<>();
+        for (Map.Entry<String, EventStatistics> entry : currentYearEvents.entrySet()) {
+            EventStatistics statistics = entry.getValue();
+            double p99Micros = statistics.getPercentileMicros(0.99);
+            Map<String, Double> metrics = new LinkedHashMap<>();
+            metrics.put(EVENT_METRICS[0], (double) statistics.getCount());
+            metrics.put(EVENT_METRICS[1], statistics.getSuccessRate());
+            metrics.put(EVENT_METRICS[2], statistics.getTotalMillis());
+            metrics.put(EVENT_METRICS[3], statistics.getMeanMicros());
+            metrics.put(EVENT_METRICS[4], p99Micros);
+            metrics.put(EVENT_METRICS[5], statistics.getAllocationRateMbPerSecond());
+            eventsOfYear.put(entry.getKey(), metrics);
+
+            EventHandlingStatistics jfrEvent = new EventHandlingStatistics();
+            if (jfrEvent.isEnabled()) {
+                jfrEvent.year = currentYear;
+                jfrEvent.eventType = entry.getKey();
+                jfrEvent.count = statistics.getCount();
+                jfrEvent.successRate = statistics.getSuccessRate();
+                jfrEvent.totalMillis = statistics.getTotalMillis();
+                jfrEvent.meanMicros = statistics.getMeanMicros();
+                jfrEvent.p99Micros = p99Micros;
+                jfrEvent.allocationRateMbPerSecond = statistics.getAllocationRateMbPerSecond();
+                jfrEvent.commit();
+            }
+        }
+        if (!eventsOfYear.isEmpty()) {
+            eventRecords.put(currentYear, eventsOfYear);
+        }
+        currentYearEvents.clear();
+    }
+
+    /**
+     * @return the per event type statistics of all finished years as JSON, by year, event type and metric
+     */
+    public String eventStatisticsToJson() {
+        return new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create().toJson(eventRecords);
     }
 
     public String toString() {
+        Set<String> eventTypes = new TreeSet<>();
+        for (Map<String, Map<String, Double>> eventsOfYear : eventRecords.values()) {
+            eventTypes.addAll(eventsOfYear.keySet());
+        }
+        Set<Integer> years = new TreeSet<>(timeRecords.rowKeySet());
+        years.addAll(eventRecords.keySet());
+
         StringBuilder builder = new StringBuilder();
         builder.append("year");
         for(String identifier: timeRecords.columnKeySet()) {
             builder.append(",").append(identifier);
         }
+        for (String eventType : eventTypes) {
+            for (String metric : EVENT_METRICS) {
+                builder.append(",").append(eventType).append("_").append(metric);
+            }
+        }
         builder.append("\n");
 
-        for(Integer year: timeRecords.rowKeySet()) {
+        for(Integer year: years) {
             builder.append(year);
             for(String identifier: timeRecords.columnKeySet()) {
                 Integer millis = timeRecords.get(year, identifier);
@@ -55,8 +173,41 @@ public class TimeTracker {
                     builder.append(",").append(0);
                 }
             }
+            Map<String, Map<String, Double>> eventsOfYear = eventRecords.getOrDefault(year, Collections.emptyMap());
+            for (String eventType : eventTypes) {
+                Map<String, Double> metrics = eventsOfYear.get(eventType);
+                for (String metric : EVENT_METRICS) {
+                    builder.append(",").append(metrics == null ? 0 : metrics.get(metric));
+                }
+            }
             builder.append("\n");
         }
         return builder.toString();
     }
+
+    /**
+     * Summary of the handling of one event type in one year, recorded by Java Flight Recorder if enabled.
+     */
+    @Name("de.tum.bgu.msm.EventHandlingStatistics")
+    @Label("SILO Event Handling Statistics")
+    @Category("SILO")
+    @StackTrace(false)
+    static class EventHandlingStatistics extends Event {
+        @Label("Year")
+        int year;
+        @Label("Event Type")
+        String eventType;
+        @Label("Count")
+        long count;
+        @Label("Success Rate")
+        double successRate;
+        @Label("Total Time [ms]")
+        double totalMillis;
+        @Label("Mean Time [us]")
+        double meanMicros;
+        @Label("99th Percentile Time [us]")
+        double p99Micros;
+        @Label("Allocation Rate [MB/s]")
+        double allocationRateMbPerSecond;
+    }
 }
@@ -1,12 +1,21 @@
 package de.tum.bgu.msm.utils;
 
+import de.tum.bgu.msm.data.MappedSkimTravelTimes;
+import de.tum.bgu.msm.data.geo.GeoData;
 import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
 import de.tum.bgu.msm.properties.Properties;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.TransportMode;
 
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 public class TravelTimeUtil {
 
+    private final static Logger logger = Logger.getLogger(TravelTimeUtil.class);
+
     public static void updateTransitSkim(SkimTravelTimes travelTimes, int year, Properties properties) {
         final String transitSkimFile = properties.accessibility.transitSkimFile(year);
         travelTimes.readSkim(TransportMode.pt, transitSkimFile,
@@ -18,4 +27,25 @@ public class TravelTimeUtil {
         travelTimes.readSkim(TransportMode.car, carSkimFile,
                 properties.accessibility.autoPeakSkim, properties.accessibility.skimFileFactorCar);
     }
+
+    /**
+     * Loads the car and transit skims of the given year into the mapped travel times. The omx skims are
+     * only read and converted if there is no skim file of the year yet or if it is older than the omx files.
+     */
+    public static void updateMappedSkims(MappedSkimTravelTimes travelTimes, int year, Properties properties, GeoData geoData) {
+        final File carSkimFile = new File(properties.accessibility.autoSkimFile(year));
+        final File transitSkimFile = new File(properties.accessibility.transitSkimFile(year));
+        final Path mappedSkimFile = Paths.get(properties.accessibility.mappedSkimFile(year));
+        final File mapped = mappedSkimFile.toFile();
+        if (!mapped.exists() || mapped.lastModified() < carSkimFile.lastModified()
+                || mapped.lastModified() < transitSkimFile.lastModified()) {
+            logger.info("Converting skims of " + year + " to " + mappedSkimFile);
+            SkimTravelTimes omxTravelTimes = new SkimTravelTimes();
+            updateCarSkim(omxTravelTimes, year, properties);
+            updateTransitSkim(omxTravelTimes, year, properties);
+            MappedSkimTravelTimes.convert(omxTravelTimes, geoData.getZones().values(), geoData.getRegions().values(),
+                    Arrays.asList(TransportMode.car, TransportMode.pt), mappedSkimFile, properties.main.numberOfThreads);
+        }
+        travelTimes.load(mappedSkimFile, geoData.getZones().values());
+    }
 }
@@ -0,0 +1,1113 @@
+package de.tum.bgu.msm.utils.script;
+
+import de.tum.bgu.msm.utils.script.ScriptValues.ErrorValue;
+import de.tum.bgu.msm.utils.script.ScriptValues.ScriptArray;
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+import static de.tum.bgu.msm.utils.script.ScriptValues.*;
+
+/**
+ * The compiled form of a script: a tree of expressions and statements that are evaluated directly.
+ * Nodes are immutable after compilation. The state of a call lives in its {@link Frame}, except for
+ * {@link SharedVariable}s, which are global to the script.
+ */
+final class ScriptNodes {
+
+    private final static Logger logger = Logger.getLogger(UtilityScript.class);
+
+    static final int NORMAL = 0;
+    static final int RETURN = 1;
+    static final int BREAK = 2;
+    static final int CONTINUE = 3;
+
+    private ScriptNodes() {
+    }
+
+    /**
+     * Local variables of one call of a function
+     */
+    static final class Frame {
+
+        final Object[] slots;
+        Object returnValue = UNDEFINED;
+
+        Frame(int size) {
+            this.slots = new Object[size];
+        }
+    }
+
+    abstract static class Expression {
+
+        abstract Object eval(Frame frame);
+
+        double number(Frame frame) {
+            return toNumber(eval(frame));
+        }
+
+        boolean bool(Frame frame) {
+            return toBoolean(eval(frame));
+        }
+
+        /**
+         * @return true if the expression always evaluates to a number, so {@link #number} can be used
+         * without looking at the value
+         */
+        boolean isNumeric() {
+            return false;
+        }
+    }
+
+    /**
+     * An expression that always evaluates to a number
+     */
+    abstract static class NumericExpression extends Expression {
+
+        @Override
+        final Object eval(Frame frame) {
+            return number(frame);
+        }
+
+        @Override
+        abstract double number(Frame frame);
+
+        @Override
+        final boolean bool(Frame frame) {
+            final double value = number(frame);
+            return value != 0 && !Double.isNaN(value);
+        }
+
+        @Override
+        final boolean isNumeric() {
+            return true;
+        }
+    }
+
+    abstract static class Statement {
+
+        /**
+         * @return how the statement completed: {@link #NORMAL}, {@link #RETURN}, {@link #BREAK} or {@link #CONTINUE}
+         */
+        abstract int exec(Frame frame);
+    }
+
+    static final class Constant extends Expression {
+
+        private final Object value;
+        private final double number;
+
+        Constant(Object value) {
+            this.value = value;
+            this.number = toNumber(value);
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            return value;
+        }
+
+        @Override
+        double number(Frame frame) {
+            return number;
+        }
+
+        @Override
+        boolean isNumeric() {
+            return value instanceof Double;
+        }
+    }
+
+    /**
+     * A constant that was declared at the top level of the script
+     */
+    static final class Global extends Expression {
+
+        final String name;
+        private final Object value;
+
+        Global(String name, Object value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            return value;
+        }
+    }
+
+    static final class Local extends Expression {
+
+        final String name;
+        final int slot;
+
+        Local(String name, int slot) {
+            this.name = name;
+            this.slot = slot;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            final Object value = frame.slots[slot];
+            if (value == null) {
+                throw new RuntimeException("\"" + name + "\" is not defined");
+            }
+            return value;
+        }
+    }
+
+    static final class AssignLocal extends Expression {
+
+        private final int slot;
+        private final Expression value;
+
+        AssignLocal(int slot, Expression value) {
+            this.slot = slot;
+            this.value = value;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            final Object result = value.eval(frame);
+            frame.slots[slot] = result;
+            return result;
+        }
+    }
+
+    /**
+     * {@code x++} and {@code x--}, evaluates to the old value
+     */
+    static final class PostIncrementLocal extends NumericExpression {
+
+        private final Local local;
+        private final double delta;
+
+        PostIncrementLocal(Local local, double delta) {
+            this.local = local;
+            this.delta = delta;
+        }
+
+        @Override
+        double number(Frame frame) {
+            final double old = local.number(frame);
+            frame.slots[local.slot] = old + delta;
+            return old;
+        }
+    }
+
+    /**
+     * A variable that is assigned without var and whose value may be seen by another call. As in
+     * JavaScript, it is global to the script and keeps its value between calls.
+     */
+    static final class SharedVariable extends Expression {
+
+        final String name;
+        private final Object[] values;
+        private final int index;
+
+        SharedVariable(String name, Object[] values, int index) {
+            this.name = name;
+            this.values = values;
+            this.index = index;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            final Object value = values[index];
+            if (value == null) {
+                throw new RuntimeException("\"" + name + "\" is not defined");
+            }
+            return value;
+        }
+    }
+
+    static final class AssignShared extends Expression {
+
+        private final Object[] values;
+        private final int index;
+        private final Expression value;
+
+        AssignShared(SharedVariable variable, Expression value) {
+            this.values = variable.values;
+            this.index = variable.index;
+            this.value = value;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            final Object result = value.eval(frame);
+            values[index] = result;
+            return result;
+        }
+    }
+
+    static final class Index extends Expression {
+
+        final Expression array;
+        final Expression index;
+
+        Index(Expression array, Expression index) {
+            this.array = array;
+            this.index = index;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            return get(array.eval(frame), index.number(frame));
+        }
+
+        static Object get(Object target, double position) {
+            final int i = (int) position;
+            if (i != position) {
+                return UNDEFINED;
+            }
+            if (target instanceof ScriptArray) {
+                return ((ScriptArray) target).get(i);
+            } else if (target instanceof double[]) {
+                final double[] values = (double[]) target;
+                return i >= 0 && i < values.length ? (Object) values[i] : UNDEFINED;
+            } else if (target instanceof int[]) {
+                final int[] values = (int[]) target;
+                return i >= 0 && i < values.length ? (Object) (double) values[i] : UNDEFINED;
+            } else if (target instanceof String) {
+                final String string = (String) target;
+                return i >= 0 && i < string.length() ? String.valueOf(string.charAt(i)) : UNDEFINED;
+            } else if (target == null || target == UNDEFINED) {
+                throw new RuntimeException("Cannot read element " + ScriptValues.toString(position) + " of " + target);
+            }
+            return UNDEFINED;
+        }
+    }
+
+    static final class AssignIndex extends Expression {
+
+        private final Expression array;
+        private final Expression index;
+        private final Expression value;
+
+        AssignIndex(Index target, Expression value) {
+            this.array = target.array;
+            this.index = target.index;
+            this.value = value;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            final Object target = array.eval(frame);
+            final double position = index.number(frame);
+            final Object result = value.eval(frame);
+            final int i = (int) position;
+            if (i != position || i < 0) {
+                throw new RuntimeException("Invalid array index " + ScriptValues.toString(position));
+            }
+            if (target instanceof ScriptArray) {
+                ((ScriptArray) target).set(i, result);
+            } else if (target instanceof double[]) {
+                ((double[]) target)[i] = toNumber(result);
+            } else if (target instanceof int[]) {
+                ((int[]) target)[i] = (int) toNumber(result);
+            } else {
+                throw new RuntimeException("Cannot set element " + i + " of " + ScriptValues.toString(target));
+            }
+            return result;
+        }
+    }
+
+    static final class Length extends NumericExpression {
+
+        private final Expression target;
+
+        Length(Expression target) {
+            this.target = target;
+        }
+
+        @Override
+        double number(Frame frame) {
+            final Object value = target.eval(frame);
+            if (value instanceof ScriptArray) {
+                return ((ScriptArray) value).length();
+            } else if (value instanceof double[]) {
+                return ((double[]) value).length;
+            } else if (value instanceof int[]) {
+                return ((int[]) value).length;
+            } else if (value instanceof String) {
+                return ((String) value).length();
+            }
+            throw new RuntimeException("Cannot read length of " + ScriptValues.toString(value));
+        }
+    }
+
+    static final class ArrayLiteral extends Expression {
+
+        private final Expression[] elements;
+
+        ArrayLiteral(Expression[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            final Object[] values = new Object[elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                values[i] = elements[i].eval(frame);
+            }
+            return new ScriptArray(values);
+        }
+    }
+
+    /**
+     * {@code new Array(length)}
+     */
+    static final class NewArray extends Expression {
+
+        private final Expression length;
+
+        NewArray(Expression length) {
+            this.length = length;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            final double size = length.number(frame);
+            if (size != (int) size || size < 0) {
+                throw new RuntimeException("Invalid array length " + ScriptValues.toString(size));
+            }
+            return new ScriptArray((int) size);
+        }
+    }
+
+    /**
+     * {@code new Error(message)}
+     */
+    static final class NewError extends Expression {
+
+        private final Expression message;
+
+        NewError(Expression message) {
+            this.message = message;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            return new ErrorValue(message == null ? "" : ScriptValues.toString(message.eval(frame)));
+        }
+    }
+
+    static final class Add extends Expression {
+
+        private final Expression left;
+        private final Expression right;
+
+        Add(Expression left, Expression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            if (isNumeric()) {
+                return left.number(frame) + right.number(frame);
+            }
+            final Object a = left.eval(frame);
+            final Object b = right.eval(frame);
+            if (a instanceof String || b instanceof String || !isPrimitive(a) || !isPrimitive(b)) {
+                return ScriptValues.toString(a) + ScriptValues.toString(b);
+            }
+            return toNumber(a) + toNumber(b);
+        }
+
+        @Override
+        double number(Frame frame) {
+            if (isNumeric()) {
+                return left.number(frame) + right.number(frame);
+            }
+            return toNumber(eval(frame));
+        }
+
+        @Override
+        boolean isNumeric() {
+            return left.isNumeric() && right.isNumeric();
+        }
+    }
+
+    static final class Arithmetic extends NumericExpression {
+
+        private final Expression left;
+        private final Expression right;
+        private final DoubleBinaryOperator operator;
+
+        Arithmetic(Expression left, Expression right, DoubleBinaryOperator operator) {
+            this.left = left;
+            this.right = right;
+            this.operator = operator;
+        }
+
+        @Override
+        double number(Frame frame) {
+            return operator.applyAsDouble(left.number(frame), right.number(frame));
+        }
+    }
+
+    static final class Multiply extends NumericExpression {
+
+        private final Expression left;
+        private final Expression right;
+
+        Multiply(Expression left, Expression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double number(Frame frame) {
+            return left.number(frame) * right.number(frame);
+        }
+    }
+
+    static final class Subtract extends NumericExpression {
+
+        private final Expression left;
+        private final Expression right;
+
+        Subtract(Expression left, Expression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double number(Frame frame) {
+            return left.number(frame) - right.number(frame);
+        }
+    }
+
+    static final class Negate extends NumericExpression {
+
+        private final Expression operand;
+
+        Negate(Expression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        double number(Frame frame) {
+            return -operand.number(frame);
+        }
+    }
+
+    static final class ToNumber extends NumericExpression {
+
+        private final Expression operand;
+
+        ToNumber(Expression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        double number(Frame frame) {
+            return operand.number(frame);
+        }
+    }
+
+    static final class Not extends Expression {
+
+        private final Expression operand;
+
+        Not(Expression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            return !operand.bool(frame);
+        }
+
+        @Override
+        boolean bool(Frame frame) {
+            return !operand.bool(frame);
+        }
+    }
+
+    static final class MathFunction extends NumericExpression {
+
+        private final Expression argument;
+        private final DoubleUnaryOperator function;
+
+        MathFunction(Expression argument, DoubleUnaryOperator function) {
+            this.argument = argument;
+            this.function = function;
+        }
+
+        @Override
+        double number(Frame frame) {
+            return function.applyAsDouble(argument.number(frame));
+        }
+    }
+
+    static final class Power extends NumericExpression {
+
+        private final Expression base;
+        private final Expression exponent;
+
+        Power(Expression base, Expression exponent) {
+            this.base = base;
+            this.exponent = exponent;
+        }
+
+        @Override
+        double number(Frame frame) {
+            return Math.pow(base.number(frame), exponent.number(frame));
+        }
+    }
+
+    /**
+     * {@code Math.min} and {@code Math.max} with any number of arguments
+     */
+    static final class MinMax extends NumericExpression {
+
+        private final Expression[] arguments;
+        private final boolean max;
+
+        MinMax(Expression[] arguments, boolean max) {
+            this.arguments = arguments;
+            this.max = max;
+        }
+
+        @Override
+        double number(Frame frame) {
+            double result = max ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            for (Expression argument : arguments) {
+                final double value = argument.number(frame);
+                result = max ? Math.max(result, value) : Math.min(result, value);
+            }
+            return result;
+        }
+    }
+
+    static final class Compare extends Expression {
+
+        static final int LESS = 0;
+        static final int GREATER = 1;
+        static final int LESS_OR_EQUAL = 2;
+        static final int GREATER_OR_EQUAL = 3;
+
+        private final Expression left;
+        private final Expression right;
+        private final int operator;
+        private final boolean numeric;
+
+        Compare(Expression left, Expression right, int operator) {
+            this.left = left;
+            this.right = right;
+            this.operator = operator;
+            this.numeric = left.isNumeric() && right.isNumeric();
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            return bool(frame);
+        }
+
+        @Override
+        boolean bool(Frame frame) {
+            if (numeric) {
+                return compare(left.number(frame), right.number(frame));
+            }
+            final Object a = left.eval(frame);
+            final Object b = right.eval(frame);
+            if (a instanceof String && b instanceof String) {
+                final int comparison = ((String) a).compareTo((String) b);
+                switch (operator) {
+                    case LESS:
+                        return comparison < 0;
+                    case GREATER:
+                        return comparison > 0;
+                    case LESS_OR_EQUAL:
+                        return comparison <= 0;
+                    default:
+                        return comparison >= 0;
+                }
+            }
+            return compare(toNumber(a), toNumber(b));
+        }
+
+        private boolean compare(double a, double b) {
+            switch (operator) {
+                case LESS:
+                    return a < b;
+                case GREATER:
+                    return a > b;
+                case LESS_OR_EQUAL:
+                    return a <= b;
+                default:
+                    return a >= b;
+            }
+        }
+    }
+
+    static final class Equals extends Expression {
+
+        private final Expression left;
+        private final Expression right;
+        private final boolean strict;
+        private final boolean negated;
+
+        Equals(Expression left, Expression right, boolean strict, boolean negated) {
+            this.left = left;
+            this.right = right;
+            this.strict = strict;
+            this.negated = negated;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            return bool(frame);
+        }
+
+        @Override
+        boolean bool(Frame frame) {
+            final Object a = left.eval(frame);
+            final Object b = right.eval(frame);
+            return negated != (strict ? strictEquals(a, b) : looseEquals(a, b));
+        }
+    }
+
+    /**
+     * {@code &&} and {@code ||}, which evaluate to one of their operands
+     */
+    static final class Logical extends Expression {
+
+        private final Expression left;
+        private final Expression right;
+        private final boolean and;
+
+        Logical(Expression left, Expression right, boolean and) {
+            this.left = left;
+            this.right = right;
+            this.and = and;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            final Object a = left.eval(frame);
+            return toBoolean(a) == and ? right.eval(frame) : a;
+        }
+
+        @Override
+        boolean bool(Frame frame) {
+            return and ? left.bool(frame) && right.bool(frame) : left.bool(frame) || right.bool(frame);
+        }
+    }
+
+    static final class Conditional extends Expression {
+
+        private final Expression condition;
+        private final Expression then;
+        private final Expression otherwise;
+
+        Conditional(Expression condition, Expression then, Expression otherwise) {
+            this.condition = condition;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            return condition.bool(frame) ? then.eval(frame) : otherwise.eval(frame);
+        }
+
+        @Override
+        double number(Frame frame) {
+            return condition.bool(frame) ? then.number(frame) : otherwise.number(frame);
+        }
+
+        @Override
+        boolean isNumeric() {
+            return then.isNumeric() && otherwise.isNumeric();
+        }
+    }
+
+    static final class IsNaN extends Expression {
+
+        private final Expression argument;
+
+        IsNaN(Expression argument) {
+            this.argument = argument;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            return bool(frame);
+        }
+
+        @Override
+        boolean bool(Frame frame) {
+            return Double.isNaN(argument.number(frame));
+        }
+    }
+
+    static final class Print extends Expression {
+
+        private final Expression[] arguments;
+
+        Print(Expression[] arguments) {
+            this.arguments = arguments;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            final StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < arguments.length; i++) {
+                if (i > 0) {
+                    builder.append(' ');
+                }
+                builder.append(ScriptValues.toString(arguments[i].eval(frame)));
+            }
+            logger.info(builder);
+            return UNDEFINED;
+        }
+    }
+
+    /**
+     * {@code Java.to(array, "double[]")} and {@code Java.to(array, "int[]")}
+     */
+    static final class JavaArray extends Expression {
+
+        private final Expression array;
+        private final boolean integer;
+
+        JavaArray(Expression array, boolean integer) {
+            this.array = array;
+            this.integer = integer;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            final Object value = array.eval(frame);
+            return integer ? toIntArray(value) : toDoubleArray(value);
+        }
+    }
+
+    /**
+     * Calls a public method of a java object that was passed to the script, like {@code ht.name()}
+     */
+    static final class MethodCall extends Expression {
+
+        private final Expression target;
+        private final String name;
+        private final Expression[] arguments;
+
+        private volatile CachedMethod cache;
+
+        private static final class CachedMethod {
+            final Class<?> type;
+            final Method method;
+
+            CachedMethod(Class<?> type, Method method) {
+                this.type = type;
+                this.method = method;
+            }
+        }
+
+        MethodCall(Expression target, String name, Expression[] arguments) {
+            this.target = target;
+            this.name = name;
+            this.arguments = arguments;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            final Object object = target.eval(frame);
+            if (arguments.length == 0 && object instanceof Enum && name.equals("name")) {
+                return ((Enum<?>) object).name();
+            }
+            if (arguments.length == 1 && object instanceof String && name.equals("equals")) {
+                final Object argument = arguments[0].eval(frame);
+                return argument instanceof String && object.equals(argument);
+            }
+            if (object == null || object == UNDEFINED || isPrimitive(object) && !(object instanceof String)) {
+                throw new RuntimeException("Cannot call " + name + "() on " + ScriptValues.toString(object));
+            }
+            final Method method = lookup(object.getClass());
+            final Class<?>[] types = method.getParameterTypes();
+            final Object[] values = new Object[arguments.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = toJava(arguments[i].eval(frame), types[i]);
+            }
+            try {
+                return fromJava(method.invoke(object, values));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            } catch (InvocationTargetException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        private Method lookup(Class<?> type) {
+            final CachedMethod cached = cache;
+            if (cached != null && cached.type == type) {
+                return cached.method;
+            }
+            Method found = null;
+            for (Method method : type.getMethods()) {
+                if (method.getName().equals(name) && method.getParameterCount() == arguments.length) {
+                    found = method;
+                    break;
+                }
+            }
+            if (found == null) {
+                throw new RuntimeException("No method " + name + " with " + arguments.length
+                        + " arguments in " + type.getName());
+            }
+            if (!Modifier.isPublic(found.getDeclaringClass().getModifiers())) {
+                found = publicDeclaration(found, found.getDeclaringClass());
+            }
+            cache = new CachedMethod(type, found);
+            return found;
+        }
+
+        /**
+         * Methods of enum constants with bodies or of private classes can only be invoked through the
+         * public class or interface that declares them
+         */
+        private static Method publicDeclaration(Method method, Class<?> type) {
+            for (Class<?> candidate = type; candidate != null; candidate = candidate.getSuperclass()) {
+                if (Modifier.isPublic(candidate.getModifiers())) {
+                    try {
+                        return candidate.getMethod(method.getName(), method.getParameterTypes());
+                    } catch (NoSuchMethodException e) {
+                        // try the interfaces
+                    }
+                }
+                for (Class<?> anInterface : candidate.getInterfaces()) {
+                    if (Modifier.isPublic(anInterface.getModifiers())) {
+                        try {
+                            return anInterface.getMethod(method.getName(), method.getParameterTypes());
+                        } catch (NoSuchMethodException e) {
+                            // try the next one
+                        }
+                    }
+                }
+            }
+            return method;
+        }
+    }
+
+    /**
+     * Calls another function of the same script
+     */
+    static final class FunctionCall extends Expression {
+
+        private final UtilityFunction[] function;
+        private final Expression[] arguments;
+
+        /**
+         * @param function holder of the function, which is filled in once the whole script is compiled
+         */
+        FunctionCall(UtilityFunction[] function, Expression[] arguments) {
+            this.function = function;
+            this.arguments = arguments;
+        }
+
+        @Override
+        Object eval(Frame frame) {
+            final Object[] values = new Object[arguments.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = arguments[i].eval(frame);
+            }
+            return function[0].invoke(values);
+        }
+    }
+
+    static final class ExpressionStatement extends Statement {
+
+        private final Expression expression;
+
+        ExpressionStatement(Expression expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        int exec(Frame frame) {
+            expression.eval(frame);
+            return NORMAL;
+        }
+    }
+
+    static final class Block extends Statement {
+
+        private final Statement[] statements;
+
+        Block(Statement[] statements) {
+            this.statements = statements;
+        }
+
+        @Override
+        int exec(Frame frame) {
+            for (Statement statement : statements) {
+                final int completion = statement.exec(frame);
+                if (completion != NORMAL) {
+                    return completion;
+                }
+            }
+            return NORMAL;
+        }
+    }
+
+    static final class If extends Statement {
+
+        private final Expression condition;
+        private final Statement then;
+        private final Statement otherwise;
+
+        If(Expression condition, Statement then, Statement otherwise) {
+            this.condition = condition;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        int exec(Frame frame) {
+            if (condition.bool(frame)) {
+                return then.exec(frame);
+            } else if (otherwise != null) {
+                return otherwise.exec(frame);
+            }
+            return NORMAL;
+        }
+    }
+
+    /**
+     * {@code for}, {@code while} and {@code do while} loops
+     */
+    static final class Loop extends Statement {
+
+        private final Statement init;
+        private final Expression condition;
+        private final Expression update;
+        private final Statement body;
+        private final boolean testFirst;
+
+        Loop(Statement init, Expression condition, Expression update, Statement body, boolean testFirst) {
+            this.init = init;
+            this.condition = condition;
+            this.update = update;
+            this.body = body;
+            this.testFirst = testFirst;
+        }
+
+        @Override
+        int exec(Frame frame) {
+            if (init != null) {
+                init.exec(frame);
+            }
+            boolean first = true;
+            while ((first && !testFirst) || condition == null || condition.bool(frame)) {
+                first = false;
+                final int completion = body.exec(frame);
+                if (completion == BREAK) {
+                    break;
+                } else if (completion == RETURN) {
+                    return RETURN;
+                }
+                if (update != null) {
+                    update.eval(frame);
+                }
+            }
+            return NORMAL;
+        }
+    }
+
+    static final class Switch extends Statement {
+
+        private final Expression discriminant;
+        private final Expression[] cases;
+        private final Statement[] bodies;
+        /**
+         * Position of the default clause, or -1
+         */
+        private final int defaultCase;
+
+        Switch(Expression discriminant, Expression[] cases, Statement[] bodies, int defaultCase) {
+            this.discriminant = discriminant;
+            this.cases = cases;
+            this.bodies = bodies;
+            this.defaultCase = defaultCase;
+        }
+
+        @Override
+        int exec(Frame frame) {
+            final Object value = discriminant.eval(frame);
+            int start = defaultCase;
+            for (int i = 0; i < cases.length; i++) {
+                if (i != defaultCase && strictEquals(value, cases[i].eval(frame))) {
+                    start = i;
+                    break;
+                }
+            }
+            if (start < 0) {
+                return NORMAL;
+            }
+            for (int i = start; i < bodies.length; i++) {
+                final int completion = bodies[i].exec(frame);
+                if (completion == BREAK) {
+                    return NORMAL;
+                } else if (completion != NORMAL) {
+                    return completion;
+                }
+            }
+            return NORMAL;
+        }
+    }
+
+    static final class Return extends Statement {
+
+        private final Expression value;
+
+        Return(Expression value) {
+            this.value = value;
+        }
+
+        @Override
+        int exec(Frame frame) {
+            frame.returnValue = value == null ? UNDEFINED : value.eval(frame);
+            return RETURN;
+        }
+    }
+
+    static final class Jump extends Statement {
+
+        private final int completion;
+
+        Jump(int completion) {
+            this.completion = completion;
+        }
+
+        @Override
+        int exec(Frame frame) {
+            return completion;
+        }
+    }
+
+    static final class Throw extends Statement {
+
+        private final Expression value;
+
+        Throw(Expression value) {
+            this.value = value;
+        }
+
+        @Override
+        int exec(Frame frame) {
+            final Object thrown = value.eval(frame);
+            if (thrown instanceof ErrorValue) {
+                throw new RuntimeException(((ErrorValue) thrown).message);
+            }
+            throw new RuntimeException(ScriptValues.toString(thrown));
+        }
+    }
+}
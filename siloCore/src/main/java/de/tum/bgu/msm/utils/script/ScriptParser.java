@@ -0,0 +1,1128 @@
+package de.tum.bgu.msm.utils.script;
+
+import de.tum.bgu.msm.utils.script.ScriptNodes.*;
+
+import java.util.*;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Parses a script and compiles it into {@link ScriptNodes}. Variables are resolved to slots of the
+ * call frame at compile time, functions of {@code Math} to direct calls.
+ *
+ * The script is parsed twice. The first pass finds the variables that functions assign without
+ * declaring them and whose values may be seen by another call, because a call may read them before
+ * assigning them, or may call a function that assigns them. These variables are global to the script,
+ * as in JavaScript. All other variables are resolved to slots of the call frame by the second pass.
+ */
+final class ScriptParser {
+
+    private enum Kind {NUMBER, STRING, NAME, PUNCTUATOR, END}
+
+    private static final class Token {
+        final Kind kind;
+        final String text;
+        final double number;
+        final int line;
+        final boolean newlineBefore;
+
+        Token(Kind kind, String text, double number, int line, boolean newlineBefore) {
+            this.kind = kind;
+            this.text = text;
+            this.number = number;
+            this.line = line;
+            this.newlineBefore = newlineBefore;
+        }
+
+        @Override
+        public String toString() {
+            return kind == Kind.END ? "end of script" : "\"" + text + "\"";
+        }
+    }
+
+    private static final String[] PUNCTUATORS = {
+            "===", "!==", "==", "!=", "<=", ">=", "&&", "||", "++", "--", "+=", "-=", "*=", "/=", "%=",
+            "{", "}", "(", ")", "[", "]", ";", ",", ".", "<", ">", "+", "-", "*", "/", "%", "!", "?", ":", "="};
+
+    private static final Map<String, DoubleUnaryOperator> MATH_FUNCTIONS = new HashMap<>();
+
+    static {
+        MATH_FUNCTIONS.put("exp", Math::exp);
+        MATH_FUNCTIONS.put("log", Math::log);
+        MATH_FUNCTIONS.put("sqrt", Math::sqrt);
+        MATH_FUNCTIONS.put("abs", Math::abs);
+        MATH_FUNCTIONS.put("floor", Math::floor);
+        MATH_FUNCTIONS.put("ceil", Math::ceil);
+        MATH_FUNCTIONS.put("round", x -> Math.floor(x + 0.5));
+        MATH_FUNCTIONS.put("sin", Math::sin);
+        MATH_FUNCTIONS.put("cos", Math::cos);
+        MATH_FUNCTIONS.put("tan", Math::tan);
+        MATH_FUNCTIONS.put("atan", Math::atan);
+    }
+
+    /**
+     * Variables of the function that is being compiled
+     */
+    private static final class Scope {
+        final String function;
+        final Map<String, Integer> slots = new LinkedHashMap<>();
+        final Set<String> parameters = new HashSet<>();
+        final Set<String> assigned = new HashSet<>();
+        final Set<String> declared = new HashSet<>();
+        final Map<String, Integer> firstUse = new HashMap<>();
+        final Set<String> calls = new HashSet<>();
+
+        /**
+         * Variables that may be read before they are assigned in the same call, with the line of the first read
+         */
+        final Map<String, Integer> readBeforeAssigned = new HashMap<>();
+
+        /**
+         * Variables that are assigned on every path to the current position, or null if the position cannot be reached
+         */
+        Set<String> definitelyAssigned = new HashSet<>();
+
+        /**
+         * States at the break statements of the enclosing switch statements, null for enclosing loops
+         */
+        final List<List<Set<String>>> breakStates = new ArrayList<>();
+
+        Scope(String function) {
+            this.function = function;
+        }
+
+        int slot(String name, int line) {
+            firstUse.putIfAbsent(name, line);
+            return slots.computeIfAbsent(name, key -> slots.size());
+        }
+
+        void read(String name, int line) {
+            firstUse.putIfAbsent(name, line);
+            if (definitelyAssigned != null && !definitelyAssigned.contains(name)) {
+                readBeforeAssigned.putIfAbsent(name, line);
+            }
+        }
+
+        void assign(String name) {
+            assigned.add(name);
+            if (definitelyAssigned != null) {
+                definitelyAssigned.add(name);
+            }
+        }
+
+        /**
+         * @return variables that are neither parameters nor declared with var
+         */
+        Set<String> implicitVariables() {
+            final Set<String> variables = new LinkedHashSet<>(slots.keySet());
+            variables.removeAll(parameters);
+            variables.removeAll(declared);
+            return variables;
+        }
+
+        Set<String> state() {
+            return definitelyAssigned == null ? null : new HashSet<>(definitelyAssigned);
+        }
+
+        void restore(Set<String> state) {
+            definitelyAssigned = state == null ? null : new HashSet<>(state);
+        }
+
+        /**
+         * Continues with the variables that are assigned both on the current path and on the given one
+         */
+        void join(Set<String> state) {
+            if (definitelyAssigned == null) {
+                restore(state);
+            } else if (state != null) {
+                definitelyAssigned.retainAll(state);
+            }
+        }
+
+        /**
+         * The current path ends with a return, throw, break or continue
+         */
+        void leave() {
+            definitelyAssigned = null;
+        }
+    }
+
+    private final List<Token> tokens;
+    private int position = 0;
+
+    private final Map<String, UtilityFunction> functions = new LinkedHashMap<>();
+    private final Map<String, UtilityFunction[]> referencedFunctions = new HashMap<>();
+    private final Map<String, Object> globals = new HashMap<>();
+    private final Map<String, String> implicitVariables = new HashMap<>();
+    private final Map<String, Scope> scopes = new LinkedHashMap<>();
+    private Scope scope;
+
+    /**
+     * Parameters and variables declared with var by function, found by the first pass. Null in the first pass.
+     */
+    private final Map<String, Set<String>> localVariables;
+
+    /**
+     * Indices of the variables that are global to the script. Null in the first pass.
+     */
+    private final Map<String, Integer> sharedVariables;
+    private final Object[] sharedValues;
+
+    /**
+     * Set if the next name is the target of an assignment with =, which does not read it
+     */
+    private boolean assignmentTarget = false;
+
+    ScriptParser(String source) {
+        this(tokenize(source), null, null);
+    }
+
+    private ScriptParser(List<Token> tokens, Map<String, Set<String>> localVariables, Map<String, Integer> sharedVariables) {
+        this.tokens = tokens;
+        this.localVariables = localVariables;
+        this.sharedVariables = sharedVariables;
+        this.sharedValues = new Object[sharedVariables == null ? 0 : sharedVariables.size()];
+    }
+
+    Map<String, UtilityFunction> parse() {
+        compile();
+        final Map<String, Set<String>> localVariables = new HashMap<>();
+        for (Scope functionScope : scopes.values()) {
+            final Set<String> variables = new HashSet<>(functionScope.parameters);
+            variables.addAll(functionScope.declared);
+            localVariables.put(functionScope.function, variables);
+        }
+        final ScriptParser parser = new ScriptParser(tokens, localVariables, findSharedVariables());
+        parser.compile();
+        return parser.functions;
+    }
+
+    private void compile() {
+        while (peek().kind != Kind.END) {
+            parseTopLevel();
+        }
+        for (Map.Entry<String, UtilityFunction[]> reference : referencedFunctions.entrySet()) {
+            final UtilityFunction function = functions.get(reference.getKey());
+            if (function == null) {
+                throw new IllegalArgumentException("Function " + reference.getKey() + " is not defined");
+            }
+            reference.getValue()[0] = function;
+        }
+        for (Map.Entry<String, String> variable : implicitVariables.entrySet()) {
+            if (functions.containsKey(variable.getKey())) {
+                throw new IllegalArgumentException("Function " + variable.getValue() + " assigns "
+                        + variable.getKey() + ", which would replace the function of that name");
+            }
+        }
+    }
+
+    /**
+     * A variable that is not declared with var is global to the script if a call of a function may read
+     * it before assigning it, or if a function that uses it may call a function that uses it as well.
+     * Otherwise, no call sees the value of another call, so the variable may live in the call frame.
+     *
+     * @return indices of the variables that are global to the script
+     */
+    private Map<String, Integer> findSharedVariables() {
+        final Set<String> assigned = new HashSet<>();
+        for (Scope functionScope : scopes.values()) {
+            for (String variable : functionScope.implicitVariables()) {
+                if (functionScope.assigned.contains(variable)) {
+                    assigned.add(variable);
+                }
+            }
+        }
+        final Map<String, Integer> shared = new LinkedHashMap<>();
+        for (Scope functionScope : scopes.values()) {
+            final Set<String> reachable = reachableFunctions(functionScope.function);
+            for (String variable : functionScope.implicitVariables()) {
+                if (!assigned.contains(variable)) {
+                    throw new IllegalArgumentException("Variable " + variable + " in function " + functionScope.function
+                            + " (line " + functionScope.firstUse.get(variable) + ") is never assigned");
+                }
+                boolean isShared = functionScope.readBeforeAssigned.containsKey(variable);
+                for (String function : reachable) {
+                    isShared |= scopes.get(function).implicitVariables().contains(variable);
+                }
+                if (isShared) {
+                    shared.putIfAbsent(variable, shared.size());
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * @return functions that may be called by a call of the given function, directly or by other functions
+     */
+    private Set<String> reachableFunctions(String function) {
+        final Set<String> reachable = new HashSet<>();
+        final Deque<String> open = new ArrayDeque<>(scopes.get(function).calls);
+        while (!open.isEmpty()) {
+            final String called = open.pop();
+            if (reachable.add(called)) {
+                open.addAll(scopes.get(called).calls);
+            }
+        }
+        return reachable;
+    }
+
+    private void parseTopLevel() {
+        if (accept(";")) {
+            return;
+        }
+        final Token start = peek();
+        if (accept("function")) {
+            parseFunction(expectName());
+            return;
+        }
+        final boolean var = accept("var");
+        final String name = expectName();
+        if (var && !at("=")) {
+            globals.put(name, ScriptValues.UNDEFINED);
+        } else {
+            expect("=");
+            if (accept("function")) {
+                if (peek().kind == Kind.NAME) {
+                    next();
+                }
+                parseFunction(name);
+            } else if (var) {
+                final Expression value = parseAssignment();
+                globals.put(name, value.eval(new ScriptNodes.Frame(0)));
+            } else {
+                throw error(start, "Only functions and constants declared with var are supported at the top level");
+            }
+        }
+        acceptStatementEnd();
+    }
+
+    private void parseFunction(String name) {
+        if (functions.containsKey(name) || globals.containsKey(name)) {
+            throw error(peek(), "Function " + name + " is defined twice");
+        }
+        scope = new Scope(name);
+        expect("(");
+        int parameters = 0;
+        if (!accept(")")) {
+            do {
+                final Token parameter = peek();
+                final String parameterName = expectName();
+                if (scope.slots.containsKey(parameterName)) {
+                    throw error(parameter, "Duplicate parameter " + parameterName);
+                }
+                scope.slot(parameterName, parameter.line);
+                scope.parameters.add(parameterName);
+                scope.assign(parameterName);
+                parameters++;
+            } while (accept(","));
+            expect(")");
+        }
+        final UtilityFunction function = new UtilityFunction(name, parameters, sharedValues);
+        functions.put(name, function);
+        final Statement body = parseBlock();
+        for (String variable : scope.assigned) {
+            if (!scope.declared.contains(variable) && !scope.parameters.contains(variable)) {
+                implicitVariables.putIfAbsent(variable, name);
+            }
+        }
+        scopes.put(name, scope);
+        final boolean[] declared = new boolean[scope.slots.size()];
+        for (Map.Entry<String, Integer> slot : scope.slots.entrySet()) {
+            declared[slot.getValue()] = scope.declared.contains(slot.getKey());
+        }
+        function.define(body, scope.slots.size(), declared);
+        scope = null;
+    }
+
+    private Block parseBlock() {
+        expect("{");
+        final List<Statement> statements = new ArrayList<>();
+        while (!accept("}")) {
+            statements.add(parseStatement());
+        }
+        return new Block(statements.toArray(new Statement[0]));
+    }
+
+    private Statement parseStatement() {
+        final Token token = peek();
+        if (token.kind == Kind.PUNCTUATOR && token.text.equals("{")) {
+            return parseBlock();
+        }
+        if (token.kind == Kind.NAME) {
+            switch (token.text) {
+                case "var":
+                    next();
+                    final Statement declaration = parseVariableDeclaration();
+                    acceptStatementEnd();
+                    return declaration;
+                case "if":
+                    next();
+                    expect("(");
+                    final Expression condition = parseExpression();
+                    expect(")");
+                    final Set<String> beforeIf = scope.state();
+                    final Statement then = parseStatement();
+                    final Set<String> afterThen = scope.state();
+                    scope.restore(beforeIf);
+                    final Statement otherwise = accept("else") ? parseStatement() : null;
+                    scope.join(afterThen);
+                    return new If(condition, then, otherwise);
+                case "for":
+                    return parseFor();
+                case "while": {
+                    next();
+                    expect("(");
+                    final Expression loopCondition = parseExpression();
+                    expect(")");
+                    return new Loop(null, loopCondition, null, parseLoopBody(), true);
+                }
+                case "do": {
+                    next();
+                    final Statement body = parseLoopBody();
+                    expect("while");
+                    expect("(");
+                    final Expression loopCondition = parseExpression();
+                    expect(")");
+                    acceptStatementEnd();
+                    return new Loop(null, loopCondition, null, body, false);
+                }
+                case "switch":
+                    return parseSwitch();
+                case "return": {
+                    next();
+                    Expression value = null;
+                    if (!peek().newlineBefore && !at(";") && !at("}")
+                            && peek().kind != Kind.END) {
+                        value = parseExpression();
+                    }
+                    acceptStatementEnd();
+                    scope.leave();
+                    return new Return(value);
+                }
+                case "throw": {
+                    next();
+                    final Expression value = parseExpression();
+                    acceptStatementEnd();
+                    scope.leave();
+                    return new Throw(value);
+                }
+                case "break": {
+                    next();
+                    acceptStatementEnd();
+                    final List<Set<String>> breakStates = scope.breakStates.isEmpty() ? null
+                            : scope.breakStates.get(scope.breakStates.size() - 1);
+                    if (breakStates != null && scope.definitelyAssigned != null) {
+                        breakStates.add(scope.state());
+                    }
+                    scope.leave();
+                    return new Jump(ScriptNodes.BREAK);
+                }
+                case "continue":
+                    next();
+                    acceptStatementEnd();
+                    scope.leave();
+                    return new Jump(ScriptNodes.CONTINUE);
+                case "function":
+                    throw error(token, "Nested functions are not supported");
+                default:
+            }
+        }
+        if (accept(";")) {
+            return new Block(new Statement[0]);
+        }
+        final Expression expression = parseExpression();
+        acceptStatementEnd();
+        return new ExpressionStatement(expression);
+    }
+
+    private Statement parseVariableDeclaration() {
+        final List<Statement> initializers = new ArrayList<>();
+        do {
+            final Token token = peek();
+            final String name = expectName();
+            if (globals.containsKey(name)) {
+                throw error(token, "Variable " + name + " hides a constant of the script");
+            }
+            final int slot = scope.slot(name, token.line);
+            scope.declared.add(name);
+            if (accept("=")) {
+                final Expression value = parseAssignment();
+                scope.assign(name);
+                initializers.add(new ExpressionStatement(new AssignLocal(slot, value)));
+            }
+        } while (accept(","));
+        return initializers.size() == 1 ? initializers.get(0) : new Block(initializers.toArray(new Statement[0]));
+    }
+
+    private Statement parseFor() {
+        next();
+        expect("(");
+        Statement init = null;
+        if (accept("var")) {
+            init = parseVariableDeclaration();
+        } else if (!at(";")) {
+            init = new ExpressionStatement(parseExpression());
+        }
+        expect(";");
+        final Expression condition = at(";") ? null : parseExpression();
+        expect(";");
+        // the update runs after the body, but assignments of the body are not relied on
+        final Set<String> beforeUpdate = scope.state();
+        final Expression update = at(")") ? null : parseExpression();
+        expect(")");
+        scope.restore(beforeUpdate);
+        return new Loop(init, condition, update, parseLoopBody(), true);
+    }
+
+    /**
+     * The body of a loop may not run at all, so its assignments are not relied on after the loop
+     */
+    private Statement parseLoopBody() {
+        final Set<String> beforeBody = scope.state();
+        scope.breakStates.add(null);
+        final Statement body = parseStatement();
+        scope.breakStates.remove(scope.breakStates.size() - 1);
+        scope.restore(beforeBody);
+        return body;
+    }
+
+    private Statement parseSwitch() {
+        next();
+        expect("(");
+        final Expression discriminant = parseExpression();
+        expect(")");
+        expect("{");
+        final List<Expression> cases = new ArrayList<>();
+        final List<Statement> bodies = new ArrayList<>();
+        int defaultCase = -1;
+        // every clause may be entered directly, later ones also by falling through
+        final Set<String> beforeCases = scope.state();
+        final List<Set<String>> breakStates = new ArrayList<>();
+        scope.breakStates.add(breakStates);
+        while (!accept("}")) {
+            final Token token = peek();
+            scope.restore(beforeCases);
+            if (accept("case")) {
+                cases.add(parseExpression());
+            } else if (accept("default")) {
+                if (defaultCase >= 0) {
+                    throw error(token, "More than one default clause");
+                }
+                defaultCase = cases.size();
+                cases.add(null);
+            } else {
+                throw error(token, "Expected case or default");
+            }
+            expect(":");
+            final List<Statement> statements = new ArrayList<>();
+            while (!at("case") && !at("default") && !at("}")) {
+                statements.add(parseStatement());
+            }
+            bodies.add(new Block(statements.toArray(new Statement[0])));
+        }
+        scope.breakStates.remove(scope.breakStates.size() - 1);
+        if (cases.isEmpty()) {
+            scope.restore(beforeCases);
+        }
+        for (Set<String> breakState : breakStates) {
+            scope.join(breakState);
+        }
+        if (defaultCase < 0) {
+            scope.join(beforeCases);
+        }
+        return new Switch(discriminant, cases.toArray(new Expression[0]), bodies.toArray(new Statement[0]), defaultCase);
+    }
+
+    private Expression parseExpression() {
+        return parseAssignment();
+    }
+
+    private Expression parseAssignment() {
+        final Token start = peek();
+        assignmentTarget = start.kind == Kind.NAME && position + 1 < tokens.size()
+                && tokens.get(position + 1).kind == Kind.PUNCTUATOR && tokens.get(position + 1).text.equals("=");
+        final Expression target = parseConditional();
+        assignmentTarget = false;
+        final Token operator = peek();
+        if (operator.kind != Kind.PUNCTUATOR) {
+            return target;
+        }
+        switch (operator.text) {
+            case "=":
+                next();
+                return assign(start, target, parseAssignment());
+            case "+=":
+                next();
+                return assign(start, target, new Add(target, parseAssignment()));
+            case "-=":
+                next();
+                return assign(start, target, new Subtract(target, parseAssignment()));
+            case "*=":
+                next();
+                return assign(start, target, new Multiply(target, parseAssignment()));
+            case "/=":
+                next();
+                return assign(start, target, new Arithmetic(target, parseAssignment(), (a, b) -> a / b));
+            case "%=":
+                next();
+                return assign(start, target, new Arithmetic(target, parseAssignment(), (a, b) -> a % b));
+            default:
+                return target;
+        }
+    }
+
+    private Expression assign(Token start, Expression target, Expression value) {
+        if (target instanceof Local) {
+            scope.assign(((Local) target).name);
+            return new AssignLocal(((Local) target).slot, value);
+        } else if (target instanceof SharedVariable) {
+            final SharedVariable variable = (SharedVariable) target;
+            scope.assign(variable.name);
+            return new AssignShared(variable, value);
+        } else if (target instanceof Index) {
+            return new AssignIndex((Index) target, value);
+        } else if (target instanceof Global) {
+            throw error(start, "Constant " + ((Global) target).name + " cannot be assigned in a function");
+        }
+        throw error(start, "Invalid assignment target");
+    }
+
+    private Expression parseConditional() {
+        final Expression condition = parseOr();
+        if (accept("?")) {
+            final Set<String> beforeThen = assignedState();
+            final Expression then = parseAssignment();
+            expect(":");
+            final Set<String> afterThen = assignedState();
+            restoreAssigned(beforeThen);
+            final Expression otherwise = parseAssignment();
+            if (scope != null) {
+                scope.join(afterThen);
+            }
+            return new Conditional(condition, then, otherwise);
+        }
+        return condition;
+    }
+
+    private Expression parseOr() {
+        Expression left = parseAnd();
+        while (accept("||")) {
+            final Set<String> beforeRight = assignedState();
+            left = new Logical(left, parseAnd(), false);
+            restoreAssigned(beforeRight);
+        }
+        return left;
+    }
+
+    private Expression parseAnd() {
+        Expression left = parseEquality();
+        while (accept("&&")) {
+            final Set<String> beforeRight = assignedState();
+            left = new Logical(left, parseEquality(), true);
+            restoreAssigned(beforeRight);
+        }
+        return left;
+    }
+
+    private Expression parseEquality() {
+        Expression left = parseRelational();
+        while (true) {
+            if (accept("===")) {
+                left = new Equals(left, parseRelational(), true, false);
+            } else if (accept("!==")) {
+                left = new Equals(left, parseRelational(), true, true);
+            } else if (accept("==")) {
+                left = new Equals(left, parseRelational(), false, false);
+            } else if (accept("!=")) {
+                left = new Equals(left, parseRelational(), false, true);
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Expression parseRelational() {
+        Expression left = parseAdditive();
+        while (true) {
+            if (accept("<")) {
+                left = new Compare(left, parseAdditive(), Compare.LESS);
+            } else if (accept(">")) {
+                left = new Compare(left, parseAdditive(), Compare.GREATER);
+            } else if (accept("<=")) {
+                left = new Compare(left, parseAdditive(), Compare.LESS_OR_EQUAL);
+            } else if (accept(">=")) {
+                left = new Compare(left, parseAdditive(), Compare.GREATER_OR_EQUAL);
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Expression parseAdditive() {
+        Expression left = parseMultiplicative();
+        while (true) {
+            if (accept("+")) {
+                left = new Add(left, parseMultiplicative());
+            } else if (accept("-")) {
+                left = new Subtract(left, parseMultiplicative());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Expression parseMultiplicative() {
+        Expression left = parseUnary();
+        while (true) {
+            if (accept("*")) {
+                left = new Multiply(left, parseUnary());
+            } else if (accept("/")) {
+                left = new Arithmetic(left, parseUnary(), (a, b) -> a / b);
+            } else if (accept("%")) {
+                left = new Arithmetic(left, parseUnary(), (a, b) -> a % b);
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Expression parseUnary() {
+        final Token token = peek();
+        if (accept("-")) {
+            final Expression operand = parseUnary();
+            if (operand instanceof Constant && operand.isNumeric()) {
+                return new Constant(-operand.number(null));
+            }
+            return new Negate(operand);
+        } else if (accept("+")) {
+            return new ToNumber(parseUnary());
+        } else if (accept("!")) {
+            return new Not(parseUnary());
+        } else if (accept("++") || accept("--")) {
+            final Expression target = parseUnary();
+            final double delta = token.text.equals("++") ? 1 : -1;
+            return assign(token, target, new Add(new ToNumber(target), new Constant(delta)));
+        }
+        return parsePostfix();
+    }
+
+    private Expression parsePostfix() {
+        final Token start = peek();
+        final Expression expression = parseMember();
+        final Token token = peek();
+        if (!token.newlineBefore && (at("++") || at("--"))) {
+            next();
+            final double delta = token.text.equals("++") ? 1 : -1;
+            if (expression instanceof Local) {
+                scope.assign(((Local) expression).name);
+                return new PostIncrementLocal((Local) expression, delta);
+            } else if (expression instanceof Index || expression instanceof SharedVariable) {
+                // the new value is stored, the old one is the result
+                return new Subtract(assign(start, expression, new Add(new ToNumber(expression), new Constant(delta))), new Constant(delta));
+            }
+            throw error(token, "Invalid increment target");
+        }
+        return expression;
+    }
+
+    private Expression parseMember() {
+        Expression expression = parsePrimary();
+        while (true) {
+            if (accept(".")) {
+                final Token name = peek();
+                final String member = expectName();
+                if (at("(")) {
+                    expression = new MethodCall(expression, member, parseArguments());
+                } else if (member.equals("length")) {
+                    expression = new ScriptNodes.Length(expression);
+                } else {
+                    throw error(name, "Property " + member + " is not supported");
+                }
+            } else if (accept("[")) {
+                final Expression index = parseExpression();
+                expect("]");
+                expression = new Index(expression, index);
+            } else {
+                return expression;
+            }
+        }
+    }
+
+    private Expression parsePrimary() {
+        final Token token = next();
+        switch (token.kind) {
+            case NUMBER:
+                return new Constant(token.number);
+            case STRING:
+                return new Constant(token.text);
+            case NAME:
+                return parseName(token);
+            case PUNCTUATOR:
+                if (token.text.equals("(")) {
+                    final Expression expression = parseExpression();
+                    expect(")");
+                    return expression;
+                } else if (token.text.equals("[")) {
+                    final List<Expression> elements = new ArrayList<>();
+                    if (!accept("]")) {
+                        do {
+                            elements.add(parseAssignment());
+                        } while (accept(","));
+                        expect("]");
+                    }
+                    return new ArrayLiteral(elements.toArray(new Expression[0]));
+                }
+            default:
+                throw error(token, "Unexpected " + token);
+        }
+    }
+
+    private Expression parseName(Token token) {
+        final boolean target = assignmentTarget;
+        assignmentTarget = false;
+        switch (token.text) {
+            case "true":
+                return new Constant(Boolean.TRUE);
+            case "false":
+                return new Constant(Boolean.FALSE);
+            case "null":
+                return new Constant(null);
+            case "undefined":
+                return new Constant(ScriptValues.UNDEFINED);
+            case "NaN":
+                return new Constant(Double.NaN);
+            case "Infinity":
+                return new Constant(Double.POSITIVE_INFINITY);
+            case "new":
+                return parseNew();
+            case "function":
+                throw error(token, "Nested functions are not supported");
+            case "Math":
+                if (at(".")) {
+                    return parseMath();
+                }
+                break;
+            case "Java":
+                if (at(".")) {
+                    return parseJava();
+                }
+                break;
+            default:
+        }
+        if (at("(")) {
+            return parseCall(token);
+        }
+        final String name = token.text;
+        if ((scope == null || !scope.slots.containsKey(name)) && globals.containsKey(name)) {
+            return new Global(name, globals.get(name));
+        }
+        if (scope == null) {
+            throw error(token, name + " is not defined");
+        }
+        if (!target) {
+            scope.read(name, token.line);
+        }
+        final Integer shared = sharedVariables == null || localVariables.get(scope.function).contains(name)
+                ? null : sharedVariables.get(name);
+        if (shared != null) {
+            return new SharedVariable(name, sharedValues, shared);
+        }
+        return new Local(name, scope.slot(name, token.line));
+    }
+
+    private Set<String> assignedState() {
+        return scope == null ? null : scope.state();
+    }
+
+    private void restoreAssigned(Set<String> state) {
+        if (scope != null) {
+            scope.restore(state);
+        }
+    }
+
+    private Expression parseNew() {
+        final Token type = peek();
+        final String name = expectName();
+        final Expression[] arguments = at("(") ? parseArguments() : new Expression[0];
+        if (name.equals("Array")) {
+            if (arguments.length == 1) {
+                return new NewArray(arguments[0]);
+            }
+            return new ArrayLiteral(arguments);
+        } else if (name.equals("Error")) {
+            return new NewError(arguments.length == 0 ? null : arguments[0]);
+        }
+        throw error(type, "new " + name + " is not supported");
+    }
+
+    private Expression parseMath() {
+        expect(".");
+        final Token token = peek();
+        final String name = expectName();
+        if (!at("(")) {
+            switch (name) {
+                case "PI":
+                    return new Constant(Math.PI);
+                case "E":
+                    return new Constant(Math.E);
+                default:
+                    throw error(token, "Math." + name + " is not supported");
+            }
+        }
+        final Expression[] arguments = parseArguments();
+        switch (name) {
+            case "pow":
+                checkArguments(token, arguments, 2);
+                return new Power(arguments[0], arguments[1]);
+            case "min":
+                return new MinMax(arguments, false);
+            case "max":
+                return new MinMax(arguments, true);
+            default:
+                final DoubleUnaryOperator function = MATH_FUNCTIONS.get(name);
+                if (function == null) {
+                    throw error(token, "Math." + name + " is not supported");
+                }
+                checkArguments(token, arguments, 1);
+                return new MathFunction(arguments[0], function);
+        }
+    }
+
+    private Expression parseJava() {
+        expect(".");
+        final Token token = peek();
+        final String name = expectName();
+        final Expression[] arguments = parseArguments();
+        if (name.equals("to") && arguments.length == 2 && arguments[1] instanceof Constant) {
+            final Object type = arguments[1].eval(null);
+            if ("double[]".equals(type)) {
+                return new JavaArray(arguments[0], false);
+            } else if ("int[]".equals(type)) {
+                return new JavaArray(arguments[0], true);
+            }
+        }
+        throw error(token, "Only Java.to(array, \"double[]\") and Java.to(array, \"int[]\") are supported");
+    }
+
+    private Expression parseCall(Token name) {
+        final Expression[] arguments = parseArguments();
+        switch (name.text) {
+            case "isNaN":
+                checkArguments(name, arguments, 1);
+                return new IsNaN(arguments[0]);
+            case "print":
+                return new Print(arguments);
+            case "Error":
+                return new NewError(arguments.length == 0 ? null : arguments[0]);
+            default:
+                if (scope != null && scope.slots.containsKey(name.text)) {
+                    throw error(name, "Variable " + name.text + " is not a function");
+                }
+                if (scope != null) {
+                    scope.calls.add(name.text);
+                }
+                return new FunctionCall(referencedFunctions.computeIfAbsent(name.text, key -> new UtilityFunction[1]), arguments);
+        }
+    }
+
+    private Expression[] parseArguments() {
+        expect("(");
+        final List<Expression> arguments = new ArrayList<>();
+        if (!accept(")")) {
+            do {
+                arguments.add(parseAssignment());
+            } while (accept(","));
+            expect(")");
+        }
+        return arguments.toArray(new Expression[0]);
+    }
+
+    private void checkArguments(Token token, Expression[] arguments, int expected) {
+        if (arguments.length != expected) {
+            throw error(token, token.text + " expects " + expected + " arguments");
+        }
+    }
+
+    /**
+     * @return true if the next token is the given punctuator or name
+     */
+    private boolean at(String text) {
+        final Token token = peek();
+        return (token.kind == Kind.PUNCTUATOR || token.kind == Kind.NAME) && token.text.equals(text);
+    }
+
+    private Token peek() {
+        return tokens.get(position);
+    }
+
+    private Token next() {
+        final Token token = tokens.get(position);
+        if (token.kind != Kind.END) {
+            position++;
+        }
+        return token;
+    }
+
+    private boolean accept(String text) {
+        final Token token = peek();
+        if ((token.kind == Kind.PUNCTUATOR || token.kind == Kind.NAME) && token.text.equals(text)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String text) {
+        if (!accept(text)) {
+            throw error(peek(), "Expected \"" + text + "\" but found " + peek());
+        }
+    }
+
+    private String expectName() {
+        final Token token = next();
+        if (token.kind != Kind.NAME) {
+            throw error(token, "Expected a name but found " + token);
+        }
+        return token.text;
+    }
+
+    /**
+     * Statements end with a semicolon, a line break, a closing brace or the end of the script
+     */
+    private void acceptStatementEnd() {
+        if (accept(";")) {
+            return;
+        }
+        final Token token = peek();
+        if (!token.newlineBefore && !token.text.equals("}") && token.kind != Kind.END) {
+            throw error(token, "Expected \";\" but found " + token);
+        }
+    }
+
+    private static IllegalArgumentException error(Token token, String message) {
+        return new IllegalArgumentException(message + " (line " + token.line + ")");
+    }
+
+    private static List<Token> tokenize(String source) {
+        final List<Token> tokens = new ArrayList<>();
+        int line = 1;
+        boolean newline = true;
+        int i = 0;
+        final int length = source.length();
+        while (i < length) {
+            final char c = source.charAt(i);
+            if (c == '\n') {
+                line++;
+                newline = true;
+                i++;
+            } else if (Character.isWhitespace(c) || c == '\uFEFF') {
+                i++;
+            } else if (source.startsWith("//", i)) {
+                while (i < length && source.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (source.startsWith("/*", i)) {
+                final int end = source.indexOf("*/", i + 2);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated comment (line " + line + ")");
+                }
+                for (int j = i; j < end; j++) {
+                    if (source.charAt(j) == '\n') {
+                        line++;
+                        newline = true;
+                    }
+                }
+                i = end + 2;
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(source.charAt(i + 1)))) {
+                final int start = i;
+                double value;
+                if (c == '0' && i + 1 < length && (source.charAt(i + 1) == 'x' || source.charAt(i + 1) == 'X')) {
+                    i += 2;
+                    while (i < length && Character.digit(source.charAt(i), 16) >= 0) {
+                        i++;
+                    }
+                    value = Long.parseLong(source.substring(start + 2, i), 16);
+                } else {
+                    while (i < length && Character.isDigit(source.charAt(i))) {
+                        i++;
+                    }
+                    if (i < length && source.charAt(i) == '.') {
+                        i++;
+                        while (i < length && Character.isDigit(source.charAt(i))) {
+                            i++;
+                        }
+                    }
+                    if (i < length && (source.charAt(i) == 'e' || source.charAt(i) == 'E')) {
+                        int exponent = i + 1;
+                        if (exponent < length && (source.charAt(exponent) == '+' || source.charAt(exponent) == '-')) {
+                            exponent++;
+                        }
+                        if (exponent < length && Character.isDigit(source.charAt(exponent))) {
+                            i = exponent;
+                            while (i < length && Character.isDigit(source.charAt(i))) {
+                                i++;
+                            }
+                        }
+                    }
+                    value = Double.parseDouble(source.substring(start, i));
+                }
+                tokens.add(new Token(Kind.NUMBER, source.substring(start, i), value, line, newline));
+                newline = false;
+            } else if (c == '"' || c == '\'') {
+                final StringBuilder text = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= length || source.charAt(i) == '\n') {
+                        throw new IllegalArgumentException("Unterminated string (line " + line + ")");
+                    }
+                    final char d = source.charAt(i++);
+                    if (d == c) {
+                        break;
+                    } else if (d == '\\' && i < length) {
+                        final char escaped = source.charAt(i++);
+                        switch (escaped) {
+                            case 'n':
+                                text.append('\n');
+                                break;
+                            case 't':
+                                text.append('\t');
+                                break;
+                            case 'r':
+                                text.append('\r');
+                                break;
+                            default:
+                                text.append(escaped);
+                        }
+                    } else {
+                        text.append(d);
+                    }
+                }
+                tokens.add(new Token(Kind.STRING, text.toString(), Double.NaN, line, newline));
+                newline = false;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                final int start = i;
+                while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.NAME, source.substring(start, i), Double.NaN, line, newline));
+                newline = false;
+            } else {
+                String punctuator = null;
+                for (String candidate : PUNCTUATORS) {
+                    if (source.startsWith(candidate, i)) {
+                        punctuator = candidate;
+                        break;
+                    }
+                }
+                if (punctuator == null) {
+                    throw new IllegalArgumentException("Unexpected character '" + c + "' (line " + line + ")");
+                }
+                tokens.add(new Token(Kind.PUNCTUATOR, punctuator, Double.NaN, line, newline));
+                newline = false;
+                i += punctuator.length();
+            }
+        }
+        tokens.add(new Token(Kind.END, "", Double.NaN, line, true));
+        return tokens;
+    }
+}
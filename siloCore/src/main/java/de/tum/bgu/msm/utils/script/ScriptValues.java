@@ -0,0 +1,295 @@
+package de.tum.bgu.msm.utils.script;
+
+import java.util.Arrays;
+
+/**
+ * Values and conversions of the script language. Numbers are represented as {@link Double}, strings as
+ * {@link String}, booleans as {@link Boolean}, arrays as {@link ScriptArray} and everything else by the
+ * java object that was passed in. The conversions follow the JavaScript rules as far as the calc scripts
+ * depend on them.
+ */
+final class ScriptValues {
+
+    static final Object UNDEFINED = new Object() {
+        @Override
+        public String toString() {
+            return "undefined";
+        }
+    };
+
+    private ScriptValues() {
+    }
+
+    /**
+     * An array created by the script. Grows when elements beyond its length are set.
+     */
+    static final class ScriptArray {
+
+        private Object[] values;
+        private int length;
+
+        ScriptArray(int length) {
+            this.values = new Object[Math.max(length, 4)];
+            this.length = length;
+        }
+
+        ScriptArray(Object[] values) {
+            this.values = values;
+            this.length = values.length;
+        }
+
+        int length() {
+            return length;
+        }
+
+        Object get(int index) {
+            if (index < 0 || index >= length) {
+                return UNDEFINED;
+            }
+            final Object value = values[index];
+            return value == null ? UNDEFINED : value;
+        }
+
+        void set(int index, Object value) {
+            if (index >= values.length) {
+                values = Arrays.copyOf(values, Math.max(index + 1, values.length * 2));
+            }
+            values[index] = value;
+            length = Math.max(length, index + 1);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                final Object value = get(i);
+                if (value != UNDEFINED && value != null) {
+                    builder.append(ScriptValues.toString(value));
+                }
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Result of {@code new Error(message)}
+     */
+    static final class ErrorValue {
+
+        final String message;
+
+        ErrorValue(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "Error: " + message;
+        }
+    }
+
+    /**
+     * Converts an argument passed in from java. Numbers become doubles, as in the script engine.
+     */
+    static Object fromJava(Object value) {
+        if (value instanceof Double || value instanceof String || value instanceof Boolean) {
+            return value;
+        } else if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof Character) {
+            return value.toString();
+        } else if (value == null) {
+            return null;
+        }
+        return value;
+    }
+
+    static double toNumber(Object value) {
+        if (value instanceof Double) {
+            return (Double) value;
+        } else if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        } else if (value == null) {
+            return 0;
+        } else if (value == UNDEFINED) {
+            return Double.NaN;
+        } else if (value instanceof String) {
+            return toNumber((String) value);
+        }
+        return toNumber(toString(value));
+    }
+
+    private static double toNumber(String value) {
+        final String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return 0;
+        }
+        if (trimmed.startsWith("0x") || trimmed.startsWith("0X")) {
+            try {
+                return Long.parseLong(trimmed.substring(2), 16);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        final char last = trimmed.charAt(trimmed.length() - 1);
+        if (!Character.isDigit(last) && last != '.' && !trimmed.endsWith("Infinity")) {
+            // rejects suffixes like "d" or "f" that java accepts, but JavaScript does not
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(trimmed);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    static boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        } else if (value instanceof Double) {
+            final double number = (Double) value;
+            return number != 0 && !Double.isNaN(number);
+        } else if (value instanceof String) {
+            return !((String) value).isEmpty();
+        }
+        return value != null && value != UNDEFINED;
+    }
+
+    static String toString(Object value) {
+        if (value instanceof Double) {
+            return toString(((Double) value).doubleValue());
+        } else if (value instanceof String) {
+            return (String) value;
+        } else if (value == null) {
+            return "null";
+        } else if (value instanceof double[]) {
+            final double[] array = (double[]) value;
+            final StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(toString(array[i]));
+            }
+            return builder.toString();
+        }
+        return value.toString();
+    }
+
+    static String toString(double number) {
+        if (number == Math.rint(number) && Math.abs(number) < 1e21) {
+            return Long.toString((long) number);
+        } else if (Double.isNaN(number)) {
+            return "NaN";
+        } else if (Double.isInfinite(number)) {
+            return number > 0 ? "Infinity" : "-Infinity";
+        }
+        return Double.toString(number);
+    }
+
+    /**
+     * @return true for values that JavaScript treats as primitives in arithmetic and comparisons
+     */
+    static boolean isPrimitive(Object value) {
+        return value instanceof Double || value instanceof String || value instanceof Boolean
+                || value == null || value == UNDEFINED;
+    }
+
+    /**
+     * The {@code ===} operator
+     */
+    static boolean strictEquals(Object a, Object b) {
+        if (a instanceof Double && b instanceof Double) {
+            return ((Double) a).doubleValue() == (Double) b;
+        } else if (a instanceof String && b instanceof String) {
+            return a.equals(b);
+        } else if (a instanceof Boolean && b instanceof Boolean) {
+            return a.equals(b);
+        }
+        return a == b;
+    }
+
+    /**
+     * The {@code ==} operator. Java objects are compared to primitives by their string representation.
+     */
+    static boolean looseEquals(Object a, Object b) {
+        if ((a == null || a == UNDEFINED) && (b == null || b == UNDEFINED)) {
+            return true;
+        } else if (a == null || a == UNDEFINED || b == null || b == UNDEFINED) {
+            return false;
+        } else if (a instanceof Double && b instanceof Double) {
+            return ((Double) a).doubleValue() == (Double) b;
+        } else if (a instanceof String && b instanceof String) {
+            return a.equals(b);
+        } else if (a instanceof Boolean || b instanceof Boolean) {
+            return toNumber(a) == toNumber(b);
+        } else if (a instanceof Double || b instanceof Double) {
+            return toNumber(a) == toNumber(b);
+        } else if (a instanceof String) {
+            return a.equals(toString(b));
+        } else if (b instanceof String) {
+            return b.equals(toString(a));
+        }
+        return a == b;
+    }
+
+    /**
+     * Converts an argument of a call to a java method to the type of the parameter
+     */
+    static Object toJava(Object value, Class<?> type) {
+        if (type == double.class || type == Double.class) {
+            return toNumber(value);
+        } else if (type == int.class || type == Integer.class) {
+            return (int) toNumber(value);
+        } else if (type == long.class || type == Long.class) {
+            return (long) toNumber(value);
+        } else if (type == float.class || type == Float.class) {
+            return (float) toNumber(value);
+        } else if (type == boolean.class || type == Boolean.class) {
+            return toBoolean(value);
+        } else if (type == String.class) {
+            return toString(value);
+        } else if (value == UNDEFINED) {
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * Converts the result of a script function, as {@code Java.to(value, "double[]")} does
+     */
+    static double[] toDoubleArray(Object value) {
+        if (value instanceof double[]) {
+            return (double[]) value;
+        } else if (value instanceof int[]) {
+            return Arrays.stream((int[]) value).asDoubleStream().toArray();
+        } else if (value instanceof ScriptArray) {
+            final ScriptArray array = (ScriptArray) value;
+            final double[] result = new double[array.length()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = toNumber(array.get(i));
+            }
+            return result;
+        } else if (value == null || value == UNDEFINED) {
+            return null;
+        }
+        throw new IllegalArgumentException("Cannot convert " + toString(value) + " to double[]");
+    }
+
+    static int[] toIntArray(Object value) {
+        final double[] doubles = toDoubleArray(value);
+        if (doubles == null) {
+            return null;
+        }
+        final int[] result = new int[doubles.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (int) doubles[i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,102 @@
+package de.tum.bgu.msm.utils.script;
+
+import de.tum.bgu.msm.utils.script.ScriptNodes.Frame;
+import de.tum.bgu.msm.utils.script.ScriptNodes.Statement;
+
+/**
+ * A function of a compiled {@link UtilityScript}. Every call gets its own local variables, so a
+ * function may be called from several threads at once without synchronization. Only if the script
+ * has variables that keep their values between calls, calls of its functions are serialized.
+ *
+ * Numbers passed as arguments are converted to double, as by the script engine. Other arguments, like
+ * enums, are passed as they are and can be used with their public methods, e.g. {@code ht.name()}.
+ */
+public final class UtilityFunction {
+
+    private final String name;
+    private final int parameters;
+
+    /**
+     * Values of the variables that are global to the script, shared by all its functions
+     */
+    private final Object[] sharedValues;
+
+    private Statement body;
+    private int slots;
+    private boolean[] declared;
+
+    UtilityFunction(String name, int parameters, Object[] sharedValues) {
+        this.name = name;
+        this.parameters = parameters;
+        this.sharedValues = sharedValues;
+    }
+
+    /**
+     * Called once by the parser when the body is compiled
+     *
+     * @param declared the slots of variables declared with {@code var}, which are undefined rather
+     *                 than unassigned at the start of a call
+     */
+    void define(Statement body, int slots, boolean[] declared) {
+        this.body = body;
+        this.slots = slots;
+        this.declared = declared;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the result of the function, converted to a number. Returns NaN if the function did not
+     * return a value.
+     */
+    public double calculateDouble(Object... arguments) {
+        return ScriptValues.toNumber(invoke(convert(arguments)));
+    }
+
+    /**
+     * @return the result of the function, which is expected to be an array of numbers
+     */
+    public double[] calculateDoubleArray(Object... arguments) {
+        return ScriptValues.toDoubleArray(invoke(convert(arguments)));
+    }
+
+    private static Object[] convert(Object[] arguments) {
+        final Object[] values = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            values[i] = ScriptValues.fromJava(arguments[i]);
+        }
+        return values;
+    }
+
+    /**
+     * @param arguments values of the script language
+     */
+    Object invoke(Object[] arguments) {
+        if (sharedValues.length == 0) {
+            return call(arguments);
+        }
+        synchronized (sharedValues) {
+            return call(arguments);
+        }
+    }
+
+    private Object call(Object[] arguments) {
+        final Frame frame = new Frame(slots);
+        for (int i = 0; i < parameters; i++) {
+            frame.slots[i] = i < arguments.length ? arguments[i] : ScriptValues.UNDEFINED;
+        }
+        for (int i = parameters; i < slots; i++) {
+            if (declared[i]) {
+                frame.slots[i] = ScriptValues.UNDEFINED;
+            }
+        }
+        try {
+            body.exec(frame);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Error in script function " + name + ": " + e.getMessage(), e);
+        }
+        return frame.returnValue;
+    }
+}
@@ -0,0 +1,73 @@
+package de.tum.bgu.msm.utils.script;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiles the JavaScript utility and probability calculations ("calc" files) of the models into a
+ * tree of java objects once, instead of evaluating them with a script engine on every call. The
+ * compiled functions can be used by several threads.
+ *
+ * The subset of JavaScript used by the calc files is supported: functions declared with
+ * {@code var name = function(...) {...}} or {@code function name(...) {...}}, constants at the top
+ * level, local and implicitly declared variables, arithmetic, comparison and logical operators,
+ * {@code if}, {@code switch}, {@code for}, {@code while}, {@code return} and {@code throw new Error(...)},
+ * arrays, the functions of {@code Math}, {@code isNaN}, {@code print}, {@code Java.to(array, "double[]")}
+ * and calls of public methods of the java objects passed as arguments.
+ *
+ * Variables that are assigned without {@code var} are global to the script, as in the script engine.
+ * Most calc scripts assign them before reading them in every call, so no call sees the value of
+ * another one. Such variables are kept in the call frame, and the functions need no locking. If a
+ * call may see the value of another call, the variable keeps its value between calls, and calls of
+ * the functions of the script are serialized.
+ */
+public final class UtilityScript {
+
+    private final Map<String, UtilityFunction> functions;
+
+    private UtilityScript(Map<String, UtilityFunction> functions) {
+        this.functions = functions;
+    }
+
+    /**
+     * Reads and compiles the script. The reader is closed afterwards.
+     *
+     * @throws IllegalArgumentException if the script uses unsupported syntax
+     */
+    public static UtilityScript compile(Reader reader) {
+        final StringBuilder source = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(reader)) {
+            final char[] buffer = new char[8192];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                source.append(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read script", e);
+        }
+        return compile(source.toString());
+    }
+
+    public static UtilityScript compile(String source) {
+        return new UtilityScript(Collections.unmodifiableMap(new ScriptParser(source).parse()));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the script has no function with this name
+     */
+    public UtilityFunction getFunction(String name) {
+        final UtilityFunction function = functions.get(name);
+        if (function == null) {
+            throw new IllegalArgumentException("Script has no function " + name + ". Defined functions: " + functions.keySet());
+        }
+        return function;
+    }
+
+    public Set<String> getFunctionNames() {
+        return functions.keySet();
+    }
+}
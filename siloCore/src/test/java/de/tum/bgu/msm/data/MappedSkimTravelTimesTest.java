@@ -0,0 +1,208 @@
+package de.tum.bgu.msm.data;
+
+import de.tum.bgu.msm.data.geo.DefaultGeoData;
+import de.tum.bgu.msm.data.geo.GeoData;
+import de.tum.bgu.msm.data.geo.RegionImpl;
+import de.tum.bgu.msm.data.geo.ZoneImpl;
+import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.TransportMode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class MappedSkimTravelTimesTest {
+
+    @Test
+    public void testMappedSkimEqualsSkim() throws IOException {
+        assertMappedSkimEqualsSkim(Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testSkimMappedInSegmentsEqualsSkim() throws IOException {
+        // two rows of five zones per segment
+        assertMappedSkimEqualsSkim(2 * 5 * Float.BYTES);
+    }
+
+    private static void assertMappedSkimEqualsSkim(long maxSegmentBytes) throws IOException {
+
+        GeoData geoData = new DefaultGeoData();
+        final RegionImpl region1 = new RegionImpl(1);
+        final RegionImpl region2 = new RegionImpl(2);
+        geoData.addRegion(region1);
+        geoData.addRegion(region2);
+
+        for (int i = 1; i <= 5; i++) {
+            final RegionImpl region = i <= 3 ? region1 : region2;
+            final ZoneImpl zone = new ZoneImpl(i, 10, region);
+            region.addZone(zone);
+            geoData.addZone(zone);
+        }
+
+        Random random = new Random(42);
+        SkimTravelTimes skimTravelTimes = new SkimTravelTimes();
+        for (String mode : Arrays.asList(TransportMode.car, TransportMode.pt)) {
+            IndexedDoubleMatrix2D matrix = new IndexedDoubleMatrix2D(geoData.getZones().values(), geoData.getZones().values());
+            for (Zone origin : geoData.getZones().values()) {
+                for (Zone destination : geoData.getZones().values()) {
+                    matrix.setIndexed(origin.getZoneId(), destination.getZoneId(), random.nextDouble() * 10);
+                }
+            }
+            skimTravelTimes.updateSkimMatrix(matrix, mode);
+        }
+        skimTravelTimes.updateRegionalTravelTimes(geoData.getRegions().values(), geoData.getZones().values());
+
+        final Path file = Files.createTempFile("mappedSkims", ".bin");
+        try {
+            MappedSkimTravelTimes.convert(skimTravelTimes, geoData.getZones().values(), geoData.getRegions().values(),
+                    Arrays.asList(TransportMode.car, TransportMode.pt), file, 2);
+            MappedSkimTravelTimes mappedTravelTimes = new MappedSkimTravelTimes();
+            mappedTravelTimes.load(file, geoData.getZones().values(), maxSegmentBytes);
+            final Object version = mappedTravelTimes.getPeakSkimVersion(TransportMode.car);
+            final int[] zoneIds = geoData.getZones().keySet().stream().mapToInt(Integer::intValue).toArray();
+            final double[] row = new double[zoneIds.length];
+
+            for (String mode : Arrays.asList(TransportMode.car, TransportMode.pt)) {
+                for (Zone origin : geoData.getZones().values()) {
+                    mappedTravelTimes.getPeakTravelTimes(origin.getZoneId(), zoneIds, mode, row);
+                    for (int j = 0; j < zoneIds.length; j++) {
+                        Assert.assertEquals(skimTravelTimes.getPeakSkim(mode).getIndexed(origin.getZoneId(), zoneIds[j]), row[j], 1e-5);
+                    }
+                    for (Zone destination : geoData.getZones().values()) {
+                        Assert.assertEquals(skimTravelTimes.getTravelTime(origin, destination, 0, mode),
+                                mappedTravelTimes.getTravelTime(origin, destination, 0, mode), 1e-5);
+                        Assert.assertEquals(skimTravelTimes.getPeakSkim(mode).getIndexed(origin.getZoneId(), destination.getZoneId()),
+                                mappedTravelTimes.getPeakTravelTime(origin.getZoneId(), destination.getZoneId(), mode), 1e-5);
+                        Assert.assertEquals(skimTravelTimes.getPeakSkim(mode).getIndexed(origin.getZoneId(), destination.getZoneId()),
+                                mappedTravelTimes.getPeakSkim(mode).getIndexed(origin.getZoneId(), destination.getZoneId()), 1e-5);
+                    }
+                    for (Region region : geoData.getRegions().values()) {
+                        Assert.assertEquals(skimTravelTimes.getTravelTimeFromRegion(region, origin, 0, mode),
+                                mappedTravelTimes.getTravelTimeFromRegion(region, origin, 0, mode), 1e-5);
+                        Assert.assertEquals(skimTravelTimes.getTravelTimeToRegion(origin, region, 0, mode),
+                                mappedTravelTimes.getTravelTimeToRegion(origin, region, 0, mode), 1e-5);
+                    }
+                }
+            }
+            Assert.assertSame(mappedTravelTimes, mappedTravelTimes.duplicate());
+            final IndexedDoubleMatrix2D peakSkim = mappedTravelTimes.getPeakSkim(TransportMode.car);
+            Assert.assertSame(peakSkim, mappedTravelTimes.getPeakSkim(TransportMode.car));
+            Assert.assertSame(version, mappedTravelTimes.getPeakSkimVersion(TransportMode.car));
+
+            mappedTravelTimes.load(file, geoData.getZones().values(), maxSegmentBytes);
+            Assert.assertNotSame(version, mappedTravelTimes.getPeakSkimVersion(TransportMode.car));
+            Assert.assertNotSame(peakSkim, mappedTravelTimes.getPeakSkim(TransportMode.car));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testRowsWrittenInAnyOrderAreMapped() throws IOException {
+        GeoData geoData = new DefaultGeoData();
+        final RegionImpl region1 = new RegionImpl(1);
+        final RegionImpl region2 = new RegionImpl(2);
+        geoData.addRegion(region1);
+        geoData.addRegion(region2);
+        for (int i = 1; i <= 4; i++) {
+            final RegionImpl region = i <= 2 ? region1 : region2;
+            final ZoneImpl zone = new ZoneImpl(i, 10, region);
+            region.addZone(zone);
+            geoData.addZone(zone);
+        }
+
+        final Path file = Files.createTempFile("writtenSkims", ".bin");
+        try {
+            try (MappedSkimTravelTimes.Writer writer = MappedSkimTravelTimes.writer(file, geoData.getZones().values(),
+                    geoData.getRegions().values(), Arrays.asList(TransportMode.car))) {
+                for (int origin = 4; origin >= 1; origin--) {
+                    final double[] row = new double[4];
+                    for (int j = 0; j < 4; j++) {
+                        row[j] = 10 * origin + j + 1;
+                    }
+                    writer.writeRow(TransportMode.car, origin, row);
+                }
+                writer.finish(2);
+            }
+            MappedSkimTravelTimes mappedTravelTimes = new MappedSkimTravelTimes();
+            mappedTravelTimes.load(file, geoData.getZones().values());
+            Assert.assertEquals(23, mappedTravelTimes.getPeakTravelTime(2, 3, TransportMode.car), 0.);
+            Assert.assertEquals(41, mappedTravelTimes.getPeakTravelTime(4, 1, TransportMode.car), 0.);
+            // minimum over the zones 1 and 2 of region 1
+            Assert.assertEquals(14, mappedTravelTimes.getTravelTimeFromRegion(region1, geoData.getZones().get(4), 0, TransportMode.car), 0.);
+            Assert.assertEquals(43, mappedTravelTimes.getTravelTimeToRegion(geoData.getZones().get(4), region2, 0, TransportMode.car), 0.);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSkimFileWithMissingRowsIsNotFinished() throws IOException {
+        final RegionImpl region = new RegionImpl(1);
+        final ZoneImpl zone1 = new ZoneImpl(1, 10, region);
+        final ZoneImpl zone2 = new ZoneImpl(2, 10, region);
+        region.addZone(zone1);
+        region.addZone(zone2);
+        final Path file = Files.createTempFile("writtenSkims", ".bin");
+        try (MappedSkimTravelTimes.Writer writer = MappedSkimTravelTimes.writer(file, Arrays.asList(zone1, zone2),
+                Arrays.asList(region), Arrays.asList(TransportMode.car))) {
+            writer.writeRow(TransportMode.car, 1, new double[]{1, 2});
+            writer.finish(1);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testSkimFileOfOtherZonesIsRejected() throws IOException {
+        final RegionImpl region = new RegionImpl(1);
+        final ZoneImpl zone1 = new ZoneImpl(1, 10, region);
+        final ZoneImpl zone2 = new ZoneImpl(2, 10, region);
+        final ZoneImpl zone3 = new ZoneImpl(3, 10, region);
+        region.addZone(zone1);
+        region.addZone(zone2);
+        final Path file = Files.createTempFile("writtenSkims", ".bin");
+        try {
+            try (MappedSkimTravelTimes.Writer writer = MappedSkimTravelTimes.writer(file, Arrays.asList(zone1, zone2),
+                    Arrays.asList(region), Arrays.asList(TransportMode.car))) {
+                writer.writeRow(TransportMode.car, 1, new double[]{1, 2});
+                writer.writeRow(TransportMode.car, 2, new double[]{3, 4});
+                writer.finish(1);
+            }
+            MappedSkimTravelTimes mappedTravelTimes = new MappedSkimTravelTimes();
+            mappedTravelTimes.load(file, Arrays.asList(zone2, zone1));
+            try {
+                mappedTravelTimes.load(file, Arrays.asList(zone1, zone3));
+                Assert.fail("Skim file of other zones was loaded.");
+            } catch (RuntimeException e) {
+                Assert.assertEquals(2, mappedTravelTimes.getPeakTravelTime(1, 2, TransportMode.car), 0.);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testPeakTravelTimesOfSkimReadThePeakSkim() {
+        final RegionImpl region = new RegionImpl(1);
+        final ZoneImpl zone1 = new ZoneImpl(1, 10, region);
+        final ZoneImpl zone2 = new ZoneImpl(2, 10, region);
+        final IndexedDoubleMatrix2D matrix = new IndexedDoubleMatrix2D(Arrays.asList(zone1, zone2), Arrays.asList(zone1, zone2));
+        matrix.setIndexed(1, 2, 3.5);
+        matrix.setIndexed(2, 1, 4.5);
+        SkimTravelTimes skimTravelTimes = new SkimTravelTimes();
+        skimTravelTimes.updateSkimMatrix(matrix, TransportMode.car);
+
+        final PeakTravelTimes peakTravelTimes = PeakTravelTimes.of(skimTravelTimes);
+        Assert.assertEquals(3.5, peakTravelTimes.getPeakTravelTime(1, 2, TransportMode.car), 0.);
+        final double[] row = new double[2];
+        peakTravelTimes.getPeakTravelTimes(2, new int[]{2, 1}, TransportMode.car, row);
+        Assert.assertArrayEquals(new double[]{0, 4.5}, row, 0.);
+        Assert.assertSame(skimTravelTimes.getPeakSkim(TransportMode.car), peakTravelTimes.getPeakSkimVersion(TransportMode.car));
+    }
+}
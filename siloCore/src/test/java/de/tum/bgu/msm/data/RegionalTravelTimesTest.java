@@ -10,6 +10,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.matsim.api.core.v01.TransportMode;
 
+import java.util.Arrays;
 import java.util.Random;
 
 public class RegionalTravelTimesTest {
@@ -72,4 +73,53 @@ public class RegionalTravelTimesTest {
         Assert.assertEquals(3.6878, skimTravelTimes.getTravelTimeToRegion(zone4, region2, 0, TransportMode.car), 0.001);
         Assert.assertEquals(6.8322, skimTravelTimes.getTravelTimeToRegion(zone5, region2, 0, TransportMode.car), 0.001);
     }
+
+    @Test
+    public void testRegionalTravelTimesOfAllModesInOnePass() {
+
+        GeoData geoData = new DefaultGeoData();
+        for (int r = 1; r <= 3; r++) {
+            geoData.addRegion(new RegionImpl(r));
+        }
+        for (int z = 1; z <= 12; z++) {
+            final RegionImpl region = (RegionImpl) geoData.getRegions().get(1 + z % 3);
+            final ZoneImpl zone = new ZoneImpl(z, 10, region);
+            region.addZone(zone);
+            geoData.addZone(zone);
+        }
+
+        Random random = new Random(42);
+        SkimTravelTimes skimTravelTimes = new SkimTravelTimes();
+        for (String mode : Arrays.asList(TransportMode.car, TransportMode.pt)) {
+            IndexedDoubleMatrix2D matrix = new IndexedDoubleMatrix2D(geoData.getZones().values(), geoData.getZones().values());
+            for (Zone origin : geoData.getZones().values()) {
+                for (Zone destination : geoData.getZones().values()) {
+                    matrix.setIndexed(origin.getZoneId(), destination.getZoneId(), random.nextDouble() * 10);
+                }
+            }
+            skimTravelTimes.updateSkimMatrix(matrix, mode);
+        }
+
+        RegionalTravelTimes regionalTravelTimes = RegionalTravelTimes.calculate(skimTravelTimes,
+                Arrays.asList(TransportMode.car, TransportMode.pt), geoData.getZones().values(),
+                geoData.getRegions().values(), 2);
+
+        Assert.assertTrue(regionalTravelTimes.hasMode(TransportMode.pt));
+        Assert.assertFalse(regionalTravelTimes.hasMode(TransportMode.walk));
+        for (String mode : Arrays.asList(TransportMode.car, TransportMode.pt)) {
+            IndexedDoubleMatrix2D skim = skimTravelTimes.getPeakSkim(mode);
+            for (Region region : geoData.getRegions().values()) {
+                for (Zone zone : geoData.getZones().values()) {
+                    double minFrom = Double.MAX_VALUE;
+                    double minTo = Double.MAX_VALUE;
+                    for (Zone zoneInRegion : region.getZones()) {
+                        minFrom = Math.min(minFrom, skim.getIndexed(zoneInRegion.getZoneId(), zone.getZoneId()));
+                        minTo = Math.min(minTo, skim.getIndexed(zone.getZoneId(), zoneInRegion.getZoneId()));
+                    }
+                    Assert.assertEquals(minFrom, regionalTravelTimes.getTravelTimeFromRegion(region.getId(), zone.getZoneId(), mode), 0.);
+                    Assert.assertEquals(minTo, regionalTravelTimes.getTravelTimeToRegion(zone.getZoneId(), region.getId(), mode), 0.);
+                }
+            }
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package de.tum.bgu.msm.data.accessibility;
 
 import de.tum.bgu.msm.data.Location;
+import de.tum.bgu.msm.data.MappedSkimTravelTimes;
 import de.tum.bgu.msm.data.Region;
 import de.tum.bgu.msm.data.Zone;
 import de.tum.bgu.msm.data.dwelling.*;
@@ -20,6 +21,10 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.matsim.api.core.v01.TransportMode;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Random;
 
 public class AccessibilityTest {
@@ -234,4 +239,69 @@ public class AccessibilityTest {
         Assert.assertEquals(86.2602, accessibility.getRegionalAccessibility(region2), 0.001);
         Assert.assertEquals(65.0838, accessibility.getRegionalAccessibility(region3), 0.001);
     }
+
+    @Test
+    public void testAccessibilitiesWithMappedSkimTravelTimes() throws IOException {
+
+        GeoData geoData = new DefaultGeoData();
+        for (int r = 1; r <= 3; r++) {
+            final RegionImpl region = new RegionImpl(r);
+            geoData.addRegion(region);
+            for (int z = 3 * r - 2; z <= 3 * r; z++) {
+                final ZoneImpl zone = new ZoneImpl(z, 10, region);
+                region.addZone(zone);
+                geoData.addZone(zone);
+            }
+        }
+
+        final DwellingData dwellingData = new DwellingDataImpl();
+        final JobData jobData = new JobDataImpl();
+        DwellingFactory factory = new DwellingFactoryImpl();
+        JobFactory jobFactory = new JobFactoryImpl();
+        for (int i = 1; i <= 12; i++) {
+            dwellingData.addDwelling(factory.createDwelling(i, 1 + i % 9, null, -1, DefaultDwellingTypes.DefaultDwellingTypeImpl.MF5plus, 2, 2, 1000, 1985));
+            jobData.addJob(jobFactory.createJob(i, 1 + (i * 5) % 9, null, -1, null));
+        }
+
+        Random random = new Random(42);
+        final Path file = Files.createTempFile("mappedSkims", ".bin");
+        try {
+            MappedSkimTravelTimes mappedTravelTimes = new MappedSkimTravelTimes();
+            AccessibilityImpl mappedAccessibility = new AccessibilityImpl(geoData, mappedTravelTimes, PROPERTIES,
+                    dwellingData, jobData);
+            mappedAccessibility.setup();
+
+            // the kernels of the mapped travel times are calculated again after other skims were loaded
+            for (int year = 2010; year <= 2011; year++) {
+                IndexedDoubleMatrix2D matrix = new IndexedDoubleMatrix2D(geoData.getZones().values(), geoData.getZones().values());
+                matrix.assign(argument -> random.nextDouble() * 10);
+                SkimTravelTimes skimTravelTimes = new SkimTravelTimes();
+                skimTravelTimes.updateSkimMatrix(matrix, TransportMode.car);
+                skimTravelTimes.updateSkimMatrix(matrix, TransportMode.pt);
+
+                MappedSkimTravelTimes.convert(skimTravelTimes, geoData.getZones().values(), geoData.getRegions().values(),
+                        Arrays.asList(TransportMode.car, TransportMode.pt), file, 2);
+                mappedTravelTimes.load(file, geoData.getZones().values());
+
+                AccessibilityImpl accessibility = new AccessibilityImpl(geoData, skimTravelTimes, PROPERTIES,
+                        dwellingData, jobData);
+                accessibility.setup();
+                accessibility.calculateHansenAccessibilities(year);
+                mappedAccessibility.calculateHansenAccessibilities(year);
+
+                for (Zone zone : geoData.getZones().values()) {
+                    Assert.assertEquals(accessibility.getAutoAccessibilityForZone(zone),
+                            mappedAccessibility.getAutoAccessibilityForZone(zone), 0.001);
+                    Assert.assertEquals(accessibility.getTransitAccessibilityForZone(zone),
+                            mappedAccessibility.getTransitAccessibilityForZone(zone), 0.001);
+                }
+                for (Region region : geoData.getRegions().values()) {
+                    Assert.assertEquals(accessibility.getRegionalAccessibility(region),
+                            mappedAccessibility.getRegionalAccessibility(region), 0.001);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
 }
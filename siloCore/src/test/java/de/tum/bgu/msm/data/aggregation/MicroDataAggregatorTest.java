@@ -0,0 +1,72 @@
+package de.tum.bgu.msm.data.aggregation;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class MicroDataAggregatorTest {
+
+    private static final class CountsByRemainder implements Accumulator<Integer> {
+
+        private final int[] counts = new int[7];
+        private final List<Integer> order = new ArrayList<>();
+
+        @Override
+        public Accumulator<Integer> newPartition() {
+            return new CountsByRemainder();
+        }
+
+        @Override
+        public void add(Integer element) {
+            counts[element % 7]++;
+            order.add(element);
+        }
+
+        @Override
+        public void merge(Accumulator<Integer> partition) {
+            final CountsByRemainder other = (CountsByRemainder) partition;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            order.addAll(other.order);
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(counts, 0);
+            order.clear();
+        }
+    }
+
+    @Test
+    public void testParallelPassGivesSameResultsAsSequentialPass() {
+        final List<Integer> elements = IntStream.range(0, 100000).boxed().collect(Collectors.toList());
+
+        final CountsByRemainder sequential = new CountsByRemainder();
+        MicroDataAggregator.aggregate(elements, Collections.singletonList(sequential), null, 1);
+
+        final CountsByRemainder parallel = new CountsByRemainder();
+        final CountsByRemainder second = new CountsByRemainder();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            MicroDataAggregator.aggregate(elements, Arrays.asList(parallel, second), executor, 4);
+            // accumulators are cleared before each pass
+            MicroDataAggregator.aggregate(elements, Arrays.asList(parallel, second), executor, 4);
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertArrayEquals(sequential.counts, parallel.counts);
+        Assert.assertArrayEquals(sequential.counts, second.counts);
+        // partitions are merged in the order of the elements
+        Assert.assertEquals(elements, parallel.order);
+    }
+}
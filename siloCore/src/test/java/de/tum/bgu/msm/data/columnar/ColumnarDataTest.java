@@ -0,0 +1,140 @@
+package de.tum.bgu.msm.data.columnar;
+
+import de.tum.bgu.msm.data.Zone;
+import de.tum.bgu.msm.data.dwelling.DefaultDwellingTypes;
+import de.tum.bgu.msm.data.dwelling.Dwelling;
+import de.tum.bgu.msm.data.dwelling.DwellingUsage;
+import de.tum.bgu.msm.data.household.Household;
+import de.tum.bgu.msm.data.job.Job;
+import de.tum.bgu.msm.data.job.JobFactoryImpl;
+import de.tum.bgu.msm.data.person.*;
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ColumnarDataTest {
+
+    @Test
+    public void testPersonsAndHouseholds() {
+        ColumnarHouseholdData data = new ColumnarHouseholdData();
+        Person person = data.getPersonFactory().createPerson(3, 34, Gender.FEMALE, Occupation.EMPLOYED, PersonRole.MARRIED, 12, 30000);
+        Household household = data.getHouseholdFactory().createHousehold(7, 5, 0);
+        data.addPerson(person);
+        data.addHousehold(household);
+        person.setHousehold(household);
+
+        Person view = data.getPerson(3);
+        Assert.assertEquals(person, view);
+        Assert.assertEquals(34, view.getAge());
+        Assert.assertEquals(Gender.FEMALE, view.getGender());
+        Assert.assertEquals(Occupation.EMPLOYED, view.getOccupation());
+        Assert.assertEquals(PersonRole.MARRIED, view.getRole());
+        Assert.assertEquals(PersonType.WOMEN_AGE_30_TO_34, view.getType());
+        Assert.assertEquals(12, view.getJobId());
+        Assert.assertEquals(30000, view.getAnnualIncome());
+        Assert.assertEquals(household, view.getHousehold());
+        Assert.assertEquals(5, view.getHousehold().getDwellingId());
+
+        view.birthday();
+        view.setWorkplace(-1);
+        view.setDriverLicense(true);
+        view.setAttribute("disability", "none");
+        Assert.assertEquals(35, person.getAge());
+        Assert.assertEquals(PersonType.WOMEN_AGE_35_TO_39, person.getType());
+        Assert.assertEquals(-1, person.getJobId());
+        Assert.assertTrue(person.hasDriverLicense());
+        Assert.assertEquals("none", person.getAttribute("disability").get());
+        Assert.assertFalse(person.getAttribute("education").isPresent());
+
+        Person child = data.getPersonFactory().giveBirth(person, 4, Gender.MALE);
+        Assert.assertNull(data.getPerson(4));
+        data.addPerson(child);
+        Assert.assertEquals(2, data.getPersons().size());
+        Assert.assertEquals(PersonRole.CHILD, data.getPerson(4).getRole());
+        Assert.assertNull(data.getPerson(4).getHousehold());
+
+        data.removePerson(3);
+        Assert.assertNull(data.getPerson(3));
+        Assert.assertEquals(1, data.getPersons().size());
+        Assert.assertEquals(35, person.getAge());
+        data.removeHousehold(7);
+        Assert.assertTrue(data.getHouseholds().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testForeignPersonIsRejected() {
+        new ColumnarHouseholdData().addPerson(new PersonFactoryImpl().createPerson(1, 20, Gender.MALE, Occupation.STUDENT, PersonRole.SINGLE, -1, 0));
+    }
+
+    @Test
+    public void testDwellingsAndZoneCounts() {
+        ColumnarDwellingData data = new ColumnarDwellingData();
+        for (int id = 0; id < 100; id++) {
+            Coordinate coordinate = id % 10 == 0 ? null : new Coordinate(id, -id);
+            data.addDwelling(data.getDwellingFactory().createDwelling(id, id % 3, coordinate, -1,
+                    DefaultDwellingTypes.DefaultDwellingTypeImpl.values()[id % 4], 2, 3, 500 + id, 1990));
+        }
+        Assert.assertEquals(100, data.getDwellings().size());
+        Assert.assertEquals(34, data.getNumberOfDwellingsInZone(0));
+        Assert.assertEquals(33, data.getNumberOfDwellingsInZone(2));
+        Assert.assertEquals(9, data.getNumberOfDwellingsInZone(0, DefaultDwellingTypes.DefaultDwellingTypeImpl.values()[0]));
+        Assert.assertEquals(8, data.getNumberOfDwellingsInZone(0, DefaultDwellingTypes.DefaultDwellingTypeImpl.values()[2]));
+
+        Dwelling dwelling = data.getDwelling(42);
+        Assert.assertEquals(new Coordinate(42, -42), dwelling.getCoordinate());
+        Assert.assertNull(data.getDwelling(40).getCoordinate());
+        Assert.assertEquals(DefaultDwellingTypes.DefaultDwellingTypeImpl.values()[2], dwelling.getType());
+        Assert.assertEquals(DwellingUsage.GROUP_QUARTER_OR_DEFAULT, dwelling.getUsage());
+        dwelling.setResidentID(8);
+        dwelling.setPrice(900);
+        dwelling.setUsage(DwellingUsage.RENTED);
+        Assert.assertEquals(8, data.getDwelling(42).getResidentId());
+        Assert.assertEquals(900, data.getDwelling(42).getPrice());
+        Assert.assertEquals(DwellingUsage.RENTED, data.getDwelling(42).getUsage());
+
+        data.removeDwelling(42);
+        data.removeDwelling(42);
+        Assert.assertNull(data.getDwelling(42));
+        Assert.assertEquals(33, data.getNumberOfDwellingsInZone(0));
+        Assert.assertEquals(7, data.getNumberOfDwellingsInZone(0, DefaultDwellingTypes.DefaultDwellingTypeImpl.values()[2]));
+        Set<Integer> ids = new HashSet<>();
+        data.getDwellings().forEach(dd -> ids.add(dd.getId()));
+        Assert.assertEquals(99, ids.size());
+        Assert.assertFalse(ids.contains(42));
+    }
+
+    @Test
+    public void testRelocatedJobsAreCountedInTheirNewZone() {
+        ColumnarJobData data = new ColumnarJobData();
+        Job job = data.getJobFactory().createJob(5, 1, new Coordinate(1, 1), -1, "RETL");
+        data.addJob(job);
+        data.addJob(data.getJobFactory().createJob(6, 1, new Coordinate(2, 2), 11, "OFFI"));
+        Assert.assertEquals(2, data.getNumberOfJobsInZone(1));
+        Assert.assertEquals("RETL", data.get(5).getType());
+        Assert.assertEquals(11, data.get(6).getWorkerId());
+
+        Zone zone = (Zone) Proxy.newProxyInstance(Zone.class.getClassLoader(), new Class[]{Zone.class},
+                (proxy, method, args) -> method.getName().equals("getZoneId") ? 2 : null);
+        job.relocateJob(zone, new Coordinate(3, 3));
+        data.addJob(job);
+        Assert.assertEquals(1, data.getNumberOfJobsInZone(1));
+        Assert.assertEquals(1, data.getNumberOfJobsInZone(2));
+        Assert.assertEquals(0, data.getNumberOfJobsInZone(1, "RETL"));
+        Assert.assertEquals(1, data.getNumberOfJobsInZone(1, "OFFI"));
+        Assert.assertEquals(1, data.getNumberOfJobsInZone(2, "RETL"));
+        Assert.assertEquals(new Coordinate(3, 3), data.get(5).getCoordinate());
+
+        data.removeJob(5);
+        Assert.assertEquals(0, data.getNumberOfJobsInZone(2));
+        Assert.assertEquals(1, data.getJobs().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testForeignJobIsRejected() {
+        new ColumnarJobData().addJob(new JobFactoryImpl().createJob(1, 1, null, -1, "RETL"));
+    }
+}
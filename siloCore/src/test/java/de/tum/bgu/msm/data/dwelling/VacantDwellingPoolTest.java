@@ -0,0 +1,66 @@
+package de.tum.bgu.msm.data.dwelling;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class VacantDwellingPoolTest {
+
+    private final DwellingTypes dwellingTypes = new DefaultDwellingTypes();
+
+    private Dwelling createDwelling(int id, DwellingType type) {
+        return DwellingUtils.getFactory().createDwelling(id, 1, null, -1, type, 2, 1, 500, 2000);
+    }
+
+    @Test
+    public void testAddRemoveAndCounts() {
+        VacantDwellingPool pool = new VacantDwellingPool(dwellingTypes);
+        for (int i = 1; i <= 10; i++) {
+            DwellingType type = i % 2 == 0 ? DefaultDwellingTypes.DefaultDwellingTypeImpl.SFD : DefaultDwellingTypes.DefaultDwellingTypeImpl.MF5plus;
+            Assert.assertTrue(pool.add(createDwelling(i, type)));
+        }
+        Assert.assertFalse(pool.add(createDwelling(4, DefaultDwellingTypes.DefaultDwellingTypeImpl.SFD)));
+        Assert.assertEquals(10, pool.size());
+        Assert.assertEquals(5, pool.getCount(DefaultDwellingTypes.DefaultDwellingTypeImpl.SFD));
+
+        Assert.assertTrue(pool.remove(1));
+        Assert.assertTrue(pool.remove(4));
+        Assert.assertFalse(pool.remove(4));
+        Assert.assertEquals(8, pool.size());
+        Assert.assertEquals(4, pool.getCount(DefaultDwellingTypes.DefaultDwellingTypeImpl.SFD));
+        Assert.assertEquals(4, pool.getCount(DefaultDwellingTypes.DefaultDwellingTypeImpl.MF5plus));
+        Assert.assertFalse(pool.contains(1));
+        Assert.assertTrue(pool.contains(10));
+
+        Set<Integer> ids = new HashSet<>();
+        for (Dwelling dwelling : pool.asList()) {
+            ids.add(dwelling.getId());
+        }
+        Assert.assertEquals(8, ids.size());
+        Assert.assertFalse(ids.contains(1));
+        Assert.assertFalse(ids.contains(4));
+    }
+
+    @Test
+    public void testSampleIsDistinctAndDeterministic() {
+        VacantDwellingPool pool = new VacantDwellingPool(dwellingTypes);
+        for (int i = 1; i <= 100; i++) {
+            pool.add(createDwelling(i, DefaultDwellingTypes.DefaultDwellingTypeImpl.SFD));
+        }
+        List<Dwelling> sample = pool.sample(20, new Random(42));
+        Assert.assertEquals(20, sample.size());
+        Set<Integer> ids = new HashSet<>();
+        for (Dwelling dwelling : sample) {
+            ids.add(dwelling.getId());
+        }
+        Assert.assertEquals(20, ids.size());
+        Assert.assertEquals(sample, pool.sample(20, new Random(42)));
+        Assert.assertEquals(100, pool.size());
+
+        Assert.assertEquals(100, pool.sample(200, new Random(42)).size());
+    }
+}
@@ -0,0 +1,47 @@
+package de.tum.bgu.msm.data.geo;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class PointIndexTest {
+
+    @Test
+    public void testNearestAndRadiusQueries() {
+        List<Coordinate> points = new ArrayList<>();
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                points.add(new Coordinate(x, y));
+            }
+        }
+        PointIndex<Coordinate> index = new PointIndex<>(points, point -> point);
+        Assert.assertEquals(100, index.size());
+
+        Assert.assertEquals(new Coordinate(3, 4), index.getNearest(new Coordinate(3.2, 3.9)));
+        Assert.assertEquals(new Coordinate(9, 0), index.getNearest(new Coordinate(20, -5)));
+
+        List<Coordinate> nearest = index.getNearest(new Coordinate(5.1, 5.2), 3);
+        Assert.assertEquals(Arrays.asList(new Coordinate(5, 5), new Coordinate(5, 6), new Coordinate(6, 5)), nearest);
+        Assert.assertEquals(100, index.getNearest(new Coordinate(0, 0), 1000).size());
+
+        List<Coordinate> within = index.getWithinDistance(new Coordinate(0, 0), 1.5);
+        Assert.assertEquals(4, within.size());
+        Assert.assertEquals(new Coordinate(0, 0), within.get(0));
+        Assert.assertEquals(new Coordinate(1, 1), within.get(3));
+        Assert.assertTrue(index.getWithinDistance(new Coordinate(-5, -5), 1).isEmpty());
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        PointIndex<Coordinate> index = new PointIndex<>(Collections.singletonList(new Coordinate(1, 1)), point -> null);
+        Assert.assertEquals(0, index.size());
+        Assert.assertNull(index.getNearest(new Coordinate(0, 0)));
+        Assert.assertTrue(index.getNearest(new Coordinate(0, 0), 2).isEmpty());
+        Assert.assertTrue(index.getWithinDistance(new Coordinate(0, 0), 10).isEmpty());
+    }
+}
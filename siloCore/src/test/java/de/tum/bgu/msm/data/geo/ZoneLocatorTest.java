@@ -0,0 +1,46 @@
+package de.tum.bgu.msm.data.geo;
+
+import de.tum.bgu.msm.data.Zone;
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ZoneLocatorTest {
+
+    @Test
+    public void testCoordinatesAreLocatedInTheirZone() throws ParseException {
+        WKTReader reader = new WKTReader();
+        Zone left = new ZoneImpl(1, 1, null);
+        Zone right = new ZoneImpl(2, 1, null);
+        Zone island = new ZoneImpl(3, 1, null);
+        Zone withoutGeometry = new ZoneImpl(4, 1, null);
+        Map<Zone, Geometry> geometries = new HashMap<>();
+        // the left zone has a hole that is filled by the island zone
+        geometries.put(left, reader.read("POLYGON ((0 0, 2 0, 2 2, 0 2, 0 0), (0.5 0.5, 1.5 0.5, 1.5 1.5, 0.5 1.5, 0.5 0.5))"));
+        geometries.put(right, reader.read("MULTIPOLYGON (((2 0, 4 0, 4 2, 2 2, 2 0)), ((10 10, 11 10, 11 11, 10 10)))"));
+        geometries.put(island, reader.read("POLYGON ((0.5 0.5, 1.5 0.5, 1.5 1.5, 0.5 1.5, 0.5 0.5))"));
+        List<Zone> zones = Arrays.asList(left, right, island, withoutGeometry);
+
+        ZoneLocator locator = new ZoneLocator(zones, geometries::get);
+        Assert.assertEquals(3, locator.size());
+
+        Assert.assertEquals(left, locator.getZone(new Coordinate(0.25, 1)));
+        Assert.assertEquals(island, locator.getZone(new Coordinate(1, 1)));
+        Assert.assertEquals(right, locator.getZone(new Coordinate(3, 1)));
+        Assert.assertEquals(right, locator.getZone(new Coordinate(10.8, 10.2)));
+        Assert.assertNull(locator.getZone(new Coordinate(10.2, 10.8)));
+        Assert.assertNull(locator.getZone(new Coordinate(-1, 1)));
+
+        // coordinates on a shared border belong to the zone with the lowest id
+        Assert.assertEquals(left, locator.getZone(new Coordinate(2, 1)));
+        Assert.assertEquals(left, locator.getZone(new Coordinate(1, 0.5)));
+    }
+}
@@ -0,0 +1,92 @@
+package de.tum.bgu.msm.data.household;
+
+import de.tum.bgu.msm.data.dwelling.DefaultDwellingTypes;
+import de.tum.bgu.msm.data.dwelling.DwellingData;
+import de.tum.bgu.msm.data.dwelling.DwellingDataImpl;
+import de.tum.bgu.msm.data.dwelling.DwellingFactory;
+import de.tum.bgu.msm.data.dwelling.DwellingFactoryImpl;
+import de.tum.bgu.msm.data.dwelling.RealEstateDataManagerImpl;
+import de.tum.bgu.msm.data.geo.DefaultGeoData;
+import de.tum.bgu.msm.data.geo.GeoData;
+import de.tum.bgu.msm.data.geo.RegionImpl;
+import de.tum.bgu.msm.data.geo.ZoneImpl;
+import de.tum.bgu.msm.data.person.Gender;
+import de.tum.bgu.msm.data.person.Occupation;
+import de.tum.bgu.msm.data.person.Person;
+import de.tum.bgu.msm.data.person.PersonFactory;
+import de.tum.bgu.msm.data.person.PersonFactoryImpl;
+import de.tum.bgu.msm.data.person.PersonRole;
+import de.tum.bgu.msm.properties.Properties;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HouseholdDataManagerImplTest {
+
+    private static final Properties PROPERTIES = Properties.initializeProperties("./test/silo.properties");
+
+    @Test
+    public void testHouseholdsAndPersonsByZoneFollowEveryChange() {
+        GeoData geoData = new DefaultGeoData();
+        RegionImpl region = new RegionImpl(1);
+        geoData.addRegion(region);
+        for (int id = 1; id <= 2; id++) {
+            ZoneImpl zone = new ZoneImpl(id, 10, region);
+            region.addZone(zone);
+            geoData.addZone(zone);
+        }
+
+        DwellingData dwellingData = new DwellingDataImpl();
+        DwellingFactory dwellingFactory = new DwellingFactoryImpl();
+        for (int id : new int[]{10, 20, 21}) {
+            dwellingData.addDwelling(dwellingFactory.createDwelling(id, id / 10, null, -1,
+                    DefaultDwellingTypes.DefaultDwellingTypeImpl.SFD, 2, 2, 1000, 1990));
+        }
+
+        HouseholdData householdData = new HouseholdDataImpl();
+        HouseholdFactory householdFactory = new HouseholdFactoryImpl();
+        PersonFactory personFactory = new PersonFactoryImpl();
+        Household household1 = householdFactory.createHousehold(1, 10, 0);
+        Household household2 = householdFactory.createHousehold(2, 20, 0);
+        householdData.addHousehold(household1);
+        householdData.addHousehold(household2);
+        for (int id = 1; id <= 3; id++) {
+            Person person = personFactory.createPerson(id, 40, Gender.FEMALE, Occupation.EMPLOYED, PersonRole.SINGLE, -1, 0);
+            Household household = id < 3 ? household1 : household2;
+            household.addPerson(person);
+            person.setHousehold(household);
+            householdData.addPerson(person);
+        }
+
+        RealEstateDataManagerImpl realEstate = new RealEstateDataManagerImpl(new DefaultDwellingTypes(),
+                dwellingData, householdData, geoData, dwellingFactory, null);
+        HouseholdDataManagerImpl manager = new HouseholdDataManagerImpl(householdData, dwellingData,
+                personFactory, householdFactory, null, realEstate);
+        manager.setup();
+        assertCounts(manager, 1, 1, 2);
+        assertCounts(manager, 2, 1, 1);
+
+        Person newborn = personFactory.createPerson(4, 0, Gender.MALE, Occupation.TODDLER, PersonRole.CHILD, -1, 0);
+        manager.addPerson(newborn);
+        manager.addPersonToHousehold(newborn, household2);
+        assertCounts(manager, 2, 1, 2);
+
+        household1.setDwelling(21);
+        manager.updateZoneOfHousehold(household1);
+        assertCounts(manager, 1, 0, 0);
+        assertCounts(manager, 2, 2, 4);
+
+        manager.saveHouseholdMemento(household2);
+        manager.removePerson(3);
+        assertCounts(manager, 2, 2, 3);
+
+        manager.removeHousehold(1);
+        assertCounts(manager, 2, 1, 1);
+        manager.removePerson(4);
+        assertCounts(manager, 2, 0, 0);
+    }
+
+    private static void assertCounts(HouseholdDataManager manager, int zone, int households, int persons) {
+        Assert.assertEquals(households, manager.getNumberOfHouseholdsInZone(zone));
+        Assert.assertEquals(persons, manager.getNumberOfPersonsInZone(zone));
+    }
+}
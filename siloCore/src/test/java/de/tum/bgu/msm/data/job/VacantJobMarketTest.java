@@ -0,0 +1,194 @@
+package de.tum.bgu.msm.data.job;
+
+import de.tum.bgu.msm.data.Location;
+import de.tum.bgu.msm.data.Region;
+import de.tum.bgu.msm.data.Zone;
+import de.tum.bgu.msm.data.accessibility.CommutingTimeProbability;
+import de.tum.bgu.msm.data.geo.DefaultGeoData;
+import de.tum.bgu.msm.data.geo.GeoData;
+import de.tum.bgu.msm.data.geo.RegionImpl;
+import de.tum.bgu.msm.data.geo.ZoneImpl;
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.util.matrices.IndexedDoubleMatrix2D;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class VacantJobMarketTest {
+
+    private final GeoData geoData = new DefaultGeoData();
+    private final JobFactory jobFactory = new JobFactoryImpl();
+    private Zone homeZone;
+    private int travelTimeLookups = 0;
+
+    /**
+     * Region 1 is 10 minutes from the home zone, region 2 is 30 minutes and region 3 is out of reach
+     */
+    private final TravelTimes travelTimes = new TravelTimes() {
+        @Override
+        public double getTravelTime(Location origin, Location destination, double timeOfDay_s, String mode) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public double getTravelTimeFromRegion(Region region, Zone zone, double timeOfDay_s, String mode) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public double getTravelTimeToRegion(Zone zone, Region region, double timeOfDay_s, String mode) {
+            travelTimeLookups++;
+            return region.getId() == 1 ? 10 : region.getId() == 2 ? 30 : 120;
+        }
+
+        @Override
+        public IndexedDoubleMatrix2D getPeakSkim(String mode) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public TravelTimes duplicate() {
+            return null;
+        }
+    };
+
+    private final CommutingTimeProbability commutingTimeProbability = new CommutingTimeProbability() {
+        @Override
+        public float getCommutingTimeProbability(int minutes, String mode) {
+            return minutes <= 10 ? 0.6f : minutes <= 30 ? 0.2f : 0f;
+        }
+
+        @Override
+        public void setup() {
+        }
+
+        @Override
+        public void prepareYear(int year) {
+        }
+
+        @Override
+        public void endYear(int year) {
+        }
+
+        @Override
+        public void endSimulation() {
+        }
+    };
+
+    @Before
+    public void setupGeoData() {
+        for (int id = 1; id <= 3; id++) {
+            RegionImpl region = new RegionImpl(id);
+            geoData.addRegion(region);
+            ZoneImpl zone = new ZoneImpl(id, 10, region);
+            region.addZone(zone);
+            geoData.addZone(zone);
+        }
+        homeZone = geoData.getZones().get(1);
+    }
+
+    private VacantJobMarket createMarket(int jobsInRegion1, int jobsInRegion2, int jobsInRegion3) {
+        VacantJobMarket market = new VacantJobMarket(geoData, travelTimes, commutingTimeProbability, 8 * 3600);
+        market.clear();
+        int id = 1;
+        int[] jobs = {jobsInRegion1, jobsInRegion2, jobsInRegion3};
+        for (int zone = 1; zone <= 3; zone++) {
+            for (int i = 0; i < jobs[zone - 1]; i++) {
+                market.add(jobFactory.createJob(id++, zone, null, -1, zone == 1 ? "RETL" : "OTHR"));
+            }
+        }
+        return market;
+    }
+
+    @Test
+    public void testTakeJobsUntilMarketIsEmpty() {
+        VacantJobMarket market = createMarket(5, 3, 2);
+        Assert.assertEquals(10, market.size());
+        Assert.assertFalse(market.add(jobFactory.createJob(1, 1, null, -1, "RETL")));
+        Assert.assertEquals(5, market.getNumberOfVacantJobs(1));
+        Assert.assertEquals(3, market.getVacantJobsByRegion().get(2).size());
+
+        Random random = new Random(42);
+        Set<Integer> taken = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            int region = market.selectRegion(i % 2 == 0 ? homeZone : null, random);
+            Assert.assertTrue(taken.add(market.takeJob(region, random).getId()));
+        }
+        Assert.assertEquals(0, market.size());
+        Assert.assertEquals(-1, market.selectRegion(homeZone, random));
+        Assert.assertEquals(-1, market.selectRegion(null, random));
+        Assert.assertNull(market.takeJob(1, random));
+    }
+
+    @Test
+    public void testRegionIsSelectedByCommutingProbabilityTimesVacancies() {
+        VacantJobMarket market = createMarket(1, 6, 100);
+        Random random = new Random(42);
+        int[] counts = new int[4];
+        for (int i = 0; i < 20000; i++) {
+            counts[market.selectRegion(homeZone, random)]++;
+        }
+        // weights are 0.6 * 1 and 0.2 * 6, region 3 cannot be reached
+        Assert.assertEquals(0, counts[3]);
+        Assert.assertEquals(1. / 3, counts[1] / 20000., 0.02);
+
+        // vacancies that change after the weights of the home zone were cached are taken into account
+        for (int i = 0; i < 6; i++) {
+            market.takeJob(2, random);
+        }
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(1, market.selectRegion(homeZone, random));
+        }
+        Assert.assertEquals(3, travelTimeLookups);
+
+        market.takeJob(1, random);
+        int region = market.selectRegion(homeZone, random);
+        Assert.assertEquals("Falls back to the inverse travel time", 3, region);
+    }
+
+    @Test
+    public void testClearDropsJobsAndCachedWeights() {
+        VacantJobMarket market = createMarket(2, 2, 2);
+        market.selectRegion(homeZone, new Random(42));
+        market.clear();
+        Assert.assertEquals(0, market.size());
+        Assert.assertTrue(market.getVacantJobsByRegion().isEmpty());
+        market.add(jobFactory.createJob(1, 2, null, -1, "OTHR"));
+        Assert.assertEquals(2, market.selectRegion(homeZone, new Random(42)));
+        Assert.assertEquals(6, travelTimeLookups);
+    }
+
+    @Test
+    public void testCheckpointRestoresVacantJobsInTheirOrder() throws IOException {
+        VacantJobMarket market = createMarket(3, 2, 1);
+        market.takeJob(1, new Random(42));
+        JobData jobData = new JobDataImpl();
+        for (List<Job> jobs : market.getVacantJobsByRegion().values()) {
+            jobs.forEach(jobData::addJob);
+        }
+        jobData.removeJob(market.getVacantJobsByRegion().get(3).get(0).getId());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        market.writeCheckpoint(new DataOutputStream(bytes));
+        VacantJobMarket restored = new VacantJobMarket(geoData, travelTimes, commutingTimeProbability, 8 * 3600);
+        restored.readCheckpoint(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), jobData);
+
+        Assert.assertEquals("The job that no longer exists is dropped", market.size() - 1, restored.size());
+        for (Map.Entry<Integer, List<Job>> entry : restored.getVacantJobsByRegion().entrySet()) {
+            if (entry.getKey() != 3) {
+                Assert.assertEquals(market.getVacantJobsByRegion().get(entry.getKey()), entry.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package de.tum.bgu.msm.io.input;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+public class ParallelCsvReaderTest {
+
+    private static final int RECORDS = 400000;
+
+    @Test
+    public void testPlainFileIsReadInOrder() throws IOException {
+        final Path file = Files.createTempFile("parallelCsv", ".csv");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out);
+        }
+        try {
+            checkRecords(file.toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testGzipFileIsFoundAndReadInOrder() throws IOException {
+        final Path file = Files.createTempFile("parallelCsv", ".csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            write(out);
+        }
+        try {
+            final String path = file.toString();
+            checkRecords(path.substring(0, path.length() - ".gz".length()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testFields() throws IOException {
+        final Path file = Files.createTempFile("parallelCsv", ".csv");
+        Files.write(file, "a;b;c;d\r\n-12;\"x\";TRUE;\r\n\r\n+7;2.5;false;1".getBytes(StandardCharsets.UTF_8));
+        final List<String> records = new ArrayList<>();
+        try {
+            final int count = new ParallelCsvReader(2, ';', StandardCharsets.UTF_8).read(file.toString(), header -> {
+                Assert.assertArrayEquals(new String[]{"a", "b", "c", "d"}, header);
+                return record -> record.getInt(0) + "|" + record.getUnquotedString(1) + "|" + record.getBoolean(2) + "|" + record.getString(3);
+            }, records::add);
+            Assert.assertEquals(2, count);
+            Assert.assertEquals("-12|x|true|", records.get(0));
+            Assert.assertEquals("7|2.5|false|1", records.get(1));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testInvalidNumberIsReported() throws IOException {
+        final Path file = Files.createTempFile("parallelCsv", ".csv");
+        Files.write(file, "id\n1\n1x\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            new ParallelCsvReader().read(file.toString(), header -> record -> record.getInt(0), id -> {});
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void write(OutputStream out) {
+        final PrintWriter writer = new PrintWriter(out);
+        writer.println("id,name,value");
+        for (int i = 0; i < RECORDS; i++) {
+            writer.println(i + ",\"record\"," + (i * 0.5));
+        }
+        writer.flush();
+    }
+
+    private static void checkRecords(String path) throws IOException {
+        final int[] next = {0};
+        final int count = new ParallelCsvReader(4, ',', StandardCharsets.UTF_8).read(path, header -> {
+            final int posId = Arrays.asList(header).indexOf("id");
+            final int posValue = Arrays.asList(header).indexOf("value");
+            return record -> new double[]{record.getInt(posId), record.getDouble(posValue)};
+        }, record -> {
+            Assert.assertEquals(next[0], (int) record[0]);
+            Assert.assertEquals(next[0] * 0.5, record[1], 0.);
+            next[0]++;
+        });
+        Assert.assertEquals(RECORDS, count);
+        Assert.assertEquals(RECORDS, next[0]);
+    }
+}
@@ -0,0 +1,127 @@
+package de.tum.bgu.msm.io.output;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+public class MicroDataOutputTest {
+
+    @Test
+    public void testGzipFileIsWrittenWhenPathEndsWithGz() throws IOException {
+        final Path file = Files.createTempFile("microData", ".csv.gz");
+        try {
+            MicroDataOutput.write(writer -> writer.write("id,zone\n1,2\n"), file.toString());
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+                Assert.assertEquals("id,zone|1,2", reader.lines().collect(Collectors.joining("|")));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testWriterOnCallingThreadWritesWhenSubmitted() throws IOException {
+        final Path file = Files.createTempFile("microData", ".csv");
+        try {
+            final MicroDataOutput output = MicroDataOutput.onCallingThread();
+            output.submit(writer -> writer.write("id\n" + Thread.currentThread().getName() + "\n"), file.toString());
+            Assert.assertEquals(List.of("id", Thread.currentThread().getName()), Files.readAllLines(file));
+            output.shutdown();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSubmittedFilesAreWrittenAfterAwaitingCompletion() throws IOException {
+        final Path directory = Files.createTempDirectory("microData");
+        final CountDownLatch release = new CountDownLatch(1);
+        final MicroDataOutput output = new MicroDataOutput(2, 4);
+        final Path first = directory.resolve("first.csv");
+        final Path second = directory.resolve("sub/second.csv");
+        output.submit(writer -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            writer.write("a\n1\n");
+        }, first.toString());
+        output.submit(writer -> writer.write("b\n2\n"), second.toString());
+        release.countDown();
+        output.awaitCompletion();
+        try {
+            final List<String> firstLines = Files.readAllLines(first);
+            Assert.assertEquals(List.of("a", "1"), firstLines);
+            Assert.assertEquals(List.of("b", "2"), Files.readAllLines(second));
+        } finally {
+            Files.delete(first);
+            Files.delete(second);
+            Files.delete(second.getParent());
+            Files.delete(directory);
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testFailureIsThrownWhenAwaitingCompletion() {
+        final MicroDataOutput output = new MicroDataOutput(1, 1);
+        output.submit(writer -> {
+            throw new IOException("disk full");
+        }, System.getProperty("java.io.tmpdir") + "/microDataFailure.csv");
+        try {
+            output.awaitCompletion();
+        } finally {
+            new java.io.File(System.getProperty("java.io.tmpdir") + "/microDataFailure.csv").delete();
+        }
+    }
+
+    @Test
+    public void testFailureIsRethrownWithoutWaitingForOtherFiles() throws InterruptedException {
+        final String path = System.getProperty("java.io.tmpdir") + "/microDataFailure.csv";
+        final CountDownLatch failed = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final MicroDataOutput output = new MicroDataOutput(2, 4);
+        output.submit(writer -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }, System.getProperty("java.io.tmpdir") + "/microDataPending.csv");
+        output.submit(writer -> {
+            failed.countDown();
+            throw new IOException("disk full");
+        }, path);
+        failed.await();
+        try {
+            final long deadline = System.currentTimeMillis() + 10000;
+            RuntimeException failure = null;
+            while (failure == null && System.currentTimeMillis() < deadline) {
+                try {
+                    output.rethrowFailures();
+                    Thread.sleep(10);
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+            Assert.assertNotNull("The failure of the first file should be rethrown", failure);
+            Assert.assertEquals("disk full", failure.getCause().getCause().getMessage());
+        } finally {
+            release.countDown();
+            output.shutdown();
+            new java.io.File(path).delete();
+            new java.io.File(System.getProperty("java.io.tmpdir") + "/microDataPending.csv").delete();
+        }
+    }
+}
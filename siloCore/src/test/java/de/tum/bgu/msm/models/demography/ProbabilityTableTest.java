@@ -0,0 +1,88 @@
+package de.tum.bgu.msm.models.demography;
+
+import de.tum.bgu.msm.data.person.*;
+import de.tum.bgu.msm.models.demography.birth.BirthProbabilityTable;
+import de.tum.bgu.msm.models.demography.birth.BirthStrategy;
+import de.tum.bgu.msm.models.demography.birth.DefaultBirthStrategy;
+import de.tum.bgu.msm.models.demography.death.DeathProbabilityTable;
+import de.tum.bgu.msm.models.demography.death.DeathStrategy;
+import de.tum.bgu.msm.models.demography.death.DefaultDeathStrategy;
+import de.tum.bgu.msm.models.demography.divorce.DefaultDivorceStrategy;
+import de.tum.bgu.msm.models.demography.divorce.DivorceProbabilityTable;
+import de.tum.bgu.msm.models.demography.divorce.DivorceStrategy;
+import de.tum.bgu.msm.models.demography.driversLicense.DefaultDriversLicenseStrategy;
+import de.tum.bgu.msm.models.demography.driversLicense.DriversLicenseProbabilityTable;
+import de.tum.bgu.msm.models.demography.driversLicense.DriversLicenseStrategy;
+import de.tum.bgu.msm.models.demography.leaveParentalHousehold.DefaultLeaveParentalHouseholdStrategy;
+import de.tum.bgu.msm.models.demography.leaveParentalHousehold.LeaveParentalHouseholdStrategy;
+import de.tum.bgu.msm.models.demography.leaveParentalHousehold.LeaveParentsProbabilityTable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProbabilityTableTest {
+
+    private static List<Person> createPersons() {
+        final List<Person> persons = new ArrayList<>();
+        int id = 0;
+        for (Gender gender : Gender.values()) {
+            for (int age = 0; age <= 120; age++) {
+                persons.add(PersonUtils.getFactory().createPerson(id++, age, gender, Occupation.UNEMPLOYED, PersonRole.SINGLE, -1, 0));
+            }
+        }
+        return persons;
+    }
+
+    @Test
+    public void testTablesGiveSameProbabilitiesAsStrategies() {
+        final DeathStrategy death = new DefaultDeathStrategy();
+        final DivorceStrategy divorce = new DefaultDivorceStrategy();
+        final DriversLicenseStrategy license = new DefaultDriversLicenseStrategy();
+        final LeaveParentalHouseholdStrategy leaveParents = new DefaultLeaveParentalHouseholdStrategy();
+        final DeathStrategy deathTable = DeathProbabilityTable.of(death);
+        final DivorceStrategy divorceTable = DivorceProbabilityTable.of(divorce);
+        final DriversLicenseStrategy licenseTable = DriversLicenseProbabilityTable.of(license);
+        final LeaveParentalHouseholdStrategy leaveParentsTable = LeaveParentsProbabilityTable.of(leaveParents);
+        Assert.assertNotSame(death, deathTable);
+        Assert.assertNotSame(divorce, divorceTable);
+        Assert.assertNotSame(license, licenseTable);
+        Assert.assertNotSame(leaveParents, leaveParentsTable);
+
+        for (Person person : createPersons()) {
+            Assert.assertEquals(death.calculateDeathProbability(person), deathTable.calculateDeathProbability(person), 0.);
+            Assert.assertEquals(divorce.calculateDivorceProbability(person), divorceTable.calculateDivorceProbability(person), 0.);
+            Assert.assertEquals(license.calculateChangeDriversLicenseProbability(person),
+                    licenseTable.calculateChangeDriversLicenseProbability(person), 0.);
+            Assert.assertEquals(license.calculateCreateDriversLicenseProbability(person),
+                    licenseTable.calculateCreateDriversLicenseProbability(person), 0.);
+            Assert.assertEquals(leaveParents.calculateLeaveParentsProbability(person),
+                    leaveParentsTable.calculateLeaveParentsProbability(person), 0.);
+        }
+    }
+
+    @Test
+    public void testBirthTableGivesSameProbabilitiesAsStrategy() {
+        final BirthStrategy birth = new DefaultBirthStrategy();
+        final BirthStrategy birthTable = BirthProbabilityTable.of(birth);
+        Assert.assertNotSame(birth, birthTable);
+        for (int age = 0; age <= 120; age++) {
+            for (int children = 0; children <= 10; children++) {
+                Assert.assertEquals(birth.calculateBirthProbability(age, children), birthTable.calculateBirthProbability(age, children), 0.);
+            }
+        }
+        Assert.assertEquals(birth.getProbabilityForGirl(), birthTable.getProbabilityForGirl(), 0.);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testNegativeAgeStillFails() {
+        BirthProbabilityTable.of(new DefaultBirthStrategy()).calculateBirthProbability(-1, 0);
+    }
+
+    @Test
+    public void testStrategyThatIsNotEnumerableIsUsedDirectly() {
+        final DeathStrategy strategy = person -> person.getId() % 2 == 0 ? 0.1 : 0.2;
+        Assert.assertSame(strategy, DeathProbabilityTable.of(strategy));
+    }
+}
@@ -0,0 +1,61 @@
+package de.tum.bgu.msm.models.realEstate.construction;
+
+import de.tum.bgu.msm.data.Region;
+import de.tum.bgu.msm.data.Zone;
+import de.tum.bgu.msm.data.geo.RegionImpl;
+import de.tum.bgu.msm.data.geo.ZoneImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ConstructionLocationSamplerTest {
+
+    @Test
+    public void testZonesAreDrawnByWeightAndUpdatedWhenLandIsConsumed() {
+        RegionImpl region1 = new RegionImpl(1);
+        RegionImpl region2 = new RegionImpl(2);
+        List<Region> regions = List.of(region1, region2);
+        List<Zone> zones = new ArrayList<>();
+        for (int id = 1; id <= 5; id++) {
+            RegionImpl region = id <= 3 ? region1 : id == 4 ? region2 : null;
+            ZoneImpl zone = new ZoneImpl(id, 10, region);
+            if (region != null) {
+                region.addZone(zone);
+            }
+            zones.add(zone);
+        }
+        // available land, zone 4 is the only zone of region 2 and zone 5 has no region
+        double[] land = {0, 1, 0, 3, 2, 4};
+        ConstructionLocationSampler sampler = new ConstructionLocationSampler(regions, zones, zone -> land[zone]);
+
+        Random random = new Random(42);
+        int[] counts = new int[6];
+        for (int i = 0; i < 40000; i++) {
+            counts[sampler.sampleInRegion(1, random)]++;
+        }
+        Assert.assertEquals(0, counts[2]);
+        Assert.assertEquals(0.25, counts[1] / 40000., 0.01);
+        Assert.assertEquals(0.75, counts[3] / 40000., 0.01);
+        Assert.assertEquals(4, sampler.sampleInRegion(2, random));
+
+        land[1] = 0;
+        land[3] = 0;
+        sampler.update(1);
+        sampler.update(3);
+        Assert.assertEquals(-1, sampler.sampleInRegion(1, random));
+        for (int i = 0; i < 100; i++) {
+            int zone = sampler.sample(random);
+            Assert.assertTrue(zone == 4 || zone == 5);
+        }
+
+        land[4] = 0;
+        land[5] = 0;
+        sampler.update(4);
+        sampler.update(5);
+        Assert.assertEquals(-1, sampler.sample(random));
+        Assert.assertEquals(-1, sampler.sampleInRegion(3, random));
+    }
+}
@@ -0,0 +1,238 @@
+package de.tum.bgu.msm.models.realEstate.pricing;
+
+import de.tum.bgu.msm.container.DataContainer;
+import de.tum.bgu.msm.data.accessibility.Accessibility;
+import de.tum.bgu.msm.data.accessibility.CommutingTimeProbability;
+import de.tum.bgu.msm.data.dwelling.*;
+import de.tum.bgu.msm.data.geo.DefaultGeoData;
+import de.tum.bgu.msm.data.geo.GeoData;
+import de.tum.bgu.msm.data.geo.RegionImpl;
+import de.tum.bgu.msm.data.geo.ZoneImpl;
+import de.tum.bgu.msm.data.household.HouseholdDataManager;
+import de.tum.bgu.msm.data.job.JobDataManager;
+import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.io.output.MicroDataOutput;
+import de.tum.bgu.msm.properties.Properties;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class PricingModelImplTest {
+
+    public static final Properties PROPERTIES = Properties.initializeProperties("./test/pricingModel.properties");
+
+    private static final int NUMBER_OF_DWELLINGS = 2000;
+
+    @Test
+    public void testPartitionedUpdateMatchesUpdateOfOneDwellingAfterTheOther() throws IOException {
+        Assert.assertTrue(PROPERTIES.main.numberOfThreads > 1);
+
+        GeoData geoData = new DefaultGeoData();
+        int zoneId = 1;
+        for (int regionId = 1; regionId <= 4; regionId++) {
+            RegionImpl region = new RegionImpl(regionId);
+            geoData.addRegion(region);
+            for (int i = 0; i < 3; i++) {
+                ZoneImpl zone = new ZoneImpl(zoneId++, 10, region);
+                region.addZone(zone);
+                geoData.addZone(zone);
+            }
+        }
+
+        DwellingTypes dwellingTypes = new DefaultDwellingTypes();
+        int numberOfTypes = dwellingTypes.getTypes().size();
+        // vacancy rates around the structural vacancies, some regions have none to use the global rate of the type
+        Random random = new Random(42);
+        double[][] vacRate = new double[numberOfTypes][5];
+        double[] globalVacRate = new double[numberOfTypes];
+        for (int dto = 0; dto < numberOfTypes; dto++) {
+            for (int region = 1; region <= 4; region++) {
+                vacRate[dto][region] = (dto + region) % 4 == 0 ? 0 : random.nextDouble() * 0.12;
+            }
+            globalVacRate[dto] = random.nextDouble() * 0.12;
+        }
+
+        PricingStrategy strategy = new DefaultPricingStrategy() {
+            @Override
+            public boolean isPriceUpdateAllowed(Dwelling dd) {
+                return dd.getId() % 10 != 0;
+            }
+        };
+
+        RealEstateDataManager realEstate = createRealEstate(geoData, dwellingTypes, vacRate, globalVacRate);
+        PricingModelImpl model = new PricingModelImpl(new PricingDataContainer(geoData, realEstate),
+                PROPERTIES, strategy, new Random(0));
+        model.setup();
+        model.prepareYear(2011);
+        model.endYear(2011);
+        model.endSimulation();
+
+        RealEstateDataManager expectedRealEstate = createRealEstate(geoData, dwellingTypes, vacRate, globalVacRate);
+        Map<String, Map<Integer, Integer>> expectedDistribution = updatePrices(expectedRealEstate, geoData, strategy);
+
+        for (Dwelling expected : expectedRealEstate.getDwellings()) {
+            Assert.assertEquals(expected.getPrice(), realEstate.getDwelling(expected.getId()).getPrice());
+        }
+        Assert.assertArrayEquals(expectedRealEstate.getAveragePriceByDwellingType(),
+                realEstate.getAveragePriceByDwellingType(), 0.);
+        Assert.assertEquals(expectedDistribution, readChangeRateDistribution(2011));
+    }
+
+    private static RealEstateDataManager createRealEstate(GeoData geoData, DwellingTypes dwellingTypes,
+                                                          double[][] vacRate, double[] globalVacRate) {
+        DwellingFactory factory = new DwellingFactoryImpl();
+        DwellingData dwellingData = new DwellingDataImpl();
+        Random random = new Random(42);
+        List<DwellingType> types = dwellingTypes.getTypes();
+        for (int id = 1; id <= NUMBER_OF_DWELLINGS; id++) {
+            int zone = 1 + random.nextInt(geoData.getZones().size());
+            DwellingType type = types.get(random.nextInt(types.size()));
+            int price = 200 + random.nextInt(2000);
+            dwellingData.addDwelling(factory.createDwelling(id, zone, null, -1, type, 2, 3, price, 2000));
+        }
+        return new RealEstateDataManagerImpl(dwellingTypes, dwellingData, null, geoData, factory, PROPERTIES) {
+            @Override
+            public double[][] getVacancyRateByTypeAndRegion() {
+                return vacRate;
+            }
+
+            @Override
+            public double[] getAverageVacancyByDwellingType() {
+                return globalVacRate;
+            }
+        };
+    }
+
+    /**
+     * The price update as it was before the dwellings were updated in partitions, one dwelling after the other
+     */
+    private static Map<String, Map<Integer, Integer>> updatePrices(RealEstateDataManager realEstate, GeoData geoData,
+                                                                   PricingStrategy strategy) {
+        double[][] vacRate = realEstate.getVacancyRateByTypeAndRegion();
+        List<DwellingType> dwellingTypes = realEstate.getDwellingTypes().getTypes();
+        double[] globalVacRate = realEstate.getAverageVacancyByDwellingType();
+        Map<String, Map<Integer, Integer>> changeRateDistribution = new HashMap<>();
+        for (DwellingType type : dwellingTypes) {
+            changeRateDistribution.put(type.toString(), new HashMap<>());
+        }
+        int[] cnt = new int[dwellingTypes.size()];
+        double[] sumOfPrices = new double[dwellingTypes.size()];
+        for (Dwelling dd : realEstate.getDwellings()) {
+            if (!strategy.isPriceUpdateAllowed(dd)) {
+                continue;
+            }
+            int dto = dwellingTypes.indexOf(dd.getType());
+            int currentPrice = dd.getPrice();
+            int region = geoData.getZones().get(dd.getZoneId()).getRegion().getId();
+            double vacancyRateAtThisRegion = vacRate[dto][region];
+            float structuralVacancyRate = dd.getType().getStructuralVacancyRate();
+            double changeRate;
+            if (vacancyRateAtThisRegion == 0) {
+                changeRate = strategy.getPriceChangeRate(globalVacRate[dto], structuralVacancyRate);
+            } else {
+                changeRate = strategy.getPriceChangeRate(vacancyRateAtThisRegion, structuralVacancyRate);
+            }
+            int changeRateInt = (int) Math.round((changeRate - 1) * 100);
+            changeRateDistribution.get(dd.getType().toString()).merge(changeRateInt, 1, Integer::sum);
+
+            double newPrice = currentPrice * changeRate;
+            dd.setPrice((int) (newPrice + 0.5));
+            cnt[dto]++;
+            sumOfPrices[dto] += newPrice;
+        }
+        double[] averagePrice = new double[dwellingTypes.size()];
+        for (int dto = 0; dto < dwellingTypes.size(); dto++) {
+            averagePrice[dto] = sumOfPrices[dto] / cnt[dto];
+        }
+        realEstate.setAvePriceByDwellingType(averagePrice);
+        return changeRateDistribution;
+    }
+
+    private static Map<String, Map<Integer, Integer>> readChangeRateDistribution(int year) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(PROPERTIES.main.baseDirectory,
+                "scenOutput", PROPERTIES.main.scenarioName, "pricingModel.csv"));
+        Map<String, Map<Integer, Integer>> changeRateDistribution = new HashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] values = line.split(",");
+            if (Integer.parseInt(values[0]) == year) {
+                changeRateDistribution.computeIfAbsent(values[1], type -> new HashMap<>())
+                        .put(Integer.parseInt(values[2]), Integer.parseInt(values[3]));
+            }
+        }
+        return changeRateDistribution;
+    }
+
+    private static final class PricingDataContainer implements DataContainer {
+
+        private final GeoData geoData;
+        private final RealEstateDataManager realEstate;
+
+        private PricingDataContainer(GeoData geoData, RealEstateDataManager realEstate) {
+            this.geoData = geoData;
+            this.realEstate = realEstate;
+        }
+
+        @Override
+        public HouseholdDataManager getHouseholdDataManager() {
+            return null;
+        }
+
+        @Override
+        public RealEstateDataManager getRealEstateDataManager() {
+            return realEstate;
+        }
+
+        @Override
+        public JobDataManager getJobDataManager() {
+            return null;
+        }
+
+        @Override
+        public GeoData getGeoData() {
+            return geoData;
+        }
+
+        @Override
+        public TravelTimes getTravelTimes() {
+            return null;
+        }
+
+        @Override
+        public Accessibility getAccessibility() {
+            return null;
+        }
+
+        @Override
+        public CommutingTimeProbability getCommutingTimeProbability() {
+            return null;
+        }
+
+        @Override
+        public MicroDataOutput getMicroDataOutput() {
+            return null;
+        }
+
+        @Override
+        public void setup() {
+        }
+
+        @Override
+        public void prepareYear(int year) {
+        }
+
+        @Override
+        public void endYear(int year) {
+        }
+
+        @Override
+        public void endSimulation() {
+        }
+    }
+}
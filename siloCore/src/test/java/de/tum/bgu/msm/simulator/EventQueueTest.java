@@ -0,0 +1,75 @@
+package de.tum.bgu.msm.simulator;
+
+import de.tum.bgu.msm.events.MicroEvent;
+import de.tum.bgu.msm.events.impls.household.MoveEvent;
+import de.tum.bgu.msm.events.impls.person.DeathEvent;
+import de.tum.bgu.msm.events.impls.person.MarriageEvent;
+import de.tum.bgu.msm.models.CompactEventModel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class EventQueueTest {
+
+    @Test
+    public void testShuffleKeepsOrderOfObjectList() {
+        EventQueue queue = new EventQueue();
+        queue.setType(0, compactModel(DeathEvent::new));
+        queue.setType(1, null);
+        queue.setType(2, compactModel(MoveEvent::new));
+
+        List<MicroEvent> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            queue.addSubject(0, i);
+            expected.add(new DeathEvent(i));
+        }
+        for (int i = 0; i < 300; i++) {
+            MarriageEvent marriage = new MarriageEvent(i, i + 1);
+            queue.addEvent(1, marriage);
+            expected.add(marriage);
+        }
+        for (int i = 0; i < 500; i++) {
+            queue.addSubject(2, i);
+            expected.add(new MoveEvent(i));
+        }
+
+        Collections.shuffle(expected, new Random(42));
+        queue.shuffle(new Random(42));
+
+        Assert.assertEquals(expected.size(), queue.size());
+        List<MicroEvent> events = queue.asList();
+        for (int i = 0; i < expected.size(); i++) {
+            MicroEvent e = expected.get(i);
+            MicroEvent actual = events.get(i);
+            Assert.assertEquals(e.getClass(), actual.getClass());
+            if (e instanceof DeathEvent) {
+                Assert.assertEquals(0, queue.getType(i));
+                Assert.assertEquals(((DeathEvent) e).getPersonId(), ((DeathEvent) actual).getPersonId());
+            } else if (e instanceof MoveEvent) {
+                Assert.assertEquals(2, queue.getType(i));
+                Assert.assertEquals(((MoveEvent) e).getHouseholdId(), ((MoveEvent) actual).getHouseholdId());
+            } else {
+                Assert.assertEquals(1, queue.getType(i));
+                Assert.assertSame(e, actual);
+            }
+        }
+
+        queue.clear();
+        Assert.assertEquals(0, queue.size());
+        Assert.assertTrue(queue.asList().isEmpty());
+    }
+
+    private interface EventFactory {
+        MicroEvent create(int id);
+    }
+
+    private static CompactEventModel<?> compactModel(EventFactory factory) {
+        return (CompactEventModel<?>) Proxy.newProxyInstance(CompactEventModel.class.getClassLoader(), new Class[]{CompactEventModel.class},
+                (proxy, method, args) -> method.getName().equals("createEvent") ? factory.create((Integer) args[0]) : null);
+    }
+}
@@ -0,0 +1,79 @@
+package de.tum.bgu.msm.simulator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class SetupGraphTest {
+
+    @Test
+    public void testSingleThreadRunsStepsInOrderOfAdding() {
+        List<String> order = new ArrayList<>();
+        SetupGraph graph = new SetupGraph(1);
+        graph.addStep("geo", () -> order.add("geo"));
+        graph.addStep("households", () -> order.add("households"), "geo");
+        graph.addStep("skims", () -> order.add("skims"), "geo");
+        graph.addStep("accessibility", () -> order.add("accessibility"), "skims");
+        graph.run();
+        Assert.assertEquals(List.of("geo", "households", "skims", "accessibility"), order);
+    }
+
+    @Test
+    public void testIndependentStepsRunAtTheSameTimeAfterTheirDependencies() {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        // both steps only finish if the other one has started, which fails if they run one after the other
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Runnable waitForOther = () -> {
+            bothStarted.countDown();
+            try {
+                Assert.assertTrue(bothStarted.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        };
+        SetupGraph graph = new SetupGraph(4);
+        graph.addStep("geo", () -> order.add("geo"));
+        graph.addStep("skims", () -> {
+            waitForOther.run();
+            order.add("skims");
+        }, "geo");
+        graph.addStep("development", () -> {
+            waitForOther.run();
+            order.add("development");
+        }, "geo");
+        graph.addStep("models", () -> order.add("models"), graph.getStepNames());
+        graph.run();
+
+        Assert.assertEquals(4, order.size());
+        Assert.assertEquals("geo", order.get(0));
+        Assert.assertEquals("models", order.get(3));
+    }
+
+    @Test
+    public void testFailureOfStepIsThrown() {
+        SetupGraph graph = new SetupGraph(2);
+        graph.addStep("geo", () -> {
+        });
+        graph.addStep("skims", () -> {
+            throw new IllegalStateException("missing skim");
+        }, "geo");
+        try {
+            graph.run();
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDependencyHasToBeAddedFirst() {
+        SetupGraph graph = new SetupGraph(2);
+        graph.addStep("accessibility", () -> {
+        }, "skims");
+    }
+}
@@ -0,0 +1,32 @@
+package de.tum.bgu.msm.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EventStatisticsTest {
+
+    @Test
+    public void testCountsAndPercentiles() {
+        EventStatistics statistics = new EventStatistics();
+        for (int i = 1; i <= 1000; i++) {
+            statistics.record(i % 4 == 0, i * 1000L);
+        }
+        Assert.assertEquals(1000, statistics.getCount());
+        Assert.assertEquals(0.25, statistics.getSuccessRate(), 1e-9);
+        Assert.assertEquals(500.5, statistics.getMeanMicros(), 1e-9);
+        Assert.assertEquals(500.5, statistics.getTotalMillis(), 1e-9);
+
+        // histogram buckets have a relative error of less than 12.5%
+        Assert.assertEquals(990., statistics.getPercentileMicros(0.99), 990 * 0.125);
+        Assert.assertEquals(500., statistics.getPercentileMicros(0.5), 500 * 0.125);
+        Assert.assertTrue(statistics.getPercentileMicros(0.99) >= 990.);
+    }
+
+    @Test
+    public void testAllocationRate() {
+        EventStatistics statistics = new EventStatistics();
+        Assert.assertTrue(Double.isNaN(statistics.getAllocationRateMbPerSecond()));
+        statistics.recordAllocation(2_000_000, 1_000_000_000L);
+        Assert.assertEquals(2., statistics.getAllocationRateMbPerSecond(), 1e-9);
+    }
+}
@@ -0,0 +1,53 @@
+package de.tum.bgu.msm.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class FenwickTreeTest {
+
+    @Test
+    public void testTotalsAndFind() {
+        FenwickTree tree = new FenwickTree(5);
+        tree.assign(new double[]{1, 0, 2, 3, 0});
+        Assert.assertEquals(6, tree.getTotal(), 0.);
+        Assert.assertEquals(0, tree.getSum(0), 0.);
+        Assert.assertEquals(3, tree.getSum(3), 0.);
+        Assert.assertEquals(6, tree.getSum(4), 0.);
+        Assert.assertEquals(0, tree.find(0.5));
+        Assert.assertEquals(2, tree.find(1));
+        Assert.assertEquals(3, tree.find(3.5));
+        Assert.assertEquals(5, tree.find(6));
+
+        tree.set(1, 4);
+        tree.add(3, -3);
+        Assert.assertEquals(7, tree.getTotal(), 0.);
+        Assert.assertEquals(1, tree.find(1));
+        Assert.assertEquals(2, tree.find(5));
+        Assert.assertEquals(5, tree.find(7));
+    }
+
+    @Test
+    public void testSampleIsProportionalToWeights() {
+        FenwickTree tree = new FenwickTree(4);
+        tree.assign(new double[]{1, 0, 3, 6});
+        Random random = new Random(42);
+        int[] counts = new int[4];
+        for (int i = 0; i < 100000; i++) {
+            counts[tree.sample(random)]++;
+        }
+        Assert.assertEquals(0, counts[1]);
+        Assert.assertEquals(0.1, counts[0] / 100000., 0.01);
+        Assert.assertEquals(0.3, counts[2] / 100000., 0.01);
+        Assert.assertEquals(0.6, counts[3] / 100000., 0.01);
+
+        tree.assign(new double[4]);
+        Assert.assertEquals(-1, tree.sample(random));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWeightIsRejected() {
+        new FenwickTree(3).set(1, -1);
+    }
+}
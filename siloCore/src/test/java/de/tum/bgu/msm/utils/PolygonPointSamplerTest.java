@@ -0,0 +1,53 @@
+package de.tum.bgu.msm.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+
+import java.util.Random;
+
+public class PolygonPointSamplerTest {
+
+    private final GeometryFactory factory = new GeometryFactory();
+
+    @Test
+    public void testCoordinatesAreUniformWithinConcavePolygonWithHole() throws ParseException {
+        // L-shape of area 3 with a hole of area 0.25 in the lower left square
+        Geometry polygon = new WKTReader(factory).read("POLYGON ((0 0, 2 0, 2 1, 1 1, 1 2, 0 2, 0 0), " +
+                "(0.25 0.25, 0.75 0.25, 0.75 0.75, 0.25 0.75, 0.25 0.25))");
+        PolygonPointSampler sampler = new PolygonPointSampler(polygon);
+        Assert.assertTrue(sampler.getNumberOfTriangles() > 0);
+
+        Random random = new Random(42);
+        int samples = 100000;
+        int inUpperArm = 0;
+        for (int i = 0; i < samples; i++) {
+            Coordinate coordinate = sampler.sample(random);
+            Assert.assertTrue(polygon.covers(factory.createPoint(coordinate)));
+            if (coordinate.y > 1) {
+                inUpperArm++;
+            }
+        }
+        Assert.assertEquals(1 / 2.75, inUpperArm / (double) samples, 0.01);
+    }
+
+    @Test
+    public void testSameRandomGivesSameCoordinates() throws ParseException {
+        Geometry polygon = new WKTReader(factory).read("MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((5 5, 6 5, 6 6, 5 6, 5 5)))");
+        PolygonPointSampler sampler = new PolygonPointSampler(polygon);
+        Random first = new Random(7);
+        Random second = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(sampler.sample(first), sampler.sample(second));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLineIsRejected() throws ParseException {
+        new PolygonPointSampler(new WKTReader(factory).read("LINESTRING (0 0, 1 1)"));
+    }
+}
@@ -0,0 +1,38 @@
+package de.tum.bgu.msm.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Random;
+
+public class RestorableRandomTest {
+
+    @Test
+    public void testSameNumbersAsRandom() {
+        Random expected = new Random(42);
+        Random random = new RestorableRandom(42);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(expected.nextInt(), random.nextInt());
+            Assert.assertEquals(expected.nextInt(17), random.nextInt(17));
+            Assert.assertEquals(expected.nextDouble(), random.nextDouble(), 0.);
+            Assert.assertEquals(expected.nextGaussian(), random.nextGaussian(), 0.);
+            Assert.assertEquals(expected.nextLong(), random.nextLong());
+        }
+    }
+
+    @Test
+    public void testRestoredStateContinuesSequence() throws IOException {
+        RestorableRandom random = new RestorableRandom(7);
+        random.nextGaussian();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        random.writeState(new DataOutputStream(bytes));
+        double[] expected = {random.nextGaussian(), random.nextDouble(), random.nextInt()};
+
+        RestorableRandom restored = new RestorableRandom(1);
+        restored.readState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        Assert.assertEquals(expected[0], restored.nextGaussian(), 0.);
+        Assert.assertEquals(expected[1], restored.nextDouble(), 0.);
+        Assert.assertEquals(expected[2], restored.nextInt(), 0.);
+    }
+}
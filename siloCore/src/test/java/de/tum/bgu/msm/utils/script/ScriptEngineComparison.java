@@ -0,0 +1,167 @@
+package de.tum.bgu.msm.utils.script;
+
+import de.tum.bgu.msm.util.js.JavaScriptCalculator;
+import org.junit.Assert;
+
+import javax.script.ScriptEngineManager;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compares the compiled {@link UtilityFunction} of a calc script with the results of the script engine,
+ * as the utility calculators evaluated the scripts through {@link JavaScriptCalculator} before they were
+ * compiled. The results of the script engine are read from a reference file next to the test, so the
+ * comparison also runs on JDKs without a script engine. The compiled function keeps its state between
+ * calls, as the script engine did when the reference was recorded, so a test has to make the same calls
+ * in the same order.
+ *
+ * To record the reference again, e.g. after a script was changed, run the test on a JDK that still ships
+ * Nashorn (up to 14) with {@code -D}{@value #RECORD_PROPERTY}{@code =true}. The reference is written to
+ * the test resources of the module, and the compiled function is compared with the script engine directly.
+ */
+public final class ScriptEngineComparison {
+
+    public static final String RECORD_PROPERTY = "scriptEngineComparison.record";
+
+    private static final String ERROR = "error";
+    private static final String UNDEFINED = "undefined";
+
+    private static final class EngineCalculator extends JavaScriptCalculator<Object> {
+
+        EngineCalculator(Reader reader) {
+            super(reader);
+        }
+
+        Object call(String function, Object... arguments) {
+            return super.calculate(function, arguments);
+        }
+    }
+
+    private final String function;
+    private final UtilityFunction compiled;
+    private final EngineCalculator engine;
+    private final Path recordFile;
+    private final List<String> results;
+    private int calls = 0;
+
+    /**
+     * @param script    opens the script, it is read once by each evaluation
+     * @param test      class of the test, the reference is a resource of its package
+     * @param reference name of the reference file
+     */
+    public ScriptEngineComparison(Supplier<Reader> script, String function, Class<?> test, String reference) {
+        this.function = function;
+        this.compiled = UtilityScript.compile(script.get()).getFunction(function);
+        if (Boolean.getBoolean(RECORD_PROPERTY)) {
+            Assert.assertTrue("Recording a reference requires a JDK with the Nashorn script engine", isScriptEngineAvailable());
+            this.engine = new EngineCalculator(script.get());
+            this.recordFile = Paths.get("src", "test", "resources", test.getPackage().getName().replace('.', File.separatorChar), reference);
+            this.results = new ArrayList<>();
+        } else {
+            this.engine = null;
+            this.recordFile = null;
+            this.results = readReference(test, reference);
+        }
+    }
+
+    public static boolean isScriptEngineAvailable() {
+        return new ScriptEngineManager().getEngineByName("nashorn") != null;
+    }
+
+    private static List<String> readReference(Class<?> test, String reference) {
+        final InputStream stream = test.getResourceAsStream(reference);
+        Assert.assertNotNull("Reference " + reference + " of " + test.getSimpleName() + " does not exist. Record it with -D"
+                + RECORD_PROPERTY + "=true on a JDK with the Nashorn script engine.", stream);
+        final List<String> results = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                results.add(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return results;
+    }
+
+    /**
+     * Calls the compiled function and compares its result with the one of the script engine for the same call.
+     * The results have to be equal, or both evaluations have to fail.
+     */
+    public void assertSameResult(Object... arguments) {
+        final String call = function + Arrays.toString(arguments);
+        final String expected;
+        if (engine != null) {
+            expected = callEngine(arguments);
+            results.add(expected);
+        } else {
+            Assert.assertTrue(call + " is not part of the reference, which has " + results.size() + " results",
+                    calls < results.size());
+            expected = results.get(calls);
+        }
+        calls++;
+
+        if (expected.equals(ERROR)) {
+            try {
+                compiled.calculateDouble(arguments);
+            } catch (RuntimeException e) {
+                return;
+            }
+            Assert.fail(call + " fails in the script engine, but not when compiled");
+        } else if (expected.equals(UNDEFINED)) {
+            Assert.assertTrue(call, Double.isNaN(compiled.calculateDouble(arguments)));
+        } else if (expected.startsWith("[")) {
+            final String[] values = expected.substring(1, expected.length() - 1).split(",");
+            final double[] expectedArray = Arrays.stream(values).filter(value -> !value.isEmpty())
+                    .mapToDouble(Double::parseDouble).toArray();
+            Assert.assertArrayEquals(call, expectedArray, compiled.calculateDoubleArray(arguments), 0.);
+        } else {
+            Assert.assertEquals(call, Double.parseDouble(expected), compiled.calculateDouble(arguments), 0.);
+        }
+    }
+
+    private String callEngine(Object[] arguments) {
+        final Object result;
+        try {
+            result = engine.call(function, arguments);
+        } catch (RuntimeException e) {
+            return ERROR;
+        }
+        if (result instanceof double[]) {
+            final StringBuilder values = new StringBuilder("[");
+            for (double value : (double[]) result) {
+                values.append(values.length() > 1 ? "," : "").append(value);
+            }
+            return values.append("]").toString();
+        } else if (result instanceof Number) {
+            return Double.toString(((Number) result).doubleValue());
+        } else if (result == null) {
+            return UNDEFINED;
+        }
+        throw new AssertionError(function + Arrays.toString(arguments) + " returned " + result.getClass()
+                + " in the script engine, which is not compared");
+    }
+
+    /**
+     * Checks that all results of the reference were compared. Writes the reference if it is recorded.
+     */
+    public void assertAllCompared() {
+        if (recordFile != null) {
+            try {
+                Files.createDirectories(recordFile.getParent());
+                Files.write(recordFile, results, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            Assert.assertEquals("Number of calls of " + function + " in the reference", results.size(), calls);
+        }
+    }
+}
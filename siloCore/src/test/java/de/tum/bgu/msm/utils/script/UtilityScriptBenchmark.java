@@ -0,0 +1,112 @@
+package de.tum.bgu.msm.utils.script;
+
+import de.tum.bgu.msm.data.household.HouseholdType;
+import de.tum.bgu.msm.util.js.JavaScriptCalculator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the dwelling utility calculation through the script engine, synchronized as in the
+ * dwelling utility strategies, with the compiled {@link UtilityScript}, on one and on four threads.
+ * The script engine requires a JDK that still ships Nashorn (up to 14).
+ *
+ * Not part of the tests, run {@link #main} after the test classes were compiled.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UtilityScriptBenchmark {
+
+    private static final String SCRIPT = "/de/tum/bgu/msm/models/javascript/DwellingUtilityCalc";
+    private static final String FUNCTION = "calculateSelectDwellingUtility";
+
+    private static final class ScriptEngineCalculator extends JavaScriptCalculator<Double> {
+
+        ScriptEngineCalculator() {
+            super(new InputStreamReader(UtilityScriptBenchmark.class.getResourceAsStream(SCRIPT)));
+        }
+
+        synchronized double calculateUtility(HouseholdType ht, double size, double price, double quality,
+                                             double autoAccessibility, double transitAccessibility) {
+            return super.calculate(FUNCTION, ht, size, price, quality, autoAccessibility, transitAccessibility);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Calculators {
+
+        ScriptEngineCalculator scriptEngine;
+        UtilityFunction compiled;
+
+        /**
+         * Fails if the two calculations differ for the inputs of the benchmark, as their throughput would not
+         * be comparable
+         */
+        @Setup
+        public void setup() {
+            scriptEngine = new ScriptEngineCalculator();
+            compiled = UtilityScript.compile(new InputStreamReader(UtilityScriptBenchmark.class.getResourceAsStream(SCRIPT)))
+                    .getFunction(FUNCTION);
+            final Input input = new Input();
+            for (int i = 0; i < 100 * Input.TYPES.length; i++) {
+                final HouseholdType type = input.nextType();
+                final double value = input.value();
+                final double expected = scriptEngine.calculateUtility(type, value, 0.5, 0.9, 0.7, 0.3);
+                final double actual = compiled.calculateDouble(type, value, 0.5, 0.9, 0.7, 0.3);
+                if (Double.compare(expected, actual) != 0) {
+                    throw new IllegalStateException("Compiled script returns " + actual + " instead of " + expected
+                            + " for " + type + " and " + value);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Input {
+
+        private static final HouseholdType[] TYPES = HouseholdType.values();
+        private int counter = 0;
+
+        HouseholdType nextType() {
+            counter++;
+            return TYPES[counter % TYPES.length];
+        }
+
+        double value() {
+            return (counter % 100) / 100.;
+        }
+    }
+
+    @Benchmark
+    public double scriptEngine(Calculators calculators, Input input) {
+        return calculators.scriptEngine.calculateUtility(input.nextType(), input.value(), 0.5, 0.9, 0.7, 0.3);
+    }
+
+    @Benchmark
+    public double compiled(Calculators calculators, Input input) {
+        return calculators.compiled.calculateDouble(input.nextType(), input.value(), 0.5, 0.9, 0.7, 0.3);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double scriptEngineFourThreads(Calculators calculators, Input input) {
+        return calculators.scriptEngine.calculateUtility(input.nextType(), input.value(), 0.5, 0.9, 0.7, 0.3);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double compiledFourThreads(Calculators calculators, Input input) {
+        return calculators.compiled.calculateDouble(input.nextType(), input.value(), 0.5, 0.9, 0.7, 0.3);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(UtilityScriptBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,53 @@
+package de.tum.bgu.msm.utils.script;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.util.Random;
+
+public class UtilityScriptEquivalenceTest {
+
+    @Test
+    public void testMarylandCarOwnershipMatchesScriptEngine() {
+        ScriptEngineComparison comparison = new ScriptEngineComparison(() -> new InputStreamReader(
+                UtilityScriptEquivalenceTest.class.getResourceAsStream("/de/tum/bgu/msm/models/autoOwnership/maryland/UpdateCarOwnershipMstmCalc")),
+                "calculateCarOwnerShipProbabilities", UtilityScriptEquivalenceTest.class, "UpdateCarOwnershipMstmCalc.reference");
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            // income and density outside of the defined categories have to fail in both
+            comparison.assertSameResult(1 + random.nextInt(8), random.nextInt(5), random.nextInt(14),
+                    random.nextInt(101), random.nextInt(11));
+        }
+        comparison.assertAllCompared();
+    }
+
+    /**
+     * A variable that is assigned without var is global, as in the script engine, and keeps the value of the
+     * previous call. Reading it before it was ever assigned fails.
+     */
+    @Test
+    public void testImplicitGlobalKeepsItsValue() {
+        UtilityFunction function = UtilityScript.compile("var f = function(a) { if (a > 0) { x = a; } return x; }").getFunction("f");
+        try {
+            function.calculateDouble(-1);
+            Assert.fail("Reading a variable that was never assigned should fail");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("\"x\" is not defined"));
+        }
+        Assert.assertEquals(1., function.calculateDouble(1), 0.);
+        Assert.assertEquals(1., function.calculateDouble(-1), 0.);
+    }
+
+    @Test
+    public void testImplicitGlobalIsSharedByFunctions() {
+        UtilityScript script = UtilityScript.compile(
+                "var set = function(a) { y = a; return 0; }\n" +
+                "var get = function() { return y; }\n" +
+                "var overwrite = function() { z = 2; return 0; }\n" +
+                "var assignAndCall = function() { z = 1; overwrite(); return z; }\n");
+        script.getFunction("set").calculateDouble(3);
+        Assert.assertEquals(3., script.getFunction("get").calculateDouble(), 0.);
+        Assert.assertEquals(2., script.getFunction("assignAndCall").calculateDouble(), 0.);
+    }
+}
@@ -0,0 +1,139 @@
+package de.tum.bgu.msm.utils.script;
+
+import de.tum.bgu.msm.data.household.HouseholdType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.util.stream.IntStream;
+
+public class UtilityScriptTest {
+
+    private static UtilityScript load(String name) {
+        return UtilityScript.compile(new InputStreamReader(
+                UtilityScriptTest.class.getResourceAsStream("/de/tum/bgu/msm/models/javascript/" + name)));
+    }
+
+    @Test
+    public void testDwellingUtilityMatchesFormula() {
+        UtilityFunction function = load("DwellingUtilityCalc").getFunction("calculateSelectDwellingUtility");
+        // beta, gamma, delta and epsilon by income, alpha grows with household size
+        double[][] coefficients = {{0.25, 0.3, 0.2, 0.35}, {0.2, 0.25, 0.35, 0.3}, {0.15, 0.15, 0.5, 0.1}, {0.12, 0.08, 0.6, 0.05}};
+        double[][] alphas = {{0.12, 0.14, 0.16, 0.18}, {0.17, 0.19, 0.21, 0.23}, {0.22, 0.24, 0.26, 0.28}, {0.27, 0.29, 0.31, 0.33}};
+        String[] incomes = {"LOW", "MEDIUM", "HIGH", "VERY_HIGH"};
+        for (int income = 0; income < 4; income++) {
+            for (int size = 1; size <= 4; size++) {
+                HouseholdType ht = HouseholdType.valueOf("SIZE_" + size + "_INC_" + incomes[income]);
+                double alpha = alphas[income][size - 1];
+                double beta = coefficients[income][0];
+                double gamma = coefficients[income][1];
+                double delta = coefficients[income][2];
+                double epsilon = coefficients[income][3];
+                for (double value = 0.1; value < 1; value += 0.2) {
+                    double optFactors = alpha * value + beta * 0.7 + gamma * 0.3 + (1.0 - alpha - beta - gamma) * 0.9;
+                    double expected = Math.pow(optFactors, delta) * Math.pow(0.5, epsilon);
+                    Assert.assertEquals(expected, function.calculateDouble(ht, value, 0.5, 0.9, 0.7, 0.3), 0.);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCarOwnershipProbabilities() {
+        UtilityFunction function = load("CreateCarOwnershipCalc").getFunction("calculate");
+        double[] intercept = {-4.69730, -10.98800, -17.00200};
+        double[] betaLicense = {3.11410, 4.65460, 5.71850};
+        double[] betaWorkers = {0.22840, 0.76420, 1.13260};
+        double[] betaIncome = {0.00070, 0.00100, 0.00120};
+        double[] betaDistance = {0.15230, 0.25180, 0.25930};
+        double[][] betaAreaType = {{0., 0.88210, 0.99270, 1.34420}, {0., 1.43410, 1.60730, 2.25490}, {0., 1.69830, 1.91330, 2.93080}};
+
+        double[] results = function.calculateDoubleArray(2, 1, 3000, 0.5, 3);
+
+        double[] expected = new double[4];
+        double sum = 0;
+        for (int i = 0; i < 3; i++) {
+            double utility = intercept[i] + (betaLicense[i] * 2) + (betaWorkers[i] * 1) + (betaIncome[i] * 3000)
+                    + (betaDistance[i] * 0.5) + betaAreaType[i][3 - 1];
+            expected[i + 1] = Math.exp(utility);
+            sum += expected[i + 1];
+        }
+        double prob0cars = 1.0 / (sum + 1.0);
+        sum = 0;
+        for (int i = 0; i < 3; i++) {
+            expected[i + 1] = expected[i + 1] * prob0cars;
+            sum += expected[i + 1];
+        }
+        expected[0] = 1 - sum;
+        Assert.assertArrayEquals(expected, results, 0.);
+    }
+
+    @Test
+    public void testSwitchAndError() {
+        UtilityFunction function = load("UpdateCarOwnershipMstmCalc").getFunction("calculateCarOwnerShipProbabilities");
+        double[] results = function.calculateDoubleArray(2, 1, 12, 0, 10);
+        Assert.assertEquals(3, results.length);
+        Assert.assertEquals(Math.exp(2.258434 + -0.121 * 2 + 0.327 * 1 + -0.022 * 0 + 0 + 0), results[0], 0.);
+        try {
+            function.calculateDoubleArray(2, 1, 13, 0, 10);
+            Assert.fail("Invalid income should throw");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().endsWith("Invalid income!"));
+        }
+    }
+
+    @Test
+    public void testJavaScriptSemantics() {
+        UtilityScript script = UtilityScript.compile(
+                "var FACTOR = 2;\n" +
+                "var relevantShare = function(nationality, share) {\n" +
+                "    if(nationality == 1) {\n" +
+                "        relevant = share;\n" +
+                "    } else {\n" +
+                "        relevant = 1 - share\n" +
+                "    }\n" +
+                "    return relevant\n" +
+                "}\n" +
+                "function describe(ht, value) {\n" +
+                "    var result;\n" +
+                "    if (ht.name() === \"SIZE_1_INC_LOW\" && ht.name().equals(\"SIZE_1_INC_LOW\")) {\n" +
+                "        result = ht + \" \" + value * FACTOR + \" \" + (value / 4);\n" +
+                "    }\n" +
+                "    return result;\n" +
+                "}\n" +
+                "var sum = function(n) {\n" +
+                "    total = 0;\n" +
+                "    for (var i = 0; i < n; i++) {\n" +
+                "        if (i % 2 == 0) continue;\n" +
+                "        total += i;\n" +
+                "    }\n" +
+                "    return isNaN(total) ? -1 : total + relevantShare(1, 0.25);\n" +
+                "}\n");
+
+        // a java object never equals a number
+        Assert.assertEquals(0.75, script.getFunction("relevantShare").calculateDouble(HouseholdType.SIZE_1_INC_LOW, 0.25), 0.);
+        Assert.assertEquals(0.25, script.getFunction("relevantShare").calculateDouble(1, 0.25), 0.);
+        Assert.assertEquals("SIZE_1_INC_LOW 3 0.375",
+                script.getFunction("describe").invoke(new Object[]{HouseholdType.SIZE_1_INC_LOW, 1.5}));
+        Assert.assertTrue(Double.isNaN(script.getFunction("describe").calculateDouble(HouseholdType.SIZE_2_INC_LOW, 1.5)));
+        Assert.assertEquals(1 + 3 + 0.25, script.getFunction("sum").calculateDouble(5), 0.);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testVariableThatIsNeverAssignedIsRejected() {
+        UtilityScript.compile("var f = function(a) { return a * undefinedCoefficient; }");
+    }
+
+    @Test
+    public void testConcurrentCallsGiveSameResults() {
+        UtilityFunction function = load("DwellingUtilityCalc").getFunction("calculateSelectDwellingUtility");
+        HouseholdType[] types = HouseholdType.values();
+        double[] sequential = IntStream.range(0, 10000)
+                .mapToDouble(i -> function.calculateDouble(types[i % 16], (i % 100) / 100., 0.5, 0.9, 0.7, 0.3))
+                .toArray();
+        double[] parallel = IntStream.range(0, 10000).parallel()
+                .mapToDouble(i -> function.calculateDouble(types[i % 16], (i % 100) / 100., 0.5, 0.9, 0.7, 0.3))
+                .toArray();
+        Assert.assertArrayEquals(sequential, parallel, 0.);
+    }
+}
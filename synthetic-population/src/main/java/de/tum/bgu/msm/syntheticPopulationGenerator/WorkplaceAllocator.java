@@ -0,0 +1,387 @@
+package de.tum.bgu.msm.syntheticPopulationGenerator;
+
+import de.tum.bgu.msm.utils.FenwickTree;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Allocates the vacant jobs of the synthetic population to workers by a destination choice over the
+ * zones with vacant jobs of the type of the worker.
+ *
+ * The workers are assigned in rounds. In each round, the workers of one home zone form a shard, and the
+ * shards are processed in parallel against the vacant jobs at the start of the round. A shard sets up the
+ * attraction of all zones once per job type in a {@link FenwickTree}, draws the workplaces of its workers
+ * in O(log Z) and removes the drawn jobs from its own copy of the vacancies. The draws are then confirmed
+ * one after the other in the order of the workers. A worker whose zone was filled by another shard in the
+ * meantime draws again in the next round. Every shard draws from its own random numbers, seeded by the
+ * seed, the round and the home zone, so that the allocation does not depend on the number of threads.
+ *
+ * The attraction of a zone is split into a {@link Utility}, which does not depend on the jobs of the zone,
+ * and the {@link Attraction} of the zone with this utility and its jobs. The utility of the zones for a home
+ * zone and job type is evaluated once and kept as long as workers of the home zone and type draw again, so
+ * that only the attraction is updated with the vacant jobs between rounds and draws. Zones without vacant
+ * jobs are dropped between rounds. This keeps one utility per zone with vacant jobs for each home zone and
+ * job type that draws again.
+ */
+public final class WorkplaceAllocator {
+
+    private static final Logger logger = Logger.getLogger(WorkplaceAllocator.class);
+
+    /**
+     * The worker did not get a job, because there is no vacant job of its type left
+     */
+    public static final int NO_JOB = -2;
+
+    private static final int PENDING = -1;
+
+    /**
+     * Utility of a destination for a worker of the home zone and job type, e.g. by the distance. It is
+     * evaluated once per home zone, destination and job type.
+     */
+    public interface Utility {
+        double getUtility(int origin, int destination, int type);
+    }
+
+    /**
+     * Attraction of a zone with vacant jobs for a worker, by the utility of the zone and its jobs. It is
+     * evaluated again whenever the vacant jobs of the zone change and has to be finite and non-negative.
+     */
+    public interface Attraction {
+        double getAttraction(double utility, int totalJobs, int vacantJobs);
+    }
+
+    private final Utility utility;
+    private final Attraction attraction;
+    private final JobsOfType[] jobsByType;
+
+    public WorkplaceAllocator(int numberOfTypes, Utility utility, Attraction attraction) {
+        this.utility = utility;
+        this.attraction = attraction;
+        this.jobsByType = new JobsOfType[numberOfTypes];
+        for (int type = 0; type < numberOfTypes; type++) {
+            jobsByType[type] = new JobsOfType();
+        }
+    }
+
+    public void addVacantJob(int type, int zone, int jobId) {
+        jobsByType[type].add(zone, jobId);
+    }
+
+    public int getNumberOfVacantJobs(int type) {
+        final JobsOfType jobs = jobsByType[type];
+        return jobs.vacancies == null ? jobs.numberOfJobs : (int) Math.round(jobs.vacancies.getTotal());
+    }
+
+    /**
+     * Assigns a job to every worker, as long as there are vacant jobs of its type. The workers take their
+     * jobs in the given order if they compete for the last vacant jobs of a zone.
+     *
+     * @param origins home zone of each worker
+     * @param types   job type of each worker
+     * @return the id of the job of each worker, or {@link #NO_JOB}
+     */
+    public int[] assign(int[] origins, int[] types, long seed, int numberOfThreads) {
+        for (JobsOfType jobs : jobsByType) {
+            jobs.prepare();
+        }
+        final int[] jobIds = new int[origins.length];
+        Arrays.fill(jobIds, PENDING);
+        int[] pending = new int[origins.length];
+        for (int worker = 0; worker < pending.length; worker++) {
+            pending[worker] = worker;
+        }
+
+        Map<Integer, Map<Integer, Destinations>> destinationsByOrigin = new HashMap<>();
+        final AtomicInteger counter = new AtomicInteger();
+        final ExecutorService service = Executors.newFixedThreadPool(Math.max(1, numberOfThreads), runnable -> {
+            final Thread thread = new Thread(runnable, "workplace-allocation-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            int round = 0;
+            while (pending.length > 0) {
+                for (JobsOfType jobs : jobsByType) {
+                    jobs.startRound();
+                }
+                final int[] zones = draw(service, pending, origins, types, seed, round, destinationsByOrigin);
+                pending = confirm(pending, zones, types, jobIds);
+                destinationsByOrigin = retainPending(destinationsByOrigin, pending, origins, types);
+                round++;
+                logger.info("   Job allocation round " + round + ": " + pending.length + " workers draw again.");
+            }
+        } finally {
+            service.shutdownNow();
+        }
+        return jobIds;
+    }
+
+    private int[] draw(ExecutorService service, int[] pending, int[] origins, int[] types, long seed, int round,
+                       Map<Integer, Map<Integer, Destinations>> destinationsByOrigin) {
+        final Map<Integer, List<Integer>> positionsByOrigin = new LinkedHashMap<>();
+        for (int position = 0; position < pending.length; position++) {
+            positionsByOrigin.computeIfAbsent(origins[pending[position]], origin -> new ArrayList<>()).add(position);
+        }
+        final int[] zones = new int[pending.length];
+        final List<Callable<Void>> shards = new ArrayList<>(positionsByOrigin.size());
+        for (Map.Entry<Integer, List<Integer>> shard : positionsByOrigin.entrySet()) {
+            final int origin = shard.getKey();
+            final List<Integer> positions = shard.getValue();
+            final Map<Integer, Destinations> destinationsByType = destinationsByOrigin.computeIfAbsent(origin, o -> new HashMap<>());
+            shards.add(() -> {
+                final Random random = new Random(seed + 0x9E3779B97F4A7C15L * (round + 1) + 0xC2B2AE3D27D4EB4FL * origin);
+                final Map<Integer, Destinations> drawing = new HashMap<>();
+                for (int position : positions) {
+                    final int type = types[pending[position]];
+                    zones[position] = drawing.computeIfAbsent(type, t -> destinationsByType
+                            .computeIfAbsent(t, u -> new Destinations(origin, u)).startRound()).draw(random);
+                }
+                drawing.values().forEach(Destinations::endRound);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : service.invokeAll(shards)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        return zones;
+    }
+
+    /**
+     * @return the destinations of the home zones and job types of the workers that draw again, with their utilities
+     */
+    private static Map<Integer, Map<Integer, Destinations>> retainPending(Map<Integer, Map<Integer, Destinations>> destinationsByOrigin,
+                                                                          int[] pending, int[] origins, int[] types) {
+        final Map<Integer, Map<Integer, Destinations>> retained = new HashMap<>();
+        for (int worker : pending) {
+            final Map<Integer, Destinations> destinationsByType = destinationsByOrigin.get(origins[worker]);
+            final Destinations destinations = destinationsByType == null ? null : destinationsByType.get(types[worker]);
+            if (destinations != null) {
+                retained.computeIfAbsent(origins[worker], origin -> new HashMap<>()).put(types[worker], destinations);
+            }
+        }
+        return retained;
+    }
+
+    private int[] confirm(int[] pending, int[] zones, int[] types, int[] jobIds) {
+        int remaining = 0;
+        for (int position = 0; position < pending.length; position++) {
+            final int worker = pending[position];
+            if (zones[position] < 0) {
+                jobIds[worker] = NO_JOB;
+            } else {
+                final int jobId = jobsByType[types[worker]].take(zones[position]);
+                if (jobId == PENDING) {
+                    pending[remaining++] = worker;
+                } else {
+                    jobIds[worker] = jobId;
+                }
+            }
+        }
+        return Arrays.copyOf(pending, remaining);
+    }
+
+    /**
+     * Vacant jobs of one type, by the zones that have jobs of this type
+     */
+    private static final class JobsOfType {
+
+        private final Map<Integer, Integer> indexByZone = new HashMap<>();
+        private int[] zones = new int[16];
+        private int[][] jobIds = new int[16][];
+        private int[] total = new int[16];
+        private int numberOfJobs;
+
+        private int[] vacant;
+        private FenwickTree vacancies;
+
+        /**
+         * Zones with vacant jobs at the start of the round, their vacant jobs and their position in the zones
+         * of the previous round
+         */
+        private int[] open;
+        private int[] openVacant;
+        private int[] previousPosition;
+
+        private void add(int zone, int jobId) {
+            if (vacancies != null) {
+                throw new IllegalStateException("Jobs can not be added after the allocation started");
+            }
+            Integer index = indexByZone.get(zone);
+            if (index == null) {
+                index = indexByZone.size();
+                if (index == zones.length) {
+                    zones = Arrays.copyOf(zones, index * 2);
+                    jobIds = Arrays.copyOf(jobIds, index * 2);
+                    total = Arrays.copyOf(total, index * 2);
+                }
+                indexByZone.put(zone, index);
+                zones[index] = zone;
+                jobIds[index] = new int[4];
+            }
+            if (total[index] == jobIds[index].length) {
+                jobIds[index] = Arrays.copyOf(jobIds[index], total[index] * 2);
+            }
+            jobIds[index][total[index]++] = jobId;
+            numberOfJobs++;
+        }
+
+        private void prepare() {
+            if (vacancies == null) {
+                final int numberOfZones = indexByZone.size();
+                vacant = Arrays.copyOf(total, numberOfZones);
+                vacancies = new FenwickTree(numberOfZones);
+                final double[] weights = new double[numberOfZones];
+                for (int index = 0; index < numberOfZones; index++) {
+                    weights[index] = vacant[index];
+                }
+                vacancies.assign(weights);
+            }
+        }
+
+        private void startRound() {
+            final int[] previousOpen = open;
+            int count = 0;
+            for (int index = 0; index < vacant.length; index++) {
+                if (vacant[index] > 0) {
+                    count++;
+                }
+            }
+            open = new int[count];
+            openVacant = new int[count];
+            previousPosition = new int[count];
+            int position = 0;
+            int previous = 0;
+            for (int index = 0; index < vacant.length; index++) {
+                if (vacant[index] > 0) {
+                    open[position] = index;
+                    openVacant[position] = vacant[index];
+                    if (previousOpen != null) {
+                        // the vacant jobs only decrease, so every open zone was open in the previous round
+                        while (previousOpen[previous] != index) {
+                            previous++;
+                        }
+                        previousPosition[position] = previous;
+                    }
+                    position++;
+                }
+            }
+        }
+
+        /**
+         * @return the id of the last vacant job in the zone, or {@link #PENDING} if the zone has none left
+         */
+        private int take(int index) {
+            if (vacant[index] == 0) {
+                return PENDING;
+            }
+            vacancies.add(index, -1);
+            return jobIds[index][--vacant[index]];
+        }
+    }
+
+    /**
+     * Attraction of the zones with vacant jobs of one type for the workers of one home zone, while a shard
+     * draws their workplaces.
+     */
+    private final class Destinations {
+
+        private final JobsOfType jobs;
+
+        /**
+         * Utility of the open zones of the jobs at the start of the round
+         */
+        private int[] open;
+        private double[] utilities;
+
+        private int[] vacant;
+        private FenwickTree weights;
+        private FenwickTree vacancies;
+
+        private Destinations(int origin, int type) {
+            this.jobs = jobsByType[type];
+            this.open = jobs.open;
+            this.utilities = new double[open.length];
+            for (int position = 0; position < open.length; position++) {
+                utilities[position] = utility.getUtility(origin, jobs.zones[open[position]], type);
+            }
+        }
+
+        /**
+         * Drops the utility of the zones that have no vacant jobs left and sets up the attraction of the
+         * others with their vacant jobs at the start of the round.
+         */
+        private Destinations startRound() {
+            if (open != jobs.open) {
+                final double[] kept = new double[jobs.open.length];
+                for (int position = 0; position < kept.length; position++) {
+                    kept[position] = utilities[jobs.previousPosition[position]];
+                }
+                open = jobs.open;
+                utilities = kept;
+            }
+            this.vacant = jobs.openVacant.clone();
+            final double[] attractions = new double[vacant.length];
+            final double[] counts = new double[vacant.length];
+            for (int position = 0; position < vacant.length; position++) {
+                attractions[position] = attraction(position);
+                counts[position] = vacant[position];
+            }
+            this.weights = new FenwickTree(vacant.length);
+            this.weights.assign(attractions);
+            this.vacancies = new FenwickTree(vacant.length);
+            this.vacancies.assign(counts);
+            return this;
+        }
+
+        private void endRound() {
+            vacant = null;
+            weights = null;
+            vacancies = null;
+        }
+
+        /**
+         * @return the index of the drawn zone, or -1 if there is no vacant job of the type left
+         */
+        private int draw(Random random) {
+            int position = weights.sample(random);
+            if (position < 0) {
+                // all attractions vanished, e.g. because they are too small, draw by the number of vacant jobs
+                position = vacancies.sample(random);
+                if (position < 0) {
+                    return -1;
+                }
+            }
+            vacant[position]--;
+            vacancies.add(position, -1);
+            weights.set(position, attraction(position));
+            return open[position];
+        }
+
+        private double attraction(int position) {
+            if (vacant[position] == 0) {
+                return 0;
+            }
+            return attraction.getAttraction(utilities[position], jobs.total[open[position]], vacant[position]);
+        }
+    }
+}
@@ -104,6 +104,11 @@ public class SyntheticPopUs implements SyntheticPopI {
         householdData = dataContainer.getHouseholdDataManager();
         jobData = dataContainer.getJobDataManager();
         createJobs();
+        if (!(dataContainer.getTravelTimes() instanceof SkimTravelTimes)) {
+            // the skims are read into the skim matrices below
+            throw new IllegalStateException("The synthetic population reads skim travel times, travel.time="
+                    + Properties.get().transportModel.travelTimeImplIdentifier + " is not supported.");
+        }
         travelTimes = (SkimTravelTimes) dataContainer.getTravelTimes();
         accessibility = (AccessibilityImpl) dataContainer.getAccessibility();                      // read in travel times and trip length frequency distribution
         commutingTimeProbability = dataContainer.getCommutingTimeProbability();
@@ -0,0 +1,121 @@
+package de.tum.bgu.msm.syntheticPopulationGenerator.optimizationIPU.optimization;
+
+import de.tum.bgu.msm.common.datafile.TableDataSet;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sparse incidence of the attributes of the micro data households, read once from the frequency matrix.
+ * The non-zero values are stored in compressed rows, one row per attribute, so that weighted sums and
+ * weight updates only touch the households that have the attribute.
+ */
+final class IpuIncidence {
+
+    private final int numberOfHouseholds;
+    private final Map<String, Integer> indexByAttribute = new HashMap<>();
+
+    /**
+     * Position of the first non-zero value of each attribute in {@link #households} and {@link #values}
+     */
+    private final int[] start;
+    private final int[] households;
+    private final double[] values;
+
+    private IpuIncidence(int numberOfHouseholds, String[] attributes, int[] start, int[] households, double[] values) {
+        this.numberOfHouseholds = numberOfHouseholds;
+        for (int i = 0; i < attributes.length; i++) {
+            indexByAttribute.put(attributes[i], i);
+        }
+        this.start = start;
+        this.households = households;
+        this.values = values;
+    }
+
+    /**
+     * Reads the given attributes from the frequency matrix. Values are truncated to integers as in the
+     * frequency matrix that the IPU used before.
+     */
+    static IpuIncidence read(TableDataSet frequencyMatrix, String[] attributes) {
+        final int rows = frequencyMatrix.getRowCount();
+        final int[][] columns = new int[attributes.length][];
+        int nonZeros = 0;
+        for (int a = 0; a < attributes.length; a++) {
+            columns[a] = new int[rows];
+            for (int row = 1; row <= rows; row++) {
+                final int value = (int) frequencyMatrix.getValueAt(row, attributes[a]);
+                columns[a][row - 1] = value;
+                if (value != 0) {
+                    nonZeros++;
+                }
+            }
+        }
+        return of(rows, attributes, columns, nonZeros);
+    }
+
+    /**
+     * @param columns values by attribute and household
+     */
+    static IpuIncidence of(int numberOfHouseholds, String[] attributes, int[][] columns) {
+        int nonZeros = 0;
+        for (int[] column : columns) {
+            for (int value : column) {
+                if (value != 0) {
+                    nonZeros++;
+                }
+            }
+        }
+        return of(numberOfHouseholds, attributes, columns, nonZeros);
+    }
+
+    private static IpuIncidence of(int numberOfHouseholds, String[] attributes, int[][] columns, int nonZeros) {
+        final int[] start = new int[attributes.length + 1];
+        final int[] households = new int[nonZeros];
+        final double[] values = new double[nonZeros];
+        int position = 0;
+        for (int a = 0; a < attributes.length; a++) {
+            start[a] = position;
+            for (int household = 0; household < numberOfHouseholds; household++) {
+                if (columns[a][household] != 0) {
+                    households[position] = household;
+                    values[position] = columns[a][household];
+                    position++;
+                }
+            }
+        }
+        start[attributes.length] = position;
+        return new IpuIncidence(numberOfHouseholds, attributes, start, households, values);
+    }
+
+    int getNumberOfHouseholds() {
+        return numberOfHouseholds;
+    }
+
+    int getAttributeIndex(String attribute) {
+        final Integer index = indexByAttribute.get(attribute);
+        if (index == null) {
+            throw new IllegalArgumentException("Attribute " + attribute + " is not in the frequency matrix.");
+        }
+        return index;
+    }
+
+    /**
+     * @return the sum of the weights times the values of the attribute
+     */
+    double weightedSum(double[] weights, int attribute) {
+        double sum = 0;
+        for (int i = start[attribute]; i < start[attribute + 1]; i++) {
+            sum += weights[households[i]] * values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Multiplies the weights of the households that have the attribute by the factor.
+     */
+    void scale(double[] weights, int attribute, double factor) {
+        for (int i = start[attribute]; i < start[attribute + 1]; i++) {
+            weights[households[i]] *= factor;
+        }
+    }
+}
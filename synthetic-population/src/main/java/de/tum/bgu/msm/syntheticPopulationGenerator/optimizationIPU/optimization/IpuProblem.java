@@ -0,0 +1,73 @@
+package de.tum.bgu.msm.syntheticPopulationGenerator.optimizationIPU.optimization;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One independent IPU fitting, e.g. of a municipality or of a county with its municipalities. Every
+ * geographical unit that is fitted has its own weight for each micro data household. The constraints
+ * are applied in the order they were added, each one to the sum over the units it covers.
+ */
+final class IpuProblem {
+
+    private final int id;
+    private final String name;
+    private final int numberOfUnits;
+    private final boolean zeroTargetsInError;
+    private final List<Constraint> constraints = new ArrayList<>();
+
+    /**
+     * @param zeroTargetsInError whether constraints with a target of zero count as an error of zero
+     *                           in the average error, instead of being left out
+     */
+    IpuProblem(int id, String name, int numberOfUnits, boolean zeroTargetsInError) {
+        this.id = id;
+        this.name = name;
+        this.numberOfUnits = numberOfUnits;
+        this.zeroTargetsInError = zeroTargetsInError;
+    }
+
+    /**
+     * @param units indices of the units, between 0 and the number of units, whose weights are fitted
+     *              to the target together
+     * @return the index of the constraint
+     */
+    int addConstraint(int attribute, int[] units, double target) {
+        constraints.add(new Constraint(attribute, units, target));
+        return constraints.size() - 1;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getNumberOfUnits() {
+        return numberOfUnits;
+    }
+
+    boolean isZeroTargetsInError() {
+        return zeroTargetsInError;
+    }
+
+    List<Constraint> getConstraints() {
+        return Collections.unmodifiableList(constraints);
+    }
+
+    static final class Constraint {
+
+        final int attribute;
+        final int[] units;
+        final double target;
+
+        private Constraint(int attribute, int[] units, double target) {
+            this.attribute = attribute;
+            this.units = units;
+            this.target = target;
+        }
+    }
+}
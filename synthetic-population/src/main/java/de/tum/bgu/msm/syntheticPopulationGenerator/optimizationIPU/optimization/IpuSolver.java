@@ -0,0 +1,212 @@
+package de.tum.bgu.msm.syntheticPopulationGenerator.optimizationIPU.optimization;
+
+import de.tum.bgu.msm.syntheticPopulationGenerator.properties.PropertiesSynPop;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Iterative proportional updating of household weights on the sparse {@link IpuIncidence}. The weights
+ * are updated in place and only for the households that have the attribute of a constraint.
+ *
+ * The stopping criteria are those the IPU of the synthetic population always used: the average error is
+ * below the maximum error, the error did not improve enough within the given number of iterations, or the
+ * maximum number of iterations is reached. The weights with the lowest average error are returned.
+ */
+final class IpuSolver {
+
+    private static final Logger logger = Logger.getLogger(IpuSolver.class);
+
+    private final IpuIncidence incidence;
+    private final int maxIterations;
+    private final double maxError;
+    private final double improvementError;
+    private final double iterationError;
+    private final double initialError;
+
+    IpuSolver(IpuIncidence incidence, int maxIterations, double maxError, double improvementError,
+              double iterationError, double initialError) {
+        this.incidence = incidence;
+        this.maxIterations = maxIterations;
+        this.maxError = maxError;
+        this.improvementError = improvementError;
+        this.iterationError = iterationError;
+        this.initialError = initialError;
+    }
+
+    static IpuSolver fromProperties(IpuIncidence incidence) {
+        return new IpuSolver(incidence,
+                PropertiesSynPop.get().main.maxIterations,
+                PropertiesSynPop.get().main.maxError,
+                PropertiesSynPop.get().main.improvementError,
+                PropertiesSynPop.get().main.iterationError,
+                PropertiesSynPop.get().main.initialError);
+    }
+
+    /**
+     * Solves the problems in parallel on a fixed number of threads. The results are handed to the
+     * consumer on the calling thread, in the order of the problems.
+     */
+    void solveAll(List<IpuProblem> problems, int numberOfThreads, Consumer<Result> consumer) {
+        final AtomicInteger counter = new AtomicInteger();
+        final ExecutorService service = Executors.newFixedThreadPool(Math.max(1, numberOfThreads), runnable -> {
+            final Thread thread = new Thread(runnable, "ipu-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<Result>> futures = new ArrayList<>(problems.size());
+            for (IpuProblem problem : problems) {
+                futures.add(service.submit(() -> solve(problem)));
+            }
+            for (Future<Result> future : futures) {
+                consumer.accept(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    Result solve(IpuProblem problem) {
+        final long startTime = System.nanoTime();
+        final List<IpuProblem.Constraint> constraints = problem.getConstraints();
+        final int numberOfHouseholds = incidence.getNumberOfHouseholds();
+
+        final double[][] weights = new double[problem.getNumberOfUnits()][numberOfHouseholds];
+        final double[][] minWeights = new double[problem.getNumberOfUnits()][numberOfHouseholds];
+        for (int unit = 0; unit < weights.length; unit++) {
+            Arrays.fill(weights[unit], 1.);
+            Arrays.fill(minWeights[unit], 1.);
+        }
+        final double[] errors = new double[constraints.size()];
+
+        double referenceError = initialError;
+        double minError = initialError;
+        boolean finish = false;
+        int iteration = 0;
+        while (!finish && iteration < maxIterations) {
+            for (IpuProblem.Constraint constraint : constraints) {
+                final double weightedSum = weightedSum(weights, constraint);
+                if (weightedSum > 0.001) {
+                    final double updatingFactor = constraint.target / weightedSum;
+                    for (int unit : constraint.units) {
+                        incidence.scale(weights[unit], constraint.attribute, updatingFactor);
+                    }
+                }
+            }
+
+            double averageError = 0;
+            int counter = 0;
+            for (int c = 0; c < constraints.size(); c++) {
+                final IpuProblem.Constraint constraint = constraints.get(c);
+                if (constraint.target > 0) {
+                    errors[c] = Math.abs((weightedSum(weights, constraint) - constraint.target) / constraint.target);
+                    averageError += errors[c];
+                    counter++;
+                } else if (problem.isZeroTargetsInError()) {
+                    counter++;
+                }
+            }
+            averageError = averageError / counter;
+
+            //Stopping criteria: exceeds the maximum number of iterations or the maximum error is lower than the threshold
+            if (averageError < maxError) {
+                finish = true;
+                logger.info("   " + problem.getName() + ". IPU finished after :" + iteration + " iterations with a minimum average error of: " + minError * 100 + " %.");
+            } else if ((iteration / iterationError) % 1 == 0) {
+                if (Math.abs((referenceError - averageError) / referenceError) < improvementError) {
+                    finish = true;
+                    logger.info("   " + problem.getName() + ". IPU finished after " + iteration + " iterations because the error does not improve. The minimum average error is: " + minError * 100 + " %.");
+                } else if (averageError == 0) {
+                    finish = true;
+                    logger.info("   " + problem.getName() + ". IPU finished after " + iteration + " iterations because the error starts increasing. The minimum average error is: " + minError * 100 + " %.");
+                } else {
+                    referenceError = averageError;
+                }
+            } else if (iteration == maxIterations) {
+                finish = true;
+                logger.info("   " + problem.getName() + ". IPU finished after the total number of iterations. The minimum average error is: " + minError * 100 + " %.");
+            }
+
+            if (averageError < minError) {
+                for (int unit = 0; unit < weights.length; unit++) {
+                    System.arraycopy(weights[unit], 0, minWeights[unit], 0, numberOfHouseholds);
+                }
+                minError = averageError;
+            }
+            iteration++;
+        }
+        final long seconds = (System.nanoTime() - startTime) / 1000000000;
+        return new Result(problem, minWeights, minError, iteration, errors, seconds);
+    }
+
+    private double weightedSum(double[][] weights, IpuProblem.Constraint constraint) {
+        double weightedSum = 0;
+        for (int unit : constraint.units) {
+            weightedSum = weightedSum + incidence.weightedSum(weights[unit], constraint.attribute);
+        }
+        return weightedSum;
+    }
+
+    static final class Result {
+
+        private final IpuProblem problem;
+        private final double[][] weights;
+        private final double minError;
+        private final int iterations;
+        private final double[] errors;
+        private final long seconds;
+
+        private Result(IpuProblem problem, double[][] weights, double minError, int iterations, double[] errors, long seconds) {
+            this.problem = problem;
+            this.weights = weights;
+            this.minError = minError;
+            this.iterations = iterations;
+            this.errors = errors;
+            this.seconds = seconds;
+        }
+
+        IpuProblem getProblem() {
+            return problem;
+        }
+
+        /**
+         * @return the weights with the lowest average error
+         */
+        double[] getWeights(int unit) {
+            return weights[unit];
+        }
+
+        double getMinError() {
+            return minError;
+        }
+
+        int getIterations() {
+            return iterations;
+        }
+
+        /**
+         * @return the error of the constraint in the last iteration, or zero if its target is zero
+         */
+        double getError(int constraint) {
+            return errors[constraint];
+        }
+
+        long getSeconds() {
+            return seconds;
+        }
+    }
+}
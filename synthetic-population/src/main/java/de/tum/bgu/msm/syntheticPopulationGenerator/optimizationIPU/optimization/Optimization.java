@@ -37,10 +37,7 @@ public class Optimization extends ModuleSynPop{
                 new IPUbyCountyAndCity(dataSetSynPop).run();
             } else {
                 createWeightsAndErrorsCountyCityandBorough();
-                IPUbyCountyCityAndBorough ipuWithThreeGeographicalAreas = new IPUbyCountyCityAndBorough(dataSetSynPop);
-                for (int county : dataSetSynPop.getBoroughsByCounty().keySet()) {
-                    ipuWithThreeGeographicalAreas.run(county);
-                }
+                new IPUbyCountyCityAndBorough(dataSetSynPop).run();
             }
         } else {
             createWeightsAndErrorsCity();
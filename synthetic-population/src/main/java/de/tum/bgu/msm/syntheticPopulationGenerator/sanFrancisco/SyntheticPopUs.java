@@ -33,16 +33,12 @@ import de.tum.bgu.msm.run.DataBuilder;
 import de.tum.bgu.msm.syntheticPopulationGenerator.SyntheticPopI;
 import de.tum.bgu.msm.utils.SampleException;
 import de.tum.bgu.msm.utils.Sampler;
-import de.tum.bgu.msm.utils.SeededRandomPointsBuilder;
+import de.tum.bgu.msm.utils.PolygonPointSampler;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.apache.log4j.Logger;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.geom.GeometryFactory;
-import org.locationtech.jts.geom.Point;
-import org.locationtech.jts.shape.random.RandomPointsBuilder;
 import org.matsim.api.core.v01.TransportMode;
-import org.matsim.core.utils.geometry.geotools.MGC;
 import org.matsim.core.utils.gis.ShapeFileReader;
 import org.opengis.feature.simple.SimpleFeature;
 
@@ -76,6 +72,7 @@ public class SyntheticPopUs implements SyntheticPopI {
     protected Map<Integer, Set<Zone>> tazByPuma;
     protected Map<Integer, Set<String>> censusBlockGroupsByCensusTracts;
     protected Map<String, Geometry> geometryByCensusBlockGroup;
+    private final Map<String, PolygonPointSampler> pointSamplerByCensusBlockGroup = new HashMap<>();
 
     // For reasons that are not explained in the documentation, some of the PUMA work zones were aggregated to the
     // next higher level. Keep PUMA work zones separate from more detailed PUMA zones.
@@ -126,6 +123,11 @@ public class SyntheticPopUs implements SyntheticPopI {
         createJobs();
         logger.info("Created jobs.");
 
+        if (!(dataContainer.getTravelTimes() instanceof SkimTravelTimes)) {
+            // the skims are read into the skim matrices below
+            throw new IllegalStateException("The synthetic population reads skim travel times, travel.time="
+                    + Properties.get().transportModel.travelTimeImplIdentifier + " is not supported.");
+        }
         travelTimes = (SkimTravelTimes) dataContainer.getTravelTimes();
         final String carSkimFile = Properties.get().accessibility.autoSkimFile(Properties.get().main.startYear);
         travelTimes.readSkim(TransportMode.car, carSkimFile,
@@ -787,18 +789,15 @@ public class SyntheticPopUs implements SyntheticPopI {
         int selectCensusBlockGroup = SiloUtil.select(censusBlockGroupWeights);
         final String censusBlockGroup = censusBlockGroups[selectCensusBlockGroup];
 
-        RandomPointsBuilder randomPointsBuilder = new SeededRandomPointsBuilder(new GeometryFactory(), new Random(42));
-        randomPointsBuilder.setNumPoints(1);
-        final Geometry geometry = geometryByCensusBlockGroup.get(censusBlockGroup);
-        randomPointsBuilder.setExtent(geometry);
-        Coordinate coordinate = randomPointsBuilder.getGeometry().getCoordinates()[0];
-        Point p = MGC.coordinate2Point(coordinate);
+        final PolygonPointSampler sampler = pointSamplerByCensusBlockGroup.computeIfAbsent(censusBlockGroup,
+                id -> new PolygonPointSampler(geometryByCensusBlockGroup.get(id)));
+        final Coordinate coordinate = sampler.sample(SiloUtil.getRandomObject());
 
         microLocCounter++;
         return new MicroLocation() {
             @Override
             public Coordinate getCoordinate() {
-                return new Coordinate(p.getX(), p.getY());
+                return new Coordinate(coordinate.x, coordinate.y);
             }
 
             @Override
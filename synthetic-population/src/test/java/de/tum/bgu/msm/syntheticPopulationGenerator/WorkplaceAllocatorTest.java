@@ -0,0 +1,89 @@
+package de.tum.bgu.msm.syntheticPopulationGenerator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class WorkplaceAllocatorTest {
+
+    /**
+     * Zones 1 to 10 on a line, the attraction decreases with the distance
+     */
+    private static WorkplaceAllocator allocator() {
+        WorkplaceAllocator allocator = new WorkplaceAllocator(2,
+                (origin, destination, type) -> Math.exp(-Math.abs(origin - destination)),
+                (utility, totalJobs, vacantJobs) -> utility * vacantJobs);
+        int jobId = 1;
+        for (int zone = 1; zone <= 10; zone++) {
+            for (int i = 0; i < 20; i++) {
+                allocator.addVacantJob(0, zone, jobId++);
+            }
+            allocator.addVacantJob(1, zone, jobId++);
+        }
+        return allocator;
+    }
+
+    private static int[] origins(int numberOfWorkers) {
+        int[] origins = new int[numberOfWorkers];
+        for (int i = 0; i < numberOfWorkers; i++) {
+            origins[i] = 1 + (i * 7) % 10;
+        }
+        return origins;
+    }
+
+    @Test
+    public void testEveryJobIsTakenOnce() {
+        int[] origins = origins(215);
+        int[] types = new int[origins.length];
+        for (int i = 0; i < 15; i++) {
+            types[i * 10] = 1;
+        }
+        WorkplaceAllocator allocator = allocator();
+        int[] jobIds = allocator.assign(origins, types, 42, 4);
+
+        Set<Integer> taken = new HashSet<>();
+        int withoutJob = 0;
+        for (int i = 0; i < jobIds.length; i++) {
+            if (jobIds[i] == WorkplaceAllocator.NO_JOB) {
+                Assert.assertEquals(1, types[i]);
+                withoutJob++;
+            } else {
+                Assert.assertTrue(taken.add(jobIds[i]));
+                //every 21st job is of type 1
+                Assert.assertEquals(types[i] == 1, jobIds[i] % 21 == 0);
+            }
+        }
+        Assert.assertEquals(5, withoutJob);
+        Assert.assertEquals(0, allocator.getNumberOfVacantJobs(1));
+        Assert.assertEquals(0, allocator.getNumberOfVacantJobs(0));
+    }
+
+    @Test
+    public void testSameAllocationWithAnyNumberOfThreads() {
+        int[] origins = origins(150);
+        int[] types = new int[origins.length];
+        int[] single = allocator().assign(origins, types, 7, 1);
+        int[] parallel = allocator().assign(origins, types, 7, 8);
+        Assert.assertArrayEquals(single, parallel);
+    }
+
+    @Test
+    public void testWorkersPreferCloseZones() {
+        WorkplaceAllocator allocator = new WorkplaceAllocator(1,
+                (origin, destination, type) -> origin == destination ? 1 : 0, (utility, totalJobs, vacantJobs) -> utility);
+        for (int zone = 1; zone <= 3; zone++) {
+            for (int i = 0; i < 2; i++) {
+                allocator.addVacantJob(0, zone, zone * 10 + i);
+            }
+        }
+        int[] jobIds = allocator.assign(new int[]{2, 2, 3, 2}, new int[4], 1, 2);
+        Assert.assertEquals(2, jobIds[0] / 10);
+        Assert.assertEquals(2, jobIds[1] / 10);
+        Assert.assertEquals(3, jobIds[2] / 10);
+        //no attraction is left, the worker takes any vacant job
+        Assert.assertNotEquals(2, jobIds[3] / 10);
+        Assert.assertEquals(2, allocator.getNumberOfVacantJobs(0));
+    }
+}
@@ -0,0 +1,77 @@
+package de.tum.bgu.msm.syntheticPopulationGenerator.optimizationIPU.optimization;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class IpuSolverTest {
+
+    /**
+     * Four households: household size, number of workers and whether the household has children
+     */
+    private final IpuIncidence incidence = IpuIncidence.of(4, new String[]{"persons", "workers", "children"}, new int[][]{
+            {1, 2, 3, 4},
+            {1, 1, 0, 2},
+            {0, 1, 1, 1}});
+
+    private IpuSolver solver() {
+        return new IpuSolver(incidence, 1000, 0.0001, 0.00001, 2, 1000);
+    }
+
+    @Test
+    public void testWeightsMatchTargets() {
+        IpuProblem problem = new IpuProblem(1, "Municipality 1", 1, true);
+        problem.addConstraint(incidence.getAttributeIndex("persons"), new int[]{0}, 250);
+        problem.addConstraint(incidence.getAttributeIndex("workers"), new int[]{0}, 120);
+        problem.addConstraint(incidence.getAttributeIndex("children"), new int[]{0}, 50);
+
+        IpuSolver.Result result = solver().solve(problem);
+        double[] weights = result.getWeights(0);
+        Assert.assertEquals(250, incidence.weightedSum(weights, 0), 0.1);
+        Assert.assertEquals(120, incidence.weightedSum(weights, 1), 0.1);
+        Assert.assertEquals(50, incidence.weightedSum(weights, 2), 0.1);
+        Assert.assertTrue(result.getMinError() < 0.0001);
+        Assert.assertTrue(result.getIterations() > 1);
+    }
+
+    @Test
+    public void testCountyConstraintCoversAllMunicipalities() {
+        IpuProblem problem = new IpuProblem(9, "County 9", 2, false);
+        problem.addConstraint(incidence.getAttributeIndex("workers"), new int[]{0, 1}, 100);
+        problem.addConstraint(incidence.getAttributeIndex("persons"), new int[]{0}, 100);
+        problem.addConstraint(incidence.getAttributeIndex("persons"), new int[]{1}, 60);
+        problem.addConstraint(incidence.getAttributeIndex("children"), new int[]{1}, 0);
+
+        IpuSolver.Result result = solver().solve(problem);
+        double workers = incidence.weightedSum(result.getWeights(0), 1) + incidence.weightedSum(result.getWeights(1), 1);
+        Assert.assertEquals(100, workers, 1);
+        Assert.assertEquals(100, incidence.weightedSum(result.getWeights(0), 0), 1);
+        Assert.assertEquals(60, incidence.weightedSum(result.getWeights(1), 0), 1);
+        Assert.assertEquals(0, result.getError(3), 0.);
+    }
+
+    @Test
+    public void testParallelResultsAreHandedOverInOrder() {
+        List<IpuProblem> problems = new ArrayList<>();
+        for (int id = 1; id <= 20; id++) {
+            IpuProblem problem = new IpuProblem(id, "Municipality " + id, 1, true);
+            problem.addConstraint(incidence.getAttributeIndex("persons"), new int[]{0}, 10 * id);
+            problem.addConstraint(incidence.getAttributeIndex("workers"), new int[]{0}, 4 * id);
+            problems.add(problem);
+        }
+        List<Integer> ids = new ArrayList<>();
+        List<double[]> weights = new ArrayList<>();
+        solver().solveAll(problems, 4, result -> {
+            ids.add(result.getProblem().getId());
+            weights.add(result.getWeights(0));
+        });
+        for (int i = 0; i < problems.size(); i++) {
+            Assert.assertEquals(i + 1, (int) ids.get(i));
+            Assert.assertArrayEquals(solver().solve(problems.get(i)).getWeights(0), weights.get(i), 0.);
+        }
+        Assert.assertFalse(Arrays.equals(weights.get(0), weights.get(1)));
+    }
+}
@@ -4,18 +4,21 @@ import de.tum.bgu.msm.data.job.Job;
 import de.tum.bgu.msm.data.job.JobFactory;
 import de.tum.bgu.msm.data.job.JobImpl;
 import de.tum.bgu.msm.data.job.JobType;
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.locationtech.jts.geom.Coordinate;
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-public class BangkokJobFactory implements JobFactory {
+public class BangkokJobFactory implements JobFactory, EntityCheckpointCodec<Job> {
 
     private final Map<String, Map<Integer,Double>> startTimeDistributionByJobType = new ConcurrentHashMap<>();
     private final Map<String, Map<Integer,Double>> workingTimeDistributionByJobType = new ConcurrentHashMap<>();
@@ -84,4 +87,15 @@ public class BangkokJobFactory implements JobFactory {
 
     }
 
+    @Override
+    public void writeCheckpointFields(Job job, DataOutputStream out) throws IOException {
+        out.writeInt(job.getStartTimeInSeconds().get());
+        out.writeInt(job.getWorkingTimeInSeconds().get());
+    }
+
+    @Override
+    public void readCheckpointFields(Job job, DataInputStream in) throws IOException {
+        // replaces the working time drawn when the job was created
+        ((BangkokJob) job).setJobWorkingTime(in.readInt(), in.readInt());
+    }
 }
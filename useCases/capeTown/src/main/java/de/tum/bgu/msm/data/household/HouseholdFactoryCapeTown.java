@@ -1,6 +1,12 @@
 package de.tum.bgu.msm.data.household;
 
-public class HouseholdFactoryCapeTown implements HouseholdFactory {
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class HouseholdFactoryCapeTown implements HouseholdFactory, EntityCheckpointCodec<Household> {
     @Override
     public HouseholdCapeTown createHousehold(int id, int dwellingID, int autos) {
         return new HouseholdCapeTown(id, dwellingID, autos);
@@ -10,4 +16,14 @@ public class HouseholdFactoryCapeTown implements HouseholdFactory {
     public Household duplicate(Household original, int nextHouseholdId) {
         return new HouseholdCapeTown(nextHouseholdId, -1, original.getAutos());
     }
+
+    @Override
+    public void writeCheckpointFields(Household household, DataOutputStream out) throws IOException {
+        // the race of a household is derived from its members
+    }
+
+    @Override
+    public void readCheckpointFields(Household household, DataInputStream in) throws IOException {
+        // the race of a household is derived from its members
+    }
 }
@@ -1,6 +1,12 @@
 package de.tum.bgu.msm.data.person;
 
-public class PersonFactoryCapeTown implements PersonFactory {
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class PersonFactoryCapeTown implements PersonFactory, EntityCheckpointCodec<Person> {
 
     @Override
     public PersonCapeTown createPerson(int id, int age, Gender gender, Occupation occupation, PersonRole role, int workplace, int income) {
@@ -23,4 +29,16 @@ public class PersonFactoryCapeTown implements PersonFactory {
         duplicate.setDriverLicense(originalPerson.hasDriverLicense());
         return duplicate;
     }
+
+    @Override
+    public void writeCheckpointFields(Person person, DataOutputStream out) throws IOException {
+        final RaceCapeTown race = ((PersonCapeTown) person).getRace();
+        out.writeByte(race == null ? -1 : race.ordinal());
+    }
+
+    @Override
+    public void readCheckpointFields(Person person, DataInputStream in) throws IOException {
+        final byte race = in.readByte();
+        ((PersonCapeTown) person).setRace(race < 0 ? null : RaceCapeTown.values()[race]);
+    }
 }
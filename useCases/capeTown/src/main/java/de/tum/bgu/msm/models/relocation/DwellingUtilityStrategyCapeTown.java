@@ -1,17 +1,18 @@
 package de.tum.bgu.msm.models.relocation;
 
 import de.tum.bgu.msm.data.household.HouseholdType;
-import de.tum.bgu.msm.util.js.JavaScriptCalculator;
+import de.tum.bgu.msm.utils.script.UtilityFunction;
+import de.tum.bgu.msm.utils.script.UtilityScript;
 
 import java.io.InputStreamReader;
-import java.io.Reader;
 
-public class DwellingUtilityStrategyCapeTown extends JavaScriptCalculator<Double> {
+public class DwellingUtilityStrategyCapeTown {
 
-    private final static Reader reader = new InputStreamReader(DwellingUtilityStrategyCapeTown.class.getResourceAsStream("DwellingUtilityCalc"));
+    private final UtilityFunction function;
 
     public DwellingUtilityStrategyCapeTown() {
-        super(reader);
+        function = UtilityScript.compile(new InputStreamReader(DwellingUtilityStrategyCapeTown.class.getResourceAsStream("DwellingUtilityCalc")))
+                .getFunction("calculateSelectDwellingUtility");
     }
 
     public double calculateSelectDwellingUtility(HouseholdType ht, double ddSizeUtility,
@@ -20,7 +21,7 @@ public class DwellingUtilityStrategyCapeTown extends JavaScriptCalculator<Double
                                                  double transitAccessibilityUtility,
                                                  double workDistanceUtility) {
 
-        return super.calculate("calculateSelectDwellingUtility", ht, ddSizeUtility,
+        return function.calculateDouble(ht, ddSizeUtility,
                 ddPriceUtility, ddQualityUtility, ddAutoAccessibilityUtility,
                 transitAccessibilityUtility, workDistanceUtility);
     }
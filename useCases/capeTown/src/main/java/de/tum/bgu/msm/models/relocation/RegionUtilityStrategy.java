@@ -2,23 +2,23 @@ package de.tum.bgu.msm.models.relocation;
 
 import de.tum.bgu.msm.data.household.IncomeCategory;
 import de.tum.bgu.msm.data.person.RaceCapeTown;
-import de.tum.bgu.msm.util.js.JavaScriptCalculator;
+import de.tum.bgu.msm.utils.script.UtilityFunction;
+import de.tum.bgu.msm.utils.script.UtilityScript;
 
 import java.io.InputStreamReader;
-import java.io.Reader;
 
-public class RegionUtilityStrategy extends JavaScriptCalculator<Double> {
+public class RegionUtilityStrategy {
 
-    private final static Reader reader
-            = new InputStreamReader(RegionUtilityStrategy.class.getResourceAsStream("RegionUtilityCalc"));
+    private final UtilityFunction function;
 
     public RegionUtilityStrategy() {
-        super(reader);
+        function = UtilityScript.compile(new InputStreamReader(RegionUtilityStrategy.class.getResourceAsStream("RegionUtilityCalc")))
+                .getFunction("calculateRegionUtility");
     }
 
     public double calculateRegionUtility(
             IncomeCategory incomeCategory, RaceCapeTown race,
             float priceUtil, float accessibilityUtil, double racialShare) {
-        return super.calculate("calculateRegionUtility", incomeCategory, race, priceUtil, accessibilityUtil, racialShare);
+        return function.calculateDouble(incomeCategory, race, priceUtil, accessibilityUtil, racialShare);
     }
 }
@@ -14,6 +14,7 @@ import de.tum.bgu.msm.data.household.*;
 import de.tum.bgu.msm.data.job.*;
 import de.tum.bgu.msm.data.person.PersonFactory;
 import de.tum.bgu.msm.data.person.PersonFactoryCapeTown;
+import de.tum.bgu.msm.data.MappedSkimTravelTimes;
 import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
 import de.tum.bgu.msm.io.DwellingReaderCapeTown;
@@ -44,6 +45,10 @@ public class DataBuilderCapeTown {
                 travelTimes = new SkimTravelTimes();
                 accessibility = new AccessibilityImpl(geoData, travelTimes, properties, dwellingData, jobData);
                 break;
+            case MAPPED_SKIM:
+                travelTimes = new MappedSkimTravelTimes();
+                accessibility = new AccessibilityImpl(geoData, travelTimes, properties, dwellingData, jobData);
+                break;
             case MATSIM:
                 travelTimes = new MatsimTravelTimesAndCosts(config);
 //                accessibility = new MatsimAccessibility(geoData);
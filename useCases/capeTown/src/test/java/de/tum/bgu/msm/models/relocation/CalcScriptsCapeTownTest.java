@@ -0,0 +1,49 @@
+package de.tum.bgu.msm.models.relocation;
+
+import de.tum.bgu.msm.data.household.HouseholdType;
+import de.tum.bgu.msm.data.household.IncomeCategory;
+import de.tum.bgu.msm.data.person.RaceCapeTown;
+import de.tum.bgu.msm.utils.script.ScriptEngineComparison;
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.util.Random;
+
+/**
+ * Compares the compiled calc scripts of Cape Town with their evaluation by the script engine.
+ */
+public class CalcScriptsCapeTownTest {
+
+    private static final int SAMPLES = 2000;
+
+    private static ScriptEngineComparison compare(String script, String function) {
+        return new ScriptEngineComparison(() -> new InputStreamReader(
+                DwellingUtilityStrategyCapeTown.class.getResourceAsStream(script)), function, CalcScriptsCapeTownTest.class, script + ".reference");
+    }
+
+    @Test
+    public void testDwellingUtility() {
+        ScriptEngineComparison comparison = compare("DwellingUtilityCalc", "calculateSelectDwellingUtility");
+        Random random = new Random(42);
+        HouseholdType[] types = HouseholdType.values();
+        for (int i = 0; i < SAMPLES; i++) {
+            comparison.assertSameResult(types[random.nextInt(types.length)], random.nextDouble(), random.nextDouble(),
+                    random.nextDouble(), random.nextDouble(), random.nextDouble(), random.nextDouble());
+        }
+        comparison.assertAllCompared();
+    }
+
+    @Test
+    public void testRegionUtility() {
+        ScriptEngineComparison comparison = compare("RegionUtilityCalc", "calculateRegionUtility");
+        Random random = new Random(42);
+        IncomeCategory[] incomes = IncomeCategory.values();
+        RaceCapeTown[] races = RaceCapeTown.values();
+        for (int i = 0; i < SAMPLES; i++) {
+            // shares outside of [0, 1] have to fail in both
+            comparison.assertSameResult(incomes[random.nextInt(incomes.length)], races[random.nextInt(races.length)],
+                    random.nextFloat(), random.nextFloat(), 1.2 * random.nextDouble() - 0.1);
+        }
+        comparison.assertAllCompared();
+    }
+}
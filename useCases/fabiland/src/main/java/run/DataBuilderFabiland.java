@@ -7,6 +7,9 @@ import de.tum.bgu.msm.container.DefaultDataContainer;
 import de.tum.bgu.msm.data.accessibility.Accessibility;
 import de.tum.bgu.msm.data.accessibility.AccessibilityImpl;
 import de.tum.bgu.msm.data.accessibility.CommutingTimeProbability;
+import de.tum.bgu.msm.data.columnar.ColumnarDwellingData;
+import de.tum.bgu.msm.data.columnar.ColumnarHouseholdData;
+import de.tum.bgu.msm.data.columnar.ColumnarJobData;
 import de.tum.bgu.msm.data.dwelling.*;
 import de.tum.bgu.msm.data.geo.DefaultGeoData;
 import de.tum.bgu.msm.data.geo.GeoData;
@@ -14,6 +17,7 @@ import de.tum.bgu.msm.data.household.*;
 import de.tum.bgu.msm.data.job.*;
 import de.tum.bgu.msm.data.person.PersonFactory;
 import de.tum.bgu.msm.data.person.PersonFactoryImpl;
+import de.tum.bgu.msm.data.MappedSkimTravelTimes;
 import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
 import de.tum.bgu.msm.io.input.*;
@@ -30,9 +34,33 @@ public class DataBuilderFabiland {
 
         GeoData geoData = new DefaultGeoData();
 
-        DwellingData dwellingData = new DwellingDataImpl();
-        HouseholdData householdData = new HouseholdDataImpl();
-        JobData jobData = new JobDataImpl();
+        DwellingData dwellingData;
+        HouseholdData householdData;
+        JobData jobData;
+        DwellingFactory dwellingFactory;
+        JobFactory jobFactory;
+        HouseholdFactory hhFactory;
+        PersonFactory ppFactory;
+        if (properties.main.columnarDataStore) {
+            ColumnarDwellingData columnarDwellingData = new ColumnarDwellingData();
+            ColumnarHouseholdData columnarHouseholdData = new ColumnarHouseholdData();
+            ColumnarJobData columnarJobData = new ColumnarJobData();
+            dwellingData = columnarDwellingData;
+            householdData = columnarHouseholdData;
+            jobData = columnarJobData;
+            dwellingFactory = columnarDwellingData.getDwellingFactory();
+            jobFactory = columnarJobData.getJobFactory();
+            hhFactory = columnarHouseholdData.getHouseholdFactory();
+            ppFactory = columnarHouseholdData.getPersonFactory();
+        } else {
+            dwellingData = new DwellingDataImpl();
+            householdData = new HouseholdDataImpl();
+            jobData = new JobDataImpl();
+            dwellingFactory = new DwellingFactoryImpl();
+            jobFactory = new JobFactoryImpl();
+            hhFactory = new HouseholdFactoryImpl();
+            ppFactory = new PersonFactoryImpl();
+        }
 
         TravelTimes travelTimes = null;
         Accessibility accessibility = null;
@@ -42,6 +70,10 @@ public class DataBuilderFabiland {
                 travelTimes = new SkimTravelTimes();
                 accessibility = new AccessibilityImpl(geoData, travelTimes, properties, dwellingData, jobData);
                 break;
+            case MAPPED_SKIM:
+                travelTimes = new MappedSkimTravelTimes();
+                accessibility = new AccessibilityImpl(geoData, travelTimes, properties, dwellingData, jobData);
+                break;
             case MATSIM:
                 travelTimes = new MatsimTravelTimesAndCosts(config);
 //                accessibility = new MatsimAccessibility(geoData);
@@ -60,17 +92,14 @@ public class DataBuilderFabiland {
                 new SandboxDwellingTypes(),
                 dwellingData,
                 householdData, geoData,
-                new DwellingFactoryImpl(),
+                dwellingFactory,
                 properties);
 
         JobDataManager jobManager = new JobDataManagerImpl(
-                properties, new JobFactoryImpl(),
+                properties, jobFactory,
                 jobData, geoData,
                 travelTimes, commutingTimeProbability);
 
-        final HouseholdFactory hhFactory = new HouseholdFactoryImpl();
-        final PersonFactory ppFactory = new PersonFactoryImpl();
-
         HouseholdDataManager householdManager = new HouseholdDataManagerImpl(
                 householdData, dwellingData,
                 ppFactory, hhFactory,
@@ -1,6 +1,12 @@
 package de.tum.bgu.msm.data.person;
 
-public class PersonFactoryTak implements PersonFactory {
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class PersonFactoryTak implements PersonFactory, EntityCheckpointCodec<Person> {
 
     @Override
     public PersonTak createPerson(int id, int age,
@@ -32,4 +38,20 @@ public class PersonFactoryTak implements PersonFactory {
         duplicate.setSchoolId(((PersonTak) originalPerson).getSchoolId());
         return duplicate;
     }
+
+    @Override
+    public void writeCheckpointFields(Person person, DataOutputStream out) throws IOException {
+        final PersonTak personTak = (PersonTak) person;
+        out.writeInt(personTak.getSchoolType());
+        out.writeInt(personTak.getSchoolPlace());
+        out.writeInt(personTak.getSchoolId());
+    }
+
+    @Override
+    public void readCheckpointFields(Person person, DataInputStream in) throws IOException {
+        final PersonTak personTak = (PersonTak) person;
+        personTak.setSchoolType(in.readInt());
+        personTak.setSchoolPlace(in.readInt());
+        personTak.setSchoolId(in.readInt());
+    }
 }
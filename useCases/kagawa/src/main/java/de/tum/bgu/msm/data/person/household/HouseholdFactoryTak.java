@@ -2,8 +2,13 @@ package de.tum.bgu.msm.data.person.household;
 
 import de.tum.bgu.msm.data.household.Household;
 import de.tum.bgu.msm.data.household.HouseholdFactory;
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
 
-public class HouseholdFactoryTak implements HouseholdFactory {
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class HouseholdFactoryTak implements HouseholdFactory, EntityCheckpointCodec<Household> {
 
     @Override
     public HouseholdTak createHousehold(int id, int dwellingID, int autos) {
@@ -16,4 +21,14 @@ public class HouseholdFactoryTak implements HouseholdFactory {
         duplicate.setAutonomous(((HouseholdTak)original).getAutonomous());
         return duplicate;
     }
+
+    @Override
+    public void writeCheckpointFields(Household household, DataOutputStream out) throws IOException {
+        out.writeInt(((HouseholdTak) household).getAutonomous());
+    }
+
+    @Override
+    public void readCheckpointFields(Household household, DataInputStream in) throws IOException {
+        ((HouseholdTak) household).setAutonomous(in.readInt());
+    }
 }
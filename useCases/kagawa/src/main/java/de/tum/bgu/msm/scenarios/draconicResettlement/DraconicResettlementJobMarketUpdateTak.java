@@ -91,7 +91,7 @@ public class DraconicResettlementJobMarketUpdateTak extends AbstractModel implem
             }
         }
 
-        for (Job job : jobDataManager.getJobs()) {
+        for (Job job : new ArrayList<>(jobDataManager.getJobs())) {
             if (random.nextDouble() < 0.1) {
                 int zoneId = job.getZoneId();
                 Zone zone = dataContainer.getGeoData().getZones().get(zoneId);
@@ -104,7 +104,10 @@ public class DraconicResettlementJobMarketUpdateTak extends AbstractModel implem
                     try {
                         Zone urbanZone = zoneSampler.sampleObject();
                         Coordinate urbanCoord = urbanZone.getRandomCoordinate(random);
+                        // remove and add again so that the job data is aware of the new zone
+                        jobDataManager.removeJob(job.getId());
                         job.relocateJob(urbanZone, urbanCoord);
+                        jobDataManager.addJob(job);
                     } catch (SampleException e) {
                         LOGGER.warn(e);
                     }
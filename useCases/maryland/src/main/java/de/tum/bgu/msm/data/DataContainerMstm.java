@@ -13,11 +13,15 @@ import de.tum.bgu.msm.data.household.Household;
 import de.tum.bgu.msm.data.household.HouseholdUtil;
 import de.tum.bgu.msm.data.job.JobDataManager;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
+import de.tum.bgu.msm.io.checkpoint.Checkpointable;
+import de.tum.bgu.msm.io.output.MicroDataOutput;
 import de.tum.bgu.msm.properties.Properties;
+import de.tum.bgu.msm.simulator.SetupGraph;
 import de.tum.bgu.msm.utils.SiloUtil;
 
 import java.io.PrintWriter;
 import java.util.Arrays;
+import java.util.List;
 
 public class DataContainerMstm implements DataContainer {
     
@@ -72,6 +76,11 @@ public class DataContainerMstm implements DataContainer {
         return delegate.getCommutingTimeProbability();
     }
 
+    @Override
+    public MicroDataOutput getMicroDataOutput() {
+        return delegate.getMicroDataOutput();
+    }
+
     @Override
     public void setup() {
         delegate.setup();
@@ -80,6 +89,24 @@ public class DataContainerMstm implements DataContainer {
         }
     }
 
+    @Override
+    public void addSetupSteps(SetupGraph graph) {
+        delegate.addSetupSteps(graph);
+        if (properties.main.createPrestoSummary) {
+            graph.addStep("PrestoSummary", this::preparePrestoSummary, graph.getStepNames());
+        }
+    }
+
+    @Override
+    public void restoredCheckpoint(int year) {
+        delegate.restoredCheckpoint(year);
+    }
+
+    @Override
+    public List<Checkpointable> getCheckpointableData() {
+        return delegate.getCheckpointableData();
+    }
+
     @Override
     public void prepareYear(int year) {
         delegate.prepareYear(year);
@@ -10,14 +10,19 @@ import de.tum.bgu.msm.data.person.Gender;
 import de.tum.bgu.msm.data.person.Occupation;
 import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.data.person.PersonFactory;
+import de.tum.bgu.msm.io.checkpoint.Checkpointable;
+import de.tum.bgu.msm.io.output.MicroDataOutput;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.*;
 
 import static de.tum.bgu.msm.data.household.HouseholdUtil.getAnnualHhIncome;
 
-public class HouseholdDataManagerMstm implements HouseholdDataManager {
+public class HouseholdDataManagerMstm implements HouseholdDataManager, Checkpointable {
 
     private final Map<Integer, Float> medianIncomeByMsa = new HashMap<>();
     private final HouseholdDataManagerImpl delegate;
@@ -159,6 +164,26 @@ public class HouseholdDataManagerMstm implements HouseholdDataManager {
         return delegate.duplicateHousehold(original);
     }
 
+    @Override
+    public void updateZoneOfHousehold(Household household) {
+        delegate.updateZoneOfHousehold(household);
+    }
+
+    @Override
+    public int getNumberOfHouseholdsInZone(int zoneId) {
+        return delegate.getNumberOfHouseholdsInZone(zoneId);
+    }
+
+    @Override
+    public int getNumberOfPersonsInZone(int zoneId) {
+        return delegate.getNumberOfPersonsInZone(zoneId);
+    }
+
+    @Override
+    public void setMicroDataOutput(MicroDataOutput microDataOutput) {
+        delegate.setMicroDataOutput(microDataOutput);
+    }
+
     @Override
     public void setup() {
         delegate.setup();
@@ -181,4 +206,14 @@ public class HouseholdDataManagerMstm implements HouseholdDataManager {
     public void endSimulation() {
         delegate.endSimulation();
     }
+
+    @Override
+    public void writeCheckpoint(DataOutputStream out) throws IOException {
+        delegate.writeCheckpoint(out);
+    }
+
+    @Override
+    public void readCheckpoint(DataInputStream in) throws IOException {
+        delegate.readCheckpoint(in);
+    }
 }
@@ -5,12 +5,17 @@ import de.tum.bgu.msm.data.geo.GeoData;
 import de.tum.bgu.msm.data.geo.MstmZone;
 import de.tum.bgu.msm.data.household.HouseholdData;
 import de.tum.bgu.msm.data.household.IncomeCategory;
+import de.tum.bgu.msm.io.checkpoint.Checkpointable;
+import de.tum.bgu.msm.io.output.MicroDataOutput;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.*;
 
-public class RealEstateDataManagerMstm implements RealEstateDataManager {
+public class RealEstateDataManagerMstm implements RealEstateDataManager, Checkpointable {
 
     private final RealEstateDataManager delegate;
     private final GeoData geoData;
@@ -52,6 +57,11 @@ public class RealEstateDataManagerMstm implements RealEstateDataManager {
         return medianRent[msa];
     }
 
+    @Override
+    public void setMicroDataOutput(MicroDataOutput microDataOutput) {
+        delegate.setMicroDataOutput(microDataOutput);
+    }
+
     @Override
     public void setup() {
         delegate.setup();
@@ -96,11 +106,21 @@ public class RealEstateDataManagerMstm implements RealEstateDataManager {
         return delegate.getListOfVacantDwellingsInRegion(region);
     }
 
+    @Override
+    public List<Dwelling> sampleVacantDwellingsInRegion(int region, int numberOfDwellings, Random random) {
+        return delegate.sampleVacantDwellingsInRegion(region, numberOfDwellings, random);
+    }
+
     @Override
     public int getNumberOfVacantDDinRegion(int region) {
         return delegate.getNumberOfVacantDDinRegion(region);
     }
 
+    @Override
+    public int getNumberOfVacantDDinRegionAndType(int region, DwellingType dwellingType) {
+        return delegate.getNumberOfVacantDDinRegionAndType(region, dwellingType);
+    }
+
     @Override
     public DwellingTypes getDwellingTypes() {
         return delegate.getDwellingTypes();
@@ -196,4 +216,14 @@ public class RealEstateDataManagerMstm implements RealEstateDataManager {
     public void endSimulation() {
         delegate.endSimulation();
     }
+
+    @Override
+    public void writeCheckpoint(DataOutputStream out) throws IOException {
+        ((Checkpointable) delegate).writeCheckpoint(out);
+    }
+
+    @Override
+    public void readCheckpoint(DataInputStream in) throws IOException {
+        ((Checkpointable) delegate).readCheckpoint(in);
+    }
 }
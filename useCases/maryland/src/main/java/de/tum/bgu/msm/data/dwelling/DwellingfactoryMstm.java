@@ -1,10 +1,25 @@
 package de.tum.bgu.msm.data.dwelling;
 
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
 import org.locationtech.jts.geom.Coordinate;
 
-public class DwellingfactoryMstm implements DwellingFactory {
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class DwellingfactoryMstm implements DwellingFactory, EntityCheckpointCodec<Dwelling> {
     @Override
     public Dwelling createDwelling(int id, int zoneId, Coordinate coordinate, int hhId, DwellingType type, int bedrooms, int quality, int price, int year) {
         return new DwellingMstm(id, zoneId, coordinate, hhId, type, bedrooms, quality, price, year);
     }
+
+    @Override
+    public void writeCheckpointFields(Dwelling dwelling, DataOutputStream out) throws IOException {
+        out.writeFloat(((DwellingMstm) dwelling).getRestriction());
+    }
+
+    @Override
+    public void readCheckpointFields(Dwelling dwelling, DataInputStream in) throws IOException {
+        ((DwellingMstm) dwelling).setRestriction(in.readFloat());
+    }
 }
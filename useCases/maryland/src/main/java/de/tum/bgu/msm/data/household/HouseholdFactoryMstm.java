@@ -1,6 +1,12 @@
 package de.tum.bgu.msm.data.household;
 
-public class HouseholdFactoryMstm implements HouseholdFactory {
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class HouseholdFactoryMstm implements HouseholdFactory, EntityCheckpointCodec<Household> {
 
     @Override
     public HouseholdMstm createHousehold(int id, int dwellingID, int autos) {
@@ -12,4 +18,14 @@ public class HouseholdFactoryMstm implements HouseholdFactory {
         final HouseholdMstm householdMstm = new HouseholdMstm(nextHouseholdId, -1, original.getAutos());
         return householdMstm;
     }
+
+    @Override
+    public void writeCheckpointFields(Household household, DataOutputStream out) throws IOException {
+        // the race of a household is derived from its members
+    }
+
+    @Override
+    public void readCheckpointFields(Household household, DataInputStream in) throws IOException {
+        // the race of a household is derived from its members
+    }
 }
@@ -1,6 +1,12 @@
 package de.tum.bgu.msm.data.person;
 
-public class PersonfactoryMstm implements PersonFactory {
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class PersonfactoryMstm implements PersonFactory, EntityCheckpointCodec<Person> {
 
     @Override
     public PersonMstm createPerson(int id, int age,
@@ -28,4 +34,16 @@ public class PersonfactoryMstm implements PersonFactory {
         duplicate.setDriverLicense(originalPerson.hasDriverLicense());
         return duplicate;
     }
+
+    @Override
+    public void writeCheckpointFields(Person person, DataOutputStream out) throws IOException {
+        final Race race = ((PersonMstm) person).getRace();
+        out.writeByte(race == null ? -1 : race.ordinal());
+    }
+
+    @Override
+    public void readCheckpointFields(Person person, DataInputStream in) throws IOException {
+        final byte race = in.readByte();
+        ((PersonMstm) person).setRace(race < 0 ? null : Race.values()[race]);
+    }
 }
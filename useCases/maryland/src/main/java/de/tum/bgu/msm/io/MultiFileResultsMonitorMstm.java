@@ -2,6 +2,8 @@ package de.tum.bgu.msm.io;
 
 import com.google.common.collect.Multiset;
 import de.tum.bgu.msm.container.DataContainer;
+import de.tum.bgu.msm.data.aggregation.Accumulator;
+import de.tum.bgu.msm.data.aggregation.MicroDataAggregator;
 import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.data.person.PersonMstm;
 import de.tum.bgu.msm.data.person.Race;
@@ -13,12 +15,14 @@ import org.apache.log4j.Logger;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.List;
 
 public class MultiFileResultsMonitorMstm extends MultiFileResultsMonitor {
     private DataContainer dataContainer;
     private Properties properties;
     private PrintWriter popByRace;
+    private final PersonsByRace personsByRace = new PersonsByRace();
     private final Logger logger = Logger.getLogger(MultiFileResultsMonitorMstm.class);
 
 
@@ -41,6 +45,12 @@ public class MultiFileResultsMonitorMstm extends MultiFileResultsMonitor {
 
     }
 
+    @Override
+    public void registerAccumulators(MicroDataAggregator aggregator) {
+        super.registerAccumulators(aggregator);
+        aggregator.addPersonAccumulator(personsByRace);
+    }
+
     @Override
     public void endYear(int year, Multiset<Class<? extends MicroEvent>> eventCounter, List<MicroEvent> events) {
         super.endYear(year, eventCounter, events);
@@ -62,10 +72,7 @@ public class MultiFileResultsMonitorMstm extends MultiFileResultsMonitor {
         }
 
 
-        int ppRace[] = new int[Race.values().length];
-        for (Person per : dataContainer.getHouseholdDataManager().getPersons()) {
-            ppRace[((PersonMstm) per).getRace().ordinal()]++;
-        }
+        int ppRace[] = personsByRace.counts;
         popByRace.println("white," + ppRace[0]);
         popByRace.println("black," + ppRace[1]);
         popByRace.println("hispanic," + ppRace[2]);
@@ -73,5 +80,31 @@ public class MultiFileResultsMonitorMstm extends MultiFileResultsMonitor {
 
     }
 
+    private static final class PersonsByRace implements Accumulator<Person> {
+
+        private final int[] counts = new int[Race.values().length];
+
+        @Override
+        public Accumulator<Person> newPartition() {
+            return new PersonsByRace();
+        }
 
+        @Override
+        public void add(Person per) {
+            counts[((PersonMstm) per).getRace().ordinal()]++;
+        }
+
+        @Override
+        public void merge(Accumulator<Person> partition) {
+            final int[] other = ((PersonsByRace) partition).counts;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other[i];
+            }
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(counts, 0);
+        }
+    }
 }
@@ -1,26 +1,25 @@
 package de.tum.bgu.msm.models;
 
 import de.tum.bgu.msm.data.household.HouseholdType;
-import de.tum.bgu.msm.util.js.JavaScriptCalculator;
+import de.tum.bgu.msm.utils.script.UtilityFunction;
+import de.tum.bgu.msm.utils.script.UtilityScript;
 
 import java.io.InputStreamReader;
-import java.io.Reader;
 
-public class DwellingUtilityStrategyMstm extends JavaScriptCalculator<Double> {
-
-    private final static Reader reader
-            = new InputStreamReader(DwellingUtilityStrategyMstm.class.getResourceAsStream("DwellingUtilityCalcMstm"));
+public class DwellingUtilityStrategyMstm {
 
+    private final UtilityFunction function;
 
     public DwellingUtilityStrategyMstm() {
-        super(reader);
+        function = UtilityScript.compile(new InputStreamReader(DwellingUtilityStrategyMstm.class.getResourceAsStream("DwellingUtilityCalcMstm")))
+                .getFunction("calculateSelectDwellingUtility");
     }
 
-    public synchronized double calculateSelectDwellingUtility(HouseholdType ht, double ddSizeUtility, double ddPriceUtility,
+    public double calculateSelectDwellingUtility(HouseholdType ht, double ddSizeUtility, double ddPriceUtility,
                                                  double ddQualityUtility, double ddAutoAccessibilityUtility,
                                                  double transitAccessibilityUtility, double ddSchoolQuality,
                                                  double ddCrimeIndex, double ddWorkDistanceUtility) {
-        return super.calculate("calculateSelectDwellingUtility", ht, ddSizeUtility, ddPriceUtility,
+        return function.calculateDouble(ht, ddSizeUtility, ddPriceUtility,
                 ddQualityUtility, ddAutoAccessibilityUtility,
                 transitAccessibilityUtility, ddSchoolQuality,
                 ddCrimeIndex, ddWorkDistanceUtility);
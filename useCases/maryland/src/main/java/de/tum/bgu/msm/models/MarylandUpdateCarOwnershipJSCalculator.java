@@ -1,17 +1,20 @@
 package de.tum.bgu.msm.models;
 
-import de.tum.bgu.msm.util.js.JavaScriptCalculator;
+import de.tum.bgu.msm.utils.script.UtilityFunction;
+import de.tum.bgu.msm.utils.script.UtilityScript;
 
 import java.io.Reader;
 
-public class MarylandUpdateCarOwnershipJSCalculator extends JavaScriptCalculator<double[]> {
+public class MarylandUpdateCarOwnershipJSCalculator {
+
+    private final UtilityFunction function;
 
     protected MarylandUpdateCarOwnershipJSCalculator(Reader reader) {
-        super(reader);
+        function = UtilityScript.compile(reader).getFunction("calculateCarOwnerShipProbabilities");
     }
 
     public double[] calculateCarOwnerShipProbabilities(int hhSize, int wrk, int inc, int transitAcc, int dens) {
-        return super.calculate("calculateCarOwnerShipProbabilities", hhSize, wrk, inc,
+        return function.calculateDoubleArray(hhSize, wrk, inc,
                 transitAcc, dens);
     }
 }
@@ -1,20 +1,24 @@
 package de.tum.bgu.msm.models;
 
 import de.tum.bgu.msm.data.household.HouseholdType;
-import de.tum.bgu.msm.util.js.JavaScriptCalculator;
+import de.tum.bgu.msm.utils.script.UtilityFunction;
+import de.tum.bgu.msm.utils.script.UtilityScript;
 
 import java.io.Reader;
 
-public class MstmDwellingUtilityJSCalculator extends JavaScriptCalculator<Double> {
+public class MstmDwellingUtilityJSCalculator {
+
+    private final UtilityFunction function;
+
     protected MstmDwellingUtilityJSCalculator(Reader reader) {
-        super(reader);
+        function = UtilityScript.compile(reader).getFunction("calculateSelectDwellingUtility");
     }
 
     public double calculateSelectDwellingUtility(HouseholdType ht, double ddSizeUtility, double ddPriceUtility,
                                                  double ddQualityUtility, double ddAutoAccessibilityUtility,
                                                  double transitAccessibilityUtility, double ddSchoolQuality,
                                                  double ddCrimeIndex, double ddWorkDistanceUtility) {
-        return super.calculate("calculateSelectDwellingUtility", ht, ddSizeUtility, ddPriceUtility,
+        return function.calculateDouble(ht, ddSizeUtility, ddPriceUtility,
                 ddQualityUtility, ddAutoAccessibilityUtility,
                 transitAccessibilityUtility, ddSchoolQuality,
                 ddCrimeIndex, ddWorkDistanceUtility);
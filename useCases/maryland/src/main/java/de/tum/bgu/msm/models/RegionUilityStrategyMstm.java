@@ -2,24 +2,23 @@ package de.tum.bgu.msm.models;
 
 import de.tum.bgu.msm.data.person.Race;
 import de.tum.bgu.msm.data.household.IncomeCategory;
-import de.tum.bgu.msm.util.js.JavaScriptCalculator;
+import de.tum.bgu.msm.utils.script.UtilityFunction;
+import de.tum.bgu.msm.utils.script.UtilityScript;
 
 import java.io.InputStreamReader;
-import java.io.Reader;
 
-public class RegionUilityStrategyMstm extends JavaScriptCalculator<Double> {
-
-    private final static Reader reader
-            = new InputStreamReader(DwellingUtilityStrategyMstm.class.getResourceAsStream("RegionUtilityCalcMstm"));
+public class RegionUilityStrategyMstm {
 
+    private final UtilityFunction function;
 
     public RegionUilityStrategyMstm() {
-        super(reader);
+        function = UtilityScript.compile(new InputStreamReader(RegionUilityStrategyMstm.class.getResourceAsStream("RegionUtilityCalcMstm")))
+                .getFunction("calculateRegionUtility");
     }
 
     double calculateRegionUtility(IncomeCategory incomeCategory, Race race, float price,
                                   float accessibility, float share, float schoolQuality, float crimeRate) {
-        return super.calculate("calculateRegionUtility", incomeCategory, race, price, accessibility, share, schoolQuality, crimeRate);
+        return function.calculateDouble(incomeCategory, race, price, accessibility, share, schoolQuality, crimeRate);
     }
 
 }
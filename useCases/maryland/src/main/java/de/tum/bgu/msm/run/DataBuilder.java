@@ -16,6 +16,7 @@ import de.tum.bgu.msm.data.household.HouseholdDataManager;
 import de.tum.bgu.msm.data.household.HouseholdFactoryMstm;
 import de.tum.bgu.msm.data.job.*;
 import de.tum.bgu.msm.data.person.PersonfactoryMstm;
+import de.tum.bgu.msm.data.MappedSkimTravelTimes;
 import de.tum.bgu.msm.data.travelTimes.SkimTravelTimes;
 import de.tum.bgu.msm.data.travelTimes.TravelTimes;
 import de.tum.bgu.msm.io.DwellingReaderMstm;
@@ -49,6 +50,10 @@ public final class DataBuilder {
                 travelTimes = new SkimTravelTimes();
                 accessibility = new AccessibilityImpl(geoData, travelTimes, properties, dwellingData, jobData);
                 break;
+            case MAPPED_SKIM:
+                travelTimes = new MappedSkimTravelTimes();
+                accessibility = new AccessibilityImpl(geoData, travelTimes, properties, dwellingData, jobData);
+                break;
             case MATSIM:
                 travelTimes = new MatsimTravelTimesAndCosts(config);
 //                accessibility = new MatsimAccessibility(geoData);
@@ -0,0 +1,49 @@
+package de.tum.bgu.msm.models;
+
+import de.tum.bgu.msm.data.household.HouseholdType;
+import de.tum.bgu.msm.data.household.IncomeCategory;
+import de.tum.bgu.msm.data.person.Race;
+import de.tum.bgu.msm.utils.script.ScriptEngineComparison;
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.util.Random;
+
+/**
+ * Compares the compiled calc scripts of Maryland with their evaluation by the script engine.
+ */
+public class CalcScriptsMstmTest {
+
+    private static final int SAMPLES = 2000;
+
+    private static ScriptEngineComparison compare(String script, String function) {
+        return new ScriptEngineComparison(() -> new InputStreamReader(
+                DwellingUtilityStrategyMstm.class.getResourceAsStream(script)), function, CalcScriptsMstmTest.class, script + ".reference");
+    }
+
+    @Test
+    public void testDwellingUtility() {
+        ScriptEngineComparison comparison = compare("DwellingUtilityCalcMstm", "calculateSelectDwellingUtility");
+        Random random = new Random(42);
+        HouseholdType[] types = HouseholdType.values();
+        for (int i = 0; i < SAMPLES; i++) {
+            comparison.assertSameResult(types[random.nextInt(types.length)], random.nextDouble(), random.nextDouble(),
+                    random.nextDouble(), random.nextDouble(), random.nextDouble(), random.nextDouble(),
+                    random.nextDouble(), random.nextDouble());
+        }
+        comparison.assertAllCompared();
+    }
+
+    @Test
+    public void testRegionUtility() {
+        ScriptEngineComparison comparison = compare("RegionUtilityCalcMstm", "calculateRegionUtility");
+        Random random = new Random(42);
+        IncomeCategory[] incomes = IncomeCategory.values();
+        Race[] races = Race.values();
+        for (int i = 0; i < SAMPLES; i++) {
+            comparison.assertSameResult(incomes[random.nextInt(incomes.length)], races[random.nextInt(races.length)],
+                    random.nextFloat(), random.nextFloat(), random.nextFloat(), random.nextFloat(), random.nextFloat());
+        }
+        comparison.assertAllCompared();
+    }
+}
@@ -2,8 +2,13 @@ package de.tum.bgu.msm.data.household;
 
 import de.tum.bgu.msm.data.vehicle.Car;
 import de.tum.bgu.msm.data.vehicle.VehicleType;
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
 
-public class HouseholdFactoryMuc implements HouseholdFactory {
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class HouseholdFactoryMuc implements HouseholdFactory, EntityCheckpointCodec<Household> {
 
     @Override
     public HouseholdMuc createHousehold(int id, int dwellingID, int autos) {
@@ -23,4 +28,14 @@ public class HouseholdFactoryMuc implements HouseholdFactory {
 
         return duplicate;
     }
+
+    @Override
+    public void writeCheckpointFields(Household household, DataOutputStream out) throws IOException {
+        // the nationality of a household is derived from its members
+    }
+
+    @Override
+    public void readCheckpointFields(Household household, DataInputStream in) throws IOException {
+        // the nationality of a household is derived from its members
+    }
 }
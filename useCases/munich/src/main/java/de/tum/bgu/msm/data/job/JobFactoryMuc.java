@@ -1,17 +1,20 @@
 package de.tum.bgu.msm.data.job;
 
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
 import de.tum.bgu.msm.properties.Properties;
 import de.tum.bgu.msm.utils.SiloUtil;
 import org.locationtech.jts.geom.Coordinate;
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-public class JobFactoryMuc implements JobFactory {
+public class JobFactoryMuc implements JobFactory, EntityCheckpointCodec<Job> {
 
     private final Map<String, Map<Integer,Double>> startTimeDistributionByJobType = new ConcurrentHashMap<>();
     private final Map<String, Map<Integer,Double>> workingTimeDistributionByJobType = new ConcurrentHashMap<>();
@@ -79,6 +82,15 @@ public class JobFactoryMuc implements JobFactory {
 
     }
 
+    @Override
+    public void writeCheckpointFields(Job job, DataOutputStream out) throws IOException {
+        out.writeInt(job.getStartTimeInSeconds().get());
+        out.writeInt(job.getWorkingTimeInSeconds().get());
+    }
 
-
+    @Override
+    public void readCheckpointFields(Job job, DataInputStream in) throws IOException {
+        // replaces the working time drawn when the job was created
+        ((JobMuc) job).setJobWorkingTime(in.readInt(), in.readInt());
+    }
 }
@@ -1,6 +1,12 @@
 package de.tum.bgu.msm.data.person;
 
-public class PersonFactoryMuc implements PersonFactory {
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class PersonFactoryMuc implements PersonFactory, EntityCheckpointCodec<Person> {
 
     @Override
     public PersonMuc createPerson(int id, int age,
@@ -34,4 +40,23 @@ public class PersonFactoryMuc implements PersonFactory {
         duplicate.setSchoolId(((PersonMuc) originalPerson).getSchoolId());
         return duplicate;
     }
+
+    @Override
+    public void writeCheckpointFields(Person person, DataOutputStream out) throws IOException {
+        final PersonMuc personMuc = (PersonMuc) person;
+        out.writeByte(personMuc.getNationality() == null ? -1 : personMuc.getNationality().ordinal());
+        out.writeInt(personMuc.getSchoolType());
+        out.writeInt(personMuc.getSchoolPlace());
+        out.writeInt(personMuc.getSchoolId());
+    }
+
+    @Override
+    public void readCheckpointFields(Person person, DataInputStream in) throws IOException {
+        final PersonMuc personMuc = (PersonMuc) person;
+        final byte nationality = in.readByte();
+        personMuc.setNationality(nationality < 0 ? null : Nationality.values()[nationality]);
+        personMuc.setSchoolType(in.readInt());
+        personMuc.setSchoolPlace(in.readInt());
+        personMuc.setSchoolId(in.readInt());
+    }
 }
@@ -1,6 +1,12 @@
 package de.tum.bgu.msm.data.person;
 
-public class PersonFactoryMucDisability implements PersonFactory {
+import de.tum.bgu.msm.io.checkpoint.EntityCheckpointCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class PersonFactoryMucDisability implements PersonFactory, EntityCheckpointCodec<Person> {
 
     @Override
     public PersonMucDisability createPerson(int id, int age,
@@ -35,4 +41,26 @@ public class PersonFactoryMucDisability implements PersonFactory {
         duplicate.setDisability(((PersonMucDisability) originalPerson).getDisability());
         return duplicate;
     }
+
+    @Override
+    public void writeCheckpointFields(Person person, DataOutputStream out) throws IOException {
+        final PersonMucDisability personMuc = (PersonMucDisability) person;
+        out.writeByte(personMuc.getNationality() == null ? -1 : personMuc.getNationality().ordinal());
+        out.writeInt(personMuc.getSchoolType());
+        out.writeInt(personMuc.getSchoolPlace());
+        out.writeInt(personMuc.getSchoolId());
+        out.writeByte(personMuc.getDisability() == null ? -1 : personMuc.getDisability().ordinal());
+    }
+
+    @Override
+    public void readCheckpointFields(Person person, DataInputStream in) throws IOException {
+        final PersonMucDisability personMuc = (PersonMucDisability) person;
+        final byte nationality = in.readByte();
+        personMuc.setNationality(nationality < 0 ? null : Nationality.values()[nationality]);
+        personMuc.setSchoolType(in.readInt());
+        personMuc.setSchoolPlace(in.readInt());
+        personMuc.setSchoolId(in.readInt());
+        final byte disability = in.readByte();
+        personMuc.setDisability(disability < 0 ? null : Disability.values()[disability]);
+    }
 }
@@ -2,7 +2,6 @@ package de.tum.bgu.msm.io;
 
 import com.google.common.collect.Multiset;
 import de.tum.bgu.msm.container.DataContainer;
-import de.tum.bgu.msm.data.person.Person;
 import de.tum.bgu.msm.events.MicroEvent;
 import de.tum.bgu.msm.io.output.DefaultResultsMonitor;
 import de.tum.bgu.msm.io.output.MultiFileResultsMonitor;
@@ -63,11 +62,7 @@ public class MultiFileResultsMonitorMuc extends MultiFileResultsMonitor {
             popByRace.println("ppByRace,hh");
         }
 
-        int ppRace[] = new int[1];
-        for (Person per : dataContainer.getHouseholdDataManager().getPersons()) {
-            ppRace[0]++;
-        }
-        popByRace.println("no_race," + ppRace[0]);
+        popByRace.println("no_race," + dataContainer.getHouseholdDataManager().getPersons().size());
 
 
     }
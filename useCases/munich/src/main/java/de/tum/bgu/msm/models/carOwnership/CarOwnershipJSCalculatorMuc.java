@@ -1,22 +1,25 @@
 package de.tum.bgu.msm.models.carOwnership;
 
-import de.tum.bgu.msm.util.js.JavaScriptCalculator;
+import de.tum.bgu.msm.utils.script.UtilityFunction;
+import de.tum.bgu.msm.utils.script.UtilityScript;
 
 import java.io.Reader;
 
 /**
  * Created by matthewokrah on 29/09/2017.
  */
-public class CarOwnershipJSCalculatorMuc extends JavaScriptCalculator<double[]> {
+public class CarOwnershipJSCalculatorMuc {
+
+    private final UtilityFunction function;
 
     public CarOwnershipJSCalculatorMuc(Reader reader){
-        super(reader);
+        function = UtilityScript.compile(reader).getFunction("calculateCarOwnerShipProbabilities");
     }
 
     public double[] calculateCarOwnerShipProbabilities(int previousCars, int hhSizePlus, int hhSizeMinus,
                                                        int hhIncomePlus, int hhIncomeMinus, int licensePlus,
                                                        int changeResidence) {
-        return super.calculate("calculateCarOwnerShipProbabilities", previousCars, hhSizePlus, hhSizeMinus,
+        return function.calculateDoubleArray(previousCars, hhSizePlus, hhSizeMinus,
                 hhIncomePlus, hhIncomeMinus, licensePlus, changeResidence);
     }
 
@@ -1,19 +1,22 @@
 package de.tum.bgu.msm.models.carOwnership;
 
-import de.tum.bgu.msm.util.js.JavaScriptCalculator;
+import de.tum.bgu.msm.utils.script.UtilityFunction;
+import de.tum.bgu.msm.utils.script.UtilityScript;
 
 import java.io.Reader;
 
 /**
  * Created by matthewokrah on 28/09/2017.
  */
-public class CreateCarOwnershipJSCalculatorMuc extends JavaScriptCalculator<double[]> {
+public class CreateCarOwnershipJSCalculatorMuc {
+
+    private final UtilityFunction function;
 
     public CreateCarOwnershipJSCalculatorMuc(Reader reader){
-        super(reader);
+        function = UtilityScript.compile(reader).getFunction("calculate");
     }
 
     public double[] calculate(int license, int workers, int income, double logDistanceToTransit, int areaType) {
-        return super.calculate("calculate", license, workers, income, logDistanceToTransit, areaType);
+        return function.calculateDoubleArray(license, workers, income, logDistanceToTransit, areaType);
     }
 }
@@ -1,18 +1,22 @@
 package de.tum.bgu.msm.models.carOwnership;
 
-import de.tum.bgu.msm.util.js.JavaScriptCalculator;
+import de.tum.bgu.msm.utils.script.UtilityFunction;
+import de.tum.bgu.msm.utils.script.UtilityScript;
 
 import java.io.Reader;
 
 /**
  * Created by matthewokrah on 26/06/2018.
  */
-public class SwitchToAutonomousVehicleJSCalculatorMuc extends JavaScriptCalculator<double[]>{
+public class SwitchToAutonomousVehicleJSCalculatorMuc {
+
+    private final UtilityFunction function;
+
     public SwitchToAutonomousVehicleJSCalculatorMuc(Reader reader){
-        super(reader);
+        function = UtilityScript.compile(reader).getFunction("calculateSwitchToAutonomousVehicleProbabilities");
     }
 
     public double[] calculate(int income, int year) {
-        return super.calculate("calculateSwitchToAutonomousVehicleProbabilities", income, year);
+        return function.calculateDoubleArray(income, year);
     }
 }
@@ -1,21 +1,24 @@
 package de.tum.bgu.msm.models.relocation;
 
 import de.tum.bgu.msm.data.household.HouseholdType;
-import de.tum.bgu.msm.util.js.JavaScriptCalculator;
+import de.tum.bgu.msm.utils.script.UtilityFunction;
+import de.tum.bgu.msm.utils.script.UtilityScript;
 
 import java.io.InputStreamReader;
-import java.io.Reader;
 
-public class DwellingUtilityStrategyImpl extends JavaScriptCalculator<Double> implements DwellingUtilityStrategy {
+public class DwellingUtilityStrategyImpl implements DwellingUtilityStrategy {
+
+    private final UtilityFunction function;
 
     public DwellingUtilityStrategyImpl() {
-        super(new InputStreamReader(DwellingUtilityStrategyImpl.class.getResourceAsStream("DwellingUtilityCalc")));
+        function = UtilityScript.compile(new InputStreamReader(DwellingUtilityStrategyImpl.class.getResourceAsStream("DwellingUtilityCalc")))
+                .getFunction("calculateSelectDwellingUtility");
     }
 
-    public synchronized double calculateSelectDwellingUtility(HouseholdType ht, double ddSizeUtility, double ddPriceUtility,
+    public double calculateSelectDwellingUtility(HouseholdType ht, double ddSizeUtility, double ddPriceUtility,
                                                  double ddQualityUtility, double ddAutoAccessibilityUtility,
                                                  double transitAccessibilityUtility, double ddWorkDistanceUtility) {
-       return super.calculate("calculateSelectDwellingUtility", ht, ddSizeUtility, ddPriceUtility,
+       return function.calculateDouble(ht, ddSizeUtility, ddPriceUtility,
                 ddQualityUtility, ddAutoAccessibilityUtility,
                 transitAccessibilityUtility, ddWorkDistanceUtility);
     }
@@ -87,7 +87,7 @@ public class DraconicResettlementJobMarketUpdate extends AbstractModel implement
             }
         }
 
-        for(Job job: jobDataManager.getJobs()) {
+        for(Job job: new ArrayList<>(jobDataManager.getJobs())) {
             if(random.nextDouble() < 0.1) {
                 int zoneId = job.getZoneId();
                 Zone zone = dataContainer.getGeoData().getZones().get(zoneId);
@@ -96,7 +96,10 @@ public class DraconicResettlementJobMarketUpdate extends AbstractModel implement
                     try {
                         Zone urbanZone = zoneSampler.sampleObject();
                         Coordinate urbanCoord = urbanZone.getRandomCoordinate(random);
+                        // remove and add again so that the job data is aware of the new zone
+                        jobDataManager.removeJob(job.getId());
                         job.relocateJob(urbanZone, urbanCoord);
+                        jobDataManager.addJob(job);
                     } catch (SampleException e) {
                         LOGGER.warn(e);
                     }
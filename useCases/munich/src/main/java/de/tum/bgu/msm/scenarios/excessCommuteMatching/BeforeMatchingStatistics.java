@@ -1,6 +1,7 @@
 package de.tum.bgu.msm.scenarios.excessCommuteMatching;
 
 import de.tum.bgu.msm.DataBuilder;
+import de.tum.bgu.msm.data.MappedSkimTravelTimes;
 import de.tum.bgu.msm.data.Zone;
 import de.tum.bgu.msm.data.job.Job;
 import de.tum.bgu.msm.data.person.Person;
@@ -24,7 +25,12 @@ public class BeforeMatchingStatistics {
         Properties properties = SiloUtil.siloInitialization(path);
         DataContainerWithSchools dataContainer = DataBuilder.getModelDataForMuc(properties, null);
         DataBuilder.read(properties, dataContainer);
-        TravelTimeUtil.updateCarSkim((SkimTravelTimes) dataContainer.getTravelTimes(), 2011, properties);
+        if (dataContainer.getTravelTimes() instanceof MappedSkimTravelTimes) {
+            TravelTimeUtil.updateMappedSkims((MappedSkimTravelTimes) dataContainer.getTravelTimes(), 2011, properties,
+                    dataContainer.getGeoData());
+        } else {
+            TravelTimeUtil.updateCarSkim((SkimTravelTimes) dataContainer.getTravelTimes(), 2011, properties);
+        }
 
 
         final Map<String, List<Person>> collect = dataContainer.getHouseholdDataManager().getPersons().stream().filter(p -> p.getJobId() > 0).collect(Collectors.groupingBy(p -> {
@@ -4,6 +4,7 @@ import cern.colt.map.tint.OpenIntIntHashMap;
 import cern.colt.map.tobject.OpenIntObjectHashMap;
 import com.google.common.math.LongMath;
 import de.tum.bgu.msm.DataBuilder;
+import de.tum.bgu.msm.data.MappedSkimTravelTimes;
 import de.tum.bgu.msm.data.Zone;
 import de.tum.bgu.msm.data.job.Job;
 import de.tum.bgu.msm.data.job.JobType;
@@ -48,7 +49,12 @@ public class GaleShapley {
         Properties properties = SiloUtil.siloInitialization(path);
         DataContainerWithSchools dataContainer = DataBuilder.getModelDataForMuc(properties, null);
         DataBuilder.read(properties, dataContainer);
-        TravelTimeUtil.updateCarSkim((SkimTravelTimes) dataContainer.getTravelTimes(), 2011, properties);
+        if (dataContainer.getTravelTimes() instanceof MappedSkimTravelTimes) {
+            TravelTimeUtil.updateMappedSkims((MappedSkimTravelTimes) dataContainer.getTravelTimes(), 2011, properties,
+                    dataContainer.getGeoData());
+        } else {
+            TravelTimeUtil.updateCarSkim((SkimTravelTimes) dataContainer.getTravelTimes(), 2011, properties);
+        }
 
         final Collection<Person> persons = dataContainer.getHouseholdDataManager().getPersons();
         final Map<String, List<Person>> personsByJobSector = persons.stream().filter(p -> p.getJobId() > 0)
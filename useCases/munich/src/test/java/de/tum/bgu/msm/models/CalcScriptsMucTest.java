@@ -0,0 +1,85 @@
+package de.tum.bgu.msm.models;
+
+import de.tum.bgu.msm.data.household.HouseholdType;
+import de.tum.bgu.msm.data.household.IncomeCategory;
+import de.tum.bgu.msm.data.person.Nationality;
+import de.tum.bgu.msm.models.carOwnership.CreateCarOwnershipModelMuc;
+import de.tum.bgu.msm.models.relocation.DwellingUtilityStrategyImpl;
+import de.tum.bgu.msm.utils.script.ScriptEngineComparison;
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.util.Random;
+
+/**
+ * Compares the compiled calc scripts of Munich with their evaluation by the script engine.
+ */
+public class CalcScriptsMucTest {
+
+    private static final int SAMPLES = 2000;
+
+    private static ScriptEngineComparison compare(Class<?> model, String script, String function) {
+        return new ScriptEngineComparison(() -> new InputStreamReader(model.getResourceAsStream(script)), function,
+                CalcScriptsMucTest.class, script + ".reference");
+    }
+
+    @Test
+    public void testDwellingUtility() {
+        ScriptEngineComparison comparison = compare(DwellingUtilityStrategyImpl.class, "DwellingUtilityCalc", "calculateSelectDwellingUtility");
+        Random random = new Random(42);
+        HouseholdType[] types = HouseholdType.values();
+        for (int i = 0; i < SAMPLES; i++) {
+            comparison.assertSameResult(types[random.nextInt(types.length)], random.nextDouble(), random.nextDouble(),
+                    random.nextDouble(), random.nextDouble(), random.nextDouble(), random.nextDouble());
+        }
+        comparison.assertAllCompared();
+    }
+
+    @Test
+    public void testRegionUtility() {
+        ScriptEngineComparison comparison = compare(DwellingUtilityStrategyImpl.class, "RegionUtilityCalc", "calculateRegionUtility");
+        Random random = new Random(42);
+        IncomeCategory[] incomes = IncomeCategory.values();
+        Nationality[] nationalities = Nationality.values();
+        for (int i = 0; i < SAMPLES; i++) {
+            // shares outside of [0, 1] have to fail in both
+            comparison.assertSameResult(incomes[random.nextInt(incomes.length)], nationalities[random.nextInt(nationalities.length)],
+                    random.nextFloat(), random.nextFloat(), 1.2f * random.nextFloat() - 0.1f);
+        }
+        comparison.assertAllCompared();
+    }
+
+    @Test
+    public void testCreateCarOwnership() {
+        ScriptEngineComparison comparison = compare(CreateCarOwnershipModelMuc.class, "CreateCarOwnershipCalc", "calculate");
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            comparison.assertSameResult(random.nextInt(5), random.nextInt(5), random.nextInt(10000),
+                    10 * random.nextDouble(), 1 + random.nextInt(4));
+        }
+        comparison.assertAllCompared();
+    }
+
+    @Test
+    public void testUpdateCarOwnership() {
+        ScriptEngineComparison comparison = compare(CreateCarOwnershipModelMuc.class, "UpdateCarOwnershipCalc", "calculateCarOwnerShipProbabilities");
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            comparison.assertSameResult(random.nextInt(4), random.nextInt(2), random.nextInt(2), random.nextInt(2),
+                    random.nextInt(2), random.nextInt(2), random.nextInt(2));
+        }
+        comparison.assertAllCompared();
+    }
+
+    @Test
+    public void testSwitchToAutonomousVehicle() {
+        for (String script : new String[]{"SwitchToAutonomousVehicleCalc0", "SwitchToAutonomousVehicleCalcA"}) {
+            ScriptEngineComparison comparison = compare(CreateCarOwnershipModelMuc.class, script, "calculateSwitchToAutonomousVehicleProbabilities");
+            Random random = new Random(42);
+            for (int i = 0; i < SAMPLES; i++) {
+                comparison.assertSameResult(random.nextInt(10000), 2011 + random.nextInt(70));
+            }
+            comparison.assertAllCompared();
+        }
+    }
+}